@@ -1,6 +1,7 @@
 plugins {
     java
     id("com.github.johnrengelman.shadow") version "7.1.0"
+    id("me.champeau.jmh") version "0.6.5"
 }
 
 group = "xyz.oliwer"
@@ -17,6 +18,83 @@ dependencies {
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.7.0")
 }
 
+val harness: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[harness.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[harness.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 tasks.test {
     useJUnitPlatform()
+}
+
+// replays synthetic chat traffic against an embedded IRC server, i.e -PloadTest="rate=2000 channels=50"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Measures reply throughput and latency of the dispatch path against a local IRC server."
+    classpath = harness.runtimeClasspath
+    mainClass.set("xyz.oliwer.twitch.bot.harness.LoadTest")
+    args = (findProperty("loadTest") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// fires concurrent Helix lookups against a local stand-in, i.e -PhelixCheck="lookups=50000 users=2000"
+tasks.register<JavaExec>("helixCheck") {
+    group = "verification"
+    description = "Compares Helix lookups against the batched requests actually sent to a local Helix server."
+    classpath = harness.runtimeClasspath
+    mainClass.set("xyz.oliwer.twitch.bot.harness.HelixCheck")
+    args = (findProperty("helixCheck") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// kills all chat connections of a local IRC server under traffic, i.e -PreconnectCheck="channels=5000 joins=2000"
+tasks.register<JavaExec>("reconnectCheck") {
+    group = "verification"
+    description = "Measures how long rejoining all channels takes after every chat connection is dropped."
+    classpath = harness.runtimeClasspath
+    mainClass.set("xyz.oliwer.twitch.bot.harness.ReconnectCheck")
+    args = (findProperty("reconnectCheck") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// runs several bot processes as a cluster against a local IRC server, i.e -PclusterCheck="nodes=4 channels=2000"
+tasks.register<JavaExec>("clusterCheck") {
+    group = "verification"
+    description = "Verifies channel ownership, command replication and handoffs of a cluster of local bot processes."
+    classpath = harness.runtimeClasspath
+    mainClass.set("xyz.oliwer.twitch.bot.harness.ClusterCheck")
+    args = (findProperty("clusterCheck") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+tasks.shadowJar {
+    manifest {
+        attributes["Main-Class"] = "xyz.oliwer.twitch.bot.BotApplication"
+    }
+}
+
+// trains a shared class archive on a startup of the shadow jar, run it with:
+// java -XX:SharedArchiveFile=build/libs/<jar>.jsa -jar build/libs/<jar>.jar
+tasks.register<Exec>("appCds") {
+    group = "build"
+    description = "Trains a shared class archive (AppCDS) for the shadow jar on a startup without channels."
+    val jar = tasks.shadowJar.flatMap { it.archiveFile }
+    dependsOn(tasks.shadowJar)
+    inputs.file(jar)
+    outputs.file(jar.map { it.asFile.resolveSibling(it.asFile.nameWithoutExtension + ".jsa") })
+    doFirst {
+        val file = jar.get().asFile
+        commandLine(
+            "${System.getProperty("java.home")}/bin/java",
+            "-XX:ArchiveClassesAtExit=${file.resolveSibling(file.nameWithoutExtension + ".jsa")}",
+            "-jar", file.absolutePath,
+            "--train"
+        )
+    }
+}
+
+jmh {
+    jmhVersion.set("1.33")
+    includes.set(listOfNotNull(findProperty("jmhIncludes") as String?))
+    threads.set((findProperty("jmhThreads") as String?)?.toInt() ?: 1)
+    profilers.set(listOf("gc"))
 }
\ No newline at end of file
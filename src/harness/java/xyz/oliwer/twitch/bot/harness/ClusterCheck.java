@@ -0,0 +1,232 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import xyz.oliwer.twitch.bot.cluster.ClusterCoordinator;
+import xyz.oliwer.twitch.bot.cluster.ClusterNode;
+import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.custom.CommandStore;
+import xyz.oliwer.twitch.bot.custom.CustomCommands;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.subscribers.CommandSubscriber;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents the check of cluster mode - running several bot processes (each in its own JVM) against
+ * a single {@link IrcServer} and {@link ClusterCoordinator}, verifying that every channel is joined by exactly one node,
+ * that custom commands defined through the coordinator answer on every node, and that a node leaving or joining
+ * only moves the channels it loses or gains.
+ * <br/>
+ *
+ * Arguments are given as key=value pairs: nodes and channels, i.e "nodes=4 channels=2000".
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ClusterCheck {
+  /**
+   * {@link String} this constant represents the reply of the command defined in every channel checked.
+   */
+  private static final String REPLY = "answered by the cluster";
+
+  /**
+   * {@link LongAdder} the amount of replies captured.
+   */
+  private final LongAdder replies = new LongAdder();
+
+  /**
+   * {@link List} the processes of all nodes started.
+   */
+  private final List<Process> nodes = new ArrayList<>();
+
+  /**
+   * Private constructor - use {@link ClusterCheck#main(String[])}.
+   */
+  private ClusterCheck() {}
+
+  // called when the check starts (or, given "node id port url", when a node process starts)
+  public static void main(String[] args) throws Exception {
+    if (args.length == 4 && args[0].equals("node")) {
+      node(args[1], Integer.parseInt(args[2]), args[3]);
+      return;
+    }
+
+    final Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      final int separator = arg.indexOf('=');
+      if (separator <= 0)
+        throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+      options.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+
+    final ClusterCheck check = new ClusterCheck();
+    try {
+      check.run(
+        Integer.parseInt(options.getOrDefault("nodes", "3")),
+        Integer.parseInt(options.getOrDefault("channels", "1000"))
+      );
+    } finally {
+      for (Process node : check.nodes)
+        node.destroyForcibly();
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Run the check.
+   */
+  private void run(int nodeCount, int channelCount) throws Exception {
+    try (IrcServer server = new IrcServer(0); ClusterCoordinator coordinator = new ClusterCoordinator(0)) {
+      server.onCapture(captured -> {
+        if (captured.message().equals(REPLY))
+          replies.increment();
+      });
+
+      final Set<String> channels = new LinkedHashSet<>();
+      for (int index = 0; index < channelCount; index++) {
+        final String channel = Traffic.channel(index);
+        channels.add(channel);
+        server.room(channel, String.valueOf(1000 + index));
+        coordinator.join(channel);
+      }
+
+      for (int index = 1; index <= nodeCount; index++)
+        start("node" + index, coordinator.port(), server.url());
+      Map<String, String> owners = settle(server, channels);
+      System.out.printf(Locale.ROOT, "placed      %d channels on %d node(s): %s%n", channels.size(), nodeCount, shares(owners));
+
+      // a command defined once answers wherever its channel is joined
+      final List<String> sample = new ArrayList<>(channels).subList(0, Math.min(50, channelCount));
+      for (String channel : sample)
+        coordinator.define(channel, "cluster", REPLY);
+      Thread.sleep(1000);
+      for (String channel : sample) {
+        final int index = Integer.parseInt(channel.substring("channel".length()));
+        server.deliver(channel, Traffic.line(index, 1, "", "!cluster"));
+      }
+      Thread.sleep(2000);
+      System.out.printf(Locale.ROOT, "replicated  %d of %d channels answered a command defined through the coordinator%n",
+        replies.sum(), sample.size());
+
+      // a node leaving only moves its own channels
+      final String killed = "node1";
+      nodes.get(0).destroyForcibly().waitFor();
+      final Map<String, String> afterLeave = settle(server, channels);
+      report("left", owners, afterLeave, killed, true);
+
+      // a node joining only takes channels onto itself
+      final String joined = "node" + (nodeCount + 1);
+      start(joined, coordinator.port(), server.url());
+      final Map<String, String> afterJoin = settle(server, channels);
+      report("joined", afterLeave, afterJoin, joined, false);
+    }
+  }
+
+  /**
+   * Start a node in a process of its own.
+   */
+  private void start(String node, int port, String url) throws Exception {
+    final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    final Process process = new ProcessBuilder(
+      java, "-cp", System.getProperty("java.class.path"), ClusterCheck.class.getName(), "node", node, String.valueOf(port), url
+    )
+      .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+      .redirectError(ProcessBuilder.Redirect.INHERIT)
+      .start();
+    nodes.add(process);
+  }
+
+  /**
+   * Wait until every channel is joined by exactly one node, and stays so for a second.
+   *
+   * @return {@link Map} the owner of each channel.
+   */
+  private static Map<String, String> settle(IrcServer server, Set<String> channels) throws InterruptedException {
+    final long deadline = System.nanoTime() + 120_000_000_000L;
+    Map<String, String> stable = null;
+    long stableSince = 0;
+    while (System.nanoTime() < deadline) {
+      final Map<String, String> owners = owners(server, channels);
+      if (owners == null) {
+        stable = null;
+      } else if (!owners.equals(stable)) {
+        stable = owners;
+        stableSince = System.nanoTime();
+      } else if (System.nanoTime() - stableSince >= 1_000_000_000L) {
+        return stable;
+      }
+      Thread.sleep(100);
+    }
+    throw new IllegalStateException("Channels did not settle on exactly one node each");
+  }
+
+  /**
+   * Get the owner of each channel, if every channel is joined by exactly one node.
+   */
+  private static Map<String, String> owners(IrcServer server, Set<String> channels) {
+    final Map<String, Set<String>> joinedBy = server.joinedBy();
+    final Map<String, String> owners = new HashMap<>();
+    for (String channel : channels) {
+      final Set<String> nicks = joinedBy.get(channel);
+      if (nicks == null || nicks.size() != 1)
+        return null;
+      owners.put(channel, nicks.iterator().next());
+    }
+    return owners;
+  }
+
+  /**
+   * Print (and verify) which channels moved as a node left or joined.
+   */
+  private static void report(String change, Map<String, String> before, Map<String, String> after, String node, boolean left) {
+    int moved = 0;
+    int unexpected = 0;
+    for (Map.Entry<String, String> entry : after.entrySet()) {
+      final String previous = before.get(entry.getKey());
+      if (previous.equals(entry.getValue()))
+        continue;
+
+      moved++;
+      if (left ? !previous.equals(node) : !entry.getValue().equals(node))
+        unexpected++;
+    }
+    System.out.printf(Locale.ROOT, "%-11s %s: %d channels moved (%.1f%%), %d of them unexpectedly, now %s%n",
+      change, node, moved, moved * 100.0 / after.size(), unexpected, shares(after));
+  }
+
+  /**
+   * Get the amount of channels owned by each node.
+   */
+  private static Map<String, Integer> shares(Map<String, String> owners) {
+    final Map<String, Integer> shares = new TreeMap<>();
+    for (String owner : owners.values())
+      shares.merge(owner, 1, Integer::sum);
+    return shares;
+  }
+
+  /**
+   * Run a single node until its process is killed.
+   */
+  private static void node(String node, int port, String url) throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("Client-Id", "harness");
+    properties.setProperty("Chat-Bot-Access-Token", "harness");
+    properties.setProperty("Chat-Bot-Name", node);
+    properties.setProperty("Chat-Server-Url", url);
+    properties.setProperty("Chat-Join-Rate", "100000");
+    properties.setProperty("Outbound-Regular-Limit", "100000");
+    properties.setProperty("Startup-Mode", "fast");
+
+    final BotClient client = new BotClient(properties);
+    final CommandController controller = new CommandController();
+    final Path store = Files.createTempDirectory("cluster-" + node);
+    final CustomCommands commands = new CustomCommands(new CommandStore(store), controller);
+    client.addChannelListener(commands);
+    client.subscribe(new CommandSubscriber(controller, client));
+
+    new ClusterNode(node, new InetSocketAddress("127.0.0.1", port), client, commands);
+    Thread.currentThread().join();
+  }
+}
\ No newline at end of file
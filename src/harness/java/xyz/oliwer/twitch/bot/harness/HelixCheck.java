@@ -0,0 +1,108 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import com.github.twitch4j.helix.TwitchHelixBuilder;
+import xyz.oliwer.twitch.bot.helix.HelixService;
+import xyz.oliwer.twitch.bot.metrics.Histogram;
+import xyz.oliwer.twitch.bot.metrics.MetricRegistry;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents the check of the coalescing of Helix lookups - firing lookups of many commands
+ * at once through a {@link HelixService} backed by a {@link HelixServer}, comparing the lookups made
+ * against the requests actually sent and verifying every answer against the synthetic population.
+ * <br/>
+ *
+ * Arguments are given as key=value pairs: lookups, users (the population looked up from), threads and delay
+ * (milliseconds each request takes), i.e "lookups=50000 users=2000 threads=8 delay=40".
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class HelixCheck {
+  /**
+   * Private constructor - use {@link HelixCheck#main(String[])}.
+   */
+  private HelixCheck() {}
+
+  // called when the check starts
+  public static void main(String[] args) throws Exception {
+    final Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      final int separator = arg.indexOf('=');
+      if (separator <= 0)
+        throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+      options.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+
+    final int lookups = Integer.parseInt(options.getOrDefault("lookups", "20000"));
+    final int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+    final int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+    final long delay = Long.parseLong(options.getOrDefault("delay", "40"));
+
+    try (HelixServer server = new HelixServer(0, users, Duration.ofMillis(delay))) {
+      final MetricRegistry registry = new MetricRegistry();
+      final HelixService service = new HelixService(
+        TwitchHelixBuilder.builder().withClientId("harness").withBaseUrl(server.url()).build(),
+        "harness",
+        HelixService.DEFAULT_WINDOW,
+        registry
+      );
+
+      final Histogram latency = new Histogram();
+      final LongAdder mismatches = new LongAdder();
+      final CountDownLatch done = new CountDownLatch(lookups);
+      for (int index = 0; index < threads; index++) {
+        final SplittableRandom random = new SplittableRandom(index);
+        final int share = lookups / threads + (index < lookups % threads ? 1 : 0);
+        final Thread caller = new Thread(() -> {
+          for (int count = 0; count < share; count++) {
+            final long start = System.nanoTime();
+            // a few ids beyond the population are looked up too, exercising absent results
+            final int id = random.nextInt(users + users / 10);
+            lookup(service, random.nextInt(4), id, users, random.nextInt(users)).whenComplete((matches, failure) -> {
+              latency.recordSince(start);
+              if (failure != null || !matches)
+                mismatches.increment();
+              done.countDown();
+            });
+          }
+        }, "helix-caller-" + index);
+        caller.start();
+      }
+
+      if (!done.await(5, TimeUnit.MINUTES))
+        throw new IllegalStateException("Lookups did not complete in time");
+      service.close();
+
+      final Histogram.Snapshot snapshot = latency.snapshot();
+      System.out.printf(Locale.ROOT, "lookups=%d requests=%d ids=%d mismatches=%d%n",
+        lookups, server.requests(), server.ids(), mismatches.sum());
+      System.out.printf(Locale.ROOT, "latency ms p50=%.2f p99=%.2f max=%.2f%n",
+        snapshot.quantile(0.5) / 1e6, snapshot.quantile(0.99) / 1e6, snapshot.max() / 1e6);
+      registry.samples().forEach((name, value) -> {
+        if (name.startsWith("bot_helix_"))
+          System.out.printf(Locale.ROOT, "%s=%.0f%n", name, value);
+      });
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Perform a lookup of a kind, completing with whether its answer matches the synthetic population.
+   */
+  private static CompletableFuture<Boolean> lookup(HelixService service, int kind, int id, int users, int other) {
+    final boolean exists = id < users;
+    return switch (kind) {
+      case 0 -> service.user(Integer.toString(id)).thenApply(user -> user.isPresent() == exists);
+      case 1 -> service.userByLogin("User" + id).thenApply(user -> user.isPresent() == exists);
+      case 2 -> service.stream(Integer.toString(id)).thenApply(stream -> stream.isPresent() == (exists && id % 3 == 0));
+      default -> service.follow(Integer.toString(id), Integer.toString(other))
+        .thenApply(follow -> follow.isPresent() == (exists && (id + other) % 2 == 0));
+    };
+  }
+}
\ No newline at end of file
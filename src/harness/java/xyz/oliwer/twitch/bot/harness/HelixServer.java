@@ -0,0 +1,245 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class represents an embedded stand-in for the Helix API, listening on localhost.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Serves /users (by id or login), /streams (by user id) and /users/follows from a synthetic population.</li>
+ *   <li>User {@code n} exists for every {@code n} below the population, with the login "user{n}".</li>
+ *   <li>Every third user is live, and a user follows another when the sum of their ids is even.</li>
+ *   <li>Counts requests and the ids they carried, optionally answering after a delay.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class HelixServer implements AutoCloseable {
+  /**
+   * {@link String} this constant represents the point in time every synthetic record was created at.
+   */
+  private static final String CREATED_AT = "2020-01-01T00:00:00Z";
+
+  /**
+   * {@link HttpServer} this property represents the underlying server.
+   */
+  private final HttpServer server;
+
+  /**
+   * {@link Integer} this property represents the amount of users existing.
+   */
+  private final int population;
+
+  /**
+   * {@link Duration} this property represents how long each request is delayed.
+   */
+  private final Duration delay;
+
+  /**
+   * {@link AtomicLong} this property represents the amount of requests served.
+   */
+  private final AtomicLong requests = new AtomicLong();
+
+  /**
+   * {@link AtomicLong} this property represents the amount of ids requested across all requests.
+   */
+  private final AtomicLong ids = new AtomicLong();
+
+  /**
+   * Primary constructor - starting the server.
+   *
+   * @param port {@link Integer} the port to listen on (0 for any free port).
+   * @param population {@link Integer} the amount of users existing.
+   * @param delay {@link Duration} how long each request is delayed (simulating the round trip to Twitch).
+   * @throws IOException if the port could not be bound.
+   */
+  public HelixServer(int port, int population, Duration delay) throws IOException {
+    this.population = population;
+    this.delay = delay;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+    this.server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "helix-server");
+      thread.setDaemon(true);
+      return thread;
+    }));
+
+    this.server.createContext("/helix/users", exchange -> serve(exchange, this::users));
+    this.server.createContext("/helix/streams", exchange -> serve(exchange, this::streams));
+    this.server.createContext("/helix/users/follows", exchange -> serve(exchange, this::follows));
+    this.server.start();
+  }
+
+  /**
+   * Get the url to pass as the Helix-Base-Url property.
+   *
+   * @return {@link String}
+   */
+  public String url() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/helix";
+  }
+
+  /**
+   * Get the amount of requests served.
+   *
+   * @return {@link Long}
+   */
+  public long requests() {
+    return requests.get();
+  }
+
+  /**
+   * Get the amount of ids requested across all requests.
+   *
+   * @return {@link Long}
+   */
+  public long ids() {
+    return ids.get();
+  }
+
+  /**
+   * Stop the server.
+   *
+   * @see AutoCloseable#close()
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  /**
+   * Answer a request with the data produced from its query.
+   */
+  private void serve(HttpExchange exchange, Function<Map<String, List<String>>, String> data) throws IOException {
+    try (exchange) {
+      requests.incrementAndGet();
+      if (!delay.isZero())
+        Thread.sleep(delay.toMillis());
+
+      final byte[] body = ("{\"data\":[" + data.apply(query(exchange)) + "],\"pagination\":{}}").getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Produce the users requested by id and login.
+   */
+  private String users(Map<String, List<String>> query) {
+    final StringJoiner joiner = new StringJoiner(",");
+    for (String id : query.getOrDefault("id", List.of()))
+      user(parse(id), joiner);
+    for (String login : query.getOrDefault("login", List.of()))
+      user(login.startsWith("user") ? parse(login.substring(4)) : -1, joiner);
+    return joiner.toString();
+  }
+
+  /**
+   * Produce the live streams of the requested users.
+   */
+  private String streams(Map<String, List<String>> query) {
+    final StringJoiner joiner = new StringJoiner(",");
+    for (String id : query.getOrDefault("user_id", List.of())) {
+      ids.incrementAndGet();
+      final long user = parse(id);
+      if (exists(user) && user % 3 == 0) {
+        joiner.add("{\"id\":\"s" + user + "\",\"user_id\":\"" + user + "\",\"user_login\":\"user" + user
+          + "\",\"user_name\":\"User" + user + "\",\"game_id\":\"\",\"type\":\"live\",\"title\":\"\",\"viewer_count\":" + user
+          + ",\"started_at\":\"" + CREATED_AT + "\",\"language\":\"en\",\"thumbnail_url\":\"\",\"tag_ids\":[]}");
+      }
+    }
+    return joiner.toString();
+  }
+
+  /**
+   * Produce the follow between the requested users.
+   */
+  private String follows(Map<String, List<String>> query) {
+    ids.incrementAndGet();
+    final long from = parse(first(query, "from_id"));
+    final long to = parse(first(query, "to_id"));
+    if (!exists(from) || !exists(to) || (from + to) % 2 != 0) {
+      return "";
+    }
+    return "{\"from_id\":\"" + from + "\",\"from_login\":\"user" + from + "\",\"from_name\":\"User" + from
+      + "\",\"to_id\":\"" + to + "\",\"to_login\":\"user" + to + "\",\"to_name\":\"User" + to
+      + "\",\"followed_at\":\"" + CREATED_AT + "\"}";
+  }
+
+  /**
+   * Add a user (if existing) to the produced data.
+   */
+  private void user(long id, StringJoiner joiner) {
+    ids.incrementAndGet();
+    if (!exists(id)) {
+      return;
+    }
+    joiner.add("{\"id\":\"" + id + "\",\"login\":\"user" + id + "\",\"display_name\":\"User" + id
+      + "\",\"type\":\"\",\"broadcaster_type\":\"\",\"description\":\"\",\"profile_image_url\":\"\",\"offline_image_url\":\"\""
+      + ",\"view_count\":0,\"created_at\":\"" + CREATED_AT + "\"}");
+  }
+
+  /**
+   * Get whether a user exists.
+   */
+  private boolean exists(long id) {
+    return id >= 0 && id < population;
+  }
+
+  /**
+   * Parse the query of a request (repeated parameters keep all of their values).
+   */
+  private static Map<String, List<String>> query(HttpExchange exchange) {
+    final Map<String, List<String>> query = new HashMap<>();
+    final String raw = exchange.getRequestURI().getRawQuery();
+    if (raw == null) {
+      return query;
+    }
+
+    for (String pair : raw.split("&")) {
+      final int separator = pair.indexOf('=');
+      if (separator <= 0)
+        continue;
+      query.computeIfAbsent(pair.substring(0, separator), key -> new ArrayList<>())
+        .add(URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+    }
+    return query;
+  }
+
+  /**
+   * Get the first value of a parameter.
+   */
+  private static String first(Map<String, List<String>> query, String name) {
+    final List<String> values = query.get(name);
+    return values == null || values.isEmpty() ? "" : values.get(0);
+  }
+
+  /**
+   * Parse an id, yielding -1 for anything which is not one.
+   */
+  private static long parse(String id) {
+    try {
+      return Long.parseLong(id);
+    } catch (NumberFormatException exception) {
+      return -1;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,509 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class represents an embedded stand-in for the Twitch chat server, listening on localhost.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Speaks IRC over WebSocket text frames, the same transport twitch4j uses (see the Chat-Server-Url property).</li>
+ *   <li>Acknowledges capabilities, logs in any account and answers joins with the tagged ROOMSTATE of Twitch.</li>
+ *   <li>Delivers lines to all connections joined to a channel and captures every PRIVMSG sent back.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class IrcServer implements AutoCloseable {
+  /**
+   * {@link String} this constant represents the GUID appended to a WebSocket key during the handshake.
+   */
+  private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  /**
+   * {@link ServerSocket} this property represents the listening socket.
+   */
+  private final ServerSocket socket;
+
+  /**
+   * {@link List} this property represents all open connections.
+   */
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+  /**
+   * {@link Map} this property represents the connections joined to each channel.
+   */
+  private final Map<String, Set<Connection>> members = new ConcurrentHashMap<>();
+
+  /**
+   * {@link Map} this property represents the identifier of each channel (room).
+   */
+  private final Map<String, String> rooms = new ConcurrentHashMap<>();
+
+  /**
+   * {@link AtomicInteger} this property represents the amount of connections accepted so far.
+   */
+  private final AtomicInteger accepted = new AtomicInteger();
+
+  /**
+   * {@link Consumer} this property represents the listener of captured messages.
+   */
+  private volatile Consumer<Captured> listener = captured -> {};
+
+  /**
+   * Primary constructor - starting the server.
+   *
+   * @param port {@link Integer} the port to listen on (0 for any free port).
+   * @throws IOException if the port could not be bound.
+   */
+  public IrcServer(int port) throws IOException {
+    this.socket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    final Thread acceptor = new Thread(this::accept, "irc-server-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Get the url to pass as the Chat-Server-Url property.
+   *
+   * @return {@link String}
+   */
+  public String url() {
+    return "ws://127.0.0.1:" + socket.getLocalPort();
+  }
+
+  /**
+   * Set the identifier of a channel (room), as sent in tags.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param id {@link String} identifier of said channel.
+   */
+  public void room(String channel, String id) {
+    rooms.put(channel, id);
+  }
+
+  /**
+   * Set the listener of messages sent by clients.
+   *
+   * @param listener {@link Consumer} the listener (invoked on the reading thread of each connection).
+   */
+  public void onCapture(Consumer<Captured> listener) {
+    this.listener = listener == null ? captured -> {} : listener;
+  }
+
+  /**
+   * Deliver a raw line to every connection joined to a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param line {@link String} the raw IRC line.
+   * @return {@link Integer} the amount of connections the line was delivered to.
+   */
+  public int deliver(String channel, String line) {
+    final Set<Connection> joined = members.get(channel);
+    if (joined == null) {
+      return 0;
+    }
+
+    int delivered = 0;
+    for (Connection connection : joined) {
+      if (connection.send(line))
+        delivered++;
+    }
+    return delivered;
+  }
+
+  /**
+   * Wait until all passed channels are joined by some connection.
+   *
+   * @param channels {@link Collection} names of the channels.
+   * @param timeout {@link Duration} the maximum time to wait.
+   * @return {@link Boolean} whether all channels were joined in time.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean awaitJoined(Collection<String> channels, Duration timeout) throws InterruptedException {
+    final long deadline = System.nanoTime() + timeout.toNanos();
+    while (System.nanoTime() < deadline) {
+      if (joined(channels))
+        return true;
+      Thread.sleep(20);
+    }
+    return joined(channels);
+  }
+
+  /**
+   * Get the nicknames of the connections joined to each channel.
+   *
+   * @return {@link Map} the nicknames by channel, leaving out channels nobody is joined to.
+   */
+  public Map<String, Set<String>> joinedBy() {
+    final Map<String, Set<String>> joinedBy = new HashMap<>();
+    members.forEach((channel, joined) -> {
+      final Set<String> nicks = new HashSet<>();
+      for (Connection connection : joined)
+        nicks.add(connection.nick);
+      if (!nicks.isEmpty())
+        joinedBy.put(channel, nicks);
+    });
+    return joinedBy;
+  }
+
+  /**
+   * Get the amount of open connections.
+   *
+   * @return {@link Integer}
+   */
+  public int connections() {
+    return connections.size();
+  }
+
+  /**
+   * Drop every open connection (without a close handshake), as if the network went away.
+   *
+   * @return {@link Integer} the amount of connections dropped.
+   */
+  public int killConnections() {
+    int killed = 0;
+    for (Connection connection : connections) {
+      connection.close();
+      killed++;
+    }
+    return killed;
+  }
+
+  /**
+   * Stop the server, dropping all connections.
+   */
+  @Override
+  public void close() {
+    try {
+      socket.close();
+    } catch (IOException ignored) {}
+    killConnections();
+  }
+
+  /**
+   * Get whether all passed channels are joined by some connection.
+   */
+  private boolean joined(Collection<String> channels) {
+    for (String channel : channels) {
+      final Set<Connection> joined = members.get(channel);
+      if (joined == null || joined.isEmpty())
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Accept connections until the server is closed.
+   */
+  private void accept() {
+    while (!socket.isClosed()) {
+      try {
+        final Connection connection = new Connection(socket.accept());
+        final Thread reader = new Thread(connection::read, "irc-server-connection-" + accepted.incrementAndGet());
+        reader.setDaemon(true);
+        reader.start();
+      } catch (IOException ignored) {}
+    }
+  }
+
+  /**
+   * This record represents a message captured from a client.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Captured(String channel, String message, long receivedAt) {}
+
+  /**
+   * This class represents a single client connection.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private final class Connection {
+    /**
+     * {@link Socket} the underlying socket.
+     */
+    private final Socket socket;
+
+    /**
+     * {@link OutputStream} the output of said socket (guarded by this connection).
+     */
+    private final OutputStream output;
+
+    /**
+     * {@link Set} the channels joined through this connection.
+     */
+    private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+    /**
+     * {@link String} the nickname logged in with.
+     */
+    private volatile String nick = "justinfan";
+
+    /**
+     * Primary constructor.
+     */
+    private Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.socket.setTcpNoDelay(true);
+      this.output = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Perform the handshake, then read lines until the connection closes.
+     */
+    private void read() {
+      try (socket) {
+        final InputStream input = new BufferedInputStream(socket.getInputStream());
+        if (!handshake(input)) {
+          return;
+        }
+        connections.add(this);
+
+        final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        while (true) {
+          final int head = input.read();
+          if (head < 0) {
+            return;
+          }
+
+          final int opcode = head & 0x0F;
+          final byte[] payload = payload(input);
+          switch (opcode) {
+            case 0x8 -> {
+              frame(0x8, payload);
+              return;
+            }
+            case 0x9 -> frame(0xA, payload);
+            case 0x0, 0x1 -> {
+              message.write(payload);
+              if ((head & 0x80) != 0) {
+                for (String line : message.toString(StandardCharsets.UTF_8).split("\r?\n")) {
+                  if (!line.isEmpty())
+                    handle(line);
+                }
+                message.reset();
+              }
+            }
+            default -> {}
+          }
+        }
+      } catch (IOException ignored) {
+        // dropped
+      } finally {
+        connections.remove(this);
+        for (String channel : channels) {
+          final Set<Connection> joined = members.get(channel);
+          if (joined != null)
+            joined.remove(this);
+        }
+      }
+    }
+
+    /**
+     * Handle a single line sent by the client.
+     */
+    private void handle(String line) {
+      final int space = line.indexOf(' ');
+      final String command = space < 0 ? line : line.substring(0, space);
+      final String rest = space < 0 ? "" : line.substring(space + 1);
+
+      switch (command) {
+        case "CAP" -> send(":tmi.twitch.tv CAP * ACK " + rest.substring(rest.indexOf(':')));
+        case "PASS" -> {}
+        case "NICK" -> {
+          nick = rest.trim().toLowerCase(Locale.ROOT);
+          for (String welcome : new String[] {
+            "001 " + nick + " :Welcome, GLHF!",
+            "002 " + nick + " :Your host is tmi.twitch.tv",
+            "003 " + nick + " :This server is rather new",
+            "004 " + nick + " :-",
+            "375 " + nick + " :-",
+            "372 " + nick + " :You are in a maze of twisty passages, all alike.",
+            "376 " + nick + " :>"
+          }) send(":tmi.twitch.tv " + welcome);
+          send("@badge-info=;badges=;color=;display-name=" + nick + ";emote-sets=0;user-id=1;user-type= :tmi.twitch.tv GLOBALUSERSTATE");
+        }
+        case "JOIN" -> {
+          for (String target : rest.split(",")) {
+            final String channel = target.trim().substring(1).toLowerCase(Locale.ROOT);
+            channels.add(channel);
+            members.computeIfAbsent(channel, key -> ConcurrentHashMap.newKeySet()).add(this);
+
+            final String room = rooms.getOrDefault(channel, String.valueOf(Math.abs(channel.hashCode())));
+            send(":" + nick + "!" + nick + "@" + nick + ".tmi.twitch.tv JOIN #" + channel);
+            send(":" + nick + ".tmi.twitch.tv 353 " + nick + " = #" + channel + " :" + nick);
+            send(":" + nick + ".tmi.twitch.tv 366 " + nick + " #" + channel + " :End of /NAMES list");
+            send("@badge-info=;badges=moderator/1;color=;display-name=" + nick + ";emote-sets=0;mod=1;subscriber=0;user-type=mod :tmi.twitch.tv USERSTATE #" + channel);
+            send("@emote-only=0;followers-only=-1;r9k=0;room-id=" + room + ";slow=0;subs-only=0 :tmi.twitch.tv ROOMSTATE #" + channel);
+          }
+        }
+        case "PART" -> {
+          for (String target : rest.split(",")) {
+            final String channel = target.trim().substring(1).toLowerCase(Locale.ROOT);
+            channels.remove(channel);
+            final Set<Connection> joined = members.get(channel);
+            if (joined != null)
+              joined.remove(this);
+            send(":" + nick + "!" + nick + "@" + nick + ".tmi.twitch.tv PART #" + channel);
+          }
+        }
+        case "PING" -> send("PONG " + rest);
+        case "PRIVMSG" -> {
+          final int separator = rest.indexOf(" :");
+          if (separator > 1 && rest.charAt(0) == '#')
+            listener.accept(new Captured(rest.substring(1, separator), rest.substring(separator + 2), System.nanoTime()));
+        }
+        default -> {}
+      }
+    }
+
+    /**
+     * Send a single line as a text frame.
+     *
+     * @return {@link Boolean} whether the line was written.
+     */
+    private boolean send(String line) {
+      try {
+        frame(0x1, (line + "\r\n").getBytes(StandardCharsets.UTF_8));
+        return true;
+      } catch (IOException exception) {
+        close();
+        return false;
+      }
+    }
+
+    /**
+     * Write a single (unmasked, final) frame.
+     */
+    private void frame(int opcode, byte[] payload) throws IOException {
+      synchronized (this) {
+        output.write(0x80 | opcode);
+        if (payload.length < 126) {
+          output.write(payload.length);
+        } else if (payload.length < 65536) {
+          output.write(126);
+          output.write(payload.length >>> 8);
+          output.write(payload.length);
+        } else {
+          output.write(127);
+          for (int shift = 56; shift >= 0; shift -= 8)
+            output.write((int) ((long) payload.length >>> shift));
+        }
+        output.write(payload);
+        output.flush();
+      }
+    }
+
+    /**
+     * Read the (unmasked) payload of a frame whose first byte was already read.
+     */
+    private byte[] payload(InputStream input) throws IOException {
+      final int second = read(input);
+      long length = second & 0x7F;
+      if (length == 126) {
+        length = (long) read(input) << 8 | read(input);
+      } else if (length == 127) {
+        length = 0;
+        for (int index = 0; index < 8; index++)
+          length = length << 8 | read(input);
+      }
+      if (length > Integer.MAX_VALUE)
+        throw new IOException("frame too large");
+
+      final byte[] mask = new byte[4];
+      if ((second & 0x80) != 0 && input.readNBytes(mask, 0, 4) != 4)
+        throw new EOFException();
+
+      final byte[] payload = input.readNBytes((int) length);
+      if (payload.length != length)
+        throw new EOFException();
+      for (int index = 0; index < payload.length; index++)
+        payload[index] ^= mask[index & 3];
+      return payload;
+    }
+
+    /**
+     * Read a single byte, failing at the end of the stream.
+     */
+    private int read(InputStream input) throws IOException {
+      final int value = input.read();
+      if (value < 0)
+        throw new EOFException();
+      return value;
+    }
+
+    /**
+     * Perform the server side of the WebSocket handshake.
+     */
+    private boolean handshake(InputStream input) throws IOException {
+      String key = null;
+      final StringBuilder line = new StringBuilder();
+      while (true) {
+        final int value = input.read();
+        if (value < 0) {
+          return false;
+        }
+        if (value == '\r') {
+          continue;
+        }
+        if (value != '\n') {
+          line.append((char) value);
+          continue;
+        }
+        if (line.length() == 0) {
+          break;
+        }
+
+        final String header = line.toString();
+        if (header.regionMatches(true, 0, "Sec-WebSocket-Key:", 0, 18))
+          key = header.substring(18).trim();
+        line.setLength(0);
+      }
+
+      if (key == null) {
+        return false;
+      }
+
+      final String accept;
+      try {
+        final byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+        accept = Base64.getEncoder().encodeToString(digest);
+      } catch (NoSuchAlgorithmException exception) {
+        throw new IllegalStateException(exception);
+      }
+
+      synchronized (this) {
+        output.write((
+          "HTTP/1.1 101 Switching Protocols\r\n" +
+          "Upgrade: websocket\r\n" +
+          "Connection: Upgrade\r\n" +
+          "Sec-WebSocket-Accept: " + accept + "\r\n\r\n"
+        ).getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+      }
+      return true;
+    }
+
+    /**
+     * Drop this connection.
+     */
+    private void close() {
+      try {
+        socket.close();
+      } catch (IOException ignored) {}
+    }
+  }
+}
\ No newline at end of file
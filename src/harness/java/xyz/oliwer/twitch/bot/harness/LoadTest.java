@@ -0,0 +1,199 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.metrics.Histogram;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.subscribers.CommandSubscriber;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class represents the load test of the dispatch path - replaying chat traffic through an {@link IrcServer}
+ * into a real {@link BotClient}, measuring the time from each "!ping" line to the reply captured by the server.
+ * <br/>
+ *
+ * Note: Latency is measured from when a line was scheduled to be sent rather than when it actually was,
+ * so a stalled bot (or generator) is not hidden by the generator falling behind.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class LoadTest {
+  /**
+   * {@link Integer} this constant represents the size of the ring of scheduled send times (a power of two).
+   */
+  private static final int RING = 1 << 20;
+
+  /**
+   * {@link AtomicLongArray} the scheduled send time of each command, indexed by its sequence.
+   */
+  private final AtomicLongArray scheduled = new AtomicLongArray(RING);
+
+  /**
+   * {@link LongAdder} the amount of replies captured in the current phase.
+   */
+  private final LongAdder replies = new LongAdder();
+
+  /**
+   * {@link Histogram} the latency of the current phase.
+   */
+  private volatile Histogram latency = new Histogram();
+
+  /**
+   * Private constructor - use {@link LoadTest#main(String[])}.
+   */
+  private LoadTest() {}
+
+  // called when the load test starts
+  public static void main(String[] args) throws Exception {
+    final Traffic traffic = Traffic.parse(args);
+    new LoadTest().run(traffic);
+    System.exit(0);
+  }
+
+  /**
+   * Run a load test.
+   *
+   * @param traffic {@link Traffic} the traffic to replay.
+   */
+  private void run(Traffic traffic) throws Exception {
+    try (IrcServer server = new IrcServer(0)) {
+      server.onCapture(this::capture);
+
+      final BotClient client = new BotClient(properties(server.url()));
+      final CommandController controller = new CommandController();
+      controller.register(new PingCommand());
+      client.subscribe(new CommandSubscriber(controller, client));
+
+      final List<String> channels = new ArrayList<>();
+      for (int index = 0; index < traffic.channels(); index++) {
+        final String channel = Traffic.channel(index);
+        channels.add(channel);
+        server.room(channel, String.valueOf(1000 + index));
+        client.setModerator(channel, true);
+        client.connect(channel);
+      }
+
+      if (!server.awaitJoined(channels, Duration.ofSeconds(60)))
+        throw new IllegalStateException("Channels were not joined in time");
+      System.out.printf("joined %d channels across %d connection(s)%n", channels.size(), server.connections());
+
+      replay(server, traffic, traffic.warmup(), 0);
+      settle();
+
+      latency = new Histogram();
+      replies.reset();
+      final long sent = replay(server, traffic, traffic.duration(), RING / 2);
+      settle();
+      report(traffic, sent);
+
+      client.shutdown();
+    }
+  }
+
+  /**
+   * Replay traffic for a duration, paced at the rate of said traffic.
+   *
+   * @return {@link Long} the amount of commands sent.
+   */
+  private long replay(IrcServer server, Traffic traffic, Duration duration, long firstSequence) {
+    final SplittableRandom random = new SplittableRandom(11);
+    final String[] badges = traffic.userBadges();
+    final long interval = TimeUnit.SECONDS.toNanos(1) / traffic.rate();
+    final long lines = duration.getSeconds() * traffic.rate();
+    final long start = System.nanoTime();
+
+    long sequence = firstSequence;
+    for (long index = 0; index < lines; index++) {
+      final long target = start + index * interval;
+      long now;
+      while ((now = System.nanoTime()) < target)
+        LockSupport.parkNanos(target - now);
+
+      final int channel = random.nextInt(traffic.channels());
+      final int user = random.nextInt(Traffic.users());
+      final String message;
+      if (random.nextDouble() < traffic.prefixShare()) {
+        scheduled.set((int) (sequence & (RING - 1)), target);
+        message = "!ping " + sequence++;
+      } else {
+        message = "chatting along, nothing to see here " + index;
+      }
+      server.deliver(Traffic.channel(channel), Traffic.line(channel, user, badges[user], message));
+    }
+    return sequence - firstSequence;
+  }
+
+  /**
+   * Handle a captured message.
+   */
+  private void capture(IrcServer.Captured captured) {
+    if (!captured.message().startsWith(PingCommand.REPLY)) {
+      return;
+    }
+
+    final long sequence;
+    try {
+      sequence = Long.parseLong(captured.message().substring(PingCommand.REPLY.length()).trim());
+    } catch (NumberFormatException ignored) {
+      return;
+    }
+
+    replies.increment();
+    latency.record(captured.receivedAt() - scheduled.get((int) (sequence & (RING - 1))));
+  }
+
+  /**
+   * Give in-flight replies time to arrive.
+   */
+  private static void settle() throws InterruptedException {
+    Thread.sleep(2000);
+  }
+
+  /**
+   * Print the results of the measured phase.
+   */
+  private void report(Traffic traffic, long sent) {
+    final Histogram.Snapshot snapshot = latency.snapshot();
+    final double seconds = traffic.duration().toNanos() / 1e9;
+    final long received = replies.sum();
+
+    System.out.printf(Locale.ROOT, "traffic     %d lines/s, %d channels, %.1f%% commands, badges %s%n",
+      traffic.rate(), traffic.channels(), traffic.prefixShare() * 100, traffic.badges());
+    System.out.printf(Locale.ROOT, "commands    %d sent, %d replied, %d lost%n", sent, received, Math.max(0, sent - received));
+    System.out.printf(Locale.ROOT, "throughput  %.1f replies/s%n", received / seconds);
+    System.out.printf(Locale.ROOT, "latency     p50 %.3f ms, p99 %.3f ms, p999 %.3f ms, max %.3f ms%n",
+      millis(snapshot.quantile(0.5)), millis(snapshot.quantile(0.99)), millis(snapshot.quantile(0.999)), millis(snapshot.max()));
+  }
+
+  /**
+   * Get the properties of the client under test.
+   */
+  private static Properties properties(String url) {
+    final Properties properties = new Properties();
+    properties.setProperty("Client-Id", "harness");
+    properties.setProperty("Chat-Bot-Access-Token", "harness");
+    properties.setProperty("Chat-Bot-Name", "harnessbot");
+    properties.setProperty("Chat-Server-Url", url);
+    properties.setProperty("Chat-Join-Rate", "100000");
+    properties.setProperty("Outbound-Regular-Limit", "10000000");
+    properties.setProperty("Outbound-Moderator-Limit", "10000000");
+    properties.setProperty("Outbound-Queue-Capacity", "65536");
+    return properties;
+  }
+
+  /**
+   * Convert nanoseconds to milliseconds.
+   */
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
\ No newline at end of file
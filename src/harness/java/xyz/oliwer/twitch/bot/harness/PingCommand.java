@@ -0,0 +1,44 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import xyz.oliwer.twitch.bot.command.Arguments;
+import xyz.oliwer.twitch.bot.command.Command;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+import xyz.oliwer.twitch.bot.structure.OutboundScheduler;
+import xyz.oliwer.twitch.bot.util.ChatMessage;
+
+/**
+ * This class represents the command replies are measured with - answering "!ping [token]" with "pong [token]".
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class PingCommand extends Command {
+  /**
+   * {@link String} this constant represents the prefix of a reply.
+   */
+  public static final String REPLY = "pong ";
+
+  /**
+   * @see Command#perform(ExtractedUser, BotClient, String, Arguments)
+   */
+  @Override
+  public void perform(ExtractedUser user, BotClient client, String channel, Arguments arguments) {
+    client.forward(channel, ChatMessage.REGULAR, REPLY + (arguments.isEmpty() ? "" : arguments.get(0)), OutboundScheduler.Priority.HIGH);
+  }
+
+  /**
+   * @see Command#perform(ExtractedUser, BotClient, String, String[])
+   */
+  @Override
+  public void perform(ExtractedUser user, BotClient client, String channel, String[] arguments) {
+    perform(user, client, channel, Arguments.of(arguments));
+  }
+
+  /**
+   * @see Command#getAliases()
+   */
+  @Override
+  public String[] getAliases() {
+    return new String[] { "ping" };
+  }
+}
\ No newline at end of file
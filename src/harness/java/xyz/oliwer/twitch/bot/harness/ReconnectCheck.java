@@ -0,0 +1,163 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ChatPool;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class represents the check of recovery from dropped chat connections - joining many channels through
+ * an {@link IrcServer}, killing all of its connections whilst chat traffic keeps flowing, and measuring how long
+ * it takes until every channel is joined again alongside how many messages were lost meanwhile.
+ * <br/>
+ *
+ * Arguments are given as key=value pairs: channels, rate (lines per second), joins (per 10 seconds),
+ * capacity (channels per connection) and kills, i.e "channels=5000 rate=500 joins=2000 capacity=100 kills=3".
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ReconnectCheck {
+  /**
+   * {@link LongAdder} the amount of lines delivered to no connection at all.
+   */
+  private final LongAdder lost = new LongAdder();
+
+  /**
+   * {@link Boolean} whether traffic is still being generated.
+   */
+  private volatile boolean running = true;
+
+  /**
+   * Private constructor - use {@link ReconnectCheck#main(String[])}.
+   */
+  private ReconnectCheck() {}
+
+  // called when the check starts
+  public static void main(String[] args) throws Exception {
+    final Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      final int separator = arg.indexOf('=');
+      if (separator <= 0)
+        throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+      options.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+
+    new ReconnectCheck().run(
+      Integer.parseInt(options.getOrDefault("channels", "2000")),
+      Integer.parseInt(options.getOrDefault("rate", "500")),
+      Integer.parseInt(options.getOrDefault("joins", "2000")),
+      Integer.parseInt(options.getOrDefault("capacity", "100")),
+      Integer.parseInt(options.getOrDefault("kills", "3"))
+    );
+    System.exit(0);
+  }
+
+  /**
+   * Run the check.
+   */
+  private void run(int channelCount, int rate, int joins, int capacity, int kills) throws Exception {
+    try (IrcServer server = new IrcServer(0)) {
+      final BotClient client = new BotClient(properties(server.url(), joins, capacity));
+      final List<String> channels = new ArrayList<>();
+      for (int index = 0; index < channelCount; index++) {
+        final String channel = Traffic.channel(index);
+        channels.add(channel);
+        server.room(channel, String.valueOf(1000 + index));
+        client.connect(channel);
+      }
+
+      final long joinStart = System.nanoTime();
+      if (!server.awaitJoined(channels, Duration.ofMinutes(10)))
+        throw new IllegalStateException("Channels were not joined in time");
+      System.out.printf(Locale.ROOT, "joined      %d channels across %d connection(s) in %.2f s%n",
+        channels.size(), server.connections(), seconds(System.nanoTime() - joinStart));
+
+      final Thread generator = new Thread(() -> generate(server, channelCount, rate), "reconnect-check-traffic");
+      generator.setDaemon(true);
+      generator.start();
+      // give every shard a message rate to estimate losses from
+      Thread.sleep(5000);
+
+      for (int kill = 1; kill <= kills; kill++) {
+        final long lostBefore = lost.sum();
+        final long killedAt = System.nanoTime();
+        final int killed = server.killConnections();
+        if (!server.awaitJoined(channels, Duration.ofMinutes(10)))
+          throw new IllegalStateException("Channels were not rejoined in time");
+
+        final long recovered = System.nanoTime() - killedAt;
+        System.out.printf(Locale.ROOT, "outage %d    %d connection(s) killed, all channels rejoined in %.2f s, %d lines lost%n",
+          kill, killed, seconds(recovered), lost.sum() - lostBefore);
+        // let the pool notice every channel is placed again and report the outages
+        Thread.sleep(2000);
+      }
+
+      running = false;
+      generator.join();
+      report(client);
+      client.shutdown();
+    }
+  }
+
+  /**
+   * Deliver lines to random channels at a steady rate, counting those no connection received.
+   */
+  private void generate(IrcServer server, int channels, int rate) {
+    final SplittableRandom random = new SplittableRandom(7);
+    final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+    final long start = System.nanoTime();
+    for (long index = 0; running; index++) {
+      final long target = start + index * interval;
+      long now;
+      while ((now = System.nanoTime()) < target)
+        LockSupport.parkNanos(target - now);
+
+      final int channel = random.nextInt(channels);
+      final int user = random.nextInt(Traffic.users());
+      if (server.deliver(Traffic.channel(channel), Traffic.line(channel, user, "", "still here " + index)) == 0)
+        lost.increment();
+    }
+  }
+
+  /**
+   * Print the outages as recorded by the client.
+   */
+  private static void report(BotClient client) {
+    long estimated = 0;
+    double longest = 0;
+    final List<ChatPool.Outage> outages = client.chatOutages();
+    for (ChatPool.Outage outage : outages) {
+      estimated += outage.lostMessages();
+      longest = Math.max(longest, seconds(outage.duration().toNanos()));
+    }
+    System.out.printf(Locale.ROOT, "recorded    %d shard outage(s), longest %.2f s, %d lines estimated lost%n",
+      outages.size(), longest, estimated);
+  }
+
+  /**
+   * Get the properties of the client under test.
+   */
+  private static Properties properties(String url, int joins, int capacity) {
+    final Properties properties = new Properties();
+    properties.setProperty("Client-Id", "harness");
+    properties.setProperty("Chat-Bot-Access-Token", "harness");
+    properties.setProperty("Chat-Bot-Name", "harnessbot");
+    properties.setProperty("Chat-Server-Url", url);
+    properties.setProperty("Chat-Join-Rate", String.valueOf(joins));
+    properties.setProperty("Chat-Shard-Capacity", String.valueOf(capacity));
+    properties.setProperty("Chat-Ingest", "full");
+    properties.setProperty("Startup-Mode", "fast");
+    return properties;
+  }
+
+  /**
+   * Convert nanoseconds to seconds.
+   */
+  private static double seconds(long nanos) {
+    return nanos / 1e9;
+  }
+}
\ No newline at end of file
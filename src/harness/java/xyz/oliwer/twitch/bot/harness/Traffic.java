@@ -0,0 +1,123 @@
+package xyz.oliwer.twitch.bot.harness;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * This record represents the shape of replayed chat traffic.
+ *
+ * @param rate {@link Integer} the amount of lines per second (across channels).
+ * @param channels {@link Integer} the amount of channels.
+ * @param prefixShare {@link Double} the share of lines invoking a command (0 to 1).
+ * @param badges {@link Map} the weight of each badges tag value (i.e "moderator/1" = 5).
+ * @param warmup {@link Duration} how long to replay before measuring.
+ * @param duration {@link Duration} how long to measure for.
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public record Traffic(
+  int rate,
+  int channels,
+  double prefixShare,
+  Map<String, Integer> badges,
+  Duration warmup,
+  Duration duration
+) {
+  /**
+   * {@link Integer} this constant represents the amount of distinct users lines are sent by.
+   */
+  private static final int USERS = 1000;
+
+  /**
+   * Parse traffic from "key=value" arguments (rate, channels, prefixShare, badges, warmup, duration),
+   * where badges are given as "badge:weight" pairs separated by ";" (i.e "none:80;subscriber/1:15;moderator/1:5").
+   *
+   * @param arguments {@link String} array of arguments.
+   * @return {@link Traffic}
+   */
+  public static Traffic parse(String... arguments) {
+    final Map<String, String> values = new HashMap<>();
+    for (String argument : arguments) {
+      final int separator = argument.indexOf('=');
+      if (separator <= 0)
+        throw new IllegalArgumentException("expected key=value, got " + argument);
+      values.put(argument.substring(0, separator), argument.substring(separator + 1));
+    }
+
+    final Map<String, Integer> badges = new LinkedHashMap<>();
+    for (String pair : values.getOrDefault("badges", "none:80;subscriber/1:15;vip/1:3;moderator/1:2").split(";")) {
+      final int separator = pair.lastIndexOf(':');
+      final String badge = pair.substring(0, separator);
+      badges.put(badge.equals("none") ? "" : badge, Integer.parseInt(pair.substring(separator + 1)));
+    }
+
+    return new Traffic(
+      Integer.parseInt(values.getOrDefault("rate", "1000")),
+      Integer.parseInt(values.getOrDefault("channels", "10")),
+      Double.parseDouble(values.getOrDefault("prefixShare", "0.1")),
+      badges,
+      Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "5"))),
+      Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "20")))
+    );
+  }
+
+  /**
+   * Get the name of a channel.
+   *
+   * @param index {@link Integer} index of the channel.
+   * @return {@link String}
+   */
+  public static String channel(int index) {
+    return "channel" + index;
+  }
+
+  /**
+   * Get the badges of every user, distributed by their weight.
+   *
+   * @return {@link String} array of badges, indexed by user.
+   */
+  public String[] userBadges() {
+    final List<String> pool = new ArrayList<>();
+    badges.forEach((badge, weight) -> {
+      for (int index = 0; index < weight; index++)
+        pool.add(badge);
+    });
+    if (pool.isEmpty())
+      pool.add("");
+
+    final String[] users = new String[USERS];
+    final Random random = new Random(7);
+    for (int index = 0; index < USERS; index++)
+      users[index] = pool.get(random.nextInt(pool.size()));
+    return users;
+  }
+
+  /**
+   * Build a raw IRCv3 PRIVMSG line the way Twitch sends it.
+   *
+   * @param channel {@link Integer} index of the channel.
+   * @param user {@link Integer} index of the sender.
+   * @param badges {@link String} the badges tag value of said sender.
+   * @param message {@link String} the message sent.
+   * @return {@link String}
+   */
+  public static String line(int channel, int user, String badges, String message) {
+    final String name = "user" + user;
+    return "@badge-info=;badges=" + badges +
+      ";color=;display-name=" + name +
+      ";emotes=;flags=;id=00000000-0000-0000-0000-000000000000" +
+      ";mod=" + (badges.contains("moderator") ? 1 : 0) +
+      ";room-id=" + (1000 + channel) +
+      ";subscriber=" + (badges.contains("subscriber") ? 1 : 0) +
+      ";tmi-sent-ts=0;turbo=0;user-id=" + (100_000 + user) + ";user-type=" +
+      " :" + name + "!" + name + "@" + name + ".tmi.twitch.tv PRIVMSG #" + channel(channel) + " :" + message;
+  }
+
+  /**
+   * Get the amount of distinct users.
+   *
+   * @return {@link Integer}
+   */
+  public static int users() {
+    return USERS;
+  }
+}
\ No newline at end of file
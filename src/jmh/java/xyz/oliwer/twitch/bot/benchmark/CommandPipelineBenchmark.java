@@ -0,0 +1,173 @@
+package xyz.oliwer.twitch.bot.benchmark;
+
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import org.openjdk.jmh.annotations.*;
+import xyz.oliwer.twitch.bot.command.Arguments;
+import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+import xyz.oliwer.twitch.bot.subscribers.CommandSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.oliwer.twitch.bot.command.Command.PREFIX;
+
+/**
+ * This benchmark feeds a stream of synthetic chat messages through the command pipeline
+ * ({@link CommandSubscriber#onMessage}, {@link CommandController#PERFORMER} and user extraction).
+ *
+ * Note: Run through the jmh task, which attaches the gc profiler to report the allocation rate
+ * (the amount of threads is set with -PjmhThreads).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CommandPipelineBenchmark {
+  /**
+   * {@link Integer} the amount of messages per stream.
+   */
+  private static final int STREAM = 4096;
+
+  @Param({ "1", "32", "512" })
+  public int commands;
+
+  @Param({ "0", "3" })
+  public int depth;
+
+  @Param({ "0.05", "1.0" })
+  public double prefixShare;
+
+  /**
+   * {@link BotClient} the client commands are performed with.
+   */
+  private BotClient client;
+
+  /**
+   * {@link CommandController} the controller of generated commands.
+   */
+  private CommandController controller;
+
+  /**
+   * {@link CommandSubscriber} the subscriber messages are fed to.
+   */
+  private CommandSubscriber subscriber;
+
+  /**
+   * {@link ChannelMessageEvent} array of the messages of the stream.
+   */
+  private ChannelMessageEvent[] messages;
+
+  @Setup
+  public void setup() {
+    this.client = SyntheticWorkload.client();
+    this.controller = SyntheticWorkload.controller(commands, depth);
+    this.subscriber = new CommandSubscriber(controller, client);
+    this.messages = SyntheticWorkload.messages(STREAM, commands, depth, prefixShare, 42);
+  }
+
+  @TearDown
+  public void tearDown() {
+    subscriber.onUnsubscribe();
+  }
+
+  @Benchmark
+  public void onMessage(Cursor cursor) {
+    subscriber.onMessage(messages[cursor.next()]);
+  }
+
+  @Benchmark
+  public void performer(Cursor cursor) {
+    final int index = cursor.nextCommand();
+    CommandController.PERFORMER.commence(controller, cursor.channels[index], cursor.arguments[index], cursor.users[index], client);
+  }
+
+  @Benchmark
+  public ExtractedUser extractUser(Cursor cursor) {
+    return new ExtractedUser(messages[cursor.next()]);
+  }
+
+  @Benchmark
+  public ExtractedUser extractCachedUser(Cursor cursor) {
+    return ExtractedUser.of(messages[cursor.next()]);
+  }
+
+  /**
+   * This class represents the position of a benchmark thread within the stream,
+   * alongside its own pre-tokenized commands (as arguments are not shared between threads).
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    /**
+     * {@link Arguments} array of the tokenized commands of the stream.
+     */
+    private Arguments[] arguments;
+
+    /**
+     * {@link String} array of the channels of said commands.
+     */
+    private String[] channels;
+
+    /**
+     * {@link ExtractedUser} array of the users of said commands.
+     */
+    private ExtractedUser[] users;
+
+    /**
+     * {@link Integer} the position within the stream.
+     */
+    private int position;
+
+    /**
+     * {@link Integer} the position within the commands of the stream.
+     */
+    private int commandPosition;
+
+    @Setup
+    public void setup(CommandPipelineBenchmark benchmark) {
+      final List<ChannelMessageEvent> commands = new ArrayList<>();
+      for (ChannelMessageEvent message : benchmark.messages) {
+        if (message.getMessage().charAt(0) == PREFIX)
+          commands.add(message);
+      }
+      if (commands.isEmpty())
+        commands.add(SyntheticEvents.message("1", "channel", "2", "user", "", "!cmd0"));
+
+      this.arguments = new Arguments[commands.size()];
+      this.channels = new String[commands.size()];
+      this.users = new ExtractedUser[commands.size()];
+      for (int index = 0; index < commands.size(); index++) {
+        final ChannelMessageEvent message = commands.get(index);
+        this.arguments[index] = new Arguments().tokenize(message.getMessage(), 1).copy();
+        this.channels[index] = message.getChannel().getName();
+        this.users[index] = new ExtractedUser(message);
+      }
+    }
+
+    /**
+     * Move on to the next message of the stream.
+     */
+    int next() {
+      final int current = position;
+      position = current + 1 == STREAM ? 0 : current + 1;
+      return current;
+    }
+
+    /**
+     * Move on to the next command of the stream.
+     */
+    int nextCommand() {
+      final int current = commandPosition;
+      commandPosition = current + 1 == arguments.length ? 0 : current + 1;
+      return current;
+    }
+  }
+}
\ No newline at end of file
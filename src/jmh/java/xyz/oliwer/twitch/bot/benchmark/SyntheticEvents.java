@@ -0,0 +1,91 @@
+package xyz.oliwer.twitch.bot.benchmark;
+
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.common.enums.CommandPermission;
+import com.github.twitch4j.common.events.domain.EventChannel;
+import com.github.twitch4j.common.events.domain.EventUser;
+
+import java.util.*;
+
+/**
+ * This class represents a factory of synthetic chat events, built the same way twitch4j builds them
+ * from raw IRC lines - used to feed benchmarks without a connection to Twitch.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class SyntheticEvents {
+  /**
+   * Private constructor - utility class.
+   */
+  private SyntheticEvents() {}
+
+  /**
+   * Build a raw IRCv3 PRIVMSG line the way Twitch sends it.
+   *
+   * @param channelId {@link String} identifier of the channel (room).
+   * @param channel {@link String} name of the channel.
+   * @param userId {@link String} identifier of the sender.
+   * @param user {@link String} name of the sender.
+   * @param badges {@link String} the badges tag value (i.e "moderator/1,subscriber/12").
+   * @param message {@link String} the message sent.
+   * @return {@link String}
+   */
+  public static String line(String channelId, String channel, String userId, String user, String badges, String message) {
+    return "@badge-info=;badges=" + badges +
+      ";color=;display-name=" + user +
+      ";emotes=;flags=;id=00000000-0000-0000-0000-000000000000" +
+      ";mod=" + (badges.contains("moderator") ? 1 : 0) +
+      ";room-id=" + channelId +
+      ";subscriber=" + (badges.contains("subscriber") ? 1 : 0) +
+      ";tmi-sent-ts=0;turbo=0;user-id=" + userId + ";user-type=" +
+      " :" + user + "!" + user + "@" + user + ".tmi.twitch.tv PRIVMSG #" + channel + " :" + message;
+  }
+
+  /**
+   * Build a channel message event.
+   *
+   * @param channelId {@link String} identifier of the channel (room).
+   * @param channel {@link String} name of the channel.
+   * @param userId {@link String} identifier of the sender.
+   * @param user {@link String} name of the sender.
+   * @param badges {@link String} the badges tag value (i.e "moderator/1,subscriber/12").
+   * @param message {@link String} the message sent.
+   * @return {@link ChannelMessageEvent}
+   */
+  public static ChannelMessageEvent message(String channelId, String channel, String userId, String user, String badges, String message) {
+    final IRCMessageEvent raw = new IRCMessageEvent(
+      line(channelId, channel, userId, user, badges, message),
+      Map.of(channelId, channel),
+      Map.of(channel, channelId),
+      Collections.emptySet()
+    );
+
+    return new ChannelMessageEvent(
+      new EventChannel(channelId, channel),
+      raw,
+      new EventUser(userId, user),
+      message,
+      permissions(badges)
+    );
+  }
+
+  /**
+   * Resolve the permissions implied by a badges tag value.
+   *
+   * @param badges {@link String} the badges tag value.
+   * @return {@link Set<CommandPermission>}
+   */
+  public static Set<CommandPermission> permissions(String badges) {
+    final Set<CommandPermission> permissions = EnumSet.of(CommandPermission.EVERYONE);
+    if (badges.contains("broadcaster"))
+      permissions.add(CommandPermission.BROADCASTER);
+    if (badges.contains("moderator"))
+      permissions.add(CommandPermission.MODERATOR);
+    if (badges.contains("vip"))
+      permissions.add(CommandPermission.VIP);
+    if (badges.contains("subscriber"))
+      permissions.add(CommandPermission.SUBSCRIBER);
+    return permissions;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package xyz.oliwer.twitch.bot.benchmark;
+
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import com.github.twitch4j.common.enums.CommandPermission;
+import xyz.oliwer.twitch.bot.command.Arguments;
+import xyz.oliwer.twitch.bot.command.Command;
+import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * This class represents a factory of synthetic workloads - a controller of generated commands
+ * alongside a stream of chat messages invoking them (or not).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class SyntheticWorkload {
+  /**
+   * {@link Integer} this constant represents the amount of distinct channels messages are sent in.
+   */
+  private static final int CHANNELS = 8;
+
+  /**
+   * {@link Integer} this constant represents the amount of distinct users messages are sent by.
+   */
+  private static final int USERS = 256;
+
+  /**
+   * {@link String} array of badges users cycle through.
+   */
+  private static final String[] BADGES = { "", "subscriber/12", "moderator/1", "vip/1", "broadcaster/1,subscriber/0" };
+
+  /**
+   * Private constructor - utility class.
+   */
+  private SyntheticWorkload() {}
+
+  /**
+   * Create a client which is never connected to chat (placeholder credentials).
+   *
+   * @return {@link BotClient}
+   */
+  public static BotClient client() {
+    final Properties properties = new Properties();
+    properties.setProperty("Client-Id", "benchmark");
+    properties.setProperty("Chat-Bot-Access-Token", "benchmark");
+    return new BotClient(properties);
+  }
+
+  /**
+   * Create a controller of generated commands ("cmd0", "cmd1", ...), each with a chain of
+   * nested subcommands ("sub1", "sub2", ...) of passed depth.
+   *
+   * @param commands {@link Integer} the amount of primary commands.
+   * @param depth {@link Integer} the depth of subcommands below each primary command.
+   * @return {@link CommandController}
+   */
+  public static CommandController controller(int commands, int depth) {
+    final CommandController controller = new CommandController();
+    for (int index = 0; index < commands; index++)
+      controller.register(node("cmd" + index, 0, depth));
+    return controller;
+  }
+
+  /**
+   * Generate a stream of messages.
+   *
+   * @param size {@link Integer} the amount of messages.
+   * @param commands {@link Integer} the amount of primary commands to invoke.
+   * @param depth {@link Integer} the depth of subcommands to walk down.
+   * @param prefixShare {@link Double} the share of messages carrying the command prefix (0 to 1).
+   * @param seed {@link Long} the seed of the stream.
+   * @return {@link ChannelMessageEvent} array of messages.
+   */
+  public static ChannelMessageEvent[] messages(int size, int commands, int depth, double prefixShare, long seed) {
+    final SplittableRandom random = new SplittableRandom(seed);
+    final ChannelMessageEvent[] messages = new ChannelMessageEvent[size];
+
+    for (int index = 0; index < size; index++) {
+      final int channel = random.nextInt(CHANNELS);
+      final int user = random.nextInt(USERS);
+
+      final String message;
+      if (random.nextDouble() < prefixShare) {
+        final StringBuilder builder = new StringBuilder("!cmd").append(random.nextInt(commands));
+        for (int level = 1; level <= depth; level++)
+          builder.append(" sub").append(level);
+        message = builder.append(' ').append(random.nextInt(1000)).toString();
+      } else {
+        message = "just chatting about the game, nothing to see here " + random.nextInt(1000);
+      }
+
+      messages[index] = SyntheticEvents.message(
+        String.valueOf(1000 + channel),
+        "channel" + channel,
+        String.valueOf(100_000 + user),
+        "user" + user,
+        BADGES[user % BADGES.length],
+        message
+      );
+    }
+    return messages;
+  }
+
+  /**
+   * Create a command, alongside its nested subcommands.
+   */
+  private static Command node(String alias, int level, int depth) {
+    final Node node = new Node(alias, level == depth);
+    final Command.MetaBuilder meta = node.meta().and(Command.Requirement.permission(CommandPermission.EVERYONE));
+    if (level < depth)
+      meta.and(node("sub" + (level + 1), level + 1, depth));
+    meta.apply(node);
+    return node;
+  }
+
+  /**
+   * This class represents a generated command - passing on to its child, or consuming its arguments if it is a leaf.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Node extends Command {
+    /**
+     * {@link String} array of aliases.
+     */
+    private final String[] aliases;
+
+    /**
+     * {@link Boolean} whether this command has no children.
+     */
+    private final boolean leaf;
+
+    /**
+     * {@link Integer} the amount of arguments last performed with (kept so performing is never dead code).
+     */
+    private int consumed;
+
+    /**
+     * Primary constructor.
+     */
+    private Node(String alias, boolean leaf) {
+      this.aliases = new String[] { alias };
+      this.leaf = leaf;
+    }
+
+    /**
+     * @see Command#perform(ExtractedUser, BotClient, String, Arguments)
+     */
+    @Override
+    public void perform(ExtractedUser user, BotClient client, String channel, Arguments arguments) {
+      if (leaf) {
+        consumed = arguments.size();
+        return;
+      }
+      CommandController.PERFORMER.commence(this, channel, arguments, user, client);
+    }
+
+    /**
+     * @see Command#perform(ExtractedUser, BotClient, String, String[])
+     */
+    @Override
+    public void perform(ExtractedUser user, BotClient client, String channel, String[] arguments) {
+      consumed = arguments.length;
+    }
+
+    /**
+     * @see Command#getAliases()
+     */
+    @Override
+    public String[] getAliases() {
+      return aliases;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import org.openjdk.jmh.annotations.*;
+import xyz.oliwer.twitch.bot.benchmark.SyntheticWorkload;
+import xyz.oliwer.twitch.bot.subscribers.CommandSubscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmark publishes a stream of synthetic chat messages through the event manager of a {@link BotClient},
+ * dispatching them to a subscribed {@link CommandSubscriber} - the whole pipeline short of the connection itself.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EventDispatchBenchmark {
+  /**
+   * {@link Integer} the amount of messages per stream.
+   */
+  private static final int STREAM = 4096;
+
+  @Param({ "1", "32", "512" })
+  public int commands;
+
+  @Param({ "0", "3" })
+  public int depth;
+
+  @Param({ "0.05", "1.0" })
+  public double prefixShare;
+
+  /**
+   * {@link BotClient} the client dispatching the messages.
+   */
+  private BotClient client;
+
+  /**
+   * {@link ChannelMessageEvent} array of the messages of the stream.
+   */
+  private ChannelMessageEvent[] messages;
+
+  @Setup
+  public void setup() {
+    this.client = SyntheticWorkload.client();
+    this.client.subscribe(new CommandSubscriber(SyntheticWorkload.controller(commands, depth), client));
+    this.messages = SyntheticWorkload.messages(STREAM, commands, depth, prefixShare, 42);
+  }
+
+  @Benchmark
+  public void publish(Cursor cursor) {
+    client.eventManager().publish(messages[cursor.next()]);
+  }
+
+  /**
+   * This class represents the position of a benchmark thread within the stream.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    /**
+     * {@link Integer} the position within the stream.
+     */
+    private int position;
+
+    /**
+     * Move on to the next message of the stream.
+     */
+    int next() {
+      final int current = position;
+      position = current + 1 == STREAM ? 0 : current + 1;
+      return current;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.oliwer.twitch.bot.benchmark.SyntheticEvents;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This benchmark compares the throughput of subscriber dispatch through {@link Method#invoke(Object, Object...)}
+ * (the former path of {@link BotClient#subscribe(EventSubscriber)}) against the compiled handlers.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SubscriberDispatchBenchmark {
+  /**
+   * {@link Probe} the subscriber being dispatched to.
+   */
+  private Probe probe;
+
+  /**
+   * {@link ChannelMessageEvent} the event being dispatched.
+   */
+  private ChannelMessageEvent event;
+
+  /**
+   * {@link Method} the reflective handler.
+   */
+  private Method reflective;
+
+  /**
+   * {@link Consumer} the generated handler.
+   */
+  private Consumer<Object> generated;
+
+  /**
+   * {@link Consumer} the method handle backed handler.
+   */
+  private Consumer<Object> bound;
+
+  @Setup
+  public void setup(Blackhole blackhole) throws Throwable {
+    this.probe = new Probe(blackhole);
+    this.event = SyntheticEvents.message("1", "channel", "2", "user", "", "!ping");
+    this.reflective = Probe.class.getMethod("onMessage", ChannelMessageEvent.class);
+    this.generated = EventHandlers.generate(probe, reflective);
+    this.bound = EventHandlers.bind(probe, reflective);
+  }
+
+  @Benchmark
+  public void reflective() {
+    try {
+      reflective.invoke(probe, event);
+    } catch (Exception ignored) {}
+  }
+
+  @Benchmark
+  public void generated() {
+    generated.accept(event);
+  }
+
+  @Benchmark
+  public void methodHandle() {
+    bound.accept(event);
+  }
+
+  /**
+   * This class represents a subscriber which only consumes what it receives.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public static final class Probe implements EventSubscriber {
+    /**
+     * {@link Blackhole} the sink of received events.
+     */
+    private final Blackhole blackhole;
+
+    /**
+     * Primary constructor.
+     */
+    public Probe(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    /**
+     * Handle a message.
+     *
+     * @param event {@link ChannelMessageEvent}
+     */
+    public void onMessage(ChannelMessageEvent event) {
+      blackhole.consume(event);
+    }
+  }
+}
\ No newline at end of file
@@ -1,30 +1,138 @@
 package xyz.oliwer.twitch.bot;
 
+import xyz.oliwer.twitch.bot.chatlog.ChatLog;
+import xyz.oliwer.twitch.bot.cluster.ClusterCoordinator;
+import xyz.oliwer.twitch.bot.cluster.ClusterNode;
 import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.command.FairExecution;
+import xyz.oliwer.twitch.bot.custom.CommandStore;
+import xyz.oliwer.twitch.bot.custom.CustomCommands;
 import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.subscribers.ChatLogSubscriber;
 import xyz.oliwer.twitch.bot.subscribers.CommandSubscriber;
+import xyz.oliwer.twitch.bot.util.PhaseTimer;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class represents the main class for our Twitch application.
+ * <br/>
+ *
+ * Passing {@code --train} starts up against placeholder credentials and an unreachable chat server, hands a single
+ * command through the pipeline instead of joining any channel (creating every lazily created module) and exits,
+ * which is how the shared class archive (AppCDS) of the shadow jar is trained.
+ * <br/>
+ *
+ * Cluster mode is enabled by naming the node ({@code clusterNode}) - channels are then added to the cluster through
+ * the coordinator at {@code clusterCoordinator} (host:port), which is embedded in this process if {@code clusterCoordinatorPort} is set.
  *
  * @author Oliwer - https://www.github.com/ImOliwer
  */
 public final class BotApplication {
   // called when the application starts
   public static void main(String[] args) {
+    final boolean training = args.length > 0 && args[0].equals("--train");
+    final PhaseTimer startup = new PhaseTimer("startup");
+
     // set up our application properties
     final Properties properties = new Properties();
-    properties.setProperty("Client-Id", System.getenv("clientId"));
-    properties.setProperty("Chat-Bot-Access-Token", System.getenv("chatBotAccessToken"));
+    properties.setProperty("Client-Id", training ? "training" : System.getenv("clientId"));
+    properties.setProperty("Chat-Bot-Access-Token", training ? "training" : System.getenv("chatBotAccessToken"));
+    if (training) {
+      properties.setProperty("Chat-Bot-Name", "training");
+      properties.setProperty("Chat-Server-Url", "ws://127.0.0.1:1");
+    }
+    // fast start creates twitch4j modules upon first use, and registers subscribers alongside each other
+    final String startupMode = training ? "fast" : System.getenv("startupMode");
+    if (startupMode != null)
+      properties.setProperty("Startup-Mode", startupMode);
+    final boolean fastStart = "fast".equalsIgnoreCase(startupMode);
 
     // controller
-    final CommandController controller = new CommandController();
+    final CommandController controller = startup.time("controller", CommandController::new);
 
     // client
-    final BotClient client = new BotClient(properties);
-    client.connect("imoliwer");
-    client.subscribe(new CommandSubscriber(controller, client));
+    final BotClient client = startup.time("client", () -> new BotClient(properties));
+
+    // commands are performed synchronously, unless a pool shared fairly between channels is sized
+    final String commandThreads = training ? null : System.getenv("commandThreads");
+    if (commandThreads != null)
+      controller.setExecution(FairExecution.bounded(
+        Integer.parseInt(commandThreads),
+        10_000,
+        100,
+        Duration.ofSeconds(10),
+        client.metrics().registry()
+      ));
+
+    // custom commands (loaded per channel upon joining, each node of a cluster keeping its own copy)
+    final String clusterNode = training ? null : System.getenv("clusterNode");
+    final CustomCommands customCommands = startup.time("custom commands", () -> {
+      final Path directory = clusterNode == null ? Path.of("commands") : Path.of("commands", clusterNode);
+      final CustomCommands loaded = new CustomCommands(new CommandStore(directory), controller);
+      client.addChannelListener(loaded);
+      return loaded;
+    });
+
+    // cluster (channels are joined by whichever node owns them)
+    final String coordinatorPort = training ? null : System.getenv("clusterCoordinatorPort");
+    if (coordinatorPort != null)
+      startup.time("cluster coordinator", () -> new ClusterCoordinator(Integer.parseInt(coordinatorPort), client.metrics().registry()));
+    final ClusterNode cluster = clusterNode == null ? null : startup.time("cluster node", () -> {
+      final String address = System.getenv("clusterCoordinator");
+      final String target = address != null ? address : "127.0.0.1:" + (coordinatorPort != null ? coordinatorPort : "7420");
+      final int separator = target.lastIndexOf(':');
+      return new ClusterNode(
+        clusterNode,
+        new InetSocketAddress(target.substring(0, separator), Integer.parseInt(target.substring(separator + 1))),
+        client,
+        customCommands
+      );
+    });
+
+    // chat log (every message, only if a directory is given)
+    final String chatLogDirectory = training ? null : System.getenv("chatLogDirectory");
+    final Runnable joins = () -> {
+      if (cluster != null)
+        cluster.join("imoliwer");
+      else if (!training)
+        client.connect("imoliwer");
+    };
+    final Runnable commands = () -> client.subscribe(new CommandSubscriber(controller, client));
+    final Runnable chatLog = () -> {
+      if (chatLogDirectory != null)
+        client.subscribe(new ChatLogSubscriber(new ChatLog(Path.of(chatLogDirectory))));
+    };
+
+    // subscribers are registered before any channel is joined, so no early message goes unhandled
+    if (fastStart) {
+      final ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+        CompletableFuture.allOf(
+          startup.async("command subscriber", commands, executor),
+          startup.async("chat log subscriber", chatLog, executor)
+        ).join();
+      } finally {
+        executor.shutdown();
+      }
+    } else {
+      startup.time("command subscriber", commands);
+      startup.time("chat log subscriber", chatLog);
+    }
+    startup.time("joins", joins);
+    if (training)
+      startup.time("training", () -> client.train("0", "training", "!training"));
+    startup.finish();
+
+    if (training) {
+      client.shutdown();
+      System.exit(0);
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,1337 @@
+package xyz.oliwer.twitch.bot.chatlog;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class represents an append-only log of chat messages, kept in binary segments per channel.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Appending only queues a message - a single writer appends queued messages in batches,
+ *       journaling every batch with a single flush to disk (group commit).</li>
+ *   <li>Segments themselves are only flushed to disk at a checkpoint (once the journal grows too large),
+ *       whatever was written since being replayed from the journal when the log is reopened.</li>
+ *   <li>A segment is closed once it reaches its size or age, after which it is compressed into deflated blocks
+ *       with a sparse index of the time range of each block.</li>
+ *   <li>Reads map segments into memory, skipping every segment (and block) outside of the requested time range.</li>
+ * </ul>
+ *
+ * Note: Timestamps never go backwards within a channel - a message queued behind a later one is logged
+ * at the time of said later message, which keeps every segment ordered by time.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ChatLog implements AutoCloseable {
+  /**
+   * {@link Long} this constant represents the default size of a segment before it is closed.
+   */
+  public static final long DEFAULT_SEGMENT_BYTES = 16 << 20;
+
+  /**
+   * {@link Duration} this constant represents the default age of a segment before it is closed.
+   */
+  public static final Duration DEFAULT_SEGMENT_AGE = Duration.ofHours(1);
+
+  /**
+   * {@link Integer} this constant represents the default amount of messages which may be queued.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+
+  /**
+   * {@link Integer} this constant represents the maximum amount of messages appended per batch.
+   */
+  private static final int BATCH = 4096;
+
+  /**
+   * {@link Long} this constant represents the size of the journal before a checkpoint (flushing all segments) truncates it.
+   */
+  private static final long JOURNAL_BYTES = 8 << 20;
+
+  /**
+   * {@link Long} this constant represents how long (in nanoseconds) a channel goes without messages before its
+   * buffer and file are released.
+   */
+  private static final long IDLE = TimeUnit.MINUTES.toNanos(1);
+
+  /**
+   * {@link Integer} this constant represents the (uncompressed) size of a block of a closed segment.
+   */
+  private static final int BLOCK_BYTES = 64 << 10;
+
+  /**
+   * {@link Integer} this constant represents the bytes between two points of the index of an open segment.
+   */
+  private static final int INDEX_INTERVAL = 4 << 10;
+
+  /**
+   * {@link Integer} this constant represents the size of the header of a record (length & checksum).
+   */
+  private static final int HEADER = 8;
+
+  /**
+   * {@link Integer} this constant represents the first (and last) bytes of a closed segment.
+   */
+  private static final int SEALED_MAGIC = 0x43484c47;
+
+  /**
+   * {@link Integer} this constant represents the size of the footer of a closed segment (count, index offset & magic).
+   */
+  private static final int FOOTER = 16;
+
+  /**
+   * {@link Integer} this constant represents the size of an index entry of a closed segment.
+   */
+  private static final int BLOCK_ENTRY = 32;
+
+  /**
+   * {@link System.Logger} this constant represents the logger of failures which cost messages (or disk space).
+   */
+  private static final System.Logger LOGGER = System.getLogger(ChatLog.class.getName());
+
+  /**
+   * {@link Pattern} this constant represents the name of a segment.
+   */
+  private static final Pattern SEGMENT = Pattern.compile("segment-(\\d{8})\\.(log|dat)");
+
+  /**
+   * {@link Pattern} this constant represents a valid channel name.
+   */
+  private static final Pattern CHANNEL = Pattern.compile("[a-z0-9_]{1,25}");
+
+  /**
+   * {@link Path} this property represents the directory of all channels.
+   */
+  private final Path directory;
+
+  /**
+   * {@link Long} this property represents the size of a segment before it is closed.
+   */
+  private final long segmentBytes;
+
+  /**
+   * {@link Long} this property represents the age (in milliseconds) of a segment before it is closed.
+   */
+  private final long segmentAge;
+
+  /**
+   * {@link BlockingQueue} this property represents the messages waiting to be appended.
+   */
+  private final BlockingQueue<Queued> queue;
+
+  /**
+   * {@link Map} this property represents the log of each opened channel.
+   */
+  private final Map<String, ChannelLog> channels = new ConcurrentHashMap<>();
+
+  /**
+   * {@link ReadWriteLock} the lock guarding all segments (reads share it, publishing appends & swaps hold it exclusively).
+   */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * {@link ExecutorService} the executor closed segments are compressed on.
+   */
+  private final ExecutorService sealer;
+
+  /**
+   * {@link Thread} the thread appending queued messages.
+   */
+  private final Thread writer;
+
+  /**
+   * {@link FileChannel} the journal every batch is flushed to (only used by the writer).
+   */
+  private final FileChannel journal;
+
+  /**
+   * {@link Long} the size of said journal (only used by the writer).
+   */
+  private long journalSize;
+
+  /**
+   * {@link ByteArrayOutputStream} the frames of the batch being journaled (only used by the writer).
+   */
+  private final ByteArrayOutputStream frames = new ByteArrayOutputStream(BLOCK_BYTES);
+
+  /**
+   * {@link DataOutputStream} the encoder of the headers of said frames.
+   */
+  private final DataOutputStream frameHeaders = new DataOutputStream(frames);
+
+  /**
+   * {@link ByteArrayOutputStream} the body of the record (or frame) being encoded (only used by the writer).
+   */
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+  /**
+   * {@link DataOutputStream} the encoder of said body.
+   */
+  private final DataOutputStream encoder = new DataOutputStream(body);
+
+  /**
+   * {@link CRC32} the checksum of said body.
+   */
+  private final CRC32 checksum = new CRC32();
+
+  /**
+   * {@link AtomicLong} this property represents the amount of messages queued so far.
+   */
+  private final AtomicLong queued = new AtomicLong();
+
+  /**
+   * {@link LongAdder} this property represents the amount of messages dropped (queue full or failed to write).
+   */
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * {@link Object} the monitor of {@link ChatLog#written}.
+   */
+  private final Object progress = new Object();
+
+  /**
+   * {@link Long} the amount of queued messages handled by the writer so far (guarded by progress).
+   */
+  private long written;
+
+  /**
+   * {@link Boolean} whether this log is closed.
+   */
+  private volatile boolean closed;
+
+  /**
+   * Open a log with the default segment size, age & queue capacity.
+   *
+   * @see ChatLog#ChatLog(Path, long, Duration, int)
+   */
+  public ChatLog(Path directory) {
+    this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_SEGMENT_AGE, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Primary constructor - opening (or creating) the log.
+   *
+   * @param directory {@link Path} the directory of all channels.
+   * @param segmentBytes {@link Long} the size of a segment before it is closed.
+   * @param segmentAge {@link Duration} the age of a segment (since its first message) before it is closed.
+   * @param queueCapacity {@link Integer} the maximum amount of messages waiting to be appended.
+   */
+  public ChatLog(Path directory, long segmentBytes, Duration segmentAge, int queueCapacity) {
+    if (directory == null || segmentAge == null)
+      throw new NullPointerException("directory and segmentAge must not be null");
+    if (segmentBytes <= HEADER || segmentBytes > Integer.MAX_VALUE || segmentAge.isNegative() || segmentAge.isZero() || queueCapacity <= 0)
+      throw new IllegalArgumentException("segmentBytes must fit an int, segmentAge and queueCapacity must be positive");
+
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.segmentAge = segmentAge.toMillis();
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    try {
+      Files.createDirectories(directory);
+      final Path journal = directory.resolve("journal.log");
+      replay(journal);
+      this.journal = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to open chat log at " + directory, exception);
+    }
+
+    this.sealer = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "chat-log-sealer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.writer = new Thread(this::drain, "chat-log-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Queue a message to be appended, without waiting for it to be written.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param timestamp {@link Long} when the message was sent (milliseconds since the epoch).
+   * @param userId {@link String} identifier of the sender.
+   * @param userName {@link String} name of the sender.
+   * @param message {@link String} the message.
+   * @return {@link Boolean} whether the message was queued (false if the queue is full or this log is closed).
+   */
+  public boolean append(String channel, long timestamp, String userId, String userName, String message) {
+    if (channel == null || userId == null || userName == null || message == null)
+      throw new NullPointerException("channel, userId, userName and message must not be null");
+
+    final String name = channel.toLowerCase(Locale.ROOT);
+    if (!CHANNEL.matcher(name).matches())
+      throw new IllegalArgumentException("Invalid channel name '" + channel + "'");
+
+    if (closed || !queue.offer(new Queued(name, new Entry(timestamp, userId, userName, message)))) {
+      dropped.increment();
+      return false;
+    }
+    queued.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Read all messages of a channel within a time range.
+   *
+   * Note: Only written messages are read - see {@link ChatLog#flush()}.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param from {@link Long} start of the range (inclusive, milliseconds since the epoch).
+   * @param to {@link Long} end of the range (exclusive, milliseconds since the epoch).
+   * @return {@link List} said messages, in order of time.
+   */
+  public List<Entry> read(String channel, long from, long to) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final List<Entry> entries = new ArrayList<>();
+    final String name = channel.toLowerCase(Locale.ROOT);
+    if (from >= to || !CHANNEL.matcher(name).matches() || (!channels.containsKey(name) && !Files.isDirectory(directory.resolve(name)))) {
+      return entries;
+    }
+
+    // map the overlapping segments while holding the lock, so none is swapped (and deleted) meanwhile
+    final List<View> views = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      // a channel not written to since opening is read as is, without opening it for writing
+      final ChannelLog log = channels.get(name);
+      final Collection<Segment> segments = log != null ? log.segments.values() : peek(directory.resolve(name));
+      for (Segment segment : segments) {
+        if (segment.size == 0 || segment.maxTime < from || segment.minTime >= to)
+          continue;
+        views.add(segment.view());
+      }
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to read chat log of " + name, exception);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    final Inflater inflater = new Inflater();
+    try {
+      for (View view : views)
+        view.read(from, to, entries, inflater);
+    } catch (DataFormatException exception) {
+      throw new UncheckedIOException("Corrupt chat log of " + name, new IOException(exception));
+    } finally {
+      inflater.end();
+    }
+    return entries;
+  }
+
+  /**
+   * Wait until every message queued before this call is written to disk (or dropped).
+   */
+  public void flush() {
+    final long target = queued.get();
+    synchronized (progress) {
+      while (written < target && writer.isAlive()) {
+        try {
+          progress.wait(100);
+        } catch (InterruptedException exception) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the amount of messages dropped (as the queue was full or they failed to be written).
+   *
+   * @return {@link Long}
+   */
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * Close this log - writing all queued messages and waiting for segments being compressed.
+   *
+   * @see AutoCloseable#close()
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      writer.join();
+      sealer.shutdown();
+      sealer.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    lock.writeLock().lock();
+    try {
+      for (ChannelLog log : channels.values())
+        log.active.closeWriter();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    // every segment is flushed, the journal is of no use anymore
+    try {
+      journal.truncate(0);
+      journal.close();
+    } catch (IOException exception) {
+      LOGGER.log(System.Logger.Level.WARNING, "Failed to close the journal of " + directory, exception);
+    }
+  }
+
+  /**
+   * Append queued messages in batches until closed (and drained).
+   */
+  private void drain() {
+    final List<Queued> batch = new ArrayList<>(BATCH);
+    final Set<ChannelLog> touched = new LinkedHashSet<>();
+    long releasedAt = System.nanoTime();
+    while (!closed || !queue.isEmpty()) {
+      final long now = System.nanoTime();
+      if (now - releasedAt >= IDLE) {
+        release(now);
+        releasedAt = now;
+      }
+
+      try {
+        final Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null)
+          continue;
+        batch.add(first);
+      } catch (InterruptedException exception) {
+        continue;
+      }
+      queue.drainTo(batch, BATCH - 1);
+
+      for (Queued next : batch) {
+        try {
+          final ChannelLog log = channel(next.channel);
+          log.write(next.entry);
+          touched.add(log);
+        } catch (Exception exception) {
+          dropped.increment();
+          LOGGER.log(System.Logger.Level.WARNING, "Failed to log a message of " + next.channel, exception);
+        }
+      }
+
+      // a single flush of the journal commits the whole batch
+      commit(touched);
+      if (journalSize >= JOURNAL_BYTES)
+        checkpoint();
+
+      synchronized (progress) {
+        written += batch.size();
+        progress.notifyAll();
+      }
+      batch.clear();
+      touched.clear();
+    }
+  }
+
+  /**
+   * Journal the pending records of channels with a single flush, then write them to their segments.
+   */
+  private void commit(Collection<ChannelLog> logs) {
+    frames.reset();
+    try {
+      for (ChannelLog log : logs) {
+        if (log.pending == null || log.pending.size() == 0)
+          continue;
+
+        body.reset();
+        encoder.writeUTF(log.name);
+        encoder.writeInt(log.active.id);
+        encoder.writeLong(log.active.size);
+        log.pending.writeTo(body);
+        checksum.reset();
+        checksum.update(body.toByteArray());
+        frameHeaders.writeInt(body.size());
+        frameHeaders.writeInt((int) checksum.getValue());
+        body.writeTo(frames);
+      }
+      if (frames.size() == 0) {
+        return;
+      }
+
+      writeFully(journal, ByteBuffer.wrap(frames.toByteArray()), journalSize);
+      journal.force(false);
+      journalSize += frames.size();
+    } catch (IOException exception) {
+      // drop the batch, the next one overwrites whatever part of it was journaled
+      LOGGER.log(System.Logger.Level.WARNING, "Failed to journal a batch to " + directory, exception);
+      for (ChannelLog log : logs) {
+        if (log.pending != null && log.pending.size() > 0) {
+          dropped.add(log.count());
+          log.rewind();
+        }
+      }
+      return;
+    }
+
+    for (ChannelLog log : logs)
+      log.apply();
+  }
+
+  /**
+   * Flush every segment written to since the last checkpoint, truncating the journal.
+   */
+  private void checkpoint() {
+    try {
+      for (ChannelLog log : channels.values())
+        log.sync();
+      journal.truncate(0);
+      journal.force(true);
+      journalSize = 0;
+    } catch (IOException exception) {
+      // the journal is kept until a checkpoint succeeds
+      LOGGER.log(System.Logger.Level.WARNING, "Failed to checkpoint the chat log at " + directory, exception);
+    }
+  }
+
+  /**
+   * Release the buffer and file of every channel which has not been written to for a while.
+   */
+  private void release(long now) {
+    for (ChannelLog log : channels.values()) {
+      if (log.pending != null && now - log.writtenAt >= IDLE)
+        log.release();
+    }
+  }
+
+  /**
+   * Get (opening if needed) the log of a channel.
+   */
+  private ChannelLog channel(String name) {
+    return channels.computeIfAbsent(name, key -> {
+      // opening may truncate a torn segment, which no reader may have mapped meanwhile
+      lock.writeLock().lock();
+      try {
+        return new ChannelLog(key, directory.resolve(key));
+      } catch (IOException exception) {
+        throw new UncheckedIOException("Failed to open chat log of " + key, exception);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Write every frame of a journal to the segments it belongs to, unless compressed since.
+   */
+  private void replay(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+
+    final Map<Path, FileChannel> replayed = new HashMap<>();
+    try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = input.map(FileChannel.MapMode.READ_ONLY, 0, input.size());
+      final CRC32 checksum = new CRC32();
+      final int limit = buffer.limit();
+      int offset = 0;
+
+      while (offset + HEADER <= limit) {
+        final int length = buffer.getInt(offset);
+        if (length < Short.BYTES || offset + HEADER + length > limit)
+          break;
+        checksum.reset();
+        checksum.update(buffer.slice(offset + HEADER, length));
+        if ((int) checksum.getValue() != buffer.getInt(offset + 4))
+          break;
+
+        final int start = offset + HEADER;
+        final byte[] channel = new byte[buffer.getShort(start) & 0xFFFF];
+        final int records = start + Short.BYTES + channel.length + Integer.BYTES + Long.BYTES;
+        if (records > start + length)
+          break;
+        buffer.get(start + Short.BYTES, channel);
+        final String name = new String(channel, StandardCharsets.US_ASCII);
+        final Path segment = directory.resolve(name).resolve(name(buffer.getInt(records - Integer.BYTES - Long.BYTES), "log"));
+        offset = start + length;
+        if (!CHANNEL.matcher(name).matches() || !Files.exists(segment))
+          continue;
+
+        FileChannel output = replayed.get(segment);
+        if (output == null) {
+          output = FileChannel.open(segment, StandardOpenOption.WRITE);
+          replayed.put(segment, output);
+        }
+        writeFully(output, buffer.slice(records, offset - records), buffer.getLong(records - Long.BYTES));
+      }
+
+      for (FileChannel output : replayed.values())
+        output.force(false);
+    } finally {
+      for (FileChannel output : replayed.values())
+        output.close();
+    }
+  }
+
+  /**
+   * List the segment files of a channel, by identifier.
+   *
+   * @param cleanup {@link Boolean} whether to delete temporary files left behind.
+   * @return {@link NavigableMap} the extensions of each segment (log, dat or both).
+   */
+  private static NavigableMap<Integer, Set<String>> list(Path directory, boolean cleanup) throws IOException {
+    final NavigableMap<Integer, Set<String>> found = new TreeMap<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(".tmp")) {
+          if (cleanup)
+            Files.delete(file);
+          continue;
+        }
+
+        final Matcher matcher = SEGMENT.matcher(name);
+        if (matcher.matches())
+          found.computeIfAbsent(Integer.parseInt(matcher.group(1)), key -> new HashSet<>()).add(matcher.group(2));
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Open the segments of a channel for reading only - neither creating nor repairing anything (must hold the lock).
+   */
+  private static List<Segment> peek(Path directory) throws IOException {
+    final List<Segment> segments = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return segments;
+    }
+
+    for (Map.Entry<Integer, Set<String>> entry : list(directory, false).entrySet()) {
+      final int id = entry.getKey();
+      final boolean sealed = entry.getValue().contains("dat");
+      final Segment segment = new Segment(id, directory.resolve(name(id, sealed ? "dat" : "log")));
+      if (sealed) {
+        segment.openSealed();
+      } else {
+        segment.scan(false);
+      }
+      segments.add(segment);
+    }
+    return segments;
+  }
+
+  /**
+   * Compress a closed segment into blocks, swapping it in once written.
+   */
+  private void seal(Segment segment) {
+    final Path sealed = segment.path.resolveSibling(name(segment.id, "dat"));
+    final Path temporary = segment.path.resolveSibling(name(segment.id, "dat.tmp"));
+    final Index blocks = new Index();
+    final List<Long> blockLast = new ArrayList<>();
+    final List<int[]> blockSizes = new ArrayList<>();
+    final Deflater deflater = new Deflater();
+
+    try (FileChannel input = FileChannel.open(segment.path, StandardOpenOption.READ);
+         FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      final MappedByteBuffer raw = input.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+      long position = writeFully(output, ByteBuffer.allocate(4).putInt(0, SEALED_MAGIC), 0);
+      byte[] compressed = new byte[BLOCK_BYTES];
+
+      int start = 0;
+      while (start < segment.size) {
+        // cut a block at the first record boundary past the block size
+        final long first = raw.getLong(start + HEADER);
+        long last = first;
+        int end = start;
+        while (end < segment.size && end - start < BLOCK_BYTES) {
+          last = raw.getLong(end + HEADER);
+          end += HEADER + raw.getInt(end);
+        }
+
+        final byte[] block = new byte[end - start];
+        raw.get(start, block);
+        deflater.reset();
+        deflater.setInput(block);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+          if (length == compressed.length)
+            compressed = Arrays.copyOf(compressed, compressed.length * 2);
+          length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        blocks.add(first, position);
+        blockLast.add(last);
+        blockSizes.add(new int[] { length, block.length });
+        position = writeFully(output, ByteBuffer.wrap(compressed, 0, length), position);
+        start = end;
+      }
+
+      // sparse index of the time range of each block, followed by the footer
+      final ByteBuffer index = ByteBuffer.allocate(blocks.size * BLOCK_ENTRY + FOOTER);
+      for (int block = 0; block < blocks.size; block++) {
+        index.putLong(blocks.times[block])
+          .putLong(blockLast.get(block))
+          .putLong(blocks.offsets[block])
+          .putInt(blockSizes.get(block)[0])
+          .putInt(blockSizes.get(block)[1]);
+      }
+      index.putInt(blocks.size).putLong(position).putInt(SEALED_MAGIC).flip();
+      writeFully(output, index, position);
+      output.force(true);
+    } catch (IOException exception) {
+      LOGGER.log(System.Logger.Level.WARNING, "Failed to compress " + segment.path, exception);
+      return;
+    } finally {
+      deflater.end();
+    }
+
+    lock.writeLock().lock();
+    try {
+      Files.move(temporary, sealed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Files.delete(segment.path);
+      segment.path = sealed;
+      segment.index = blocks;
+      segment.blockLast = blockLast.stream().mapToLong(Long::longValue).toArray();
+      segment.blockCompressed = blockSizes.stream().mapToInt(sizes -> sizes[0]).toArray();
+      segment.blockRaw = blockSizes.stream().mapToInt(sizes -> sizes[1]).toArray();
+      segment.sealed = true;
+    } catch (IOException exception) {
+      LOGGER.log(System.Logger.Level.WARNING, "Failed to swap in " + sealed, exception);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Get the file name of a segment.
+   */
+  private static String name(int id, String extension) {
+    return String.format("segment-%08d.%s", id, extension);
+  }
+
+  /**
+   * Write a buffer fully at a position.
+   *
+   * @return {@link Long} the position after said buffer.
+   */
+  private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining())
+      position += channel.write(buffer, position);
+    return position;
+  }
+
+  /**
+   * Decode all records of a buffer between two offsets, adding those within a time range.
+   *
+   * @return {@link Boolean} whether the end of said range was reached.
+   */
+  private static boolean decode(ByteBuffer buffer, int offset, int end, long from, long to, List<Entry> entries) {
+    final CRC32 checksum = new CRC32();
+    while (offset + HEADER <= end) {
+      final int length = buffer.getInt(offset);
+      if (length <= 0 || offset + HEADER + length > end) {
+        return false;
+      }
+
+      final long timestamp = buffer.getLong(offset + HEADER);
+      if (timestamp >= to) {
+        return true;
+      }
+      if (timestamp >= from) {
+        checksum.reset();
+        checksum.update(buffer.slice(offset + HEADER, length));
+        if ((int) checksum.getValue() != buffer.getInt(offset + 4))
+          return false;
+
+        final byte[] body = new byte[length];
+        buffer.get(offset + HEADER, body);
+        entries.add(Entry.decode(body));
+      }
+      offset += HEADER + length;
+    }
+    return false;
+  }
+
+  /**
+   * This record represents a single logged message.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Entry(long timestamp, String userId, String userName, String message) {
+    /**
+     * Encode this entry (timestamp first, as read without decoding the rest).
+     */
+    private void encode(DataOutputStream output) throws IOException {
+      output.writeLong(timestamp);
+      output.writeUTF(userId);
+      output.writeUTF(userName);
+      output.writeUTF(message);
+    }
+
+    /**
+     * Decode the body of a record.
+     */
+    private static Entry decode(byte[] body) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(body))) {
+        return new Entry(input.readLong(), input.readUTF(), input.readUTF(), input.readUTF());
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+  }
+
+  /**
+   * This record represents a message waiting to be appended.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Queued(String channel, Entry entry) {}
+
+  /**
+   * This class represents the segments of a single channel.
+   *
+   * Note: The segments are guarded by the lock of the owning log, everything else is only accessed by its writer.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private final class ChannelLog {
+    /**
+     * {@link String} the name of this channel.
+     */
+    private final String name;
+
+    /**
+     * {@link NavigableMap} the segments of this channel, by identifier.
+     */
+    private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+
+    /**
+     * {@link ByteArrayOutputStream} the records written since the last commit (null while released).
+     */
+    private ByteArrayOutputStream pending;
+
+    /**
+     * {@link DataOutputStream} the encoder of the headers of said records.
+     */
+    private DataOutputStream framer;
+
+    /**
+     * {@link Index} the index points of the records written since the last commit.
+     */
+    private final Index pendingIndex = new Index();
+
+    /**
+     * {@link Segment} the segment being appended to.
+     */
+    private Segment active;
+
+    /**
+     * {@link Long} the timestamp of the first record of the active segment (committed or not).
+     */
+    private long activeSince = Long.MIN_VALUE;
+
+    /**
+     * {@link Long} the timestamp of the latest record.
+     */
+    private long latest = Long.MIN_VALUE;
+
+    /**
+     * {@link Long} the offset of the latest index point of the active segment.
+     */
+    private long lastIndexed = -INDEX_INTERVAL;
+
+    /**
+     * {@link Long} when (in nanoseconds) this channel was last written to.
+     */
+    private long writtenAt = System.nanoTime();
+
+    /**
+     * {@link Boolean} whether the active segment was written to since it was last flushed.
+     */
+    private boolean dirty;
+
+    /**
+     * Primary constructor - opening the segments of a channel.
+     */
+    private ChannelLog(String name, Path directory) throws IOException {
+      this.name = name;
+      Files.createDirectories(directory);
+      for (Map.Entry<Integer, Set<String>> entry : list(directory, true).entrySet()) {
+        final int id = entry.getKey();
+        final Segment segment = new Segment(id, directory.resolve(name(id, "log")));
+        if (entry.getValue().contains("dat")) {
+          // compressed before the raw segment could be deleted
+          Files.deleteIfExists(segment.path);
+          segment.path = directory.resolve(name(id, "dat"));
+          segment.openSealed();
+        } else {
+          segment.scan(true);
+        }
+        segments.put(id, segment);
+        if (segment.maxTime > latest)
+          latest = segment.maxTime;
+      }
+
+      final Map.Entry<Integer, Segment> last = segments.lastEntry();
+      if (last != null && !last.getValue().sealed) {
+        this.active = last.getValue();
+        this.lastIndexed = active.index.size == 0 ? -INDEX_INTERVAL : active.index.offsets[active.index.size - 1];
+        this.activeSince = active.size == 0 ? Long.MIN_VALUE : active.minTime;
+      } else {
+        final int id = last == null ? 1 : last.getKey() + 1;
+        this.active = new Segment(id, directory.resolve(name(id, "log")));
+        segments.put(id, active);
+      }
+      open();
+
+      // segments closed without being compressed
+      for (Segment segment : segments.values()) {
+        if (segment != active && !segment.sealed)
+          sealer.execute(() -> seal(segment));
+      }
+    }
+
+    /**
+     * Encode a message into the pending records, closing the active segment first if due.
+     */
+    private void write(Entry entry) throws IOException {
+      open();
+      writtenAt = System.nanoTime();
+      final long timestamp = Math.max(entry.timestamp, latest);
+      final Entry ordered = timestamp == entry.timestamp ? entry : new Entry(timestamp, entry.userId, entry.userName, entry.message);
+      latest = timestamp;
+
+      final long size = active.size + pending.size();
+      if (size > 0 && (size >= segmentBytes || timestamp - activeSince >= segmentAge)) {
+        commit(List.of(this));
+        roll();
+      }
+
+      body.reset();
+      ordered.encode(encoder);
+      checksum.reset();
+      checksum.update(body.toByteArray());
+
+      final long offset = active.size + pending.size();
+      if (offset - lastIndexed >= INDEX_INTERVAL) {
+        pendingIndex.add(timestamp, offset);
+        lastIndexed = offset;
+      }
+      if (offset == 0)
+        activeSince = timestamp;
+
+      framer.writeInt(body.size());
+      framer.writeInt((int) checksum.getValue());
+      body.writeTo(pending);
+    }
+
+    /**
+     * Write the journaled records to the active segment, publishing them to readers.
+     */
+    private void apply() {
+      if (pending == null || pending.size() == 0) {
+        return;
+      }
+
+      final byte[] records = pending.toByteArray();
+      try {
+        writeFully(active.writer, ByteBuffer.wrap(records), active.size);
+        dirty = true;
+      } catch (IOException exception) {
+        // drop the batch, the next one overwrites whatever part of it was written
+        LOGGER.log(System.Logger.Level.WARNING, "Failed to write to " + active.path, exception);
+        dropped.add(count());
+        rewind();
+        return;
+      }
+
+      lock.writeLock().lock();
+      try {
+        final ByteBuffer buffer = ByteBuffer.wrap(records);
+        active.minTime = Math.min(active.minTime, buffer.getLong(HEADER));
+        active.maxTime = latest;
+        for (int point = 0; point < pendingIndex.size; point++)
+          active.index.add(pendingIndex.times[point], pendingIndex.offsets[point]);
+        active.size += records.length;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      pending.reset();
+      pendingIndex.size = 0;
+    }
+
+    /**
+     * Close the active segment (compressing it in the background) and start a new one.
+     */
+    private void roll() throws IOException {
+      final Segment closed = active;
+      final Segment next = new Segment(closed.id + 1, closed.path.resolveSibling(name(closed.id + 1, "log")));
+      next.openWriter();
+
+      lock.writeLock().lock();
+      try {
+        closed.closeWriter();
+        segments.put(next.id, next);
+        this.active = next;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      this.lastIndexed = -INDEX_INTERVAL;
+      this.activeSince = Long.MIN_VALUE;
+      this.dirty = false;
+      sealer.execute(() -> seal(closed));
+    }
+
+    /**
+     * Allocate the buffer and open the file of the active segment, unless already so.
+     */
+    private void open() throws IOException {
+      if (pending == null) {
+        this.pending = new ByteArrayOutputStream(BLOCK_BYTES);
+        this.framer = new DataOutputStream(pending);
+      }
+      if (active.writer == null)
+        active.openWriter();
+    }
+
+    /**
+     * Flush the active segment, if written to since it was last flushed.
+     */
+    private void sync() throws IOException {
+      if (dirty && active.writer != null)
+        active.writer.force(false);
+      this.dirty = false;
+    }
+
+    /**
+     * Release the buffer and (flushing it) the file of the active segment - reallocated by the next write.
+     */
+    private void release() {
+      active.closeWriter();
+      this.pending = null;
+      this.framer = null;
+      this.dirty = false;
+    }
+
+    /**
+     * Forget the pending records after a failed commit.
+     */
+    private void rewind() {
+      pending.reset();
+      pendingIndex.size = 0;
+      this.lastIndexed = active.index.size == 0 ? -INDEX_INTERVAL : active.index.offsets[active.index.size - 1];
+      if (active.size == 0)
+        this.activeSince = Long.MIN_VALUE;
+    }
+
+    /**
+     * Count the pending records.
+     */
+    private int count() {
+      final ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+      int count = 0;
+      for (int offset = 0; offset < buffer.limit(); offset += HEADER + buffer.getInt(offset))
+        count++;
+      return count;
+    }
+  }
+
+  /**
+   * This class represents a growable sparse index of time to offset.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Index {
+    /**
+     * {@link Long} array of the timestamp of each point.
+     */
+    private long[] times = new long[8];
+
+    /**
+     * {@link Long} array of the offset of each point.
+     */
+    private long[] offsets = new long[8];
+
+    /**
+     * {@link Integer} the amount of points.
+     */
+    private int size;
+
+    /**
+     * Add a point.
+     */
+    private void add(long time, long offset) {
+      if (size == times.length) {
+        times = Arrays.copyOf(times, size * 2);
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      times[size] = time;
+      offsets[size++] = offset;
+    }
+
+    /**
+     * Get the last point at or before a timestamp.
+     *
+     * @return {@link Integer} index of said point (-1 if none).
+     */
+    private int floor(long time) {
+      int low = 0, high = size - 1, found = -1;
+      while (low <= high) {
+        final int middle = (low + high) >>> 1;
+        if (times[middle] <= time) {
+          found = middle;
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      return found;
+    }
+
+    /**
+     * Get a copy of this index.
+     */
+    private Index copy() {
+      final Index copy = new Index();
+      copy.times = Arrays.copyOf(times, size);
+      copy.offsets = Arrays.copyOf(offsets, size);
+      copy.size = size;
+      return copy;
+    }
+  }
+
+  /**
+   * This class represents a single segment - raw while open, compressed into blocks once closed.
+   *
+   * Note: All state is guarded by the lock of the owning log, except for the writer (only used by the log's writer).
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Segment {
+    /**
+     * {@link Integer} the identifier of this segment.
+     */
+    private final int id;
+
+    /**
+     * {@link Path} the file of this segment.
+     */
+    private Path path;
+
+    /**
+     * {@link Boolean} whether this segment is compressed.
+     */
+    private boolean sealed;
+
+    /**
+     * {@link Long} the (uncompressed) size of this segment.
+     */
+    private long size;
+
+    /**
+     * {@link Long} the timestamp of the first record.
+     */
+    private long minTime = Long.MAX_VALUE;
+
+    /**
+     * {@link Long} the timestamp of the last record.
+     */
+    private long maxTime = Long.MIN_VALUE;
+
+    /**
+     * {@link Index} the time index - of records while raw, of blocks once compressed.
+     */
+    private Index index = new Index();
+
+    /**
+     * {@link Long} array of the timestamp of the last record of each block.
+     */
+    private long[] blockLast;
+
+    /**
+     * {@link Integer} array of the compressed size of each block.
+     */
+    private int[] blockCompressed;
+
+    /**
+     * {@link Integer} array of the uncompressed size of each block.
+     */
+    private int[] blockRaw;
+
+    /**
+     * {@link FileChannel} the channel appended through (null unless active).
+     */
+    private FileChannel writer;
+
+    /**
+     * Primary constructor.
+     */
+    private Segment(int id, Path path) {
+      this.id = id;
+      this.path = path;
+    }
+
+    /**
+     * Open the writer of this segment.
+     */
+    private void openWriter() throws IOException {
+      this.writer = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Close the writer of this segment.
+     */
+    private void closeWriter() {
+      if (writer == null) {
+        return;
+      }
+
+      try {
+        writer.force(true);
+        writer.close();
+      } catch (IOException exception) {
+        LOGGER.log(System.Logger.Level.WARNING, "Failed to close " + path, exception);
+      }
+      writer = null;
+    }
+
+    /**
+     * Scan a raw segment - building its index and (if repairing) truncating a torn tail.
+     */
+    private void scan(boolean repair) throws IOException {
+      final Set<StandardOpenOption> options = repair
+        ? EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE)
+        : EnumSet.of(StandardOpenOption.READ);
+      try (FileChannel channel = FileChannel.open(path, options)) {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        final CRC32 checksum = new CRC32();
+        final int limit = buffer.limit();
+        long lastIndexed = -INDEX_INTERVAL;
+        int offset = 0;
+
+        while (offset + HEADER <= limit) {
+          final int length = buffer.getInt(offset);
+          if (length < Long.BYTES || offset + HEADER + length > limit)
+            break;
+          checksum.reset();
+          checksum.update(buffer.slice(offset + HEADER, length));
+          if ((int) checksum.getValue() != buffer.getInt(offset + 4))
+            break;
+
+          final long timestamp = buffer.getLong(offset + HEADER);
+          if (offset - lastIndexed >= INDEX_INTERVAL) {
+            index.add(timestamp, offset);
+            lastIndexed = offset;
+          }
+          minTime = Math.min(minTime, timestamp);
+          maxTime = Math.max(maxTime, timestamp);
+          offset += HEADER + length;
+        }
+
+        this.size = offset;
+        if (repair && offset < limit)
+          channel.truncate(offset);
+      }
+    }
+
+    /**
+     * Open a compressed segment - reading the index of its blocks.
+     */
+    private void openSealed() throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        final int limit = buffer.limit();
+        if (limit < 4 + FOOTER || buffer.getInt(0) != SEALED_MAGIC || buffer.getInt(limit - 4) != SEALED_MAGIC)
+          throw new IOException("Corrupt chat log segment " + path);
+
+        final int blocks = buffer.getInt(limit - FOOTER);
+        final long indexOffset = buffer.getLong(limit - FOOTER + 4);
+        if (blocks < 0 || indexOffset + (long) blocks * BLOCK_ENTRY != limit - FOOTER)
+          throw new IOException("Corrupt chat log segment " + path);
+
+        this.blockLast = new long[blocks];
+        this.blockCompressed = new int[blocks];
+        this.blockRaw = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+          final int entry = (int) indexOffset + block * BLOCK_ENTRY;
+          index.add(buffer.getLong(entry), buffer.getLong(entry + 16));
+          blockLast[block] = buffer.getLong(entry + 8);
+          blockCompressed[block] = buffer.getInt(entry + 24);
+          blockRaw[block] = buffer.getInt(entry + 28);
+          size += blockRaw[block];
+        }
+
+        if (blocks > 0) {
+          this.minTime = index.times[0];
+          this.maxTime = blockLast[blocks - 1];
+        }
+        this.sealed = true;
+      }
+    }
+
+    /**
+     * Map this segment for reading (must hold the lock of the owning log).
+     */
+    private View view() throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        final long length = sealed ? channel.size() : size;
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        return sealed
+          ? new View(buffer, index, blockLast, blockCompressed, blockRaw)
+          : new View(buffer, index.copy(), null, null, null);
+      }
+    }
+  }
+
+  /**
+   * This record represents a segment mapped for reading.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record View(MappedByteBuffer buffer, Index index, long[] blockLast, int[] blockCompressed, int[] blockRaw) {
+    /**
+     * Read all records within a time range.
+     */
+    private void read(long from, long to, List<Entry> entries, Inflater inflater) throws DataFormatException {
+      if (blockLast == null) {
+        final int point = index.floor(from);
+        decode(buffer, point < 0 ? 0 : (int) index.offsets[point], buffer.limit(), from, to, entries);
+        return;
+      }
+
+      for (int block = Math.max(0, index.floor(from)); block < index.size; block++) {
+        if (blockLast[block] < from)
+          continue;
+        if (index.times[block] >= to)
+          return;
+
+        final byte[] raw = new byte[blockRaw[block]];
+        inflater.reset();
+        inflater.setInput(buffer.slice((int) index.offsets[block], blockCompressed[block]));
+        int length = 0;
+        while (length < raw.length && !inflater.finished()) {
+          final int inflated = inflater.inflate(raw, length, raw.length - length);
+          if (inflated == 0 && inflater.needsInput())
+            throw new DataFormatException("Truncated block");
+          length += inflated;
+        }
+        if (decode(ByteBuffer.wrap(raw), 0, raw.length, from, to, entries))
+          return;
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,478 @@
+package xyz.oliwer.twitch.bot.cluster;
+
+import xyz.oliwer.twitch.bot.metrics.Counter;
+import xyz.oliwer.twitch.bot.metrics.MetricRegistry;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.oliwer.twitch.bot.cluster.ClusterProtocol.*;
+
+/**
+ * This class represents the coordinator of a cluster of bot processes, tracking its members alongside the channels
+ * and custom command definitions of the whole cluster - listening on the loopback address, either on its own
+ * or embedded in one of the nodes.
+ * <br/>
+ *
+ * <ul>
+ *   <li>A node connecting is sent all channels and definitions, after which every member is sent the new membership
+ *       (which ends said state, and carries the epoch of this coordinator - so a node tells a restart apart from a reconnect).</li>
+ *   <li>A node whose connection closes (or stays silent for longer than the timeout) is removed from membership.</li>
+ *   <li>Every change of channels or definitions is relayed to all members (the sender included), in a single order.</li>
+ *   <li>Messages are queued per member and written by a thread of its own, so a slow member never holds up the others
+ *       (one falling too far behind is dropped).</li>
+ * </ul>
+ *
+ * Note: Which node owns a channel is never decided here - every node derives it from membership through a {@link HashRing}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ClusterCoordinator implements AutoCloseable {
+  /**
+   * {@link System.Logger} this constant represents the logger membership changes are logged to.
+   */
+  private static final System.Logger LOGGER = System.getLogger(ClusterCoordinator.class.getName());
+
+  /**
+   * {@link Integer} this constant represents the amount of messages queued for a member until it is dropped.
+   */
+  private static final int OUTBOUND_CAPACITY = 65_536;
+
+  /**
+   * {@link ServerSocket} this property represents the socket nodes connect to.
+   */
+  private final ServerSocket socket;
+
+  /**
+   * {@link Long} this property represents the epoch of this coordinator (random, so a restarted coordinator has another).
+   */
+  private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+  /**
+   * {@link Map} this property represents the connection of each member, in order of joining (guarded by this coordinator).
+   */
+  private final Map<String, Member> members = new LinkedHashMap<>();
+
+  /**
+   * {@link Set} this property represents all channels of the cluster (guarded by this coordinator).
+   */
+  private final Set<String> channels = new LinkedHashSet<>();
+
+  /**
+   * {@link Map} this property represents the custom command definitions of each channel, by alias (guarded by this coordinator).
+   */
+  private final Map<String, Map<String, String>> definitions = new HashMap<>();
+
+  /**
+   * {@link Counter} this property represents the amount of nodes admitted as members.
+   */
+  private final Counter joins;
+
+  /**
+   * {@link Counter} this property represents the amount of members removed.
+   */
+  private final Counter leaves;
+
+  /**
+   * {@link Counter} this property represents the amount of connections refused (as their node was already a member).
+   */
+  private final Counter refusals;
+
+  /**
+   * {@link Counter} this property represents the amount of members dropped for falling too far behind.
+   */
+  private final Counter overflows;
+
+  /**
+   * Primary constructor - starting the coordinator on the loopback address.
+   *
+   * @param port {@link Integer} the port to listen on (0 for any free port).
+   * @param registry {@link MetricRegistry} the registry to report membership to.
+   */
+  public ClusterCoordinator(int port, MetricRegistry registry) {
+    if (registry == null)
+      throw new NullPointerException("registry must not be null");
+
+    registry.gauge("bot_cluster_coordinator_members", "Members connected to the coordinator.", () -> members().size());
+    this.joins = registry.counter("bot_cluster_coordinator_joins_total", "Nodes admitted as members by the coordinator.");
+    this.leaves = registry.counter("bot_cluster_coordinator_leaves_total", "Members removed by the coordinator.");
+    this.refusals = registry.counter("bot_cluster_coordinator_refusals_total", "Connections refused by the coordinator, as their node was already a member.");
+    this.overflows = registry.counter("bot_cluster_coordinator_overflows_total", "Members dropped by the coordinator for falling too far behind.");
+
+    try {
+      this.socket = new ServerSocket();
+      this.socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to bind cluster coordinator to port " + port, exception);
+    }
+
+    final Thread acceptor = new Thread(this::accept, "cluster-coordinator");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Start a coordinator reporting to a registry of its own.
+   *
+   * @see ClusterCoordinator#ClusterCoordinator(int, MetricRegistry)
+   */
+  public ClusterCoordinator(int port) {
+    this(port, new MetricRegistry());
+  }
+
+  /**
+   * Get the port this coordinator listens on.
+   *
+   * @return {@link Integer}
+   */
+  public int port() {
+    return socket.getLocalPort();
+  }
+
+  /**
+   * Get the identifiers of all members.
+   *
+   * @return {@link Set<String>} copy of said identifiers.
+   */
+  public synchronized Set<String> members() {
+    return new LinkedHashSet<>(members.keySet());
+  }
+
+  /**
+   * Get all channels of the cluster.
+   *
+   * @return {@link Set<String>} copy of said channels.
+   */
+  public synchronized Set<String> channels() {
+    return new LinkedHashSet<>(channels);
+  }
+
+  /**
+   * Add a channel to the cluster, to be joined by whichever node owns it.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean} whether the channel was not already part of the cluster.
+   */
+  public synchronized boolean join(String channel) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    if (!channels.add(key)) {
+      return false;
+    }
+    broadcast(JOIN, key);
+    return true;
+  }
+
+  /**
+   * Remove a channel from the cluster, to be left by whichever node owns it.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean} whether the channel was part of the cluster.
+   */
+  public synchronized boolean part(String channel) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    if (!channels.remove(key)) {
+      return false;
+    }
+    broadcast(PART, key);
+    return true;
+  }
+
+  /**
+   * Define (or redefine) a custom command of a channel on every node.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param alias {@link String} alias of the command.
+   * @param response {@link String} the response of the command.
+   */
+  public synchronized void define(String channel, String alias, String response) {
+    if (channel == null || alias == null || response == null)
+      throw new NullPointerException("channel, alias and response must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    final String normalized = alias.toLowerCase(Locale.ROOT);
+    if (response.equals(definitions.computeIfAbsent(key, ignored -> new HashMap<>()).put(normalized, response))) {
+      return;
+    }
+    broadcast(DEFINE, key, normalized, response);
+  }
+
+  /**
+   * Remove a custom command of a channel from every node.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param alias {@link String} alias of the command.
+   */
+  public synchronized void remove(String channel, String alias) {
+    if (channel == null || alias == null)
+      throw new NullPointerException("channel and alias must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    final String normalized = alias.toLowerCase(Locale.ROOT);
+    final Map<String, String> defined = definitions.get(key);
+    if (defined == null || defined.remove(normalized) == null) {
+      return;
+    }
+    if (defined.isEmpty())
+      definitions.remove(key);
+    broadcast(REMOVE, key, normalized);
+  }
+
+  /**
+   * Stop the coordinator, dropping all members.
+   */
+  @Override
+  public void close() {
+    try {
+      socket.close();
+    } catch (IOException ignored) {}
+
+    final List<Member> dropped;
+    synchronized (this) {
+      dropped = new ArrayList<>(members.values());
+      members.clear();
+    }
+    for (Member member : dropped)
+      member.close();
+  }
+
+  /**
+   * Accept nodes until the coordinator is closed.
+   */
+  private void accept() {
+    while (!socket.isClosed()) {
+      try {
+        final Socket connection = socket.accept();
+        final Thread reader = new Thread(() -> serve(connection), "cluster-coordinator-member");
+        reader.setDaemon(true);
+        reader.start();
+      } catch (IOException ignored) {}
+    }
+  }
+
+  /**
+   * Serve a single node - greeting it, then applying its messages until its connection closes.
+   */
+  private void serve(Socket connection) {
+    Member member = null;
+    try (connection) {
+      connection.setSoTimeout(TIMEOUT);
+      connection.setTcpNoDelay(true);
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+      final String[] hello = read(reader);
+      if (hello == null || hello.length != 2 || !hello[0].equals(HELLO)) {
+        return;
+      }
+
+      member = new Member(hello[1], connection, overflows);
+      if (!admit(member)) {
+        member = null;
+        return;
+      }
+
+      String[] message;
+      while ((message = read(reader)) != null)
+        apply(member, message);
+    } catch (IOException ignored) {
+      // dropped or timed out
+    } finally {
+      if (member != null)
+        leave(member);
+    }
+  }
+
+  /**
+   * Admit a node as a member, sending it the state of the cluster.
+   *
+   * @return {@link Boolean} false if a member of the same identifier is already connected.
+   */
+  private synchronized boolean admit(Member member) {
+    if (members.containsKey(member.node)) {
+      refusals.increment();
+      LOGGER.log(System.Logger.Level.WARNING, "Cluster node {0} is already a member, refusing the second connection", member.node);
+      return false;
+    }
+
+    final List<String[]> state = new ArrayList<>(channels.size());
+    for (String channel : channels)
+      state.add(new String[] { JOIN, channel });
+    definitions.forEach((channel, defined) -> defined.forEach((alias, response) -> state.add(new String[] { DEFINE, channel, alias, response })));
+    members.put(member.node, member);
+    member.start(state);
+    broadcastMembers();
+    joins.increment();
+    LOGGER.log(System.Logger.Level.INFO, "Cluster node {0} joined, {1} member(s)", member.node, members.size());
+    return true;
+  }
+
+  /**
+   * Remove a member, telling the remaining members.
+   */
+  private synchronized void leave(Member member) {
+    if (!members.remove(member.node, member)) {
+      return;
+    }
+
+    member.close();
+    broadcastMembers();
+    leaves.increment();
+    LOGGER.log(System.Logger.Level.INFO, "Cluster node {0} left, {1} member(s)", member.node, members.size());
+  }
+
+  /**
+   * Apply a message sent by a member.
+   */
+  private void apply(Member member, String[] message) {
+    switch (message[0]) {
+      case PING -> member.send(PONG);
+      case JOIN -> {
+        if (message.length == 2)
+          join(message[1]);
+      }
+      case PART -> {
+        if (message.length == 2)
+          part(message[1]);
+      }
+      case DEFINE -> {
+        if (message.length == 4)
+          define(message[1], message[2], message[3]);
+      }
+      case REMOVE -> {
+        if (message.length == 3)
+          remove(message[1], message[2]);
+      }
+      default -> {}
+    }
+  }
+
+  /**
+   * Send the current membership to all members.
+   */
+  private void broadcastMembers() {
+    final String[] message = new String[members.size() + 2];
+    message[0] = MEMBERS;
+    message[1] = Long.toString(epoch);
+    int index = 2;
+    for (String node : members.keySet())
+      message[index++] = node;
+    broadcast(message);
+  }
+
+  /**
+   * Send a message to all members (only queueing it, so this never blocks).
+   */
+  private void broadcast(String... message) {
+    for (Member member : members.values())
+      member.send(message);
+  }
+
+  /**
+   * This class represents the connection of a single member.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Member {
+    /**
+     * {@link String} the identifier of the node.
+     */
+    private final String node;
+
+    /**
+     * {@link Socket} the connection of said node.
+     */
+    private final Socket socket;
+
+    /**
+     * {@link Writer} the output of said connection (written by the writer of this member only).
+     */
+    private final Writer writer;
+
+    /**
+     * {@link BlockingQueue} the messages not yet written.
+     */
+    private final BlockingQueue<String[]> outbound = new LinkedBlockingQueue<>(OUTBOUND_CAPACITY);
+
+    /**
+     * {@link Counter} the amount of members dropped for falling too far behind.
+     */
+    private final Counter overflows;
+
+    /**
+     * Primary constructor.
+     */
+    private Member(String node, Socket socket, Counter overflows) throws IOException {
+      this.node = node;
+      this.socket = socket;
+      this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+      this.overflows = overflows;
+    }
+
+    /**
+     * Start writing the state of the cluster, followed by queued messages.
+     */
+    private void start(List<String[]> state) {
+      final Thread thread = new Thread(() -> drain(state), "cluster-coordinator-writer-" + node);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /**
+     * Queue a message, dropping the connection if this member fell too far behind.
+     */
+    private void send(String... message) {
+      if (outbound.offer(message)) {
+        return;
+      }
+      if (!socket.isClosed()) {
+        overflows.increment();
+        LOGGER.log(System.Logger.Level.WARNING, "Cluster node {0} fell {1} messages behind, dropping it", node, OUTBOUND_CAPACITY);
+      }
+      close();
+    }
+
+    /**
+     * Write the state of the cluster, then queued messages until the connection closes (flushing whenever the queue runs empty).
+     */
+    private void drain(List<String[]> state) {
+      try {
+        for (String[] message : state)
+          write(writer, message);
+        writer.flush();
+        while (!socket.isClosed()) {
+          final String[] message = outbound.poll(PING_INTERVAL, TimeUnit.MILLISECONDS);
+          if (message == null) {
+            continue;
+          }
+          write(writer, message);
+          if (outbound.isEmpty())
+            writer.flush();
+        }
+      } catch (IOException | InterruptedException exception) {
+        close();
+      }
+    }
+
+    /**
+     * Drop the connection, which ends its reader.
+     */
+    private void close() {
+      try {
+        socket.close();
+      } catch (IOException ignored) {}
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,681 @@
+package xyz.oliwer.twitch.bot.cluster;
+
+import xyz.oliwer.twitch.bot.custom.CustomCommands;
+import xyz.oliwer.twitch.bot.metrics.Counter;
+import xyz.oliwer.twitch.bot.metrics.MetricRegistry;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.oliwer.twitch.bot.cluster.ClusterProtocol.*;
+
+/**
+ * This class represents a single bot process taking part in a cluster - joining (through {@link BotClient#connect})
+ * only the channels of the cluster it owns on a {@link HashRing} of all members, and applying every custom command
+ * definition of the cluster to its own {@link CustomCommands}.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Whenever membership changes, only the channels whose owner changed are joined or left.</li>
+ *   <li>Channels and definitions are changed through the coordinator, which relays them to every member alike.</li>
+ *   <li>Losing the coordinator keeps every channel where it is, while reconnecting with jittered exponential backoff - until
+ *       the coordinator went unheard for longer than the timeout, by when it dropped this node and the remaining members
+ *       took over its channels (so they are left here too, as they are once this node is missing from membership).</li>
+ *   <li>Upon reconnecting, this node takes on the state of the cluster sent by the coordinator (so changes made elsewhere
+ *       meanwhile are not undone) and then sends the changes made here meanwhile - only if the epoch of the coordinator
+ *       changed (it restarted, losing said state) are all channels and definitions known to this node announced again.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ClusterNode implements AutoCloseable {
+  /**
+   * {@link System.Logger} this constant represents the logger a lost coordinator is logged to.
+   */
+  private static final System.Logger LOGGER = System.getLogger(ClusterNode.class.getName());
+
+  /**
+   * {@link Long} this constant represents the delay (in milliseconds) of the first reconnect, doubled per attempt.
+   */
+  private static final long RECONNECT_BASE = 250;
+
+  /**
+   * {@link Long} this constant represents the longest delay (in milliseconds) between reconnects.
+   */
+  private static final long RECONNECT_CAP = 5000;
+
+  /**
+   * {@link String} this property represents the identifier of this node.
+   */
+  private final String node;
+
+  /**
+   * {@link InetSocketAddress} this property represents the address of the coordinator.
+   */
+  private final InetSocketAddress coordinator;
+
+  /**
+   * {@link BotClient} this property represents the client owned channels are joined through.
+   */
+  private final BotClient client;
+
+  /**
+   * {@link CustomCommands} this property represents where definitions are applied.
+   */
+  private final CustomCommands commands;
+
+  /**
+   * {@link Integer} this property represents the amount of points per node on the ring.
+   */
+  private final int virtualNodes;
+
+  /**
+   * {@link Set} this property represents all channels of the cluster (guarded by this node).
+   */
+  private final Set<String> channels = new LinkedHashSet<>();
+
+  /**
+   * {@link Set} this property represents the channels joined by this node (guarded by this node).
+   */
+  private final Set<String> owned = new HashSet<>();
+
+  /**
+   * {@link Map} this property represents the custom command definitions of each channel, by alias (guarded by this node).
+   */
+  private final Map<String, Map<String, String>> definitions = new HashMap<>();
+
+  /**
+   * {@link List} this property represents the changes made while no link was synchronized, in order (guarded by this node).
+   */
+  private final List<String[]> unsent = new ArrayList<>();
+
+  /**
+   * {@link Counter} this property represents the amount of channels joined or left as their owner changed.
+   */
+  private final Counter handoffs;
+
+  /**
+   * {@link HashRing} this property represents the ring of the current members (guarded by this node).
+   */
+  private HashRing ring = HashRing.EMPTY;
+
+  /**
+   * {@link Long} this property represents the epoch of the coordinator last synchronized with (0 if none yet, guarded by this node).
+   */
+  private long epoch;
+
+  /**
+   * {@link Long} this property represents the amount of links synchronized through so far (guarded by this node).
+   */
+  private long sessions;
+
+  /**
+   * {@link Long} this property represents the point in time (nanoTime) a message of the coordinator was last read at.
+   */
+  private volatile long heard;
+
+  /**
+   * {@link Link} this property represents the current connection to the coordinator (null while disconnected).
+   */
+  private volatile Link link;
+
+  /**
+   * {@link Boolean} whether this node was closed.
+   */
+  private volatile boolean closed;
+
+  /**
+   * Primary constructor - connecting to the coordinator in the background.
+   *
+   * @param node {@link String} the identifier of this node (unique within the cluster).
+   * @param coordinator {@link InetSocketAddress} the address of the coordinator.
+   * @param client {@link BotClient} the client to join owned channels through.
+   * @param commands {@link CustomCommands} where to apply custom command definitions.
+   * @param virtualNodes {@link Integer} the amount of points per node on the ring (alike on every node).
+   */
+  public ClusterNode(String node, InetSocketAddress coordinator, BotClient client, CustomCommands commands, int virtualNodes) {
+    if (node == null || coordinator == null || client == null || commands == null)
+      throw new NullPointerException("node, coordinator, client and commands must not be null");
+    if (node.isEmpty() || node.indexOf('\t') >= 0)
+      throw new IllegalArgumentException("node must be a non empty identifier");
+    if (virtualNodes <= 0)
+      throw new IllegalArgumentException("virtualNodes must be positive");
+
+    this.node = node;
+    this.coordinator = coordinator;
+    this.client = client;
+    this.commands = commands;
+    this.virtualNodes = virtualNodes;
+
+    final MetricRegistry registry = client.metrics().registry();
+    registry.gauge("bot_cluster_members", "Members of the cluster as last told by the coordinator.", () -> members().size());
+    registry.gauge("bot_cluster_owned_channels", "Channels of the cluster owned by this node.", this::ownedCount);
+    this.handoffs = registry.counter("bot_cluster_handoffs_total", "Channels joined or left by this node as their owner changed.");
+
+    final Thread thread = new Thread(this::run, "cluster-node-" + node);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * @see ClusterNode#ClusterNode(String, InetSocketAddress, BotClient, CustomCommands, int)
+   */
+  public ClusterNode(String node, InetSocketAddress coordinator, BotClient client, CustomCommands commands) {
+    this(node, coordinator, client, commands, HashRing.DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Add a channel to the cluster, to be joined by whichever node owns it.
+   *
+   * @param channel {@link String} name of the channel.
+   */
+  public void join(String channel) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    onJoin(key);
+    send(JOIN, key);
+  }
+
+  /**
+   * Remove a channel from the cluster, to be left by whichever node owns it.
+   *
+   * @param channel {@link String} name of the channel.
+   */
+  public void leave(String channel) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    onPart(key);
+    send(PART, key);
+  }
+
+  /**
+   * Define (or redefine) a custom command of a channel on every node.
+   *
+   * @see CustomCommands#define(String, String, String)
+   */
+  public void define(String channel, String alias, String response) {
+    if (channel == null || alias == null || response == null)
+      throw new NullPointerException("channel, alias and response must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    final String normalized = alias.toLowerCase(Locale.ROOT);
+    onDefine(key, normalized, response);
+    send(DEFINE, key, normalized, response);
+  }
+
+  /**
+   * Remove a custom command of a channel from every node.
+   *
+   * @see CustomCommands#remove(String, String)
+   */
+  public void remove(String channel, String alias) {
+    if (channel == null || alias == null)
+      throw new NullPointerException("channel and alias must not be null");
+
+    final String key = channel.toLowerCase(Locale.ROOT);
+    final String normalized = alias.toLowerCase(Locale.ROOT);
+    onRemove(key, normalized);
+    send(REMOVE, key, normalized);
+  }
+
+  /**
+   * Get the identifier of this node.
+   *
+   * @return {@link String}
+   */
+  public String node() {
+    return this.node;
+  }
+
+  /**
+   * Get the members of the cluster as last told by the coordinator.
+   *
+   * @return {@link Set<String>} unmodifiable set of said members.
+   */
+  public synchronized Set<String> members() {
+    return ring.nodes();
+  }
+
+  /**
+   * Get the node owning a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link String} null if membership is not known yet.
+   */
+  public synchronized String owner(String channel) {
+    return ring.owner(channel);
+  }
+
+  /**
+   * Get the channels joined by this node.
+   *
+   * @return {@link Set<String>} copy of said channels.
+   */
+  public synchronized Set<String> owned() {
+    return new HashSet<>(owned);
+  }
+
+  /**
+   * Get whether this node is currently connected to the coordinator.
+   *
+   * @return {@link Boolean}
+   */
+  public boolean isConnected() {
+    return link != null;
+  }
+
+  /**
+   * Leave the cluster - the remaining members take over the channels of this node, which are left here.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    final Link current = link;
+    if (current != null)
+      current.close();
+
+    synchronized (this) {
+      for (String channel : owned)
+        client.disconnect(channel);
+      owned.clear();
+    }
+  }
+
+  /**
+   * Stay connected to the coordinator until closed.
+   */
+  private void run() {
+    int attempt = 0;
+    while (!closed) {
+      Link opened = null;
+      try (Socket socket = new Socket()) {
+        socket.connect(coordinator, TIMEOUT);
+        socket.setSoTimeout(TIMEOUT);
+        socket.setTcpNoDelay(true);
+        final Link current = new Link(socket);
+        greet(current);
+        opened = current;
+        attempt = 0;
+
+        final Thread pinger = new Thread(() -> ping(current), "cluster-node-" + node + "-ping");
+        pinger.setDaemon(true);
+        pinger.start();
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String[] message;
+        while ((message = read(reader)) != null) {
+          heard = System.nanoTime();
+          apply(current, message);
+        }
+      } catch (IOException exception) {
+        if (!closed && attempt == 0)
+          LOGGER.log(System.Logger.Level.WARNING, "Cluster node {0} lost the coordinator: {1}", node, exception.getMessage());
+      } finally {
+        this.link = null;
+      }
+
+      if (closed) {
+        return;
+      }
+      if (opened != null && opened.synced)
+        watch();
+      try {
+        Thread.sleep(1 + ThreadLocalRandom.current().nextLong(Math.min(RECONNECT_CAP, RECONNECT_BASE << Math.min(attempt++, 16))));
+      } catch (InterruptedException exception) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Watch over a lost link - leaving all owned channels once the coordinator went unheard for longer than the timeout,
+   * unless synchronized through another link by then.
+   */
+  private void watch() {
+    final long session;
+    synchronized (this) {
+      session = sessions;
+    }
+    final long deadline = heard + TimeUnit.MILLISECONDS.toNanos(TIMEOUT);
+    final Thread watchdog = new Thread(() -> {
+      for (long remaining; (remaining = deadline - System.nanoTime()) > 0; ) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(remaining);
+        } catch (InterruptedException exception) {
+          return;
+        }
+      }
+
+      synchronized (this) {
+        if (closed || sessions != session) {
+          return;
+        }
+        this.ring = HashRing.EMPTY;
+        leaveOwned();
+      }
+    }, "cluster-node-" + node + "-watchdog");
+    watchdog.setDaemon(true);
+    watchdog.start();
+  }
+
+  /**
+   * Introduce this node, before anything else is sent through the link.
+   */
+  private void greet(Link link) throws IOException {
+    synchronized (link) {
+      write(link.writer, HELLO, node);
+      link.writer.flush();
+      this.link = link;
+    }
+  }
+
+  /**
+   * Ping the coordinator for as long as a link is open, so either side notices the other going silent.
+   */
+  private void ping(Link current) {
+    while (!current.socket.isClosed()) {
+      try {
+        Thread.sleep(PING_INTERVAL);
+      } catch (InterruptedException exception) {
+        return;
+      }
+      if (!current.send(PING))
+        return;
+    }
+  }
+
+  /**
+   * Apply a message of the coordinator - collecting the state of the cluster, until the first membership ends it.
+   */
+  private void apply(Link current, String[] message) {
+    if (message[0].equals(MEMBERS)) {
+      if (message.length < 2) {
+        return;
+      }
+      try {
+        onMembers(current, Long.parseLong(message[1]), Arrays.asList(message).subList(2, message.length));
+      } catch (NumberFormatException ignored) {}
+      return;
+    }
+
+    if (!current.synced) {
+      change(current.channels, current.definitions, message);
+      return;
+    }
+    switch (message[0]) {
+      case JOIN -> {
+        if (message.length == 2)
+          onJoin(message[1]);
+      }
+      case PART -> {
+        if (message.length == 2)
+          onPart(message[1]);
+      }
+      case DEFINE -> {
+        if (message.length == 4)
+          onDefine(message[1], message[2], message[3]);
+      }
+      case REMOVE -> {
+        if (message.length == 3)
+          onRemove(message[1], message[2]);
+      }
+      default -> {}
+    }
+  }
+
+  /**
+   * Rebuild the ring of the new membership (synchronizing with the coordinator first, if the link is new),
+   * moving only the channels whose owner changed.
+   */
+  private synchronized void onMembers(Link current, long epoch, List<String> members) {
+    this.ring = HashRing.of(members, virtualNodes);
+    if (!current.synced)
+      synchronize(current, epoch);
+    // once dropped from the ring, the remaining members own every channel
+    if (!ring.nodes().contains(node)) {
+      leaveOwned();
+      return;
+    }
+
+    for (String channel : channels)
+      place(channel);
+  }
+
+  /**
+   * Synchronize with the coordinator through a new link, whose state of the cluster was collected.
+   */
+  private void synchronize(Link current, long epoch) {
+    final boolean restarted = this.epoch != 0 && this.epoch != epoch;
+    this.epoch = epoch;
+    this.sessions++;
+    current.synced = true;
+
+    // a restarted coordinator only knows what was announced to it since - so whatever is known here is announced again
+    if (restarted) {
+      unsent.clear();
+      channels.addAll(current.channels);
+      current.definitions.forEach((channel, defined) -> defined.forEach((alias, response) -> {
+        if (!definitions.containsKey(channel) || !definitions.get(channel).containsKey(alias))
+          onDefine(channel, alias, response);
+      }));
+      for (String channel : channels)
+        current.send(JOIN, channel);
+      definitions.forEach((channel, defined) -> defined.forEach((alias, response) -> current.send(DEFINE, channel, alias, response)));
+      return;
+    }
+
+    // otherwise the state of the coordinator holds, with the changes made here meanwhile on top
+    final Set<String> targetChannels = current.channels;
+    final Map<String, Map<String, String>> targetDefinitions = current.definitions;
+    for (String[] message : unsent)
+      change(targetChannels, targetDefinitions, message);
+
+    for (String channel : new ArrayList<>(channels)) {
+      if (!targetChannels.contains(channel))
+        onPart(channel);
+    }
+    for (String channel : targetChannels)
+      onJoin(channel);
+    for (Map.Entry<String, Map<String, String>> defined : new ArrayList<>(definitions.entrySet())) {
+      final Map<String, String> target = targetDefinitions.getOrDefault(defined.getKey(), Map.of());
+      for (String alias : new ArrayList<>(defined.getValue().keySet())) {
+        if (!target.containsKey(alias))
+          onRemove(defined.getKey(), alias);
+      }
+    }
+    targetDefinitions.forEach((channel, defined) -> defined.forEach((alias, response) -> onDefine(channel, alias, response)));
+
+    for (String[] message : unsent)
+      current.send(message);
+    unsent.clear();
+  }
+
+  /**
+   * Add a channel of the cluster, joining it if owned.
+   */
+  private synchronized void onJoin(String channel) {
+    if (channels.add(channel) && ring.nodes().contains(node))
+      place(channel);
+  }
+
+  /**
+   * Remove a channel of the cluster, leaving it if owned.
+   */
+  private synchronized void onPart(String channel) {
+    channels.remove(channel);
+    if (owned.remove(channel))
+      client.disconnect(channel);
+  }
+
+  /**
+   * Apply a definition, unless it is already known.
+   */
+  private synchronized void onDefine(String channel, String alias, String response) {
+    if (!response.equals(definitions.computeIfAbsent(channel, ignored -> new HashMap<>()).put(alias, response)))
+      commands.define(channel, alias, response);
+  }
+
+  /**
+   * Apply the removal of a definition, unless it is already unknown.
+   */
+  private synchronized void onRemove(String channel, String alias) {
+    final Map<String, String> defined = definitions.get(channel);
+    if (defined == null || defined.remove(alias) == null) {
+      return;
+    }
+    if (defined.isEmpty())
+      definitions.remove(channel);
+    commands.remove(channel, alias);
+  }
+
+  /**
+   * Leave every owned channel.
+   */
+  private void leaveOwned() {
+    for (String channel : owned) {
+      if (client.disconnect(channel))
+        handoffs.increment();
+    }
+    owned.clear();
+  }
+
+  /**
+   * Join or leave a channel by whether this node owns it on the current ring.
+   */
+  private void place(String channel) {
+    if (node.equals(ring.owner(channel))) {
+      if (owned.add(channel) && client.connect(channel))
+        handoffs.increment();
+    } else if (owned.remove(channel) && client.disconnect(channel)) {
+      handoffs.increment();
+    }
+  }
+
+  /**
+   * Send a change to the coordinator - held back until the next link is synchronized, if the current one is not (or missing).
+   */
+  private void send(String... message) {
+    final Link current;
+    synchronized (this) {
+      current = link;
+      if (current == null || !current.synced) {
+        unsent.add(message);
+        return;
+      }
+    }
+    if (!current.send(message)) {
+      synchronized (this) {
+        unsent.add(message);
+      }
+    }
+  }
+
+  /**
+   * Apply a change of channels or definitions to a state of the cluster (without joining, leaving or defining anything).
+   */
+  private static void change(Set<String> channels, Map<String, Map<String, String>> definitions, String[] message) {
+    switch (message[0]) {
+      case JOIN -> {
+        if (message.length == 2)
+          channels.add(message[1]);
+      }
+      case PART -> {
+        if (message.length == 2)
+          channels.remove(message[1]);
+      }
+      case DEFINE -> {
+        if (message.length == 4)
+          definitions.computeIfAbsent(message[1], ignored -> new HashMap<>()).put(message[2], message[3]);
+      }
+      case REMOVE -> {
+        if (message.length == 3 && definitions.containsKey(message[1]))
+          definitions.get(message[1]).remove(message[2]);
+      }
+      default -> {}
+    }
+  }
+
+  /**
+   * Get the amount of channels joined by this node.
+   */
+  private synchronized int ownedCount() {
+    return owned.size();
+  }
+
+  /**
+   * This class represents a single connection to the coordinator.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Link {
+    /**
+     * {@link Socket} the connection.
+     */
+    private final Socket socket;
+
+    /**
+     * {@link Writer} the output of said connection (guarded by this link).
+     */
+    private final Writer writer;
+
+    /**
+     * {@link Set} the channels of the cluster sent by the coordinator upon connecting.
+     */
+    private final Set<String> channels = new LinkedHashSet<>();
+
+    /**
+     * {@link Map} the definitions of the cluster sent by the coordinator upon connecting.
+     */
+    private final Map<String, Map<String, String>> definitions = new HashMap<>();
+
+    /**
+     * {@link Boolean} whether this node was synchronized through this link (written under the node, by the reader of this link).
+     */
+    private boolean synced;
+
+    /**
+     * Primary constructor.
+     */
+    private Link(Socket socket) throws IOException {
+      this.socket = socket;
+      this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Send a message, dropping the connection if it cannot be written.
+     *
+     * @return {@link Boolean} whether the message was written.
+     */
+    private boolean send(String... message) {
+      synchronized (this) {
+        try {
+          write(writer, message);
+          writer.flush();
+          return true;
+        } catch (IOException exception) {
+          close();
+          return false;
+        }
+      }
+    }
+
+    /**
+     * Drop the connection, which ends its reader.
+     */
+    private void close() {
+      try {
+        socket.close();
+      } catch (IOException ignored) {}
+    }
+  }
+}
\ No newline at end of file
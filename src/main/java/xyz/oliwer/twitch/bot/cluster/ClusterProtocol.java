@@ -0,0 +1,122 @@
+package xyz.oliwer.twitch.bot.cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents the line based protocol spoken between a {@link ClusterCoordinator} and its nodes.
+ * <br/>
+ *
+ * Every message is a single line of tab separated fields, the first of which is its type.
+ * Fields have %, tab, carriage return and line feed escaped, so any text (i.e a response) fits in one.
+ *
+ * <ul>
+ *   <li>{@code HELLO node} - sent by a node upon connecting, before anything else.</li>
+ *   <li>{@code MEMBERS epoch node...} - sent by the coordinator whenever membership changes (and to end the state sent
+ *       to a node upon connecting), alongside the epoch of said coordinator.</li>
+ *   <li>{@code JOIN channel} / {@code PART channel} - a channel added to / removed from the cluster.</li>
+ *   <li>{@code DEFINE channel alias response} / {@code REMOVE channel alias} - a custom command (re)defined / removed.</li>
+ *   <li>{@code PING} / {@code PONG} - sent by a node every second / answered by the coordinator.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class ClusterProtocol {
+  /**
+   * {@link String} the types of messages.
+   */
+  static final String HELLO = "HELLO", MEMBERS = "MEMBERS", JOIN = "JOIN", PART = "PART",
+    DEFINE = "DEFINE", REMOVE = "REMOVE", PING = "PING", PONG = "PONG";
+
+  /**
+   * {@link Long} this constant represents the interval (in milliseconds) nodes ping the coordinator at.
+   */
+  static final long PING_INTERVAL = 1000;
+
+  /**
+   * {@link Integer} this constant represents how long (in milliseconds) either side waits for a line until giving up.
+   */
+  static final int TIMEOUT = 5000;
+
+  /**
+   * Private constructor - static utility.
+   */
+  private ClusterProtocol() {}
+
+  /**
+   * Write a message as a single line (without flushing).
+   *
+   * @param writer {@link Writer} the writer to write to.
+   * @param fields {@link String} array of the type and fields of the message.
+   */
+  static void write(Writer writer, String... fields) throws IOException {
+    final StringBuilder line = new StringBuilder();
+    for (int index = 0; index < fields.length; index++) {
+      if (index > 0)
+        line.append('\t');
+      escape(line, fields[index]);
+    }
+    writer.write(line.append('\n').toString());
+  }
+
+  /**
+   * Read the next message.
+   *
+   * @param reader {@link BufferedReader} the reader to read from.
+   * @return {@link String} array of the type and fields of the message (null once the stream ended).
+   */
+  static String[] read(BufferedReader reader) throws IOException {
+    final String line = reader.readLine();
+    if (line == null) {
+      return null;
+    }
+
+    final List<String> fields = new ArrayList<>(4);
+    int start = 0;
+    for (int end = line.indexOf('\t'); end >= 0; start = end + 1, end = line.indexOf('\t', start))
+      fields.add(unescape(line, start, end));
+    fields.add(unescape(line, start, line.length()));
+    return fields.toArray(new String[0]);
+  }
+
+  /**
+   * Escape a field onto a line.
+   */
+  private static void escape(StringBuilder line, String field) {
+    for (int index = 0; index < field.length(); index++) {
+      final char character = field.charAt(index);
+      switch (character) {
+        case '%' -> line.append("%25");
+        case '\t' -> line.append("%09");
+        case '\r' -> line.append("%0D");
+        case '\n' -> line.append("%0A");
+        default -> line.append(character);
+      }
+    }
+  }
+
+  /**
+   * Unescape a field of a line.
+   */
+  private static String unescape(String line, int start, int end) {
+    final int first = line.indexOf('%', start);
+    if (first < 0 || first >= end) {
+      return line.substring(start, end);
+    }
+
+    final StringBuilder field = new StringBuilder(end - start);
+    for (int index = start; index < end; index++) {
+      final char character = line.charAt(index);
+      if (character == '%' && index + 2 < end) {
+        field.append((char) Integer.parseInt(line, index + 1, index + 3, 16));
+        index += 2;
+      } else {
+        field.append(character);
+      }
+    }
+    return field.toString();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package xyz.oliwer.twitch.bot.cluster;
+
+import java.util.*;
+
+/**
+ * This class represents an immutable consistent hash ring, deciding which node of a cluster owns each channel.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Every node is placed on the ring at many points (virtual nodes), evening out the share each node owns.</li>
+ *   <li>A channel is owned by the first point at or after its own hash, wrapping around.</li>
+ *   <li>Adding or removing a node only moves the channels of the points it gains or loses.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class HashRing {
+  /**
+   * {@link Integer} this constant represents the default amount of points per node.
+   */
+  public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+  /**
+   * {@link HashRing} this constant represents a ring without nodes.
+   */
+  public static final HashRing EMPTY = new HashRing(new long[0], new String[0], Collections.emptySet());
+
+  /**
+   * {@link Long} array of the (sorted) hash of every point.
+   */
+  private final long[] points;
+
+  /**
+   * {@link String} array of the node of every point, indexed alike.
+   */
+  private final String[] owners;
+
+  /**
+   * {@link Set} this property represents all nodes of the ring.
+   */
+  private final Set<String> nodes;
+
+  /**
+   * Primary constructor.
+   */
+  private HashRing(long[] points, String[] owners, Set<String> nodes) {
+    this.points = points;
+    this.owners = owners;
+    this.nodes = nodes;
+  }
+
+  /**
+   * Build a ring of nodes.
+   *
+   * @param nodes {@link Collection<String>} the identifiers of all nodes.
+   * @param virtualNodes {@link Integer} the amount of points per node.
+   * @return {@link HashRing}
+   */
+  public static HashRing of(Collection<String> nodes, int virtualNodes) {
+    if (nodes == null)
+      throw new NullPointerException("nodes must not be null");
+    if (virtualNodes <= 0)
+      throw new IllegalArgumentException("virtualNodes must be positive");
+
+    final Set<String> distinct = new TreeSet<>(nodes);
+    final long[] hashes = new long[distinct.size() * virtualNodes];
+    final Map<Long, String> byHash = new HashMap<>(hashes.length * 2);
+    int size = 0;
+    for (String node : distinct) {
+      for (int point = 0; point < virtualNodes; point++) {
+        final long hash = hash(node + '#' + point);
+        // on the (unlikely) collision of two points, the lesser node keeps it - the same on every member
+        if (byHash.putIfAbsent(hash, node) == null)
+          hashes[size++] = hash;
+      }
+    }
+
+    final long[] points = Arrays.copyOf(hashes, size);
+    Arrays.sort(points);
+    final String[] owners = new String[size];
+    for (int index = 0; index < size; index++)
+      owners[index] = byHash.get(points[index]);
+    return new HashRing(points, owners, Collections.unmodifiableSet(distinct));
+  }
+
+  /**
+   * @see HashRing#of(Collection, int)
+   */
+  public static HashRing of(Collection<String> nodes) {
+    return of(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Get the node owning a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link String} null if the ring has no nodes.
+   */
+  public String owner(String channel) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+    if (points.length == 0) {
+      return null;
+    }
+
+    int index = Arrays.binarySearch(points, hash(channel.toLowerCase(Locale.ROOT)));
+    if (index < 0)
+      index = -index - 1;
+    return owners[index == points.length ? 0 : index];
+  }
+
+  /**
+   * Get all nodes of this ring.
+   *
+   * @return {@link Set<String>} unmodifiable set of said nodes.
+   */
+  public Set<String> nodes() {
+    return this.nodes;
+  }
+
+  /**
+   * Hash a key to 64 bits (FNV-1a over its characters, finished by the mixer of MurmurHash3).
+   */
+  private static long hash(String key) {
+    long hash = 0xCBF29CE484222325L;
+    for (int index = 0; index < key.length(); index++) {
+      hash ^= key.charAt(index);
+      hash *= 0x100000001B3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    return hash ^ (hash >>> 33);
+  }
+}
\ No newline at end of file
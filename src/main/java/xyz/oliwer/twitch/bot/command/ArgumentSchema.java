@@ -0,0 +1,630 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents a compiled schema of typed command arguments, declared once through {@link ArgumentSchema#builder()}
+ * and handed to a {@link TypedCommand} through {@link Command.MetaBuilder#arguments(ArgumentSchema)}.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Parameters are parsed in order of declaration, straight from the slices of {@link Arguments}.</li>
+ *   <li>Optional parameters may only be followed by optional parameters, a text parameter must be last.</li>
+ *   <li>Parsing into a {@link ParsedArguments} does not allocate, failures are reported as a {@link UsageError}.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ArgumentSchema {
+  /**
+   * {@link Integer} this constant represents the maximum length of a Twitch login.
+   */
+  private static final int MAX_LOGIN = 25;
+
+  /**
+   * {@link String} array of the name of each parameter.
+   */
+  private final String[] names;
+
+  /**
+   * {@link Type} array of the type of each parameter.
+   */
+  private final Type[] types;
+
+  /**
+   * {@link Long} array of the (inclusive) minimum of each integer or duration (in milliseconds) parameter.
+   */
+  private final long[] minimums;
+
+  /**
+   * {@link Long} array of the (inclusive) maximum of each integer or duration (in milliseconds) parameter.
+   */
+  private final long[] maximums;
+
+  /**
+   * {@link String} array of the options of each choice parameter (lower case).
+   */
+  private final String[][] choices;
+
+  /**
+   * {@link Integer} this property represents the amount of required parameters.
+   */
+  private final int required;
+
+  /**
+   * {@link String} this property represents the usage of these parameters, i.e {@code <target> [duration]}.
+   */
+  private final String usage;
+
+  /**
+   * Primary constructor.
+   */
+  private ArgumentSchema(List<Parameter> parameters) {
+    final int size = parameters.size();
+    this.names = new String[size];
+    this.types = new Type[size];
+    this.minimums = new long[size];
+    this.maximums = new long[size];
+    this.choices = new String[size][];
+
+    int required = 0;
+    final StringBuilder usage = new StringBuilder();
+    for (int index = 0; index < size; index++) {
+      final Parameter parameter = parameters.get(index);
+      names[index] = parameter.name;
+      types[index] = parameter.type;
+      minimums[index] = parameter.minimum;
+      maximums[index] = parameter.maximum;
+      choices[index] = parameter.choices;
+      if (!parameter.optional)
+        required++;
+
+      if (index > 0)
+        usage.append(' ');
+      usage
+        .append(parameter.optional ? '[' : '<')
+        .append(parameter.type == Type.CHOICE ? String.join("|", parameter.choices) : parameter.name)
+        .append(parameter.type == Type.TEXT ? "..." : "")
+        .append(parameter.optional ? ']' : '>');
+    }
+    this.required = required;
+    this.usage = usage.toString();
+  }
+
+  /**
+   * Generate a new schema builder.
+   *
+   * @return {@link Builder}
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Parse passed arguments into a holder, replacing what said holder previously held.
+   *
+   * @param arguments {@link Arguments} the arguments to parse.
+   * @param into {@link ParsedArguments} the holder to parse into.
+   * @return {@link UsageError} null if all arguments were valid.
+   */
+  public UsageError parse(Arguments arguments, ParsedArguments into) {
+    if (arguments == null || into == null)
+      throw new NullPointerException("arguments and into must not be null");
+
+    final int size = arguments.size();
+    into.reset(this, arguments.source());
+    if (size < required) {
+      return new UsageError(this, size, UsageError.Reason.MISSING);
+    }
+
+    final String source = arguments.source();
+    for (int index = 0; index < names.length && index < size; index++) {
+      final int start = arguments.start(index);
+      final int end = types[index] == Type.TEXT ? arguments.end(size - 1) : arguments.end(index);
+      final UsageError.Reason failure = parse(index, source, start, end, into);
+      if (failure != null) {
+        return new UsageError(this, index, failure);
+      }
+      into.present(index + 1);
+    }
+
+    if (size > names.length && (names.length == 0 || types[names.length - 1] != Type.TEXT)) {
+      return new UsageError(this, names.length, UsageError.Reason.TOO_MANY);
+    }
+    return null;
+  }
+
+  /**
+   * Get the amount of parameters.
+   *
+   * @return {@link Integer}
+   */
+  public int size() {
+    return this.names.length;
+  }
+
+  /**
+   * Get the amount of required parameters.
+   *
+   * @return {@link Integer}
+   */
+  public int required() {
+    return this.required;
+  }
+
+  /**
+   * Get the index of a parameter by name.
+   *
+   * @param name {@link String} name of the parameter.
+   * @return {@link Integer}
+   * @throws IllegalArgumentException if there is no such parameter.
+   */
+  public int indexOf(String name) {
+    for (int index = 0; index < names.length; index++) {
+      if (names[index].equals(name))
+        return index;
+    }
+    throw new IllegalArgumentException("unknown parameter " + name);
+  }
+
+  /**
+   * Get the name of a parameter.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link String}
+   */
+  public String name(int index) {
+    return this.names[index];
+  }
+
+  /**
+   * Get the type of a parameter.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Type}
+   */
+  public Type type(int index) {
+    return this.types[index];
+  }
+
+  /**
+   * Get the usage of these parameters, i.e {@code <target> [duration]}.
+   *
+   * @return {@link String}
+   */
+  public String usage() {
+    return this.usage;
+  }
+
+  /**
+   * Get the bounds of a parameter (only meaningful for integer and duration parameters).
+   */
+  long minimum(int index) {
+    return this.minimums[index];
+  }
+
+  /**
+   * @see ArgumentSchema#minimum(int)
+   */
+  long maximum(int index) {
+    return this.maximums[index];
+  }
+
+  /**
+   * Parse a single parameter from a slice of the source.
+   *
+   * @return {@link UsageError.Reason} null if valid.
+   */
+  private UsageError.Reason parse(int index, String source, int start, int end, ParsedArguments into) {
+    switch (types[index]) {
+      case INTEGER -> {
+        final long value = parseInteger(source, start, end);
+        if (value == Long.MIN_VALUE)
+          return UsageError.Reason.INVALID;
+        if (value < minimums[index] || value > maximums[index])
+          return UsageError.Reason.OUT_OF_RANGE;
+        into.value(index, value);
+      }
+      case DURATION -> {
+        final long value = parseDuration(source, start, end);
+        if (value < 0)
+          return UsageError.Reason.INVALID;
+        if (value < minimums[index] || value > maximums[index])
+          return UsageError.Reason.OUT_OF_RANGE;
+        into.value(index, value);
+      }
+      case USER -> {
+        final int from = source.charAt(start) == '@' ? start + 1 : start;
+        if (end - from < 1 || end - from > MAX_LOGIN)
+          return UsageError.Reason.INVALID;
+        for (int position = from; position < end; position++) {
+          final char character = source.charAt(position);
+          if (!(character == '_' || character < 128 && Character.isLetterOrDigit(character)))
+            return UsageError.Reason.INVALID;
+        }
+        into.slice(index, from, end);
+      }
+      case CHOICE -> {
+        final String[] options = choices[index];
+        for (int option = 0; option < options.length; option++) {
+          final String candidate = options[option];
+          if (candidate.length() == end - start && source.regionMatches(true, start, candidate, 0, end - start)) {
+            into.value(index, option);
+            into.slice(index, start, end);
+            return null;
+          }
+        }
+        return UsageError.Reason.INVALID;
+      }
+      case WORD, TEXT -> into.slice(index, start, end);
+    }
+    return null;
+  }
+
+  /**
+   * Parse an optionally signed decimal integer.
+   *
+   * @return {@link Long} {@link Long#MIN_VALUE} if invalid (or overflowing).
+   */
+  static long parseInteger(String source, int start, int end) {
+    final boolean negative = source.charAt(start) == '-';
+    int position = negative || source.charAt(start) == '+' ? start + 1 : start;
+    if (position == end) {
+      return Long.MIN_VALUE;
+    }
+
+    long value = 0;
+    for (; position < end; position++) {
+      final int digit = source.charAt(position) - '0';
+      if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10)
+        return Long.MIN_VALUE;
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parse a duration of units (i.e {@code 1h30m}, {@code 90s}), where a bare number is in seconds.
+   * Accepted units are {@code ms}, {@code s}, {@code m}, {@code h}, {@code d} and {@code w}.
+   *
+   * @return {@link Long} the duration in milliseconds (-1 if invalid or overflowing).
+   */
+  static long parseDuration(String source, int start, int end) {
+    long total = 0;
+    int position = start;
+    while (position < end) {
+      long amount = 0;
+      final int digits = position;
+      while (position < end && source.charAt(position) >= '0' && source.charAt(position) <= '9') {
+        amount = amount * 10 + (source.charAt(position++) - '0');
+        if (amount > Integer.MAX_VALUE)
+          return -1;
+      }
+      if (position == digits) {
+        return -1;
+      }
+
+      final long unit;
+      if (position == end) {
+        // a bare number is only accepted on its own
+        if (digits != start)
+          return -1;
+        unit = TimeUnit.SECONDS.toMillis(1);
+      } else {
+        final char symbol = Character.toLowerCase(source.charAt(position++));
+        if (symbol == 'm' && position < end && Character.toLowerCase(source.charAt(position)) == 's') {
+          position++;
+          unit = 1;
+        } else {
+          unit = switch (symbol) {
+            case 's' -> TimeUnit.SECONDS.toMillis(1);
+            case 'm' -> TimeUnit.MINUTES.toMillis(1);
+            case 'h' -> TimeUnit.HOURS.toMillis(1);
+            case 'd' -> TimeUnit.DAYS.toMillis(1);
+            case 'w' -> TimeUnit.DAYS.toMillis(7);
+            default -> -1;
+          };
+          if (unit < 0)
+            return -1;
+        }
+      }
+
+      total += amount * unit;
+      if (total < 0)
+        return -1;
+    }
+    return total;
+  }
+
+  /**
+   * This enumeration represents the types of parameters.
+   * <br/>
+   *
+   * <ul>
+   *   <li>INTEGER  = A decimal integer within bounds</li>
+   *   <li>DURATION = A duration of units (i.e 1h30m) within bounds, read in milliseconds</li>
+   *   <li>USER     = A Twitch login, optionally prefixed by @ (excluded from the value)</li>
+   *   <li>WORD     = A single token</li>
+   *   <li>CHOICE   = One of a fixed set of words (case insensitive), read as the index of said word</li>
+   *   <li>TEXT     = The remainder of the message</li>
+   * </ul>
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public enum Type {
+    INTEGER,
+    DURATION,
+    USER,
+    WORD,
+    CHOICE,
+    TEXT
+  }
+
+  /**
+   * This record represents a failure to parse arguments against a schema.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record UsageError(ArgumentSchema schema, int parameter, Reason reason) {
+    /**
+     * Describe this failure, alongside the usage of the command.
+     *
+     * @param alias {@link String} the alias the command was executed by.
+     * @return {@link String} i.e {@code Usage: !timeout <target> [duration] (duration must be between 1s and 14d)}.
+     */
+    public String message(String alias) {
+      final String usage = "Usage: " + (char) Command.PREFIX + alias + (schema.size() == 0 ? "" : " " + schema.usage());
+      return switch (reason) {
+        case MISSING -> usage + " (" + schema.name(parameter) + " is missing)";
+        case TOO_MANY -> usage + " (too many arguments)";
+        case INVALID -> usage + " (" + schema.name(parameter) + " must be " + describe(schema.type(parameter)) + ")";
+        case OUT_OF_RANGE -> usage + " (" + schema.name(parameter) + " must be between "
+          + bound(schema.type(parameter), schema.minimum(parameter)) + " and "
+          + bound(schema.type(parameter), schema.maximum(parameter)) + ")";
+      };
+    }
+
+    /**
+     * Describe what a parameter of a type accepts.
+     */
+    private static String describe(Type type) {
+      return switch (type) {
+        case INTEGER -> "a whole number";
+        case DURATION -> "a duration, i.e 30s, 10m or 1h30m";
+        case USER -> "a user name";
+        case CHOICE -> "one of the listed options";
+        case WORD, TEXT -> "text";
+      };
+    }
+
+    /**
+     * Describe a bound of a parameter of a type.
+     */
+    private static String bound(Type type, long value) {
+      if (type != Type.DURATION) {
+        return Long.toString(value);
+      }
+
+      for (TimeUnit unit : new TimeUnit[] { TimeUnit.DAYS, TimeUnit.HOURS, TimeUnit.MINUTES, TimeUnit.SECONDS }) {
+        final long millis = unit.toMillis(1);
+        if (value >= millis && value % millis == 0)
+          return value / millis + unit.name().substring(0, 1).toLowerCase();
+      }
+      return value + "ms";
+    }
+
+    /**
+     * This enumeration represents the reasons arguments may fail to parse.
+     * <br/>
+     *
+     * <ul>
+     *   <li>MISSING      = A required parameter was not given</li>
+     *   <li>INVALID      = A parameter is not of its type</li>
+     *   <li>OUT_OF_RANGE = A parameter is outside of its bounds</li>
+     *   <li>TOO_MANY     = More arguments were given than there are parameters</li>
+     * </ul>
+     *
+     * @author Oliwer - https://www.github.com/ImOliwer
+     */
+    public enum Reason {
+      MISSING,
+      INVALID,
+      OUT_OF_RANGE,
+      TOO_MANY
+    }
+  }
+
+  /**
+   * This class represents a parameter being declared.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Parameter {
+    /**
+     * {@link String} name of this parameter.
+     */
+    private final String name;
+
+    /**
+     * {@link Type} type of this parameter.
+     */
+    private final Type type;
+
+    /**
+     * {@link Long} the (inclusive) bounds of this parameter.
+     */
+    private final long minimum, maximum;
+
+    /**
+     * {@link String} array of the options of this parameter (null unless a choice).
+     */
+    private final String[] choices;
+
+    /**
+     * {@link Boolean} whether this parameter may be left out.
+     */
+    private boolean optional;
+
+    /**
+     * Primary constructor.
+     */
+    private Parameter(String name, Type type, long minimum, long maximum, String[] choices) {
+      this.name = name;
+      this.type = type;
+      this.minimum = minimum;
+      this.maximum = maximum;
+      this.choices = choices;
+    }
+  }
+
+  /**
+   * This class represents the builder of a schema.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public static final class Builder {
+    /**
+     * {@link List<Parameter>} this property represents all parameters declared so far.
+     */
+    private final List<Parameter> parameters = new ArrayList<>();
+
+    /**
+     * Primary constructor.
+     */
+    private Builder() {}
+
+    /**
+     * Declare an integer parameter of any value.
+     *
+     * @see Builder#integer(String, long, long)
+     */
+    public Builder integer(String name) {
+      return integer(name, Long.MIN_VALUE + 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Declare an integer parameter.
+     *
+     * @param name {@link String} name of the parameter.
+     * @param minimum {@link Long} the (inclusive) minimum value.
+     * @param maximum {@link Long} the (inclusive) maximum value.
+     * @return {@link Builder} current instance.
+     */
+    public Builder integer(String name, long minimum, long maximum) {
+      return add(name, Type.INTEGER, minimum, maximum, null);
+    }
+
+    /**
+     * Declare a duration parameter.
+     *
+     * @param name {@link String} name of the parameter.
+     * @param minimum {@link java.time.Duration} the (inclusive) minimum duration.
+     * @param maximum {@link java.time.Duration} the (inclusive) maximum duration.
+     * @return {@link Builder} current instance.
+     */
+    public Builder duration(String name, java.time.Duration minimum, java.time.Duration maximum) {
+      if (minimum == null || maximum == null)
+        throw new NullPointerException("minimum and maximum must not be null");
+      return add(name, Type.DURATION, minimum.toMillis(), maximum.toMillis(), null);
+    }
+
+    /**
+     * Declare a user parameter.
+     *
+     * @param name {@link String} name of the parameter.
+     * @return {@link Builder} current instance.
+     */
+    public Builder user(String name) {
+      return add(name, Type.USER, 0, 0, null);
+    }
+
+    /**
+     * Declare a single word parameter.
+     *
+     * @param name {@link String} name of the parameter.
+     * @return {@link Builder} current instance.
+     */
+    public Builder word(String name) {
+      return add(name, Type.WORD, 0, 0, null);
+    }
+
+    /**
+     * Declare a parameter accepting one of a fixed set of words.
+     *
+     * @param name {@link String} name of the parameter.
+     * @param options {@link String} array of accepted words (case insensitive).
+     * @return {@link Builder} current instance.
+     */
+    public Builder choice(String name, String... options) {
+      if (options == null || options.length == 0)
+        throw new IllegalArgumentException("a choice needs at least one option");
+
+      final String[] lowered = new String[options.length];
+      for (int index = 0; index < options.length; index++) {
+        if (options[index] == null || options[index].isEmpty() || options[index].indexOf(' ') >= 0)
+          throw new IllegalArgumentException("options must be single words");
+        lowered[index] = options[index].toLowerCase();
+      }
+      return add(name, Type.CHOICE, 0, options.length - 1, lowered);
+    }
+
+    /**
+     * Declare a parameter holding the remainder of the message (must be the last parameter).
+     *
+     * @param name {@link String} name of the parameter.
+     * @return {@link Builder} current instance.
+     */
+    public Builder text(String name) {
+      return add(name, Type.TEXT, 0, 0, null);
+    }
+
+    /**
+     * Make the parameter declared last optional.
+     *
+     * @return {@link Builder} current instance.
+     */
+    public Builder optional() {
+      if (parameters.isEmpty())
+        throw new IllegalStateException("no parameter has been declared yet");
+      parameters.get(parameters.size() - 1).optional = true;
+      return this;
+    }
+
+    /**
+     * Compile the declared parameters into a schema.
+     *
+     * @return {@link ArgumentSchema}
+     * @throws IllegalStateException if a required parameter follows an optional one.
+     */
+    public ArgumentSchema build() {
+      boolean optional = false;
+      for (Parameter parameter : parameters) {
+        if (optional && !parameter.optional)
+          throw new IllegalStateException("required parameter " + parameter.name + " follows an optional parameter");
+        optional |= parameter.optional;
+      }
+      return new ArgumentSchema(parameters);
+    }
+
+    /**
+     * Declare a parameter.
+     */
+    private Builder add(String name, Type type, long minimum, long maximum, String[] choices) {
+      if (name == null)
+        throw new NullPointerException("name must not be null");
+      if (minimum > maximum)
+        throw new IllegalArgumentException("minimum must not exceed maximum");
+      if (!parameters.isEmpty() && parameters.get(parameters.size() - 1).type == Type.TEXT)
+        throw new IllegalStateException("a text parameter must be the last parameter");
+      for (Parameter parameter : parameters) {
+        if (parameter.name.equals(name))
+          throw new IllegalArgumentException("parameter " + name + " is already declared");
+      }
+
+      parameters.add(new Parameter(name, type, minimum, maximum, choices));
+      return this;
+    }
+  }
+}
\ No newline at end of file
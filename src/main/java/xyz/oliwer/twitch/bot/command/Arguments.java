@@ -0,0 +1,321 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the tokenized arguments of a command,
+ * exposed as offset based slices of the original message.
+ * <br/>
+ *
+ * Note: Instances are reused between messages - an instance (and its slices) is only valid
+ * for the duration of the call it was passed to. Use {@link Arguments#copy()} to retain one.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Arguments {
+  /**
+   * {@link Character} this constant represents the separator between tokens.
+   */
+  private static final char SEPARATOR = ' ';
+
+  /**
+   * {@link String} this property represents the message these arguments were tokenized from.
+   */
+  private String source = "";
+
+  /**
+   * {@link Integer} array of (inclusive) start offsets of each token.
+   */
+  private int[] starts;
+
+  /**
+   * {@link Integer} array of (exclusive) end offsets of each token.
+   */
+  private int[] ends;
+
+  /**
+   * {@link Integer} this property represents the total amount of tokens.
+   */
+  private int count;
+
+  /**
+   * {@link Integer} this property represents the first token visible through this instance.
+   */
+  private int offset;
+
+  /**
+   * Primary constructor.
+   */
+  public Arguments() {
+    this.starts = new int[8];
+    this.ends = new int[8];
+  }
+
+  /**
+   * Create new arguments holding passed values as separate tokens.
+   *
+   * @param values {@link String} array of values to hold.
+   * @return {@link Arguments}
+   */
+  public static Arguments of(String... values) {
+    if (values == null)
+      throw new NullPointerException("values must not be null");
+
+    final Arguments arguments = new Arguments();
+    final StringBuilder builder = new StringBuilder();
+
+    for (String value : values) {
+      if (builder.length() > 0)
+        builder.append(SEPARATOR);
+      final int start = builder.length();
+      builder.append(value);
+      arguments.push(start, builder.length());
+    }
+
+    arguments.source = builder.toString();
+    return arguments;
+  }
+
+  /**
+   * Tokenize passed message from an offset, replacing what this instance previously held.
+   * Consecutive separators are collapsed, meaning no token is ever empty.
+   *
+   * @param message {@link String} the message to tokenize.
+   * @param from {@link Integer} offset in message to start tokenizing from.
+   * @return {@link Arguments} current instance.
+   */
+  public Arguments tokenize(String message, int from) {
+    if (message == null)
+      throw new NullPointerException("message must not be null");
+
+    this.source = message;
+    this.count = 0;
+    this.offset = 0;
+
+    final int length = message.length();
+    int position = Math.max(from, 0);
+
+    while (position < length) {
+      // skip separators
+      while (position < length && message.charAt(position) == SEPARATOR)
+        position++;
+      if (position == length)
+        break;
+
+      // find the end of current token
+      final int start = position;
+      while (position < length && message.charAt(position) != SEPARATOR)
+        position++;
+      push(start, position);
+    }
+    return this;
+  }
+
+  /**
+   * Get the amount of tokens visible through this instance.
+   *
+   * @return {@link Integer}
+   */
+  public int size() {
+    return this.count - this.offset;
+  }
+
+  /**
+   * Get whether there are no tokens visible through this instance.
+   *
+   * @return {@link Boolean}
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Get the message these arguments were tokenized from.
+   *
+   * @return {@link String}
+   */
+  public String source() {
+    return this.source;
+  }
+
+  /**
+   * Get the (inclusive) start offset of a token in {@link Arguments#source()}.
+   *
+   * @param index {@link Integer} index of the token.
+   * @return {@link Integer}
+   */
+  public int start(int index) {
+    return this.starts[absolute(index)];
+  }
+
+  /**
+   * Get the (exclusive) end offset of a token in {@link Arguments#source()}.
+   *
+   * @param index {@link Integer} index of the token.
+   * @return {@link Integer}
+   */
+  public int end(int index) {
+    return this.ends[absolute(index)];
+  }
+
+  /**
+   * Get the length of a token.
+   *
+   * @param index {@link Integer} index of the token.
+   * @return {@link Integer}
+   */
+  public int length(int index) {
+    final int absolute = absolute(index);
+    return this.ends[absolute] - this.starts[absolute];
+  }
+
+  /**
+   * Get a character of a token.
+   *
+   * @param index {@link Integer} index of the token.
+   * @param position {@link Integer} position of the character within said token.
+   * @return {@link Character}
+   */
+  public char charAt(int index, int position) {
+    final int absolute = absolute(index);
+    final int at = this.starts[absolute] + position;
+    if (position < 0 || at >= this.ends[absolute])
+      throw new IndexOutOfBoundsException("position " + position + " is out of bounds for token " + index);
+    return this.source.charAt(at);
+  }
+
+  /**
+   * Get whether a token equals passed value, ignoring case.
+   *
+   * @param index {@link Integer} index of the token.
+   * @param value {@link String} the value to compare with.
+   * @return {@link Boolean}
+   */
+  public boolean is(int index, String value) {
+    final int absolute = absolute(index);
+    final int start = this.starts[absolute];
+    final int length = this.ends[absolute] - start;
+    return value.length() == length && this.source.regionMatches(true, start, value, 0, length);
+  }
+
+  /**
+   * Parse a token as an integer without allocating an intermediate string.
+   *
+   * @param index {@link Integer} index of the token.
+   * @return {@link Integer}
+   * @throws NumberFormatException if said token is not a valid integer.
+   */
+  public int parseInt(int index) {
+    final int absolute = absolute(index);
+    return Integer.parseInt(this.source, this.starts[absolute], this.ends[absolute], 10);
+  }
+
+  /**
+   * Parse a token as a long without allocating an intermediate string.
+   *
+   * @param index {@link Integer} index of the token.
+   * @return {@link Long}
+   * @throws NumberFormatException if said token is not a valid long.
+   */
+  public long parseLong(int index) {
+    final int absolute = absolute(index);
+    return Long.parseLong(this.source, this.starts[absolute], this.ends[absolute], 10);
+  }
+
+  /**
+   * Get a token as a new string.
+   *
+   * @param index {@link Integer} index of the token.
+   * @return {@link String}
+   */
+  public String get(int index) {
+    final int absolute = absolute(index);
+    return this.source.substring(this.starts[absolute], this.ends[absolute]);
+  }
+
+  /**
+   * Get the remainder of the message starting from a token, as a new string.
+   *
+   * @param index {@link Integer} index of the first token to include.
+   * @return {@link String}
+   */
+  public String remainder(int index) {
+    return this.source.substring(start(index), this.ends[this.count - 1]);
+  }
+
+  /**
+   * Get all visible tokens as a new array.
+   *
+   * @return {@link String} array of tokens.
+   */
+  public String[] toArray() {
+    final String[] array = new String[size()];
+    for (int index = 0; index < array.length; index++)
+      array[index] = get(index);
+    return array;
+  }
+
+  /**
+   * Create a standalone copy of the visible tokens, safe to retain after the current call.
+   *
+   * @return {@link Arguments}
+   */
+  public Arguments copy() {
+    final Arguments copy = new Arguments();
+    copy.source = this.source;
+    copy.count = size();
+    copy.starts = Arrays.copyOfRange(this.starts, this.offset, Math.max(this.count, this.offset + 1));
+    copy.ends = Arrays.copyOfRange(this.ends, this.offset, Math.max(this.count, this.offset + 1));
+    return copy;
+  }
+
+  /**
+   * Get the first token visible through this instance.
+   *
+   * @return {@link Integer}
+   */
+  int offset() {
+    return this.offset;
+  }
+
+  /**
+   * Change the first token visible through this instance.
+   *
+   * @param offset {@link Integer} the absolute index of the first visible token.
+   */
+  void offset(int offset) {
+    if (offset < 0 || offset > this.count)
+      throw new IndexOutOfBoundsException("offset " + offset + " is out of bounds for " + this.count + " tokens");
+    this.offset = offset;
+  }
+
+  /**
+   * Get the absolute index of a visible token.
+   */
+  private int absolute(int index) {
+    if (index < 0 || index >= size())
+      throw new IndexOutOfBoundsException("index " + index + " is out of bounds for " + size() + " arguments");
+    return this.offset + index;
+  }
+
+  /**
+   * Append a token by its offsets - growing the backing arrays if needed.
+   */
+  private void push(int start, int end) {
+    if (this.count == this.starts.length) {
+      this.starts = Arrays.copyOf(this.starts, this.count << 1);
+      this.ends = Arrays.copyOf(this.ends, this.count << 1);
+    }
+    this.starts[this.count] = start;
+    this.ends[this.count] = end;
+    this.count++;
+  }
+
+  /**
+   * @see Object#toString()
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.util.DaemonThreadFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class represents an asynchronous execution, performing commands on an executor
+ * in order within each channel while different channels run in parallel.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Each command runs under a timeout ({@link Command#timeout()} or the default of this execution).</li>
+ *   <li>A command which times out is interrupted and cancelled at once, whilst its channel only moves on to the next
+ *       command once it actually returned - keeping commands of a channel from ever overlapping.</li>
+ *   <li>Commands submitted while too many are pending are rejected.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ChannelExecution implements Execution {
+  /**
+   * {@link Executor} this property represents the executor commands are performed on.
+   */
+  private final Executor executor;
+
+  /**
+   * {@link Integer} this property represents the maximum amount of pending commands (across channels).
+   */
+  private final int maxPending;
+
+  /**
+   * {@link Duration} this property represents the timeout of commands without a timeout of their own.
+   */
+  private final Duration defaultTimeout;
+
+  /**
+   * {@link ScheduledExecutorService} the timer enforcing timeouts.
+   */
+  private final ScheduledExecutorService timer;
+
+  /**
+   * {@link Map} this property represents the lanes of all channels with pending commands.
+   */
+  private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  /**
+   * {@link AtomicInteger} this property represents the current amount of pending commands.
+   */
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /**
+   * Primary constructor.
+   *
+   * @param executor {@link Executor} the executor to perform commands on (i.e a virtual thread per task executor).
+   * @param maxPending {@link Integer} the maximum amount of pending commands.
+   * @param defaultTimeout {@link Duration} the timeout of commands without a timeout of their own.
+   */
+  public ChannelExecution(Executor executor, int maxPending, Duration defaultTimeout) {
+    if (executor == null || defaultTimeout == null)
+      throw new NullPointerException("executor and defaultTimeout must not be null");
+    if (maxPending <= 0)
+      throw new IllegalArgumentException("maxPending must be positive");
+
+    this.executor = executor;
+    this.maxPending = maxPending;
+    this.defaultTimeout = defaultTimeout;
+    this.timer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("command-timeout"));
+  }
+
+  /**
+   * Create an execution backed by a bounded pool of daemon threads.
+   *
+   * @param threads {@link Integer} the amount of threads.
+   * @param maxPending {@link Integer} the maximum amount of pending commands.
+   * @param defaultTimeout {@link Duration} the timeout of commands without a timeout of their own.
+   * @return {@link ChannelExecution}
+   */
+  public static ChannelExecution bounded(int threads, int maxPending, Duration defaultTimeout) {
+    return new ChannelExecution(Executors.newFixedThreadPool(threads, new DaemonThreadFactory("command-worker")), maxPending, defaultTimeout);
+  }
+
+  /**
+   * @see Execution#execute(String, Command, Runnable, Consumer)
+   */
+  @Override
+  public void execute(String channel, Command command, Runnable task, Consumer<Command.Cancellation> cancellation) {
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      cancellation.accept(Command.Cancellation.REJECTED);
+      return;
+    }
+
+    final Job job = new Job(channel == null ? "" : channel, command, task, cancellation);
+    lanes.compute(job.channel, (key, lane) -> {
+      final Lane current = lane == null ? new Lane() : lane;
+      current.jobs.add(job);
+      if (current.size++ == 0)
+        schedule(current);
+      return current;
+    });
+  }
+
+  /**
+   * Get the current amount of pending commands.
+   *
+   * @return {@link Integer}
+   */
+  public int pending() {
+    return pending.get();
+  }
+
+  /**
+   * Stop enforcing timeouts, shutting down the executor if it is an {@link ExecutorService}.
+   */
+  public void shutdown() {
+    timer.shutdownNow();
+    if (executor instanceof ExecutorService service)
+      service.shutdown();
+  }
+
+  /**
+   * Schedule the next job of a lane on the executor.
+   */
+  private void schedule(Lane lane) {
+    executor.execute(() -> lane.jobs.poll().run(timer, defaultTimeout));
+  }
+
+  /**
+   * Release the lane of a job which returned, moving said lane on to the next job.
+   */
+  private void release(Job job) {
+    pending.decrementAndGet();
+    lanes.computeIfPresent(job.channel, (key, lane) -> {
+      if (--lane.size == 0)
+        return null;
+      schedule(lane);
+      return lane;
+    });
+  }
+
+  /**
+   * This class represents the queue of pending jobs of a single channel.
+   *
+   * Note: {@link Lane#size} is only accessed while holding the map entry of said lane.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Lane {
+    /**
+     * {@link Queue} this property represents the pending jobs, in order of submission.
+     */
+    private final Queue<Job> jobs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * {@link Integer} this property represents the amount of jobs not yet returned (including the running one).
+     */
+    private int size;
+  }
+
+  /**
+   * This class represents a single pending command, moving its lane on once returned.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private final class Job extends TimedJob {
+    /**
+     * Primary constructor.
+     */
+    private Job(String channel, Command command, Runnable task, Consumer<Command.Cancellation> cancellation) {
+      super(channel, command, task, cancellation);
+    }
+
+    /**
+     * @see TimedJob#onReturned()
+     */
+    @Override
+    void onReturned() {
+      release(this);
+    }
+  }
+}
\ No newline at end of file
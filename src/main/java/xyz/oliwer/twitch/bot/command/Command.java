@@ -1,18 +1,19 @@
 package xyz.oliwer.twitch.bot.command;
 
+import com.github.twitch4j.common.enums.CommandPermission;
 import org.jetbrains.annotations.NotNull;
 import xyz.oliwer.twitch.bot.structure.BotClient;
 import xyz.oliwer.twitch.bot.structure.ExtractedUser;
 import xyz.oliwer.twitch.bot.util.ChildContainer;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * This abstraction layer represents a chat (primary and sub) command.
  *
- * TODO: Implement a way to define the owner of this command - i.e "system" or "user" for global and private commands.
- *
  * @author Oliwer - https://www.github.com/ImOliwer
  */
 public abstract class Command implements ChildContainer<Command> {
@@ -31,6 +32,47 @@ public abstract class Command implements ChildContainer<Command> {
    */
   private final Set<Requirement> requirements = new LinkedHashSet<>();
 
+  /**
+   * {@link CommandIndex} this property represents the lookup index of this command's children.
+   */
+  private volatile CommandIndex index = CommandIndex.EMPTY;
+
+  /**
+   * {@link CommandTree} this property represents the flattened tree of this command's children (built upon first use).
+   */
+  private volatile CommandTree tree;
+
+  /**
+   * {@link AtomicLong} this property represents the generation of said tree, bumped as any of its commands changes.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * {@link Set} this property represents the generations of all trees this command is flattened into
+   * (held weakly, guarded by itself).
+   */
+  private final Set<AtomicLong> flattenedInto = Collections.newSetFromMap(new WeakHashMap<>());
+
+  /**
+   * {@link RequirementChain} this property represents the compiled requirements of this command.
+   */
+  private volatile RequirementChain chain = RequirementChain.EMPTY;
+
+  /**
+   * {@link Long} this property represents how long (in nanoseconds) responses of this command are cached (0 if not).
+   */
+  private volatile long responseTtl;
+
+  /**
+   * {@link FloodPolicy} this property represents how floods of this command are handled.
+   */
+  private volatile FloodPolicy floodPolicy = FloodPolicy.NONE;
+
+  /**
+   * {@link ArgumentSchema} this property represents the schema arguments of this command are parsed against (null if untyped).
+   */
+  private volatile ArgumentSchema argumentSchema;
+
   /**
    * Perform the command for said user alongside arguments.
    *
@@ -43,6 +85,21 @@ public abstract class Command implements ChildContainer<Command> {
    */
   public abstract void perform(ExtractedUser user, BotClient client, String channel, String[] arguments);
 
+  /**
+   * Perform the command for said user alongside tokenized arguments.
+   *
+   * Note: Override this method to read arguments without allocating a string per argument.
+   * Passed arguments are only valid for the duration of this call (see {@link Arguments#copy()}).
+   *
+   * @param user {@link ExtractedUser} whom executed this command.
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param arguments {@link Arguments} arguments executed with the command.
+   */
+  public void perform(ExtractedUser user, BotClient client, String channel, Arguments arguments) {
+    perform(user, client, channel, arguments.toArray());
+  }
+
   /**
    * Get the aliases of this command.
    *
@@ -59,6 +116,53 @@ public abstract class Command implements ChildContainer<Command> {
    */
   public void onInvalidChild(ExtractedUser user, BotClient client, String usedAlias) {}
 
+  /**
+   * This method is invoked only when a requirement denies a user from performing this command.
+   *
+   * @param user {@link ExtractedUser} the user who executed the command.
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param denial {@link Denial} the requirement which denied said user, alongside the remaining cooldown.
+   */
+  public void onDenied(ExtractedUser user, BotClient client, String channel, Denial denial) {}
+
+  /**
+   * This method is invoked only when an asynchronous execution cancels this command instead of completing it.
+   *
+   * Note: A timed out command is interrupted, whilst this method may run on a different thread than said command.
+   *
+   * @param user {@link ExtractedUser} the user who executed the command.
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param cancellation {@link Cancellation} the reason of cancellation.
+   */
+  public void onCancel(ExtractedUser user, BotClient client, String channel, Cancellation cancellation) {}
+
+  /**
+   * This method is invoked only when copies of this command were coalesced during a flood
+   * (see {@link FloodPolicy#COALESCE}), once per window in which copies were held back.
+   *
+   * Note: This method runs where the command itself is performed (see {@link CommandController#execute}),
+   * which is the thread of the flood filter only while commands are performed synchronously.
+   *
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param message {@link String} the first of the coalesced messages.
+   * @param count {@link Integer} the amount of copies held back.
+   */
+  public void onCoalesced(BotClient client, String channel, String message, int count) {}
+
+  /**
+   * The maximum duration this command may run for when executed asynchronously.
+   *
+   * @see ChannelExecution
+   * @see FairExecution
+   * @return {@link Duration} the timeout (null to use the default of the execution).
+   */
+  public Duration timeout() {
+    return null;
+  }
+
   /**
    * The private owner of this command (null if global).
    *
@@ -68,6 +172,15 @@ public abstract class Command implements ChildContainer<Command> {
     return null;
   }
 
+  /**
+   * How floods of this command (the same message repeated by many users) are handled.
+   *
+   * @return {@link FloodPolicy} {@link FloodPolicy#NONE} unless set through {@link MetaBuilder#flood(FloodPolicy)}.
+   */
+  public FloodPolicy floodPolicy() {
+    return this.floodPolicy;
+  }
+
   /**
    * Generate a new meta builder.
    *
@@ -95,6 +208,111 @@ public abstract class Command implements ChildContainer<Command> {
     return new LinkedHashSet<>(requirements);
   }
 
+  /**
+   * Get the lookup index of this command's children.
+   *
+   * @return {@link CommandIndex}
+   */
+  CommandIndex index() {
+    return this.index;
+  }
+
+  /**
+   * Get the flattened tree of this command's children, rebuilding it if stale.
+   *
+   * @return {@link CommandTree}
+   */
+  CommandTree tree() {
+    final CommandIndex index = this.index;
+    final CommandTree current = this.tree;
+    if (current != null && !current.isStale(index)) {
+      return current;
+    }
+    return this.tree = CommandTree.of(index, generation);
+  }
+
+  /**
+   * Track the generation of a tree this command is flattened into.
+   *
+   * @param generation {@link AtomicLong} said generation.
+   */
+  void flattenedInto(AtomicLong generation) {
+    synchronized (flattenedInto) {
+      flattenedInto.add(generation);
+    }
+  }
+
+  /**
+   * Mark every tree this command is flattened into stale.
+   */
+  private void invalidateTrees() {
+    synchronized (flattenedInto) {
+      for (AtomicLong generation : flattenedInto)
+        generation.incrementAndGet();
+    }
+  }
+
+  /**
+   * Get the compiled requirements of this command.
+   *
+   * @return {@link RequirementChain}
+   */
+  RequirementChain chain() {
+    return this.chain;
+  }
+
+  /**
+   * Get how long (in nanoseconds) responses of this command are cached.
+   *
+   * @return {@link Long} zero if responses are not cached.
+   */
+  long responseTtl() {
+    return this.responseTtl;
+  }
+
+  /**
+   * Get the schema arguments of this command are parsed against.
+   *
+   * @return {@link ArgumentSchema} null unless declared through {@link MetaBuilder#arguments(ArgumentSchema)}.
+   */
+  ArgumentSchema argumentSchema() {
+    return this.argumentSchema;
+  }
+
+  /**
+   * This enumeration represents the reasons a command may be cancelled.
+   * <br/>
+   *
+   * <ul>
+   *   <li>TIMED_OUT = Ran past its timeout</li>
+   *   <li>REJECTED  = Never ran as too many commands were pending</li>
+   * </ul>
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public enum Cancellation {
+    TIMED_OUT,
+    REJECTED
+  }
+
+  /**
+   * This enumeration represents how copies of a command beyond the flood threshold are handled.
+   * <br/>
+   *
+   * <ul>
+   *   <li>NONE     = Performed as usual</li>
+   *   <li>DROP     = Dropped before being tokenized</li>
+   *   <li>COALESCE = Dropped before being tokenized, counted and reported through {@link Command#onCoalesced}</li>
+   * </ul>
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public enum FloodPolicy {
+    NONE,
+    DROP,
+    COALESCE
+  }
+
   /**
    * This functional interface represents a single method
    * to check if a user meets said requirement(s).
@@ -110,10 +328,69 @@ public abstract class Command implements ChildContainer<Command> {
      * @return {@link Boolean} whether the user meets said requirements.
      */
     boolean attempt(ExtractedUser user);
+
+    /**
+     * Check if a user meets the requirements needed to pass within a channel.
+     *
+     * @param user {@link ExtractedUser} the user to attempt said check on.
+     * @param channel {@link String} name of the channel the command was executed in.
+     * @return {@link Boolean} whether the user meets said requirements.
+     */
+    default boolean attempt(ExtractedUser user, String channel) {
+      return attempt(user);
+    }
+
+    /**
+     * Get how long until a user denied by this requirement may pass again.
+     *
+     * @param user {@link ExtractedUser} the user who was denied.
+     * @param channel {@link String} name of the channel the command was executed in.
+     * @return {@link Duration} the remaining time ({@link Duration#ZERO} if unknown or not time based).
+     */
+    default Duration retryAfter(ExtractedUser user, String channel) {
+      return Duration.ZERO;
+    }
+
+    /**
+     * Create a requirement of a permission.
+     *
+     * Note: Prefer this over an equivalent lambda, as permission requirements are folded into a single bitmask test.
+     *
+     * @param permission {@link CommandPermission} the permission needed to pass.
+     * @return {@link Requirement}
+     */
+    static Requirement permission(CommandPermission permission) {
+      if (permission == null)
+        throw new NullPointerException("permission must not be null");
+      return new PermissionRequirement(permission);
+    }
   }
 
   /**
-   * This class represents the builder for command options (children & requirements).
+   * This record represents a requirement of a single permission.
+   *
+   * @see Requirement#permission(CommandPermission)
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record PermissionRequirement(CommandPermission permission) implements Requirement {
+    /**
+     * @see Requirement#attempt(ExtractedUser)
+     */
+    @Override
+    public boolean attempt(ExtractedUser user) {
+      return user.canAccess(permission);
+    }
+  }
+
+  /**
+   * This record represents the denial of a user by a requirement.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Denial(Requirement requirement, Duration retryAfter) {}
+
+  /**
+   * This class represents the builder for command options (children, requirements, caching, flood handling & arguments).
    *
    * @author Oliwer - https://www.github.com/ImOliwer
    */
@@ -150,6 +427,58 @@ public abstract class Command implements ChildContainer<Command> {
       return also(command -> command.children.add(child));
     }
 
+    /**
+     * Cache the responses of the command for a while, sharing them between everyone executing it
+     * with the same arguments in the same channel.
+     *
+     * @param ttl {@link Duration} how long a response is cached for.
+     * @return {@link MetaBuilder} current instance.
+     * @throws IllegalArgumentException if passed time to live is not positive.
+     * @see ResponseCommand
+     */
+    public MetaBuilder cache(Duration ttl) {
+      if (ttl == null)
+        throw new NullPointerException("ttl must not be null");
+      if (ttl.isNegative() || ttl.isZero())
+        throw new IllegalArgumentException("ttl must be positive");
+
+      return also(command -> {
+        if (!(command instanceof ResponseCommand))
+          throw new IllegalStateException("Only a ResponseCommand may cache its responses");
+        command.responseTtl = ttl.toNanos();
+      });
+    }
+
+    /**
+     * Set how floods of the command are handled.
+     *
+     * @param policy {@link FloodPolicy} the policy to use.
+     * @return {@link MetaBuilder} current instance.
+     */
+    public MetaBuilder flood(FloodPolicy policy) {
+      if (policy == null)
+        throw new NullPointerException("policy must not be null");
+      return also(command -> command.floodPolicy = policy);
+    }
+
+    /**
+     * Declare the schema arguments of the command are parsed against.
+     *
+     * @param schema {@link ArgumentSchema} the schema to use.
+     * @return {@link MetaBuilder} current instance.
+     * @see TypedCommand
+     */
+    public MetaBuilder arguments(ArgumentSchema schema) {
+      if (schema == null)
+        throw new NullPointerException("schema must not be null");
+
+      return also(command -> {
+        if (!(command instanceof TypedCommand))
+          throw new IllegalStateException("Only a TypedCommand may declare an argument schema");
+        command.argumentSchema = schema;
+      });
+    }
+
     /**
      * Apply a change to the corresponding command of which will be applied to.
      *
@@ -169,6 +498,9 @@ public abstract class Command implements ChildContainer<Command> {
     public void apply(Command primary) {
       for (Consumer<Command> change : this.changes)
         change.accept(primary);
+      primary.index = CommandIndex.of(primary.children);
+      primary.chain = RequirementChain.of(primary.requirements);
+      primary.invalidateTrees();
     }
   }
 }
\ No newline at end of file
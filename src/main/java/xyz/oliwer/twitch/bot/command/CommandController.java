@@ -1,12 +1,15 @@
 package xyz.oliwer.twitch.bot.command;
 
 import org.jetbrains.annotations.NotNull;
+import xyz.oliwer.twitch.bot.metrics.BotMetrics;
 import xyz.oliwer.twitch.bot.structure.BotClient;
 import xyz.oliwer.twitch.bot.structure.ExtractedUser;
 import xyz.oliwer.twitch.bot.util.ChildContainer;
 import xyz.oliwer.twitch.bot.util.Controller;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static xyz.oliwer.twitch.bot.command.Command.Requirement;
 
@@ -18,71 +21,158 @@ import static xyz.oliwer.twitch.bot.command.Command.Requirement;
 public final class CommandController implements Controller<Command>, ChildContainer<Command> {
   /**
    * {@link Perform} this property represents the performer for commands.
+   *
+   * Note: The visible tokens of passed arguments are walked once through the flattened tree of passed parent,
+   * descending into children for as long as the next token is the alias of one (checking the requirements of
+   * every level passed through). The deepest command found is given the remaining tokens (without any copy being made),
+   * whilst the commands passed through are not performed. Should said command have children, yet the next token is
+   * the alias of none of them, said command is told through {@link Command#onInvalidChild} instead of being performed.
    */
-  public static final Perform PERFORMER = (parent, channel, commandAlias, arguments, user, client) -> {
-    if (parent == null || commandAlias == null || arguments == null || user == null || client == null) {
-      throw new NullPointerException("all of parent, commandAlias, arguments, user and client must NOT be null");
+  public static final Perform PERFORMER = (parent, channel, arguments, user, client) -> {
+    if (parent == null || arguments == null || user == null || client == null) {
+      throw new NullPointerException("all of parent, arguments, user and client must NOT be null");
     }
 
-    final String transformed = commandAlias.toLowerCase(Locale.ROOT);
-    final Set<Command> searchThrough = (Set<Command>) parent.children();
-    boolean failedToMatchAll = true;
-
-    for (Command command : searchThrough) {
-      boolean matches = false;
-
-      final String representative = command.representative();
-      if (representative != null && !representative.equals(channel)) {
-        continue;
-      }
-
-      final String[] aliases = command.getAliases();
-      for (String alias : aliases) {
-        if (!alias.equals(transformed)) {
-          continue;
-        }
-        matches = true;
-        break;
-      }
-
-      if (!matches) {
-        continue;
-      }
-
-      final Set<Requirement> requirements = command.requirements();
-      boolean passedRequirements = true;
-      failedToMatchAll = false;
+    if (arguments.isEmpty()) {
+      return;
+    }
 
-      for (Requirement requirement : requirements) {
-        if (requirement.attempt(user)) {
-          continue;
-        }
-        passedRequirements = false;
+    final BotMetrics metrics = client.metrics();
+    final long lookupStart = System.nanoTime();
+    final String source = arguments.source();
+    final int size = arguments.size();
+    CommandTree tree = CommandTree.from(parent);
+    if (channel != null && parent instanceof CommandController controller) {
+      // the commands of the channel itself are laid over (and take precedence over) the commands of all channels
+      final CommandTree overlay = controller.overlay(channel);
+      if (overlay != null && overlay.child(CommandTree.ROOT, channel, source, arguments.start(0), arguments.end(0)) >= 0)
+        tree = overlay;
+    }
+    int node = CommandTree.ROOT;
+    int consumed = 0;
+    boolean unmatched = false;
+    while (consumed < size && tree.hasChildren(node)) {
+      final int child = tree.child(node, channel, source, arguments.start(consumed), arguments.end(consumed));
+      if (child < 0) {
+        unmatched = true;
         break;
       }
 
-      if (!passedRequirements) {
-        break;
+      final Command command = tree.command(child);
+      final Requirement denied = command.chain().attempt(user, channel);
+      if (denied != null) {
+        metrics.lookup().recordSince(lookupStart);
+        metrics.denials().labels(command.getAliases()[0]).increment();
+        command.onDenied(user, client, channel, new Command.Denial(denied, denied.retryAfter(user, channel)));
+        return;
       }
+      node = child;
+      consumed++;
+    }
+    metrics.lookup().recordSince(lookupStart);
 
-      final String[] exactArguments = Arrays.copyOfRange(arguments, 1, arguments.length);
-      command.perform(user, client, channel, exactArguments);
-      break;
+    if (node == CommandTree.ROOT) {
+      if (parent instanceof Command)
+        ((Command) parent).onInvalidChild(user, client, arguments.get(0).toLowerCase(Locale.ROOT));
+      return;
+    }
+    if (unmatched) {
+      tree.command(node).onInvalidChild(user, client, arguments.get(consumed).toLowerCase(Locale.ROOT));
+      return;
     }
 
-    if (failedToMatchAll && parent instanceof Command) {
-      ((Command) parent).onInvalidChild(user, client, transformed);
+    // hide the aliases walked through from the command for the duration of its execution
+    final Command command = tree.command(node);
+    final String alias = command.getAliases()[0];
+    final int offset = arguments.offset();
+    arguments.offset(offset + consumed);
+    final long performStart = System.nanoTime();
+    try {
+      command.perform(user, client, channel, arguments);
+    } finally {
+      metrics.performing().labels(alias).recordSince(performStart);
+      arguments.offset(offset);
     }
   };
 
   /**
-   * {@link Set<Command>} this property represents all commands registered to this controller.
+   * {@link CommandIndex} this property represents the lookup index of all commands registered to this controller.
+   *
+   * Note: The index is immutable and republished as a whole on every (un)registration.
    */
-  private final Set<Command> commands = new HashSet<>();
+  private volatile CommandIndex index = CommandIndex.EMPTY;
+
+  /**
+   * {@link CommandTree} this property represents said commands and all of their children flattened (built upon first use).
+   */
+  private volatile CommandTree tree;
+
+  /**
+   * {@link AtomicLong} this property represents the generation of said tree, bumped as any of its commands changes.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * {@link Map} this property represents the commands registered to a single channel each, by channel.
+   *
+   * Note: Each channel has a small index of its own, swapped as a whole without touching the index of any other.
+   */
+  private final Map<String, Overlay> overlays = new ConcurrentHashMap<>();
+
+  /**
+   * {@link Execution} this property represents where top level commands are performed.
+   */
+  private volatile Execution execution = Execution.SYNCHRONOUS;
 
   /**
    * @see CommandController#PERFORMER
    */
+  public void tryPerform(
+    ChildContainer<Command> parent,
+    String channel,
+    Arguments arguments,
+    ExtractedUser user,
+    BotClient client
+  ) {
+    final Execution execution = this.execution;
+    if (parent != null || execution == Execution.SYNCHRONOUS) {
+      PERFORMER.commence(parent == null ? this : parent, channel, arguments, user, client);
+      return;
+    }
+
+    if (arguments == null || user == null || client == null)
+      throw new NullPointerException("all of arguments, user and client must NOT be null");
+    if (arguments.isEmpty()) {
+      return;
+    }
+
+    final Command command = find(channel, arguments.source(), arguments.start(0), arguments.end(0));
+    if (command == null) {
+      return;
+    }
+
+    // arguments are reused by the dispatching thread, hence retain a copy
+    final Arguments retained = arguments.copy();
+    execution.execute(
+      channel,
+      command,
+      () -> {
+        // no subscriber is left to catch a failure off the dispatching thread, hence report it here
+        try {
+          PERFORMER.commence(this, channel, retained, user, client);
+        } catch (RuntimeException exception) {
+          client.errorSink().report(command, channel, exception);
+        }
+      },
+      cancellation -> command.onCancel(user, client, channel, cancellation)
+    );
+  }
+
+  /**
+   * Perform a command by alias, where the first element of passed arguments is replaced by said alias.
+   *
+   * @see CommandController#tryPerform(ChildContainer, String, Arguments, ExtractedUser, BotClient)
+   */
   public void tryPerform(
     ChildContainer<Command> parent,
     String channel,
@@ -91,7 +181,51 @@ public final class CommandController implements Controller<Command>, ChildContai
     ExtractedUser user,
     BotClient client
   ) {
-    PERFORMER.commence(parent == null ? this : parent, channel, commandAlias, arguments, user, client);
+    if (commandAlias == null || arguments == null)
+      throw new NullPointerException("commandAlias and arguments must not be null");
+
+    final String[] tokens = arguments.length == 0 ? new String[1] : arguments.clone();
+    tokens[0] = commandAlias;
+    tryPerform(parent, channel, Arguments.of(tokens), user, client);
+  }
+
+  /**
+   * Run a task on behalf of a command where top level commands are performed (i.e a response outside of a message).
+   *
+   * Note: A failure of said task is reported to the error sink of passed client, a cancelled task is only skipped.
+   *
+   * @param channel {@link String} name of the channel said task belongs to.
+   * @param command {@link Command} the command said task belongs to.
+   * @param task {@link Runnable} the task.
+   * @param client {@link BotClient} the client failures are reported to.
+   */
+  public void execute(@NotNull String channel, @NotNull Command command, @NotNull Runnable task, @NotNull BotClient client) {
+    if (channel == null || command == null || task == null || client == null)
+      throw new NullPointerException("channel, command, task and client must not be null");
+
+    execution.execute(
+      channel,
+      command,
+      () -> {
+        try {
+          task.run();
+        } catch (RuntimeException exception) {
+          client.errorSink().report(command, channel, exception);
+        }
+      },
+      cancellation -> {}
+    );
+  }
+
+  /**
+   * Set where top level commands are performed (subcommands always run where their parent runs).
+   *
+   * @param execution {@link Execution} the execution to use ({@link Execution#SYNCHRONOUS} by default).
+   */
+  public void setExecution(@NotNull Execution execution) {
+    if (execution == null)
+      throw new NullPointerException("Execution must not be null");
+    this.execution = execution;
   }
 
   /**
@@ -101,7 +235,18 @@ public final class CommandController implements Controller<Command>, ChildContai
   public boolean register(@NotNull Command value) {
     if (value == null)
       throw new NullPointerException("Command must not be null");
-    return commands.add(value);
+
+    synchronized (this) {
+      final Set<Command> commands = index.commands();
+      if (commands.contains(value)) {
+        return false;
+      }
+
+      final Set<Command> updated = new LinkedHashSet<>(commands);
+      updated.add(value);
+      this.index = CommandIndex.of(updated);
+      return true;
+    }
   }
 
   /**
@@ -117,25 +262,184 @@ public final class CommandController implements Controller<Command>, ChildContai
       return false;
     }
 
-    return commands.remove(found);
+    synchronized (this) {
+      final Set<Command> updated = new LinkedHashSet<>(index.commands());
+      if (!updated.remove(found)) {
+        return false;
+      }
+
+      this.index = CommandIndex.of(updated);
+      return true;
+    }
+  }
+
+  /**
+   * Register many commands at once, rebuilding the lookup index a single time.
+   *
+   * @param values {@link Collection<Command>} the commands to register.
+   * @return {@link Integer} the amount of commands which were not already registered.
+   */
+  public int registerAll(@NotNull Collection<? extends Command> values) {
+    if (values == null)
+      throw new NullPointerException("Commands must not be null");
+
+    synchronized (this) {
+      final Set<Command> updated = new LinkedHashSet<>(index.commands());
+      final int before = updated.size();
+      for (Command value : values) {
+        if (value == null)
+          throw new NullPointerException("Command must not be null");
+        updated.add(value);
+      }
+
+      if (updated.size() != before)
+        this.index = CommandIndex.of(updated);
+      return updated.size() - before;
+    }
+  }
+
+  /**
+   * Unregister many commands at once, rebuilding the lookup index a single time.
+   *
+   * @param values {@link Collection<Command>} the commands to unregister.
+   * @return {@link Integer} the amount of commands which were registered.
+   */
+  public int unregisterAll(@NotNull Collection<? extends Command> values) {
+    if (values == null)
+      throw new NullPointerException("Commands must not be null");
+
+    synchronized (this) {
+      final Set<Command> updated = new LinkedHashSet<>(index.commands());
+      final int before = updated.size();
+      updated.removeAll(values);
+
+      if (updated.size() != before)
+        this.index = CommandIndex.of(updated);
+      return before - updated.size();
+    }
   }
 
   /**
-   * Get a copy of all commands registered to this controller.
+   * Replace the commands registered to a single channel, laid over the commands of all channels
+   * (taking precedence over a command of the same alias registered through {@link CommandController#register}).
+   * <br/>
+   *
+   * Only the small index of said channel is rebuilt, so setting the commands of many channels (i.e whilst joining them)
+   * costs the same for each, rather than growing with the amount of channels set before.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param values {@link Collection<Command>} the commands of said channel (empty to remove all).
+   */
+  public void setChannelCommands(@NotNull String channel, @NotNull Collection<? extends Command> values) {
+    if (channel == null || values == null)
+      throw new NullPointerException("channel and commands must not be null");
+
+    final Set<Command> commands = new LinkedHashSet<>();
+    for (Command value : values) {
+      if (value == null)
+        throw new NullPointerException("Command must not be null");
+      commands.add(value);
+    }
+
+    if (commands.isEmpty())
+      overlays.remove(channel);
+    else
+      overlays.put(channel, new Overlay(CommandIndex.of(commands)));
+  }
+
+  /**
+   * Get the commands registered to a single channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Set<Command>} unmodifiable snapshot of said commands.
+   */
+  public Set<Command> channelCommands(@NotNull String channel) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final Overlay overlay = overlays.get(channel);
+    return overlay == null ? Collections.emptySet() : overlay.index.commands();
+  }
+
+  /**
+   * Resolve the top level command of an alias, without tokenizing the message it is part of.
+   *
+   * @param channel {@link String} name of the channel (null for global commands only).
+   * @param source {@link String} the message holding the alias.
+   * @param start {@link Integer} (inclusive) start offset of the alias in said message.
+   * @param end {@link Integer} (exclusive) end offset of the alias in said message.
+   * @return {@link Command} null if there is no such command.
+   */
+  public Command resolve(String channel, String source, int start, int end) {
+    if (source == null)
+      throw new NullPointerException("source must not be null");
+    return find(channel, source, start, end);
+  }
+
+  /**
+   * Get a copy of all commands registered to this controller (those registered to a single channel aside).
    *
    * @return {@link Set<Command>} copy of current children.
    */
   public Set<Command> commands() {
-    return new HashSet<>(commands);
+    return new HashSet<>(index.commands());
   }
 
   /**
    * @see ChildContainer#children()
-   * @return {@link Set<Command>}
+   * @return {@link Set<Command>} unmodifiable snapshot of current children.
    */
   @Override
   public @NotNull Collection<Command> children() {
-    return new HashSet<>(commands);
+    return index.commands();
+  }
+
+  /**
+   * Get the flattened tree of all commands registered to this controller, rebuilding it if stale.
+   *
+   * @return {@link CommandTree}
+   */
+  CommandTree tree() {
+    final CommandIndex index = this.index;
+    final CommandTree current = this.tree;
+    if (current != null && !current.isStale(index)) {
+      return current;
+    }
+    return this.tree = CommandTree.of(index, generation);
+  }
+
+  /**
+   * Get the current lookup index of this controller.
+   *
+   * @return {@link CommandIndex}
+   */
+  CommandIndex index() {
+    return this.index;
+  }
+
+  /**
+   * Get the flattened tree of the commands registered to a single channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link CommandTree} null if said channel has none.
+   */
+  CommandTree overlay(String channel) {
+    final Overlay overlay = overlays.get(channel);
+    return overlay == null ? null : overlay.tree();
+  }
+
+  /**
+   * Find the top level command of an alias - one registered to the channel first, then one registered to all.
+   */
+  private Command find(String channel, String source, int start, int end) {
+    if (channel != null && !overlays.isEmpty()) {
+      final Overlay overlay = overlays.get(channel);
+      final Command owned = overlay == null ? null : overlay.index.find(channel, source, start, end);
+      if (owned != null) {
+        return owned;
+      }
+    }
+    return index.find(channel, source, start, end);
   }
 
   /**
@@ -152,10 +456,49 @@ public final class CommandController implements Controller<Command>, ChildContai
     void commence(
       @NotNull ChildContainer<Command> parent,
       @NotNull String channel,
-      @NotNull String commandAlias,
-      @NotNull String[] arguments,
+      @NotNull Arguments arguments,
       @NotNull ExtractedUser user,
       @NotNull BotClient client
     );
   }
+
+  /**
+   * This class represents the commands registered to a single channel - their index and flattened tree.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Overlay {
+    /**
+     * {@link CommandIndex} the lookup index of said commands.
+     */
+    private final CommandIndex index;
+
+    /**
+     * {@link CommandTree} said commands and all of their children flattened (built upon first use).
+     */
+    private volatile CommandTree tree;
+
+    /**
+     * {@link AtomicLong} the generation of said tree.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Primary constructor.
+     */
+    private Overlay(CommandIndex index) {
+      this.index = index;
+    }
+
+    /**
+     * Get the flattened tree of said commands, rebuilding it if stale.
+     */
+    private CommandTree tree() {
+      final CommandTree current = this.tree;
+      if (current != null && !current.isStale(index)) {
+        return current;
+      }
+      return this.tree = CommandTree.of(index, generation);
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.util.*;
+
+/**
+ * This class represents an immutable lookup index of commands,
+ * keyed by (representative channel, lower-cased alias).
+ *
+ * Note: An index is never modified once built - registries rebuild and republish it instead.
+ * Aliases are kept in an open addressing table so they can be looked up straight from a region
+ * of a message, without allocating a string for said alias.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class CommandIndex {
+  /**
+   * {@link CommandIndex} this constant represents an index without any commands.
+   */
+  static final CommandIndex EMPTY = new CommandIndex(Collections.emptySet(), new String[1], new Entry[1]);
+
+  /**
+   * {@link Set<Command>} this property represents the commands this index was built from.
+   */
+  private final Set<Command> commands;
+
+  /**
+   * {@link String} array of lower-cased aliases, indexed by their slot in the table.
+   */
+  private final String[] aliases;
+
+  /**
+   * {@link Entry} array of entries, indexed by the slot of their alias in the table.
+   */
+  private final Entry[] entries;
+
+  /**
+   * {@link Integer} this property represents the mask used to turn a hash into a slot.
+   */
+  private final int mask;
+
+  /**
+   * Primary constructor.
+   */
+  private CommandIndex(Set<Command> commands, String[] aliases, Entry[] entries) {
+    this.commands = commands;
+    this.aliases = aliases;
+    this.entries = entries;
+    this.mask = aliases.length - 1;
+  }
+
+  /**
+   * Build a new index from passed commands.
+   *
+   * Note: When two commands claim the same alias for the same owner, the first one (in iteration order) wins.
+   *
+   * @param commands {@link Collection<Command>} the commands to index.
+   * @return {@link CommandIndex}
+   */
+  static CommandIndex of(Collection<Command> commands) {
+    if (commands.isEmpty()) {
+      return EMPTY;
+    }
+
+    final Set<Command> snapshot = new LinkedHashSet<>(commands);
+    final Map<String, Entry> grouped = new HashMap<>();
+
+    for (Command command : snapshot) {
+      final String representative = command.representative();
+      for (String alias : command.getAliases()) {
+        final Entry entry = grouped.computeIfAbsent(alias.toLowerCase(Locale.ROOT), key -> new Entry());
+        if (representative == null) {
+          if (entry.global == null)
+            entry.global = command;
+        } else {
+          entry.representatives.putIfAbsent(representative, command);
+        }
+      }
+    }
+
+    // lay out the table at a load factor of at most one half
+    final int capacity = Integer.highestOneBit(Math.max(grouped.size(), 1) << 1) << 1;
+    final String[] aliases = new String[capacity];
+    final Entry[] table = new Entry[capacity];
+
+    for (Map.Entry<String, Entry> entry : grouped.entrySet()) {
+      final String alias = entry.getKey();
+      int slot = hash(alias, 0, alias.length()) & (capacity - 1);
+      while (aliases[slot] != null)
+        slot = (slot + 1) & (capacity - 1);
+      aliases[slot] = alias;
+      table[slot] = entry.getValue();
+    }
+
+    return new CommandIndex(Collections.unmodifiableSet(snapshot), aliases, table);
+  }
+
+  /**
+   * Find a command by alias that is accessible from passed channel.
+   * A command owned by the channel takes precedence over a global one.
+   *
+   * @param channel {@link String} name of the channel to look up from (null if none).
+   * @param alias {@link String} the lower-cased alias to look up.
+   * @return {@link Command} the command found (null if none).
+   */
+  Command find(String channel, String alias) {
+    return find(channel, alias, 0, alias.length());
+  }
+
+  /**
+   * Find a command by an alias held in a region of passed source, ignoring case.
+   * A command owned by the channel takes precedence over a global one.
+   *
+   * @param channel {@link String} name of the channel to look up from (null if none).
+   * @param source {@link String} the source holding the alias.
+   * @param start {@link Integer} (inclusive) start offset of the alias in source.
+   * @param end {@link Integer} (exclusive) end offset of the alias in source.
+   * @return {@link Command} the command found (null if none).
+   */
+  Command find(String channel, String source, int start, int end) {
+    final int length = end - start;
+    int slot = hash(source, start, end) & mask;
+
+    Entry entry = null;
+    for (String alias; (alias = aliases[slot]) != null; slot = (slot + 1) & mask) {
+      if (alias.length() == length && alias.regionMatches(true, 0, source, start, length)) {
+        entry = entries[slot];
+        break;
+      }
+    }
+
+    if (entry == null) {
+      return null;
+    }
+
+    if (channel != null && !entry.representatives.isEmpty()) {
+      final Command owned = entry.representatives.get(channel);
+      if (owned != null) {
+        return owned;
+      }
+    }
+    return entry.global;
+  }
+
+  /**
+   * Get the commands this index was built from.
+   *
+   * @return {@link Set<Command>} unmodifiable set of commands.
+   */
+  Set<Command> commands() {
+    return this.commands;
+  }
+
+  /**
+   * Hash a region of passed source as if it was lower-cased.
+   */
+  private static int hash(String source, int start, int end) {
+    int hash = 0;
+    for (int index = start; index < end; index++)
+      hash = 31 * hash + Character.toLowerCase(source.charAt(index));
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * This class represents a single alias entry of the index.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Entry {
+    /**
+     * {@link Command} this property represents the global command of said alias.
+     */
+    private Command global;
+
+    /**
+     * {@link Map} this property represents the channel owned commands of said alias.
+     */
+    private final Map<String, Command> representatives = new HashMap<>(2);
+  }
+}
\ No newline at end of file
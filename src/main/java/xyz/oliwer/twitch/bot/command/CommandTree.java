@@ -0,0 +1,304 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.util.ChildContainer;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents an immutable, flattened tree of commands and all of their (nested) children,
+ * resolving the deepest command of a message in a single walk over its tokens.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Each position of a command in the tree is a node, numbered from the root (0).</li>
+ *   <li>All edges (parent node, lower-cased alias) share one open addressing table,
+ *       looked up straight from a region of a message like {@link CommandIndex}.</li>
+ *   <li>Each owner (a controller, the commands of a channel or a command) keeps a generation of its own, which every
+ *       command flattened into its tree bumps once it has its meta applied again - leaving the tree stale, to be
+ *       rebuilt by said owner, whilst the trees of all other owners stay as they are.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class CommandTree {
+  /**
+   * {@link Integer} this constant represents the root node (the owner of the tree).
+   */
+  static final int ROOT = 0;
+
+  /**
+   * {@link Integer} this constant represents the deepest level flattened (guarding against cyclic children).
+   */
+  private static final int MAX_DEPTH = 16;
+
+  /**
+   * {@link CommandIndex} this property represents the index of the top level this tree was built from.
+   */
+  private final CommandIndex root;
+
+  /**
+   * {@link AtomicLong} this property represents the generation of the owner of this tree.
+   */
+  private final AtomicLong generation;
+
+  /**
+   * {@link Long} this property represents said generation as of building this tree.
+   */
+  private final long built;
+
+  /**
+   * {@link Command} array of the command of each node (null for the root).
+   */
+  private final Command[] commands;
+
+  /**
+   * {@link Boolean} array of whether each node has any children.
+   */
+  private final boolean[] parents;
+
+  /**
+   * {@link Integer} array of the parent node of each edge, indexed by slot.
+   */
+  private final int[] edgeParents;
+
+  /**
+   * {@link String} array of the lower-cased alias of each edge, indexed by slot (null if the slot is free).
+   */
+  private final String[] edgeAliases;
+
+  /**
+   * {@link Integer} array of the global child node of each edge, indexed by slot (-1 if none).
+   */
+  private final int[] edgeGlobals;
+
+  /**
+   * {@link Map} array of the channel owned child nodes of each edge, indexed by slot (null if none).
+   */
+  private final Map<String, Integer>[] edgeOwned;
+
+  /**
+   * {@link Integer} this property represents the mask used to turn a hash into a slot.
+   */
+  private final int mask;
+
+  /**
+   * Primary constructor.
+   */
+  @SuppressWarnings("unchecked")
+  private CommandTree(CommandIndex root, AtomicLong generation, long built, List<Command> nodes, List<Boolean> parents, List<Edge> edges) {
+    this.root = root;
+    this.generation = generation;
+    this.built = built;
+    this.commands = nodes.toArray(new Command[0]);
+    this.parents = new boolean[nodes.size()];
+    for (int node = 0; node < nodes.size(); node++)
+      this.parents[node] = parents.get(node);
+
+    // lay out the table at a load factor of at most one half
+    final int capacity = Integer.highestOneBit(Math.max(edges.size(), 1) << 1) << 1;
+    this.mask = capacity - 1;
+    this.edgeParents = new int[capacity];
+    this.edgeAliases = new String[capacity];
+    this.edgeGlobals = new int[capacity];
+    this.edgeOwned = new Map[capacity];
+    for (Edge edge : edges) {
+      int slot = hash(edge.parent, edge.alias, 0, edge.alias.length()) & mask;
+      while (edgeAliases[slot] != null)
+        slot = (slot + 1) & mask;
+      edgeParents[slot] = edge.parent;
+      edgeAliases[slot] = edge.alias;
+      edgeGlobals[slot] = edge.global;
+      edgeOwned[slot] = edge.owned.isEmpty() ? null : edge.owned;
+    }
+  }
+
+  /**
+   * Flatten an index and the children of all of its commands into a tree.
+   *
+   * @param root {@link CommandIndex} the index of the top level.
+   * @param generation {@link AtomicLong} the generation of the owner of said index.
+   * @return {@link CommandTree}
+   */
+  static CommandTree of(CommandIndex root, AtomicLong generation) {
+    // read the generation first, so a change made while flattening leaves this tree stale
+    final long built = generation.get();
+    final List<Command> nodes = new ArrayList<>();
+    final List<Boolean> parents = new ArrayList<>();
+    final List<Edge> edges = new ArrayList<>();
+    nodes.add(null);
+    parents.add(!root.commands().isEmpty());
+
+    // breadth first, remembering the level and children of each node
+    final Deque<Object[]> pending = new ArrayDeque<>();
+    pending.add(new Object[] { ROOT, 0, root.commands() });
+    while (!pending.isEmpty()) {
+      final Object[] next = pending.poll();
+      final int parent = (int) next[0];
+      final int depth = (int) next[1];
+      @SuppressWarnings("unchecked")
+      final Set<Command> children = (Set<Command>) next[2];
+
+      // the same rules as an index - the first command claiming an alias for an owner wins
+      final Map<String, Edge> grouped = new LinkedHashMap<>();
+      final Map<Command, Integer> numbered = new IdentityHashMap<>();
+      for (Command child : children) {
+        // tracked before any of its meta is read, so no change of it can slip by unnoticed
+        child.flattenedInto(generation);
+        final String representative = child.representative();
+        for (String alias : child.getAliases()) {
+          final Edge edge = grouped.computeIfAbsent(alias.toLowerCase(Locale.ROOT), key -> new Edge(parent, key));
+          if (representative == null ? edge.global >= 0 : edge.owned.containsKey(representative))
+            continue;
+
+          final Integer node = numbered.computeIfAbsent(child, command -> {
+            final Set<Command> nested = depth + 1 < MAX_DEPTH ? command.index().commands() : Collections.emptySet();
+            nodes.add(command);
+            parents.add(!nested.isEmpty());
+            pending.add(new Object[] { nodes.size() - 1, depth + 1, nested });
+            return nodes.size() - 1;
+          });
+          if (representative == null)
+            edge.global = node;
+          else
+            edge.owned.put(representative, node);
+        }
+      }
+      edges.addAll(grouped.values());
+    }
+    return new CommandTree(root, generation, built, nodes, parents, edges);
+  }
+
+  /**
+   * Get the tree of passed container - reusing (or rebuilding if stale) the tree of a controller or command.
+   *
+   * @param container {@link ChildContainer<Command>} the container to get the tree of.
+   * @return {@link CommandTree}
+   */
+  static CommandTree from(ChildContainer<Command> container) {
+    if (container instanceof CommandController controller) {
+      return controller.tree();
+    }
+    if (container instanceof Command command) {
+      return command.tree();
+    }
+    return of(CommandIndex.of(container.children()), new AtomicLong());
+  }
+
+  /**
+   * Get whether this tree no longer reflects passed index or the children of its commands.
+   *
+   * @param current {@link CommandIndex} the current index of the top level.
+   * @return {@link Boolean}
+   */
+  boolean isStale(CommandIndex current) {
+    return current != root || built != generation.get();
+  }
+
+  /**
+   * Find the child node of a node by an alias held in a region of passed source, ignoring case.
+   * A command owned by the channel takes precedence over a global one.
+   *
+   * @param node {@link Integer} the parent node.
+   * @param channel {@link String} name of the channel to look up from (null if none).
+   * @param source {@link String} the source holding the alias.
+   * @param start {@link Integer} (inclusive) start offset of the alias in source.
+   * @param end {@link Integer} (exclusive) end offset of the alias in source.
+   * @return {@link Integer} the child node (-1 if none).
+   */
+  int child(int node, String channel, String source, int start, int end) {
+    if (!parents[node]) {
+      return -1;
+    }
+
+    final int length = end - start;
+    for (int slot = hash(node, source, start, end) & mask; edgeAliases[slot] != null; slot = (slot + 1) & mask) {
+      final String alias = edgeAliases[slot];
+      if (edgeParents[slot] != node || alias.length() != length || !alias.regionMatches(true, 0, source, start, length))
+        continue;
+
+      final Map<String, Integer> owned = edgeOwned[slot];
+      if (channel != null && owned != null) {
+        final Integer found = owned.get(channel);
+        if (found != null)
+          return found;
+      }
+      return edgeGlobals[slot];
+    }
+    return -1;
+  }
+
+  /**
+   * Get the command of a node.
+   *
+   * @param node {@link Integer} the node.
+   * @return {@link Command} null for the root.
+   */
+  Command command(int node) {
+    return this.commands[node];
+  }
+
+  /**
+   * Get whether a node has any children.
+   *
+   * @param node {@link Integer} the node.
+   * @return {@link Boolean}
+   */
+  boolean hasChildren(int node) {
+    return this.parents[node];
+  }
+
+  /**
+   * Get the amount of nodes (the root included).
+   *
+   * @return {@link Integer}
+   */
+  int size() {
+    return this.commands.length;
+  }
+
+  /**
+   * Hash a parent node alongside a region of passed source as if it was lower-cased.
+   */
+  private static int hash(int parent, String source, int start, int end) {
+    int hash = parent * 0x9E3779B9;
+    for (int index = start; index < end; index++)
+      hash = 31 * hash + Character.toLowerCase(source.charAt(index));
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * This class represents an edge being built, from a parent node by an alias.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Edge {
+    /**
+     * {@link Integer} the parent node.
+     */
+    private final int parent;
+
+    /**
+     * {@link String} the lower-cased alias.
+     */
+    private final String alias;
+
+    /**
+     * {@link Integer} the global child node (-1 if none).
+     */
+    private int global = -1;
+
+    /**
+     * {@link Map} the channel owned child nodes.
+     */
+    private final Map<String, Integer> owned = new HashMap<>(2);
+
+    /**
+     * Primary constructor.
+     */
+    private Edge(int parent, String alias) {
+      this.parent = parent;
+      this.alias = alias;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,502 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class represents a cooldown (or rate limit) requirement - allowing a limited amount of uses
+ * per window, kept either per user, per channel or globally.
+ * <br/>
+ *
+ * Note: Per user and per channel windows are kept in a fixed size table of packed slots, updated with
+ * compare-and-set only. A live window is never evicted - once every slot a key may be placed in holds a live window
+ * of another key (i.e during a raid), said key is kept aside in an overflow map until its window expires.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Cooldown implements Command.Requirement {
+  /**
+   * {@link Integer} this constant represents the default amount of slots of a table.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 14;
+
+  /**
+   * {@link Integer} this constant represents the maximum amount of uses per window.
+   */
+  public static final int MAX_USES = 15;
+
+  /**
+   * {@link Integer} this constant represents the amount of slots a key may be placed in.
+   */
+  private static final int WAYS = 4;
+
+  /**
+   * {@link Integer} the amount of bits used for the expiry of a slot (milliseconds, ~34 years).
+   */
+  private static final int EXPIRY_BITS = 40;
+
+  /**
+   * {@link Integer} the amount of bits used for the uses of a slot.
+   */
+  private static final int USE_BITS = 4;
+
+  /**
+   * {@link Long} the mask of the expiry of a slot.
+   */
+  private static final long EXPIRY_MASK = (1L << EXPIRY_BITS) - 1;
+
+  /**
+   * {@link Long} the mask of the uses of a slot (after shifting).
+   */
+  private static final long USE_MASK = (1L << USE_BITS) - 1;
+
+  /**
+   * {@link Long} the origin of the clock (nanoTime).
+   */
+  private static final long ORIGIN = System.nanoTime();
+
+  /**
+   * {@link Scope} this property represents what the windows are kept per.
+   */
+  private final Scope scope;
+
+  /**
+   * {@link Long} this property represents the length of a window in milliseconds.
+   */
+  private final long window;
+
+  /**
+   * {@link Integer} this property represents the amount of uses allowed per window.
+   */
+  private final int uses;
+
+  /**
+   * {@link AtomicLongArray} the table of packed slots (fingerprint | uses | expiry), null if global.
+   */
+  private final AtomicLongArray table;
+
+  /**
+   * {@link Map} the packed slots (uses | expiry) of keys which found no free slot in the table, by key (null if global).
+   */
+  private final Map<String, Long> overflow;
+
+  /**
+   * {@link AtomicLong} the packed slot of the global window (uses | expiry).
+   */
+  private final AtomicLong global = new AtomicLong();
+
+  /**
+   * {@link Integer} the size of the overflow at which its expired windows are swept next.
+   */
+  private volatile int sweepAt;
+
+  /**
+   * Primary constructor.
+   *
+   * @param scope {@link Scope} what the windows are kept per.
+   * @param window {@link Duration} the length of a window.
+   * @param uses {@link Integer} the amount of uses allowed per window (1 for a plain cooldown).
+   * @param capacity {@link Integer} the amount of slots of the table (rounded up to a power of two),
+   *                 i.e the amount of users expected within a window - any beyond are kept in an overflow map.
+   */
+  public Cooldown(Scope scope, Duration window, int uses, int capacity) {
+    if (scope == null || window == null)
+      throw new NullPointerException("scope and window must not be null");
+    if (window.isNegative() || window.isZero())
+      throw new IllegalArgumentException("window must be positive");
+    if (uses <= 0 || uses > MAX_USES)
+      throw new IllegalArgumentException("uses must be between 1 and " + MAX_USES);
+    if (capacity < WAYS)
+      throw new IllegalArgumentException("capacity must be at least " + WAYS);
+
+    this.scope = scope;
+    this.window = window.toMillis();
+    this.uses = uses;
+    this.table = scope == Scope.GLOBAL ? null : new AtomicLongArray(Integer.highestOneBit(capacity - 1) << 1);
+    this.overflow = scope == Scope.GLOBAL ? null : new ConcurrentHashMap<>();
+    this.sweepAt = table == null ? 0 : table.length();
+  }
+
+  /**
+   * Create a cooldown per user.
+   *
+   * @param cooldown {@link Duration} the length of the cooldown.
+   * @return {@link Cooldown}
+   */
+  public static Cooldown perUser(Duration cooldown) {
+    return new Cooldown(Scope.USER, cooldown, 1, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a cooldown per channel.
+   *
+   * @param cooldown {@link Duration} the length of the cooldown.
+   * @return {@link Cooldown}
+   */
+  public static Cooldown perChannel(Duration cooldown) {
+    return new Cooldown(Scope.CHANNEL, cooldown, 1, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a global cooldown.
+   *
+   * @param cooldown {@link Duration} the length of the cooldown.
+   * @return {@link Cooldown}
+   */
+  public static Cooldown global(Duration cooldown) {
+    return new Cooldown(Scope.GLOBAL, cooldown, 1, WAYS);
+  }
+
+  /**
+   * Create a rate limit, allowing an amount of uses per window.
+   *
+   * @param scope {@link Scope} what the windows are kept per.
+   * @param uses {@link Integer} the amount of uses allowed per window.
+   * @param window {@link Duration} the length of a window.
+   * @return {@link Cooldown}
+   */
+  public static Cooldown rateLimit(Scope scope, int uses, Duration window) {
+    return new Cooldown(scope, window, uses, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Attempt a use without channel context (channel scoped windows share a single key).
+   *
+   * @see Command.Requirement#attempt(ExtractedUser)
+   */
+  @Override
+  public boolean attempt(ExtractedUser user) {
+    return attempt(user, null);
+  }
+
+  /**
+   * Attempt a use - starting a window (or counting towards the current one) if allowed.
+   *
+   * @see Command.Requirement#attempt(ExtractedUser, String)
+   */
+  @Override
+  public boolean attempt(ExtractedUser user, String channel) {
+    final long now = now();
+    if (scope == Scope.GLOBAL) {
+      return acquireGlobal(now);
+    }
+
+    final String key = key(user, channel);
+    return acquire(key, hash(key), now);
+  }
+
+  /**
+   * @see Command.Requirement#retryAfter(ExtractedUser, String)
+   */
+  @Override
+  public Duration retryAfter(ExtractedUser user, String channel) {
+    final long now = now();
+    final long slot = current(user, channel, now);
+    final long expiry = slot & EXPIRY_MASK;
+    if (expiry <= now || uses(slot) < uses) {
+      return Duration.ZERO;
+    }
+    return Duration.ofMillis(expiry - now);
+  }
+
+  /**
+   * Check whether a use would currently be allowed, without taking it.
+   *
+   * @param user {@link ExtractedUser} the user to check.
+   * @param channel {@link String} name of the channel the command was executed in.
+   * @return {@link Boolean} whether a use is available (it may still be taken by a concurrent attempt meanwhile).
+   */
+  boolean isAvailable(ExtractedUser user, String channel) {
+    final long now = now();
+    final long slot = current(user, channel, now);
+    return (slot & EXPIRY_MASK) <= now || uses(slot) < uses;
+  }
+
+  /**
+   * Get what the windows of this cooldown are kept per.
+   *
+   * @return {@link Scope}
+   */
+  public Scope scope() {
+    return this.scope;
+  }
+
+  /**
+   * Get the current window of a user or channel, by scope (0 if there is none).
+   */
+  private long current(ExtractedUser user, String channel, long now) {
+    if (scope == Scope.GLOBAL) {
+      return global.get();
+    }
+
+    final String key = key(user, channel);
+    final long hash = hash(key);
+    final long found = find(hash, fingerprint(hash), now);
+    final Long aside = found == 0 ? overflow.get(key) : null;
+    return aside == null ? found : aside;
+  }
+
+  /**
+   * Acquire a use of the global window.
+   */
+  private boolean acquireGlobal(long now) {
+    while (true) {
+      final long current = global.get();
+      final long expiry = current & EXPIRY_MASK;
+      final long next;
+
+      if (expiry <= now) {
+        next = pack(0, 1, now + window);
+      } else if (uses(current) < uses) {
+        next = pack(0, uses(current) + 1, expiry);
+      } else {
+        return false;
+      }
+
+      if (global.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Acquire a use of the window of a key.
+   */
+  private boolean acquire(String key, long hash, long now) {
+    final long fingerprint = fingerprint(hash);
+    final int base = base(hash);
+
+    while (true) {
+      int free = -1;
+      long freeValue = 0;
+      boolean raced = false;
+      for (int way = 0; way < WAYS; way++) {
+        final int index = base + way;
+        final long value = table.get(index);
+        if (isLive(value, fingerprint, now)) {
+          // live window of said key - count towards it if allowed
+          if (uses(value) >= uses) {
+            return false;
+          }
+          if (table.compareAndSet(index, value, pack(fingerprint, uses(value) + 1, value & EXPIRY_MASK))) {
+            return true;
+          }
+          raced = true;
+          break;
+        }
+        if ((value & EXPIRY_MASK) <= now && free < 0) {
+          free = index;
+          freeValue = value;
+        }
+      }
+
+      if (raced) {
+        continue;
+      }
+
+      // every way holds a live window of another key (or said key is kept aside already) - never evict a live window
+      final Long aside = overflow.isEmpty() ? null : overflow.get(key);
+      if (free < 0 || (aside != null && (aside & EXPIRY_MASK) > now)) {
+        return acquireOverflow(key, fingerprint, base, now);
+      }
+
+      final long claimed = pack(fingerprint, 1, now + window);
+      if (table.compareAndSet(free, freeValue, claimed) && settle(key, fingerprint, base, free, now)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Settle a slot just claimed for a key against racing claims of the same key - the lowest way wins,
+   * and a window of said key kept aside meanwhile is folded into it.
+   *
+   * @return {@link Boolean} whether the claim stands (otherwise it was retracted, and the use is to be attempted again).
+   */
+  private boolean settle(String key, long fingerprint, int base, int claimed, long now) {
+    for (int index = base; index < claimed; index++) {
+      if (!isLive(table.get(index), fingerprint, now))
+        continue;
+
+      // lost to a lower way - retract, handing the uses granted on said claim meanwhile (all but this one) over to the winner
+      while (true) {
+        final long value = table.get(claimed);
+        if (!isLive(value, fingerprint, now)) {
+          return false;
+        }
+        if (table.compareAndSet(claimed, value, 0)) {
+          fold(index, fingerprint, uses(value) - 1, now);
+          return false;
+        }
+      }
+    }
+
+    overflow.computeIfPresent(key, (ignored, aside) -> {
+      if ((aside & EXPIRY_MASK) > now)
+        fold(claimed, fingerprint, uses(aside), now);
+      return null;
+    });
+    return true;
+  }
+
+  /**
+   * Acquire a use of the window of a key kept aside in the overflow (or, if a way holds it by now, in the table).
+   */
+  private boolean acquireOverflow(String key, long fingerprint, int base, long now) {
+    final boolean[] allowed = new boolean[1];
+    final boolean[] created = new boolean[1];
+    overflow.compute(key, (ignored, aside) -> {
+      // a way claimed for said key meanwhile takes precedence (folding this entry once it settles)
+      for (int way = 0; way < WAYS; way++) {
+        final int index = base + way;
+        long value;
+        while (isLive(value = table.get(index), fingerprint, now)) {
+          if (uses(value) >= uses) {
+            return aside;
+          }
+          if (table.compareAndSet(index, value, pack(fingerprint, uses(value) + 1, value & EXPIRY_MASK))) {
+            allowed[0] = true;
+            return aside;
+          }
+        }
+      }
+
+      if (aside == null || (aside & EXPIRY_MASK) <= now) {
+        allowed[0] = created[0] = true;
+        return pack(0, 1, now + window);
+      }
+      if (uses(aside) >= uses) {
+        return aside;
+      }
+      allowed[0] = true;
+      return pack(0, uses(aside) + 1, aside & EXPIRY_MASK);
+    });
+
+    if (created[0] && overflow.size() >= sweepAt) {
+      overflow.values().removeIf(value -> (value & EXPIRY_MASK) <= now);
+      sweepAt = Math.max(table.length(), overflow.size() * 2);
+    }
+    return allowed[0];
+  }
+
+  /**
+   * Add uses to the live slot of a key (if still live).
+   */
+  private void fold(int index, long fingerprint, int extra, long now) {
+    if (extra <= 0) {
+      return;
+    }
+
+    long value;
+    while (isLive(value = table.get(index), fingerprint, now)) {
+      final long next = pack(fingerprint, Math.min(USE_MASK, uses(value) + extra), value & EXPIRY_MASK);
+      if (table.compareAndSet(index, value, next))
+        return;
+    }
+  }
+
+  /**
+   * Find the live slot of a key.
+   *
+   * @return {@link Long} the packed slot (0 if none).
+   */
+  private long find(long hash, long fingerprint, long now) {
+    final int base = base(hash);
+    for (int way = 0; way < WAYS; way++) {
+      final long value = table.get(base + way);
+      if (isLive(value, fingerprint, now))
+        return value;
+    }
+    return 0;
+  }
+
+  /**
+   * Get the first slot of the bucket of a hash.
+   */
+  private int base(long hash) {
+    return (int) hash & (table.length() - 1) & -WAYS;
+  }
+
+  /**
+   * Get whether a packed slot holds a live window of a fingerprint.
+   */
+  private static boolean isLive(long value, long fingerprint, long now) {
+    return value >>> (EXPIRY_BITS + USE_BITS) == fingerprint && (value & EXPIRY_MASK) > now;
+  }
+
+  /**
+   * Get the key of the window passed user & channel fall into.
+   */
+  private String key(ExtractedUser user, String channel) {
+    if (scope == Scope.USER) {
+      return user.id();
+    }
+    return channel == null ? "" : channel;
+  }
+
+  /**
+   * Get the current point in time (milliseconds since origin, never zero).
+   */
+  private static long now() {
+    return (System.nanoTime() - ORIGIN) / 1_000_000 + 1;
+  }
+
+  /**
+   * Pack a slot.
+   */
+  private static long pack(long fingerprint, long uses, long expiry) {
+    return fingerprint << (EXPIRY_BITS + USE_BITS) | uses << EXPIRY_BITS | expiry;
+  }
+
+  /**
+   * Get the uses of a packed slot.
+   */
+  private static int uses(long value) {
+    return (int) (value >>> EXPIRY_BITS & USE_MASK);
+  }
+
+  /**
+   * Get the (non zero) fingerprint of a hash, stored in the remaining 20 bits of a slot.
+   */
+  private static long fingerprint(long hash) {
+    final long fingerprint = hash >>> (EXPIRY_BITS + USE_BITS);
+    return fingerprint == 0 ? 1 : fingerprint;
+  }
+
+  /**
+   * Hash a key (64-bit FNV-1a, followed by a final mix).
+   */
+  private static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int index = 0; index < key.length(); index++) {
+      hash ^= key.charAt(index);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    return hash ^ hash >>> 33;
+  }
+
+  /**
+   * This enumeration represents what the windows of a cooldown are kept per.
+   * <br/>
+   *
+   * <ul>
+   *   <li>USER    = Per user (across channels)</li>
+   *   <li>CHANNEL = Per channel</li>
+   *   <li>GLOBAL  = Shared by everyone</li>
+   * </ul>
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public enum Scope {
+    USER,
+    CHANNEL,
+    GLOBAL
+  }
+}
\ No newline at end of file
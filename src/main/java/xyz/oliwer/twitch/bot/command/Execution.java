@@ -0,0 +1,28 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.util.function.Consumer;
+
+/**
+ * This functional interface represents a single method
+ * used to decide where (and when) a resolved command is performed.
+ *
+ * @see CommandController#setExecution(Execution)
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+@FunctionalInterface
+public interface Execution {
+  /**
+   * {@link Execution} this constant represents the default execution - performing on the calling (dispatch) thread.
+   */
+  Execution SYNCHRONOUS = (channel, command, task, cancellation) -> task.run();
+
+  /**
+   * Execute the performance of a command.
+   *
+   * @param channel {@link String} name of the channel the command was executed in.
+   * @param command {@link Command} the command to be performed.
+   * @param task {@link Runnable} the task performing said command.
+   * @param cancellation {@link Consumer} to be invoked if said task is cancelled instead of completed.
+   */
+  void execute(String channel, Command command, Runnable task, Consumer<Command.Cancellation> cancellation);
+}
\ No newline at end of file
@@ -0,0 +1,498 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.metrics.Family;
+import xyz.oliwer.twitch.bot.metrics.Gauge;
+import xyz.oliwer.twitch.bot.metrics.Histogram;
+import xyz.oliwer.twitch.bot.metrics.MetricRegistry;
+import xyz.oliwer.twitch.bot.util.DaemonThreadFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class represents an asynchronous execution sharing a fixed amount of concurrently performing commands
+ * between channels by weighted deficit round-robin, so one busy channel cannot starve the others.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Each channel has a queue of its own, visited in turn - a channel may start as many commands per turn as its weight.</li>
+ *   <li>Each channel has a limit of commands in flight, and is skipped (rather than waited upon) while at said limit.</li>
+ *   <li>Each command runs under a timeout ({@link Command#timeout()} or the default of this execution),
+ *       and is rejected if too many commands are queued in total or in its channel.</li>
+ *   <li>The time each command waited in the queue of its channel is recorded per channel.</li>
+ *   <li>The amount of commands queued and in flight is exposed per execution (so several may share a registry).</li>
+ * </ul>
+ *
+ * Note: With the default share (a weight of one and a single command in flight), commands of a channel are
+ * performed in order - just as with {@link ChannelExecution}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class FairExecution implements Execution {
+  /**
+   * {@link AtomicInteger} this constant represents the amount of executions created, numbering their gauges.
+   */
+  private static final AtomicInteger EXECUTIONS = new AtomicInteger();
+
+  /**
+   * {@link String} this property represents the identifier of this execution, labelling its gauges.
+   */
+  private final String id = "fair-" + EXECUTIONS.incrementAndGet();
+
+  /**
+   * {@link Executor} this property represents the executor commands are performed on.
+   */
+  private final Executor executor;
+
+  /**
+   * {@link Integer} this property represents the maximum amount of commands in flight (across channels).
+   */
+  private final int concurrency;
+
+  /**
+   * {@link Integer} this property represents the maximum amount of queued commands (across channels).
+   */
+  private final int maxPending;
+
+  /**
+   * {@link Integer} this property represents the maximum amount of queued commands per channel.
+   */
+  private final int maxQueuedPerChannel;
+
+  /**
+   * {@link Duration} this property represents the timeout of commands without a timeout of their own.
+   */
+  private final Duration defaultTimeout;
+
+  /**
+   * {@link ScheduledExecutorService} the timer enforcing timeouts.
+   */
+  private final ScheduledExecutorService timer;
+
+  /**
+   * {@link Family} this property represents the time commands waited in the queue of each channel.
+   */
+  private final Family<Histogram> queueLatency;
+
+  /**
+   * {@link Family} this property represents the amount of commands queued of each execution.
+   */
+  private final Family<Gauge> queuedGauges;
+
+  /**
+   * {@link Family} this property represents the amount of commands in flight of each execution.
+   */
+  private final Family<Gauge> inFlightGauges;
+
+  /**
+   * {@link Map} this property represents the share of each channel given one (guarded by this execution).
+   */
+  private final Map<String, Share> shares = new HashMap<>();
+
+  /**
+   * {@link Map} this property represents the flows of all channels with queued or running commands (guarded by this execution).
+   */
+  private final Map<String, Flow> flows = new HashMap<>();
+
+  /**
+   * {@link Deque} this property represents the flows with queued commands which may start one, in turn (guarded by this execution).
+   */
+  private final Deque<Flow> active = new ArrayDeque<>();
+
+  /**
+   * {@link Share} this property represents the share of channels not given one (guarded by this execution).
+   */
+  private Share defaultShare = Share.DEFAULT;
+
+  /**
+   * {@link Integer} this property represents the amount of commands queued (guarded by this execution).
+   */
+  private int queued;
+
+  /**
+   * {@link Integer} this property represents the amount of commands in flight (guarded by this execution).
+   */
+  private int inFlight;
+
+  /**
+   * Primary constructor.
+   *
+   * @param executor {@link Executor} the executor to perform commands on (i.e a virtual thread per task executor).
+   * @param concurrency {@link Integer} the maximum amount of commands in flight across channels.
+   * @param maxPending {@link Integer} the maximum amount of queued commands across channels.
+   * @param maxQueuedPerChannel {@link Integer} the maximum amount of queued commands per channel.
+   * @param defaultTimeout {@link Duration} the timeout of commands without a timeout of their own.
+   * @param registry {@link MetricRegistry} the registry to record the queue latency of each channel in.
+   */
+  public FairExecution(
+    Executor executor,
+    int concurrency,
+    int maxPending,
+    int maxQueuedPerChannel,
+    Duration defaultTimeout,
+    MetricRegistry registry
+  ) {
+    if (executor == null || defaultTimeout == null || registry == null)
+      throw new NullPointerException("executor, defaultTimeout and registry must not be null");
+    if (concurrency <= 0 || maxPending <= 0 || maxQueuedPerChannel <= 0)
+      throw new IllegalArgumentException("concurrency, maxPending and maxQueuedPerChannel must be positive");
+
+    this.executor = executor;
+    this.concurrency = concurrency;
+    this.maxPending = maxPending;
+    this.maxQueuedPerChannel = maxQueuedPerChannel;
+    this.defaultTimeout = defaultTimeout;
+    this.timer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("command-timeout"));
+    this.queueLatency = registry.histograms(
+      "bot_command_queue_seconds",
+      "Time commands waited in the queue of their channel until performed.",
+      "channel"
+    );
+    this.queuedGauges = registry.gauges("bot_command_queued", "Commands queued across channels.", "execution");
+    this.inFlightGauges = registry.gauges("bot_command_in_flight", "Commands being performed across channels.", "execution");
+    queuedGauges.labels(id).observe(this::queued);
+    inFlightGauges.labels(id).observe(this::inFlight);
+  }
+
+  /**
+   * Create an execution backed by a bounded pool of daemon threads, one per command in flight.
+   *
+   * @param threads {@link Integer} the amount of threads (and commands in flight).
+   * @param maxPending {@link Integer} the maximum amount of queued commands across channels.
+   * @param maxQueuedPerChannel {@link Integer} the maximum amount of queued commands per channel.
+   * @param defaultTimeout {@link Duration} the timeout of commands without a timeout of their own.
+   * @param registry {@link MetricRegistry} the registry to record the queue latency of each channel in.
+   * @return {@link FairExecution}
+   */
+  public static FairExecution bounded(
+    int threads,
+    int maxPending,
+    int maxQueuedPerChannel,
+    Duration defaultTimeout,
+    MetricRegistry registry
+  ) {
+    return new FairExecution(
+      Executors.newFixedThreadPool(threads, new DaemonThreadFactory("command-worker")),
+      threads,
+      maxPending,
+      maxQueuedPerChannel,
+      defaultTimeout,
+      registry
+    );
+  }
+
+  /**
+   * Give a channel a share of its own (i.e by partner tier).
+   *
+   * @param channel {@link String} name of the channel.
+   * @param share {@link Share} the share of said channel (null to fall back to the default share).
+   */
+  public void setShare(String channel, Share share) {
+    if (channel == null)
+      throw new NullPointerException("channel must not be null");
+
+    final List<Job> started;
+    synchronized (this) {
+      if (share == null) {
+        shares.remove(channel);
+        queueLatency.remove(channel);
+      } else
+        shares.put(channel, share);
+
+      final Flow flow = flows.get(channel);
+      if (flow != null) {
+        flow.share = share == null ? defaultShare : share;
+        release(flow);
+      }
+      started = dispatch();
+    }
+    start(started);
+  }
+
+  /**
+   * Set the share of channels not given one.
+   *
+   * @param share {@link Share} the default share ({@link Share#DEFAULT} initially).
+   */
+  public void setDefaultShare(Share share) {
+    if (share == null)
+      throw new NullPointerException("share must not be null");
+
+    final List<Job> started;
+    synchronized (this) {
+      this.defaultShare = share;
+      for (Flow flow : flows.values()) {
+        if (!shares.containsKey(flow.channel)) {
+          flow.share = share;
+          release(flow);
+        }
+      }
+      started = dispatch();
+    }
+    start(started);
+  }
+
+  /**
+   * Get the share of a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Share}
+   */
+  public synchronized Share share(String channel) {
+    return shares.getOrDefault(channel, defaultShare);
+  }
+
+  /**
+   * @see Execution#execute(String, Command, Runnable, Consumer)
+   */
+  @Override
+  public void execute(String channel, Command command, Runnable task, Consumer<Command.Cancellation> cancellation) {
+    final Job job = new Job(channel == null ? "" : channel, command, task, cancellation);
+    final boolean rejected;
+    final List<Job> started;
+    synchronized (this) {
+      final Flow flow = flows.computeIfAbsent(job.channel, key -> new Flow(key, shares.getOrDefault(key, defaultShare)));
+      rejected = queued >= maxPending || flow.jobs.size() >= maxQueuedPerChannel;
+      if (rejected) {
+        if (flow.isIdle())
+          flows.remove(job.channel);
+        started = null;
+      } else {
+        queued++;
+        flow.jobs.add(job);
+        release(flow);
+        started = dispatch();
+      }
+    }
+
+    if (rejected) {
+      cancellation.accept(Command.Cancellation.REJECTED);
+      return;
+    }
+    start(started);
+  }
+
+  /**
+   * Get the current amount of queued commands.
+   *
+   * @return {@link Integer}
+   */
+  public synchronized int queued() {
+    return this.queued;
+  }
+
+  /**
+   * Get the current amount of commands in flight.
+   *
+   * @return {@link Integer}
+   */
+  public synchronized int inFlight() {
+    return this.inFlight;
+  }
+
+  /**
+   * Stop enforcing timeouts and exposing gauges, shutting down the executor if it is an {@link ExecutorService}.
+   */
+  public void shutdown() {
+    queuedGauges.remove(id);
+    inFlightGauges.remove(id);
+    timer.shutdownNow();
+    if (executor instanceof ExecutorService service)
+      service.shutdown();
+  }
+
+  /**
+   * Put a flow in turn, if it has queued commands and room to start one.
+   */
+  private void release(Flow flow) {
+    if (!flow.inTurn && !flow.jobs.isEmpty() && flow.running < flow.share.inFlight()) {
+      flow.inTurn = true;
+      active.addLast(flow);
+    }
+  }
+
+  /**
+   * Take as many commands as may start, visiting flows in turn.
+   *
+   * @return {@link List<Job>} the commands to start (outside of the lock of this execution).
+   */
+  private List<Job> dispatch() {
+    List<Job> started = null;
+    while (inFlight < concurrency && !active.isEmpty()) {
+      final Flow flow = active.peekFirst();
+      // a flow starting its turn is granted its weight
+      if (flow.deficit < 1)
+        flow.deficit += flow.share.weight();
+
+      final Job job = flow.jobs.poll();
+      flow.deficit--;
+      flow.running++;
+      queued--;
+      inFlight++;
+      if (started == null)
+        started = new ArrayList<>(4);
+      started.add(job);
+
+      if (flow.jobs.isEmpty() || flow.running >= flow.share.inFlight()) {
+        // out of turn until a command is queued or completes - an idle flow does not hoard its deficit
+        active.pollFirst();
+        flow.inTurn = false;
+        if (flow.jobs.isEmpty())
+          flow.deficit = 0;
+      } else if (flow.deficit < 1) {
+        active.addLast(active.pollFirst());
+      }
+    }
+    return started;
+  }
+
+  /**
+   * Start commands on the executor.
+   */
+  private void start(List<Job> jobs) {
+    if (jobs == null) {
+      return;
+    }
+
+    for (Job job : jobs) {
+      try {
+        executor.execute(() -> {
+          queueLatency.labels(job.channel).record(System.nanoTime() - job.queuedAt);
+          job.run(timer, defaultTimeout);
+        });
+      } catch (RejectedExecutionException exception) {
+        // never run, so never returns - its place in flight is freed right away instead
+        if (job.complete())
+          job.cancellation.accept(Command.Cancellation.REJECTED);
+        free(job);
+      }
+    }
+  }
+
+  /**
+   * Free the place in flight of a returned job for the next command.
+   */
+  private void free(Job job) {
+    final List<Job> started;
+    synchronized (this) {
+      inFlight--;
+      final Flow flow = flows.get(job.channel);
+      flow.running--;
+      if (flow.isIdle())
+        flows.remove(job.channel);
+      else
+        release(flow);
+      started = dispatch();
+    }
+    start(started);
+  }
+
+  /**
+   * This record represents the share of a channel.
+   *
+   * @param weight {@link Integer} the amount of commands said channel may start per turn.
+   * @param inFlight {@link Integer} the maximum amount of commands of said channel in flight.
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Share(int weight, int inFlight) {
+    /**
+     * {@link Share} this constant represents the default share - one command per turn, one in flight.
+     */
+    public static final Share DEFAULT = new Share(1, 1);
+
+    /**
+     * Primary constructor.
+     */
+    public Share {
+      if (weight <= 0 || inFlight <= 0)
+        throw new IllegalArgumentException("weight and inFlight must be positive");
+    }
+  }
+
+  /**
+   * This class represents the queue and turn of a single channel.
+   *
+   * Note: All mutable state is guarded by the owning execution.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Flow {
+    /**
+     * {@link String} name of the channel.
+     */
+    private final String channel;
+
+    /**
+     * {@link Queue} the queued jobs, in order of submission.
+     */
+    private final Queue<Job> jobs = new ArrayDeque<>();
+
+    /**
+     * {@link Share} the share of said channel.
+     */
+    private Share share;
+
+    /**
+     * {@link Integer} the amount of commands this flow may still start in its current turn.
+     */
+    private int deficit;
+
+    /**
+     * {@link Integer} the amount of jobs in flight.
+     */
+    private int running;
+
+    /**
+     * {@link Boolean} whether this flow is in turn.
+     */
+    private boolean inTurn;
+
+    /**
+     * Primary constructor.
+     */
+    private Flow(String channel, Share share) {
+      this.channel = channel;
+      this.share = share;
+    }
+
+    /**
+     * Get whether this flow has neither queued nor running jobs.
+     */
+    private boolean isIdle() {
+      return jobs.isEmpty() && running == 0;
+    }
+  }
+
+  /**
+   * This class represents a single queued command, freeing its place in flight once returned.
+   * <br/>
+   *
+   * Note: An expired command keeps its place until it actually returns, so it never overlaps the next command of its channel.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private final class Job extends TimedJob {
+    /**
+     * {@link Long} when (in nanoseconds) this job was queued.
+     */
+    private final long queuedAt = System.nanoTime();
+
+    /**
+     * Primary constructor.
+     */
+    private Job(String channel, Command command, Runnable task, Consumer<Command.Cancellation> cancellation) {
+      super(channel, command, task, cancellation);
+    }
+
+    /**
+     * @see TimedJob#onReturned()
+     */
+    @Override
+    void onReturned() {
+      free(this);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,272 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.time.Duration;
+
+/**
+ * This class represents the typed values of arguments parsed against an {@link ArgumentSchema}.
+ * <br/>
+ *
+ * Note: Instances are reused between executions - an instance is only valid for the duration of the call it was
+ * passed to. Numeric values are read without allocating, textual values are slices of the original message.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ParsedArguments {
+  /**
+   * {@link ArgumentSchema} this property represents the schema these values were parsed against.
+   */
+  private ArgumentSchema schema;
+
+  /**
+   * {@link String} this property represents the message these values were parsed from.
+   */
+  private String source = "";
+
+  /**
+   * {@link Long} array of the numeric value of each parameter (integer, milliseconds or index of a choice).
+   */
+  private long[] values = new long[4];
+
+  /**
+   * {@link Integer} array of (inclusive) start offsets of each textual parameter.
+   */
+  private int[] starts = new int[4];
+
+  /**
+   * {@link Integer} array of (exclusive) end offsets of each textual parameter.
+   */
+  private int[] ends = new int[4];
+
+  /**
+   * {@link Integer} this property represents the amount of parameters given.
+   */
+  private int count;
+
+  /**
+   * Get the schema these values were parsed against.
+   *
+   * @return {@link ArgumentSchema}
+   */
+  public ArgumentSchema schema() {
+    return this.schema;
+  }
+
+  /**
+   * Get whether a parameter was given (optional parameters may be left out).
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Boolean}
+   */
+  public boolean has(int index) {
+    return index >= 0 && index < this.count;
+  }
+
+  /**
+   * @see ParsedArguments#has(int)
+   */
+  public boolean has(String name) {
+    return has(schema.indexOf(name));
+  }
+
+  /**
+   * Get the value of an integer parameter.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Long}
+   */
+  public long getLong(int index) {
+    return values[checked(index, ArgumentSchema.Type.INTEGER)];
+  }
+
+  /**
+   * Get the value of an integer parameter, or a fallback if left out.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @param fallback {@link Long} the value used if said parameter was left out.
+   * @return {@link Long}
+   */
+  public long getLong(int index, long fallback) {
+    return has(index) ? getLong(index) : fallback;
+  }
+
+  /**
+   * Get the value of an integer parameter which is bound within the range of an integer.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Integer}
+   */
+  public int getInt(int index) {
+    return Math.toIntExact(getLong(index));
+  }
+
+  /**
+   * Get the value of a duration parameter in milliseconds.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Long}
+   */
+  public long getMillis(int index) {
+    return values[checked(index, ArgumentSchema.Type.DURATION)];
+  }
+
+  /**
+   * Get the value of a duration parameter in milliseconds, or a fallback if left out.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @param fallback {@link Long} the value (in milliseconds) used if said parameter was left out.
+   * @return {@link Long}
+   */
+  public long getMillis(int index, long fallback) {
+    return has(index) ? getMillis(index) : fallback;
+  }
+
+  /**
+   * Get the value of a duration parameter as a new {@link Duration}.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Duration}
+   */
+  public Duration getDuration(int index) {
+    return Duration.ofMillis(getMillis(index));
+  }
+
+  /**
+   * Get the index of the option chosen by a choice parameter.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Integer}
+   */
+  public int getChoice(int index) {
+    return (int) values[checked(index, ArgumentSchema.Type.CHOICE)];
+  }
+
+  /**
+   * Get whether a textual parameter (user, word, choice or text) equals passed value, ignoring case.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @param value {@link String} the value to compare with.
+   * @return {@link Boolean}
+   */
+  public boolean is(int index, String value) {
+    final int start = starts[textual(index)];
+    final int length = ends[index] - start;
+    return value.length() == length && source.regionMatches(true, start, value, 0, length);
+  }
+
+  /**
+   * Get the value of a textual parameter (user, word, choice or text) as a new string.
+   *
+   * Note: A user is given without its @ prefix.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link String}
+   */
+  public String getString(int index) {
+    return source.substring(starts[textual(index)], ends[index]);
+  }
+
+  /**
+   * Get the value of a textual parameter, or a fallback if left out.
+   *
+   * @see ParsedArguments#getString(int)
+   */
+  public String getString(int index, String fallback) {
+    return has(index) ? getString(index) : fallback;
+  }
+
+  /**
+   * Get the (inclusive) start offset of a textual parameter in the original message.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Integer}
+   */
+  public int start(int index) {
+    return starts[textual(index)];
+  }
+
+  /**
+   * Get the (exclusive) end offset of a textual parameter in the original message.
+   *
+   * @param index {@link Integer} index of the parameter.
+   * @return {@link Integer}
+   */
+  public int end(int index) {
+    return ends[textual(index)];
+  }
+
+  /**
+   * Get the message these values were parsed from.
+   *
+   * @return {@link String}
+   */
+  public String source() {
+    return this.source;
+  }
+
+  /**
+   * Prepare to hold the values of a schema, forgetting previous values.
+   */
+  void reset(ArgumentSchema schema, String source) {
+    this.schema = schema;
+    this.source = source;
+    this.count = 0;
+
+    final int size = schema.size();
+    if (values.length < size) {
+      this.values = new long[size];
+      this.starts = new int[size];
+      this.ends = new int[size];
+    }
+  }
+
+  /**
+   * Set the numeric value of a parameter.
+   */
+  void value(int index, long value) {
+    this.values[index] = value;
+  }
+
+  /**
+   * Set the slice of a parameter.
+   */
+  void slice(int index, int start, int end) {
+    this.starts[index] = start;
+    this.ends[index] = end;
+  }
+
+  /**
+   * Set the amount of parameters given.
+   */
+  void present(int count) {
+    this.count = count;
+  }
+
+  /**
+   * Check that a parameter was given and is of a type.
+   */
+  private int checked(int index, ArgumentSchema.Type type) {
+    given(index);
+    if (schema.type(index) != type)
+      throw new IllegalArgumentException("parameter " + schema.name(index) + " is not of type " + type);
+    return index;
+  }
+
+  /**
+   * Check that a parameter was given and holds a slice.
+   */
+  private int textual(int index) {
+    given(index);
+    final ArgumentSchema.Type type = schema.type(index);
+    if (type == ArgumentSchema.Type.INTEGER || type == ArgumentSchema.Type.DURATION)
+      throw new IllegalArgumentException("parameter " + schema.name(index) + " is not textual");
+    return index;
+  }
+
+  /**
+   * Check that a parameter was given.
+   */
+  private void given(int index) {
+    if (!has(index))
+      throw new IndexOutOfBoundsException("parameter " + index + " was not given (" + count + " given)");
+  }
+}
\ No newline at end of file
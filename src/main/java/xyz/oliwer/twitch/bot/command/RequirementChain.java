@@ -0,0 +1,125 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static xyz.oliwer.twitch.bot.command.Command.PermissionRequirement;
+import static xyz.oliwer.twitch.bot.command.Command.Requirement;
+
+/**
+ * This class represents a frozen, compiled chain of requirements.
+ *
+ * Note: All permission requirements are folded into a single bitmask, tested before the remaining
+ * requirements are attempted in order of registration (permissions never have side effects, unlike i.e cooldowns).
+ * Cooldowns are applied last, once every other requirement passed - so a denied command never uses up a cooldown.
+ * Attempting the chain does not allocate.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class RequirementChain {
+  /**
+   * {@link RequirementChain} this constant represents a chain without any requirements.
+   */
+  static final RequirementChain EMPTY = new RequirementChain(0, new PermissionRequirement[0], new Requirement[0], new Cooldown[0]);
+
+  /**
+   * {@link Long} this property represents the bitmask of all required permissions.
+   */
+  private final long mask;
+
+  /**
+   * {@link PermissionRequirement} array of the folded permission requirements (used to report a denial).
+   */
+  private final PermissionRequirement[] permissions;
+
+  /**
+   * {@link Requirement} array of the remaining requirements, in order of registration.
+   */
+  private final Requirement[] others;
+
+  /**
+   * {@link Cooldown} array of the cooldowns, in order of registration.
+   */
+  private final Cooldown[] cooldowns;
+
+  /**
+   * Primary constructor.
+   */
+  private RequirementChain(long mask, PermissionRequirement[] permissions, Requirement[] others, Cooldown[] cooldowns) {
+    this.mask = mask;
+    this.permissions = permissions;
+    this.others = others;
+    this.cooldowns = cooldowns;
+  }
+
+  /**
+   * Compile a chain from passed requirements.
+   *
+   * @param requirements {@link Collection<Requirement>} the requirements to compile.
+   * @return {@link RequirementChain}
+   */
+  static RequirementChain of(Collection<Requirement> requirements) {
+    if (requirements.isEmpty()) {
+      return EMPTY;
+    }
+
+    long mask = 0;
+    final List<PermissionRequirement> permissions = new ArrayList<>();
+    final List<Requirement> others = new ArrayList<>();
+    final List<Cooldown> cooldowns = new ArrayList<>();
+    for (Requirement requirement : requirements) {
+      if (requirement instanceof PermissionRequirement permission) {
+        mask |= ExtractedUser.bit(permission.permission());
+        permissions.add(permission);
+      } else if (requirement instanceof Cooldown cooldown) {
+        cooldowns.add(cooldown);
+      } else {
+        others.add(requirement);
+      }
+    }
+
+    return new RequirementChain(
+      mask,
+      permissions.toArray(new PermissionRequirement[0]),
+      others.toArray(new Requirement[0]),
+      cooldowns.toArray(new Cooldown[0])
+    );
+  }
+
+  /**
+   * Attempt all requirements of this chain.
+   *
+   * @param user {@link ExtractedUser} the user to attempt said requirements on.
+   * @param channel {@link String} name of the channel the command was executed in.
+   * @return {@link Requirement} the requirement which denied said user (null if all were met).
+   */
+  Requirement attempt(ExtractedUser user, String channel) {
+    if (!user.canAccessAll(mask)) {
+      for (PermissionRequirement permission : permissions) {
+        if (!user.canAccess(permission.permission()))
+          return permission;
+      }
+    }
+
+    for (Requirement requirement : others) {
+      if (!requirement.attempt(user, channel))
+        return requirement;
+    }
+
+    // with several cooldowns, all are checked before any is used - so one denying does not use up the others
+    if (cooldowns.length > 1) {
+      for (Cooldown cooldown : cooldowns) {
+        if (!cooldown.isAvailable(user, channel))
+          return cooldown;
+      }
+    }
+    for (Cooldown cooldown : cooldowns) {
+      if (!cooldown.attempt(user, channel))
+        return cooldown;
+    }
+    return null;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a bounded cache of command responses, evicting the least recently used response once full.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Responses are kept per command, channel and normalized arguments, for the time to live of said command.</li>
+ *   <li>A response is computed once per key at a time - lookups arriving meanwhile share said computation.</li>
+ *   <li>A response still being computed is never evicted (the cache may exceed its capacity by those meanwhile).</li>
+ *   <li>A failed computation is not cached.</li>
+ * </ul>
+ *
+ * @see ResponseCommand
+ * @see xyz.oliwer.twitch.bot.structure.BotClient#responseCache()
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ResponseCache {
+  /**
+   * {@link Integer} this constant represents the default maximum amount of cached responses.
+   */
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  /**
+   * {@link LinkedHashMap} this property represents the cached responses, in order of access (guarded by itself).
+   */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * {@link Integer} this property represents the maximum amount of cached responses.
+   */
+  private final int capacity;
+
+  /**
+   * Primary constructor.
+   *
+   * @param capacity {@link Integer} the maximum amount of cached responses (across all commands).
+   */
+  public ResponseCache(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be positive");
+    this.capacity = capacity;
+  }
+
+  /**
+   * Get the response of a key, computing it on the calling thread unless cached or already being computed.
+   *
+   * @param key {@link Key} the key of the response.
+   * @param ttlNanos {@link Long} how long a computed response is cached for.
+   * @param computation {@link Supplier} the computation of said response.
+   * @return {@link Lookup} the response, alongside whether it was computed by this call.
+   */
+  public Lookup get(Key key, long ttlNanos, Supplier<String> computation) {
+    if (key == null || computation == null)
+      throw new NullPointerException("key and computation must not be null");
+
+    final long now = System.nanoTime();
+    final Entry entry;
+    synchronized (entries) {
+      final Entry cached = entries.get(key);
+      if (cached != null && (!cached.response.isDone() || now - cached.expiresAt < 0)) {
+        return new Lookup(cached.response, false);
+      }
+
+      // the time to live is counted from the completion of the computation
+      entry = new Entry(new CompletableFuture<>());
+      entries.put(key, entry);
+      evict();
+    }
+
+    try {
+      final String response = computation.get();
+      entry.expiresAt = System.nanoTime() + ttlNanos;
+      entry.response.complete(response);
+    } catch (RuntimeException | Error exception) {
+      synchronized (entries) {
+        entries.remove(key, entry);
+      }
+      entry.response.completeExceptionally(exception);
+      throw exception;
+    }
+    return new Lookup(entry.response, true);
+  }
+
+  /**
+   * Drop all cached responses of a command (i.e once its output changed).
+   *
+   * @param command {@link ResponseCommand} the command to drop the responses of.
+   */
+  public void invalidate(ResponseCommand command) {
+    synchronized (entries) {
+      entries.keySet().removeIf(key -> key.command == command);
+    }
+  }
+
+  /**
+   * Drop all cached responses.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Get the amount of cached responses.
+   *
+   * @return {@link Integer}
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Evict the least recently used responses until within capacity, skipping (pinning) those still being computed.
+   */
+  private void evict() {
+    int excess = entries.size() - capacity;
+    for (Iterator<Entry> iterator = entries.values().iterator(); excess > 0 && iterator.hasNext(); ) {
+      if (iterator.next().response.isDone()) {
+        iterator.remove();
+        excess--;
+      }
+    }
+  }
+
+  /**
+   * This record represents the key of a cached response.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Key(ResponseCommand command, String channel, String arguments) {}
+
+  /**
+   * This record represents the result of a lookup.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Lookup(CompletableFuture<String> response, boolean computed) {}
+
+  /**
+   * This class represents a cached (or being computed) response.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Entry {
+    /**
+     * {@link CompletableFuture} the response, completed once computed.
+     */
+    private final CompletableFuture<String> response;
+
+    /**
+     * {@link Long} the point in time (nanoTime) this response expires at, written before said response completes.
+     */
+    private volatile long expiresAt;
+
+    /**
+     * Primary constructor.
+     */
+    private Entry(CompletableFuture<String> response) {
+      this.response = response;
+    }
+  }
+}
\ No newline at end of file
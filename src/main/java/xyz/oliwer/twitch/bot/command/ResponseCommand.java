@@ -0,0 +1,96 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.metrics.BotMetrics;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+import xyz.oliwer.twitch.bot.util.ChatMessage;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * This abstraction layer represents a command replying with a single response,
+ * which may be cached through {@link Command.MetaBuilder#cache(Duration)}.
+ * <br/>
+ *
+ * Note: A cached response is shared by every user executing the command with the same (case insensitive)
+ * arguments in the same channel - responses depending on the user should not be cached.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public abstract class ResponseCommand extends Command {
+  /**
+   * Produce the response of this command.
+   *
+   * @param user {@link ExtractedUser} whom executed this command.
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param arguments {@link Arguments} arguments executed with the command.
+   * @return {@link String} the response (null to not respond).
+   */
+  public abstract String respond(ExtractedUser user, BotClient client, String channel, Arguments arguments);
+
+  /**
+   * Respond, through the cache if this command opted into it.
+   *
+   * @see Command#perform(ExtractedUser, BotClient, String, Arguments)
+   */
+  @Override
+  public final void perform(ExtractedUser user, BotClient client, String channel, Arguments arguments) {
+    final long ttl = responseTtl();
+    if (ttl == 0) {
+      reply(client, channel, respond(user, client, channel, arguments));
+      return;
+    }
+
+    final BotMetrics metrics = client.metrics();
+    final String alias = getAliases()[0];
+    final ResponseCache.Lookup lookup = client.responseCache().get(
+      new ResponseCache.Key(this, channel, normalize(arguments)),
+      ttl,
+      () -> respond(user, client, channel, arguments)
+    );
+
+    if (lookup.computed()) {
+      metrics.responseMisses().labels(alias).increment();
+    } else {
+      metrics.responseHits().labels(alias).increment();
+    }
+    // a response still being computed elsewhere is sent once done (a failure is reported by said computation)
+    lookup.response().thenAccept(response -> reply(client, channel, response));
+  }
+
+  /**
+   * @see Command#perform(ExtractedUser, BotClient, String, String[])
+   */
+  @Override
+  public final void perform(ExtractedUser user, BotClient client, String channel, String[] arguments) {
+    perform(user, client, channel, Arguments.of(arguments));
+  }
+
+  /**
+   * Send a response (if any).
+   */
+  private static void reply(BotClient client, String channel, String response) {
+    if (response != null)
+      client.forward(channel, ChatMessage.REGULAR, response);
+  }
+
+  /**
+   * Normalize arguments into a single lower case string, separated by single spaces.
+   */
+  private static String normalize(Arguments arguments) {
+    if (arguments.isEmpty()) {
+      return "";
+    }
+
+    final StringBuilder builder = new StringBuilder(arguments.source().length());
+    for (int index = 0; index < arguments.size(); index++) {
+      if (index > 0)
+        builder.append(' ');
+      for (int position = 0; position < arguments.length(index); position++)
+        builder.append(Character.toLowerCase(arguments.charAt(index, position)));
+    }
+    return builder.toString();
+  }
+}
\ No newline at end of file
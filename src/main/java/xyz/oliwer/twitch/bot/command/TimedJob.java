@@ -0,0 +1,132 @@
+package xyz.oliwer.twitch.bot.command;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a single command queued by an asynchronous execution, performed under a timeout.
+ * <br/>
+ *
+ * A job completes exactly once - either by returning or by expiring, whichever comes first.
+ * Expiring interrupts the thread performing it and cancels it at once, even though it may not have returned yet.
+ *
+ * @see ChannelExecution
+ * @see FairExecution
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+abstract class TimedJob {
+  /**
+   * {@link String} this property represents the name of the channel.
+   */
+  final String channel;
+
+  /**
+   * {@link Command} this property represents the command to be performed.
+   */
+  final Command command;
+
+  /**
+   * {@link Runnable} this property represents the task performing said command.
+   */
+  final Runnable task;
+
+  /**
+   * {@link Consumer} this property represents what to invoke on cancellation.
+   */
+  final Consumer<Command.Cancellation> cancellation;
+
+  /**
+   * {@link AtomicInteger} this property represents whether this job was completed (1) - either by returning or expiring.
+   */
+  private final AtomicInteger completed = new AtomicInteger();
+
+  /**
+   * {@link Thread} this property represents the thread running this job (null when not running, guarded by this job).
+   */
+  private Thread thread;
+
+  /**
+   * Primary constructor.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param command {@link Command} the command to be performed.
+   * @param task {@link Runnable} the task performing said command.
+   * @param cancellation {@link Consumer} to be invoked on cancellation.
+   */
+  TimedJob(String channel, Command command, Runnable task, Consumer<Command.Cancellation> cancellation) {
+    this.channel = channel;
+    this.command = command;
+    this.task = task;
+    this.cancellation = cancellation;
+  }
+
+  /**
+   * Run this job on the calling thread, under its timeout.
+   *
+   * @param timer {@link ScheduledExecutorService} the timer enforcing said timeout.
+   * @param defaultTimeout {@link Duration} the timeout if the command has none of its own.
+   */
+  final void run(ScheduledExecutorService timer, Duration defaultTimeout) {
+    final Duration timeout = command.timeout();
+    final long nanos = (timeout == null ? defaultTimeout : timeout).toNanos();
+
+    synchronized (this) {
+      this.thread = Thread.currentThread();
+    }
+    final ScheduledFuture<?> deadline = timer.schedule(this::expire, nanos, TimeUnit.NANOSECONDS);
+    try {
+      task.run();
+    } finally {
+      deadline.cancel(false);
+      synchronized (this) {
+        this.thread = null;
+      }
+      // clear an interrupt delivered by an expiry racing with completion
+      Thread.interrupted();
+      complete();
+      onReturned();
+    }
+  }
+
+  /**
+   * Complete this job, unless it already was.
+   *
+   * @return {@link Boolean} whether this call was the one completing this job.
+   */
+  final boolean complete() {
+    if (completed.getAndSet(1) != 0) {
+      return false;
+    }
+    onCompleted();
+    return true;
+  }
+
+  /**
+   * Invoked once this job completed (by returning or expiring, whichever came first).
+   */
+  void onCompleted() {}
+
+  /**
+   * Invoked once the task of this job returned (after it completed).
+   */
+  void onReturned() {}
+
+  /**
+   * Expire this job, as it ran past its timeout.
+   */
+  private void expire() {
+    if (!complete()) {
+      return;
+    }
+
+    synchronized (this) {
+      if (thread != null)
+        thread.interrupt();
+    }
+    cancellation.accept(Command.Cancellation.TIMED_OUT);
+  }
+}
\ No newline at end of file
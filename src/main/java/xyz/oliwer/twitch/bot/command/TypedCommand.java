@@ -0,0 +1,73 @@
+package xyz.oliwer.twitch.bot.command;
+
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+import xyz.oliwer.twitch.bot.util.ChatMessage;
+
+/**
+ * This abstraction layer represents a command receiving typed arguments, parsed against the schema
+ * declared through {@link Command.MetaBuilder#arguments(ArgumentSchema)}.
+ * <br/>
+ *
+ * Note: Parsed arguments are held by a holder reused per thread - a command performing successfully
+ * does not allocate to read its arguments.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public abstract class TypedCommand extends Command {
+  /**
+   * {@link ThreadLocal} this constant represents the holder of parsed arguments of each thread.
+   */
+  private static final ThreadLocal<ParsedArguments> HOLDERS = ThreadLocal.withInitial(ParsedArguments::new);
+
+  /**
+   * Perform the command for said user alongside parsed arguments.
+   *
+   * @param user {@link ExtractedUser} whom executed this command.
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param arguments {@link ParsedArguments} arguments executed with the command (only valid for this call).
+   */
+  public abstract void perform(ExtractedUser user, BotClient client, String channel, ParsedArguments arguments);
+
+  /**
+   * This method is invoked only when arguments do not match the schema of this command.
+   * Replies with the usage of this command by default.
+   *
+   * @param user {@link ExtractedUser} the user who executed the command.
+   * @param client {@link BotClient} the client from where this command was executed.
+   * @param channel {@link String} name of the channel this command was executed in.
+   * @param error {@link ArgumentSchema.UsageError} what did not match.
+   */
+  public void onUsageError(ExtractedUser user, BotClient client, String channel, ArgumentSchema.UsageError error) {
+    client.forward(channel, ChatMessage.REGULAR, error.message(getAliases()[0]));
+  }
+
+  /**
+   * Parse arguments against the schema of this command, then perform it (or report a usage error).
+   *
+   * @see Command#perform(ExtractedUser, BotClient, String, Arguments)
+   */
+  @Override
+  public final void perform(ExtractedUser user, BotClient client, String channel, Arguments arguments) {
+    final ArgumentSchema schema = argumentSchema();
+    if (schema == null)
+      throw new IllegalStateException("TypedCommand " + getAliases()[0] + " has no argument schema");
+
+    final ParsedArguments parsed = HOLDERS.get();
+    final ArgumentSchema.UsageError error = schema.parse(arguments, parsed);
+    if (error != null) {
+      onUsageError(user, client, channel, error);
+      return;
+    }
+    perform(user, client, channel, parsed);
+  }
+
+  /**
+   * @see Command#perform(ExtractedUser, BotClient, String, String[])
+   */
+  @Override
+  public final void perform(ExtractedUser user, BotClient client, String channel, String[] arguments) {
+    perform(user, client, channel, Arguments.of(arguments));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,784 @@
+package xyz.oliwer.twitch.bot.custom;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents an append-only, segmented store of per-channel command definitions.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Every change is appended (as a checksummed record) to the active segment, which is sealed once full.</li>
+ *   <li>Each sealed segment has a sidecar index of where each channel's records are, so opening the store
+ *       only reads said indexes (and the active segment) - never the records of every channel.</li>
+ *   <li>Compaction folds all sealed segments into one in the background, keeping only live definitions.</li>
+ * </ul>
+ *
+ * Note: A compacted segment starts with a marker superseding every older segment, so a compaction
+ * interrupted at any point leaves either the former or the compacted state behind.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class CommandStore implements AutoCloseable {
+  /**
+   * {@link Long} this constant represents the default size of a segment before it is sealed.
+   */
+  public static final long DEFAULT_SEGMENT_BYTES = 8 << 20;
+
+  /**
+   * {@link Integer} this constant represents the default amount of sealed segments to compact at.
+   */
+  public static final int DEFAULT_COMPACT_AFTER = 4;
+
+  /**
+   * {@link System.Logger} this constant represents the logger of failed compactions.
+   */
+  private static final System.Logger LOGGER = System.getLogger(CommandStore.class.getName());
+
+  /**
+   * {@link Pattern} this constant represents the name of a segment.
+   */
+  private static final Pattern SEGMENT = Pattern.compile("segment-(\\d{8})\\.log");
+
+  /**
+   * {@link Integer} this constant represents the first bytes of an index file.
+   */
+  private static final int INDEX_MAGIC = 0x43494458;
+
+  /**
+   * {@link Integer} this constant represents the size of the header of a record (length & checksum).
+   */
+  private static final int HEADER = 8;
+
+  /**
+   * {@link Byte} the record types.
+   */
+  private static final byte PUT = 1, DELETE = 2, COMPACTED = 3;
+
+  /**
+   * {@link Path} this property represents the directory of all segments.
+   */
+  private final Path directory;
+
+  /**
+   * {@link Long} this property represents the size of a segment before it is sealed.
+   */
+  private final long segmentBytes;
+
+  /**
+   * {@link Integer} this property represents the amount of sealed segments to compact at.
+   */
+  private final int compactAfter;
+
+  /**
+   * {@link ReadWriteLock} the lock guarding all segments & locations (reads share it, changes hold it exclusively).
+   */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * {@link Object} the lock serializing compactions.
+   */
+  private final Object compaction = new Object();
+
+  /**
+   * {@link NavigableMap} this property represents all open segments, by identifier.
+   */
+  private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+
+  /**
+   * {@link Map} this property represents the location of every record of each channel, in order of appending.
+   */
+  private final Map<String, Locations> locations = new HashMap<>();
+
+  /**
+   * {@link ScheduledExecutorService} the scheduler of background compactions.
+   */
+  private final ScheduledExecutorService compactor;
+
+  /**
+   * {@link Segment} the segment being appended to.
+   */
+  private Segment active;
+
+  /**
+   * Open a store with the default segment size & compaction (checked every ten minutes).
+   *
+   * @see CommandStore#CommandStore(Path, long, int, Duration)
+   */
+  public CommandStore(Path directory) {
+    this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACT_AFTER, Duration.ofMinutes(10));
+  }
+
+  /**
+   * Primary constructor - opening (or creating) the store.
+   *
+   * @param directory {@link Path} the directory of all segments.
+   * @param segmentBytes {@link Long} the size of a segment before it is sealed.
+   * @param compactAfter {@link Integer} the amount of sealed segments to compact at.
+   * @param compactionInterval {@link Duration} how often to check whether to compact.
+   */
+  public CommandStore(Path directory, long segmentBytes, int compactAfter, Duration compactionInterval) {
+    if (directory == null || compactionInterval == null)
+      throw new NullPointerException("directory and compactionInterval must not be null");
+    if (segmentBytes <= HEADER || segmentBytes > Integer.MAX_VALUE || compactAfter <= 0)
+      throw new IllegalArgumentException("segmentBytes must fit an int and compactAfter must be positive");
+
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.compactAfter = compactAfter;
+    try {
+      open();
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to open command store at " + directory, exception);
+    }
+
+    this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "command-store-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long interval = compactionInterval.toMillis();
+    this.compactor.scheduleWithFixedDelay(() -> {
+      try {
+        compact(this.compactAfter);
+      } catch (Exception exception) {
+        LOGGER.log(System.Logger.Level.WARNING, "Failed to compact the command store at " + directory, exception);
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Define (or redefine) a command of a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param alias {@link String} alias of the command.
+   * @param response {@link String} the response of the command.
+   */
+  public void put(String channel, String alias, String response) {
+    if (channel == null || alias == null || response == null)
+      throw new NullPointerException("channel, alias and response must not be null");
+    append(new Record(PUT, channel, alias, response));
+  }
+
+  /**
+   * Delete a command of a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param alias {@link String} alias of the command.
+   */
+  public void delete(String channel, String alias) {
+    if (channel == null || alias == null)
+      throw new NullPointerException("channel and alias must not be null");
+    append(new Record(DELETE, channel, alias, ""));
+  }
+
+  /**
+   * Load all commands of a channel.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Map} the response of each alias, in order of definition.
+   */
+  public Map<String, String> load(String channel) {
+    final Map<String, String> definitions = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      final Locations found = locations.get(channel);
+      if (found == null) {
+        return definitions;
+      }
+
+      for (long location : found.snapshot()) {
+        final Record record = segments.get(segment(location)).read(offset(location));
+        if (record != null)
+          apply(definitions, record);
+      }
+      return definitions;
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to load commands of " + channel, exception);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get all channels with stored records.
+   *
+   * @return {@link Set} copy of said channels.
+   */
+  public Set<String> channels() {
+    lock.readLock().lock();
+    try {
+      return new HashSet<>(locations.keySet());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Compact all sealed segments right away.
+   *
+   * @return {@link Boolean} whether there was anything to compact.
+   */
+  public boolean compact() {
+    try {
+      return compact(1);
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to compact command store", exception);
+    }
+  }
+
+  /**
+   * Close this store.
+   */
+  @Override
+  public void close() {
+    compactor.shutdownNow();
+    synchronized (compaction) {
+      lock.writeLock().lock();
+      try {
+        for (Segment segment : segments.values())
+          segment.close();
+        segments.clear();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Open all segments - reading the index of sealed segments and scanning the active one.
+   */
+  private void open() throws IOException {
+    Files.createDirectories(directory);
+    final TreeSet<Integer> ids = new TreeSet<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(".compact")) {
+          Files.delete(file);
+          continue;
+        }
+
+        final Matcher matcher = SEGMENT.matcher(name);
+        if (matcher.matches())
+          ids.add(Integer.parseInt(matcher.group(1)));
+      }
+    }
+
+    // the newest compacted segment supersedes all older segments
+    for (int id : ids.descendingSet()) {
+      if (!isCompacted(log(id)))
+        continue;
+      for (int older : new ArrayList<>(ids.headSet(id))) {
+        Files.deleteIfExists(log(older));
+        Files.deleteIfExists(index(older));
+        ids.remove(older);
+      }
+      break;
+    }
+
+    if (ids.isEmpty()) {
+      this.active = Segment.open(log(1), 1, true);
+      this.active.index = new LinkedHashMap<>();
+      segments.put(1, active);
+      return;
+    }
+
+    for (int id : ids) {
+      final boolean last = id == ids.last();
+      final Segment segment = Segment.open(log(id), id, last);
+      segments.put(id, segment);
+
+      if (!last && Files.exists(index(id))) {
+        readIndex(id);
+      } else {
+        scan(segment, last);
+        if (!last)
+          writeIndex(segment.index, index(id));
+      }
+    }
+
+    this.active = segments.lastEntry().getValue();
+  }
+
+  /**
+   * Scan all records of a segment, adding their locations (and truncating a torn tail if writable).
+   */
+  private void scan(Segment segment, boolean writable) throws IOException {
+    segment.index = new LinkedHashMap<>();
+    int offset = 0;
+    while (offset < segment.size) {
+      final Record record = segment.read(offset);
+      if (record == null) {
+        if (writable)
+          segment.truncate(offset);
+        break;
+      }
+
+      if (record.type != COMPACTED) {
+        segment.index.computeIfAbsent(record.channel, key -> new Locations()).add(offset);
+        locations.computeIfAbsent(record.channel, key -> new Locations()).add(pack(segment.id, offset));
+      }
+      offset += segment.recordSize(offset);
+    }
+  }
+
+  /**
+   * Append a record to the active segment, sealing it first if full.
+   */
+  private void append(Record record) {
+    final byte[] encoded = record.encode();
+    lock.writeLock().lock();
+    try {
+      if (active.size > 0 && active.size + encoded.length > segmentBytes)
+        roll();
+
+      final int offset = (int) active.size;
+      active.write(encoded);
+      active.index.computeIfAbsent(record.channel, key -> new Locations()).add(offset);
+      locations.computeIfAbsent(record.channel, key -> new Locations()).add(pack(active.id, offset));
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to append to command store", exception);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Seal the active segment (writing its index) and start a new one.
+   */
+  private void roll() throws IOException {
+    active.force();
+    writeIndex(active.index, index(active.id));
+    active.index = null;
+
+    final int id = active.id + 1;
+    this.active = Segment.open(log(id), id, true);
+    this.active.index = new LinkedHashMap<>();
+    segments.put(id, active);
+  }
+
+  /**
+   * Compact all sealed segments into one, if there are at least passed amount of them.
+   */
+  private boolean compact(int minimumSealed) throws IOException {
+    synchronized (compaction) {
+      // snapshot the sealed segments & where each channel's records within them are
+      final List<Segment> sealed;
+      final Map<String, long[]> sealedLocations = new HashMap<>();
+      final int last;
+      lock.readLock().lock();
+      try {
+        if (segments.isEmpty()) {
+          return false;
+        }
+        sealed = new ArrayList<>(segments.headMap(active.id, false).values());
+        if (sealed.size() < minimumSealed) {
+          return false;
+        }
+
+        last = sealed.get(sealed.size() - 1).id;
+        for (Map.Entry<String, Locations> entry : locations.entrySet()) {
+          final long[] found = entry.getValue().below(last);
+          if (found.length > 0)
+            sealedLocations.put(entry.getKey(), found);
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+
+      // fold live definitions into a new segment (sealed segments never change, no lock needed)
+      final Path compactedLog = directory.resolve(log(last).getFileName() + ".compact");
+      final Path compactedIndex = directory.resolve(index(last).getFileName() + ".compact");
+      final Segment output = Segment.open(compactedLog, last, true);
+      output.index = new LinkedHashMap<>();
+      final Map<Integer, Segment> byId = new HashMap<>();
+      for (Segment segment : sealed)
+        byId.put(segment.id, segment);
+
+      try {
+        output.write(new Record(COMPACTED, "", "", "").encode());
+        for (Map.Entry<String, long[]> entry : sealedLocations.entrySet()) {
+          final Map<String, String> definitions = new LinkedHashMap<>();
+          for (long location : entry.getValue()) {
+            final Record record = byId.get(segment(location)).read(offset(location));
+            if (record != null)
+              apply(definitions, record);
+          }
+
+          for (Map.Entry<String, String> definition : definitions.entrySet()) {
+            final int offset = (int) output.size;
+            output.write(new Record(PUT, entry.getKey(), definition.getKey(), definition.getValue()).encode());
+            output.index.computeIfAbsent(entry.getKey(), key -> new Locations()).add(offset);
+          }
+        }
+        output.force();
+        writeIndex(output.index, compactedIndex);
+      } finally {
+        output.close();
+      }
+
+      // swap the compacted segment in
+      lock.writeLock().lock();
+      try {
+        for (Segment segment : sealed) {
+          segment.close();
+          segments.remove(segment.id);
+        }
+
+        Files.deleteIfExists(index(last));
+        Files.move(compactedLog, log(last), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(compactedIndex, index(last), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Segment segment : sealed) {
+          if (segment.id == last)
+            continue;
+          Files.deleteIfExists(log(segment.id));
+          Files.deleteIfExists(index(segment.id));
+        }
+        segments.put(last, Segment.open(log(last), last, false));
+
+        final Iterator<Map.Entry<String, Locations>> iterator = locations.entrySet().iterator();
+        while (iterator.hasNext()) {
+          final Map.Entry<String, Locations> entry = iterator.next();
+          final Locations compacted = output.index.get(entry.getKey());
+          final Locations replaced = new Locations();
+          if (compacted != null) {
+            for (long offset : compacted.snapshot())
+              replaced.add(pack(last, (int) offset));
+          }
+          for (long location : entry.getValue().snapshot()) {
+            if (segment(location) > last)
+              replaced.add(location);
+          }
+
+          if (replaced.size == 0)
+            iterator.remove();
+          else
+            entry.setValue(replaced);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Read the index of a sealed segment, adding its locations.
+   */
+  private void readIndex(int id) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(index(id))))) {
+      if (input.readInt() != INDEX_MAGIC)
+        throw new IOException("Corrupt index of segment " + id);
+
+      final int channels = input.readInt();
+      for (int channel = 0; channel < channels; channel++) {
+        final Locations found = locations.computeIfAbsent(input.readUTF(), key -> new Locations());
+        final int count = input.readInt();
+        for (int record = 0; record < count; record++)
+          found.add(pack(id, input.readInt()));
+      }
+    }
+  }
+
+  /**
+   * Write the index of a segment.
+   */
+  private static void writeIndex(Map<String, Locations> index, Path path) throws IOException {
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      output.writeInt(INDEX_MAGIC);
+      output.writeInt(index.size());
+      for (Map.Entry<String, Locations> entry : index.entrySet()) {
+        output.writeUTF(entry.getKey());
+        final long[] offsets = entry.getValue().snapshot();
+        output.writeInt(offsets.length);
+        for (long offset : offsets)
+          output.writeInt((int) offset);
+      }
+    }
+  }
+
+  /**
+   * Get whether a segment starts with the compaction marker.
+   */
+  private static boolean isCompacted(Path log) throws IOException {
+    try (Segment segment = Segment.open(log, 0, false)) {
+      final Record first = segment.size > 0 ? segment.read(0) : null;
+      return first != null && first.type == COMPACTED;
+    }
+  }
+
+  /**
+   * Apply a record to a set of definitions.
+   */
+  private static void apply(Map<String, String> definitions, Record record) {
+    if (record.type == PUT)
+      definitions.put(record.alias, record.response);
+    else if (record.type == DELETE)
+      definitions.remove(record.alias);
+  }
+
+  /**
+   * Get the path of the log of a segment.
+   */
+  private Path log(int id) {
+    return directory.resolve(String.format("segment-%08d.log", id));
+  }
+
+  /**
+   * Get the path of the index of a segment.
+   */
+  private Path index(int id) {
+    return directory.resolve(String.format("segment-%08d.idx", id));
+  }
+
+  /**
+   * Pack a location (segment & offset).
+   */
+  private static long pack(int segment, int offset) {
+    return (long) segment << 32 | (offset & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Get the segment of a location.
+   */
+  private static int segment(long location) {
+    return (int) (location >>> 32);
+  }
+
+  /**
+   * Get the offset of a location.
+   */
+  private static int offset(long location) {
+    return (int) location;
+  }
+
+  /**
+   * This record represents a single (decoded) change.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Record(byte type, String channel, String alias, String response) {
+    /**
+     * Encode this record, header included.
+     */
+    private byte[] encode() {
+      final ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+      try (DataOutputStream output = new DataOutputStream(body)) {
+        output.writeByte(type);
+        output.writeUTF(channel);
+        output.writeUTF(alias);
+        output.writeUTF(response);
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+
+      final byte[] encoded = body.toByteArray();
+      final CRC32 checksum = new CRC32();
+      checksum.update(encoded);
+      return ByteBuffer.allocate(HEADER + encoded.length)
+        .putInt(encoded.length)
+        .putInt((int) checksum.getValue())
+        .put(encoded)
+        .array();
+    }
+
+    /**
+     * Decode the body of a record.
+     */
+    private static Record decode(byte[] body) throws IOException {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(body))) {
+        return new Record(input.readByte(), input.readUTF(), input.readUTF(), input.readUTF());
+      }
+    }
+  }
+
+  /**
+   * This class represents a growable list of locations (or offsets).
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Locations {
+    /**
+     * {@link Long} array of the locations.
+     */
+    private long[] values = new long[4];
+
+    /**
+     * {@link Integer} the amount of locations.
+     */
+    private int size;
+
+    /**
+     * Add a location.
+     */
+    private void add(long value) {
+      if (size == values.length)
+        values = Arrays.copyOf(values, size * 2);
+      values[size++] = value;
+    }
+
+    /**
+     * Get a copy of all locations.
+     */
+    private long[] snapshot() {
+      return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Get a copy of all locations within segments up to (and including) passed segment.
+     */
+    private long[] below(int last) {
+      int count = 0;
+      while (count < size && segment(values[count]) <= last)
+        count++;
+      return Arrays.copyOf(values, count);
+    }
+  }
+
+  /**
+   * This class represents a single segment file.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Segment implements Closeable {
+    /**
+     * {@link Integer} the identifier of this segment.
+     */
+    private final int id;
+
+    /**
+     * {@link FileChannel} the channel of the log of this segment.
+     */
+    private final FileChannel channel;
+
+    /**
+     * {@link Long} the current size of this segment.
+     */
+    private long size;
+
+    /**
+     * {@link Map} the offsets of each channel's records (kept only while this segment is written to).
+     */
+    private Map<String, Locations> index;
+
+    /**
+     * Primary constructor.
+     */
+    private Segment(int id, FileChannel channel) throws IOException {
+      this.id = id;
+      this.channel = channel;
+      this.size = channel.size();
+    }
+
+    /**
+     * Open a segment.
+     */
+    private static Segment open(Path path, int id, boolean writable) throws IOException {
+      final FileChannel channel = writable
+        ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        : FileChannel.open(path, StandardOpenOption.READ);
+      return new Segment(id, channel);
+    }
+
+    /**
+     * Append an encoded record.
+     */
+    private void write(byte[] encoded) throws IOException {
+      final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+      long position = size;
+      while (buffer.hasRemaining())
+        position += channel.write(buffer, position);
+      channel.force(false);
+      size = position;
+    }
+
+    /**
+     * Read the record at an offset.
+     *
+     * @return {@link Record} null if the record is incomplete or corrupt.
+     */
+    private Record read(int offset) throws IOException {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER);
+      if (!readFully(header, offset)) {
+        return null;
+      }
+
+      final int length = header.getInt(0);
+      if (length <= 0 || offset + HEADER + (long) length > size) {
+        return null;
+      }
+
+      final ByteBuffer body = ByteBuffer.allocate(length);
+      if (!readFully(body, offset + HEADER)) {
+        return null;
+      }
+
+      final CRC32 checksum = new CRC32();
+      checksum.update(body.array());
+      if ((int) checksum.getValue() != header.getInt(4)) {
+        return null;
+      }
+      return Record.decode(body.array());
+    }
+
+    /**
+     * Get the size of the (valid) record at an offset, header included.
+     */
+    private int recordSize(int offset) throws IOException {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER);
+      readFully(header, offset);
+      return HEADER + header.getInt(0);
+    }
+
+    /**
+     * Drop everything from an offset onwards.
+     */
+    private void truncate(int offset) throws IOException {
+      channel.truncate(offset);
+      size = offset;
+    }
+
+    /**
+     * Flush all writes to disk.
+     */
+    private void force() throws IOException {
+      channel.force(true);
+    }
+
+    /**
+     * Fill a buffer from a position.
+     */
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+        final int read = channel.read(buffer, position);
+        if (read < 0)
+          return false;
+        position += read;
+      }
+      return true;
+    }
+
+    /**
+     * @see Closeable#close()
+     */
+    @Override
+    public void close() {
+      try {
+        channel.close();
+      } catch (IOException ignored) {}
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package xyz.oliwer.twitch.bot.custom;
+
+import xyz.oliwer.twitch.bot.command.Arguments;
+import xyz.oliwer.twitch.bot.command.Command;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+import xyz.oliwer.twitch.bot.util.ChatMessage;
+
+/**
+ * This class represents a text command defined by (and only available in) a single channel.
+ * <br/>
+ *
+ * The response may hold the following placeholders:
+ * <ul>
+ *   <li>{user}    = Name of the user who executed the command</li>
+ *   <li>{channel} = Name of the channel</li>
+ *   <li>{args}    = All arguments executed with the command</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class CustomCommand extends Command {
+  /**
+   * {@link String} this property represents the channel owning this command.
+   */
+  private final String channel;
+
+  /**
+   * {@link String} array holding the single alias of this command.
+   */
+  private final String[] aliases;
+
+  /**
+   * {@link String} this property represents the response of this command.
+   */
+  private final String response;
+
+  /**
+   * Primary constructor.
+   *
+   * @param channel {@link String} name of the channel owning this command.
+   * @param alias {@link String} alias of this command.
+   * @param response {@link String} the response of this command.
+   */
+  public CustomCommand(String channel, String alias, String response) {
+    if (channel == null || alias == null || response == null)
+      throw new NullPointerException("channel, alias and response must not be null");
+
+    this.channel = channel;
+    this.aliases = new String[] { alias };
+    this.response = response;
+  }
+
+  /**
+   * @see Command#perform(ExtractedUser, BotClient, String, Arguments)
+   */
+  @Override
+  public void perform(ExtractedUser user, BotClient client, String channel, Arguments arguments) {
+    client.forward(channel, ChatMessage.REGULAR, render(user, channel, arguments.isEmpty() ? "" : arguments.remainder(0)));
+  }
+
+  /**
+   * @see Command#perform(ExtractedUser, BotClient, String, String[])
+   */
+  @Override
+  public void perform(ExtractedUser user, BotClient client, String channel, String[] arguments) {
+    client.forward(channel, ChatMessage.REGULAR, render(user, channel, String.join(" ", arguments)));
+  }
+
+  /**
+   * @see Command#getAliases()
+   */
+  @Override
+  public String[] getAliases() {
+    return aliases;
+  }
+
+  /**
+   * @see Command#representative()
+   */
+  @Override
+  public String representative() {
+    return channel;
+  }
+
+  /**
+   * Get the response of this command (placeholders not replaced).
+   *
+   * @return {@link String}
+   */
+  public String response() {
+    return this.response;
+  }
+
+  /**
+   * Replace the placeholders of the response.
+   */
+  private String render(ExtractedUser user, String channel, String arguments) {
+    if (response.indexOf('{') < 0) {
+      return response;
+    }
+
+    return response
+      .replace("{user}", user.getName())
+      .replace("{channel}", channel)
+      .replace("{args}", arguments);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package xyz.oliwer.twitch.bot.custom;
+
+import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * This class represents the custom commands of all channels - kept in a {@link CommandStore} and registered to a
+ * {@link CommandController} only while their channel is joined.
+ *
+ * @see BotClient#addChannelListener(BotClient.ChannelListener)
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class CustomCommands implements BotClient.ChannelListener {
+  /**
+   * {@link CommandStore} this property represents the store of all definitions.
+   */
+  private final CommandStore store;
+
+  /**
+   * {@link CommandController} this property represents the controller loaded commands are registered to.
+   */
+  private final CommandController controller;
+
+  /**
+   * {@link Map} this property represents the commands of each joined channel.
+   */
+  private final Map<String, Loaded> loaded = new ConcurrentHashMap<>();
+
+  /**
+   * Primary constructor.
+   *
+   * @param store {@link CommandStore} the store of all definitions.
+   * @param controller {@link CommandController} the controller to register loaded commands to.
+   */
+  public CustomCommands(CommandStore store, CommandController controller) {
+    if (store == null || controller == null)
+      throw new NullPointerException("store and controller must not be null");
+    this.store = store;
+    this.controller = controller;
+  }
+
+  /**
+   * Load the commands of a joined channel, registering them to said channel only.
+   *
+   * Note: Definitions are read from the store whilst holding only the channel itself (never the map of all channels),
+   * and a change made to said channel meanwhile is applied once they are registered.
+   *
+   * @see BotClient.ChannelListener#onJoin(String)
+   */
+  @Override
+  public void onJoin(String channel) {
+    final String key = normalize(channel);
+    final Loaded state = new Loaded();
+    if (loaded.putIfAbsent(key, state) != null) {
+      return;
+    }
+
+    synchronized (state) {
+      if (state.left) {
+        return;
+      }
+
+      store.load(key).forEach((alias, response) -> state.commands.put(alias, new CustomCommand(key, alias, response)));
+      controller.setChannelCommands(key, state.commands.values());
+    }
+  }
+
+  /**
+   * Unload the commands of a left channel.
+   *
+   * @see BotClient.ChannelListener#onLeave(String)
+   */
+  @Override
+  public void onLeave(String channel) {
+    final String key = normalize(channel);
+    final Loaded state = loaded.remove(key);
+    if (state == null) {
+      return;
+    }
+
+    synchronized (state) {
+      state.left = true;
+      controller.setChannelCommands(key, Collections.emptySet());
+    }
+  }
+
+  /**
+   * Define (or redefine) a command of a channel, registering it right away if said channel is loaded.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param alias {@link String} alias of the command (a single word).
+   * @param response {@link String} the response of the command.
+   */
+  public void define(String channel, String alias, String response) {
+    if (channel == null || alias == null || response == null)
+      throw new NullPointerException("channel, alias and response must not be null");
+    if (alias.isEmpty() || alias.indexOf(' ') >= 0)
+      throw new IllegalArgumentException("alias must be a single word");
+
+    final String key = normalize(channel);
+    final String normalized = normalize(alias);
+    store.put(key, normalized, response);
+    update(key, commands -> commands.put(normalized, new CustomCommand(key, normalized, response)));
+  }
+
+  /**
+   * Remove a command of a channel, unregistering it right away if said channel is loaded.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param alias {@link String} alias of the command.
+   */
+  public void remove(String channel, String alias) {
+    if (channel == null || alias == null)
+      throw new NullPointerException("channel and alias must not be null");
+
+    final String key = normalize(channel);
+    final String normalized = normalize(alias);
+    store.delete(key, normalized);
+    update(key, commands -> commands.remove(normalized));
+  }
+
+  /**
+   * Get whether the commands of a channel are loaded.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean}
+   */
+  public boolean isLoaded(String channel) {
+    return channel != null && loaded.containsKey(normalize(channel));
+  }
+
+  /**
+   * Change the commands of a channel, if loaded, registering them again.
+   */
+  private void update(String key, Consumer<Map<String, CustomCommand>> change) {
+    final Loaded state = loaded.get(key);
+    if (state == null) {
+      return;
+    }
+
+    synchronized (state) {
+      if (state.left) {
+        return;
+      }
+
+      change.accept(state.commands);
+      controller.setChannelCommands(key, state.commands.values());
+    }
+  }
+
+  /**
+   * Normalize a channel name or alias.
+   */
+  private static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * This class represents the commands of a single loaded channel, by alias.
+   *
+   * Note: All state is guarded by the instance itself.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Loaded {
+    /**
+     * {@link Map} the commands of said channel, by alias.
+     */
+    private final Map<String, CustomCommand> commands = new HashMap<>();
+
+    /**
+     * {@link Boolean} whether said channel was left (any change coming after is dropped).
+     */
+    private boolean left;
+  }
+}
\ No newline at end of file
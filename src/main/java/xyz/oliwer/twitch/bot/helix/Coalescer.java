@@ -0,0 +1,358 @@
+package xyz.oliwer.twitch.bot.helix;
+
+import xyz.oliwer.twitch.bot.metrics.Counter;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class represents a coalescing lookup - gathering keys requested within a short window
+ * and fetching them together, caching what was fetched.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Keys are fetched in batches of at most {@link Policy#maxBatch()}, sent early once a batch is full.</li>
+ *   <li>A key which is already being fetched shares said fetch rather than being requested again.</li>
+ *   <li>Results (including absent ones) are cached for {@link Policy#ttl()}, and fetched again in the background
+ *       once within {@link Policy#refreshAhead()} of expiring - serving the cached result meanwhile.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Coalescer<Key, Value> {
+  /**
+   * {@link Fetcher} this property represents the fetcher of batches.
+   */
+  private final Fetcher<Key, Value> fetcher;
+
+  /**
+   * {@link Policy} this property represents how keys are batched and cached.
+   */
+  private final Policy policy;
+
+  /**
+   * {@link ScheduledExecutorService} the scheduler of windows closing.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * {@link Executor} the executor batches are fetched on.
+   */
+  private final Executor executor;
+
+  /**
+   * {@link Map} this property represents all cached results.
+   */
+  private final Map<Key, Entry<Value>> cache = new ConcurrentHashMap<>();
+
+  /**
+   * {@link Map} this property represents the futures of all keys currently being fetched.
+   */
+  private final Map<Key, CompletableFuture<Optional<Value>>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * {@link List} this property represents the keys waiting for the current window to close (guarded by itself).
+   */
+  private final List<Key> pending = new ArrayList<>();
+
+  /**
+   * {@link Counter} this property represents the amount of lookups.
+   */
+  private final Counter lookups = new Counter();
+
+  /**
+   * {@link Counter} this property represents the amount of lookups served from the cache.
+   */
+  private final Counter hits = new Counter();
+
+  /**
+   * {@link Counter} this property represents the amount of batches fetched.
+   */
+  private final Counter requests = new Counter();
+
+  /**
+   * {@link Long} the generation of the current window, telling a stale window timer apart (guarded by pending).
+   */
+  private long generation;
+
+  /**
+   * Primary constructor.
+   *
+   * @param fetcher {@link Fetcher} the fetcher of batches.
+   * @param policy {@link Policy} how keys are batched and cached.
+   * @param scheduler {@link ScheduledExecutorService} the scheduler of windows closing.
+   * @param executor {@link Executor} the executor batches are fetched on.
+   */
+  public Coalescer(Fetcher<Key, Value> fetcher, Policy policy, ScheduledExecutorService scheduler, Executor executor) {
+    if (fetcher == null || policy == null || scheduler == null || executor == null)
+      throw new NullPointerException("fetcher, policy, scheduler and executor must not be null");
+
+    this.fetcher = fetcher;
+    this.policy = policy;
+    this.scheduler = scheduler;
+    this.executor = executor;
+  }
+
+  /**
+   * Look up a key.
+   *
+   * @param key {@link Key} the key to look up.
+   * @return {@link CompletableFuture} completed with the value of said key (empty if there is none),
+   *         or exceptionally if it could not be fetched.
+   */
+  public CompletableFuture<Optional<Value>> get(Key key) {
+    if (key == null)
+      throw new NullPointerException("key must not be null");
+
+    lookups.increment();
+    final long now = System.nanoTime();
+    final Entry<Value> entry = cache.get(key);
+    if (entry != null && now - entry.expiresAt < 0) {
+      hits.increment();
+      if (now - entry.refreshAt >= 0 && entry.refreshing.compareAndSet(false, true))
+        request(key);
+      return entry.result;
+    }
+    return request(key);
+  }
+
+  /**
+   * Drop the cached result of a key, so that the next lookup fetches it again.
+   *
+   * @param key {@link Key} the key to drop.
+   */
+  public void invalidate(Key key) {
+    if (key != null)
+      cache.remove(key);
+  }
+
+  /**
+   * Get the amount of lookups.
+   *
+   * @return {@link Long}
+   */
+  public long lookups() {
+    return lookups.get();
+  }
+
+  /**
+   * Get the amount of lookups served from the cache.
+   *
+   * @return {@link Long}
+   */
+  public long hits() {
+    return hits.get();
+  }
+
+  /**
+   * Get the amount of batches fetched.
+   *
+   * @return {@link Long}
+   */
+  public long requests() {
+    return requests.get();
+  }
+
+  /**
+   * Get the amount of cached results.
+   *
+   * @return {@link Integer}
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Drop all cached results which expired.
+   */
+  public void sweep() {
+    final long now = System.nanoTime();
+    cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+  }
+
+  /**
+   * Join the fetch of a key, queueing it into the current window unless already being fetched.
+   */
+  private CompletableFuture<Optional<Value>> request(Key key) {
+    final CompletableFuture<Optional<Value>> existing = inFlight.get(key);
+    if (existing != null) {
+      return existing;
+    }
+
+    final CompletableFuture<Optional<Value>> future = new CompletableFuture<>();
+    final CompletableFuture<Optional<Value>> raced = inFlight.putIfAbsent(key, future);
+    if (raced != null) {
+      return raced;
+    }
+
+    List<Key> full = null;
+    synchronized (pending) {
+      pending.add(key);
+      if (pending.size() >= policy.maxBatch) {
+        full = drain();
+      } else if (pending.size() == 1) {
+        final long window = generation;
+        scheduler.schedule(() -> close(window), policy.window.toNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+
+    if (full != null)
+      submit(full);
+    return future;
+  }
+
+  /**
+   * Close a window, fetching its keys - unless said window was already closed by filling up.
+   */
+  private void close(long window) {
+    final List<Key> keys;
+    synchronized (pending) {
+      if (window != generation || pending.isEmpty())
+        return;
+      keys = drain();
+    }
+    submit(keys);
+  }
+
+  /**
+   * Take all keys of the current window, starting the next one (must hold pending).
+   */
+  private List<Key> drain() {
+    final List<Key> keys = new ArrayList<>(pending);
+    pending.clear();
+    generation++;
+    return keys;
+  }
+
+  /**
+   * Fetch keys on the executor, in batches of at most the maximum size.
+   */
+  private void submit(List<Key> keys) {
+    for (int from = 0; from < keys.size(); from += policy.maxBatch) {
+      final List<Key> batch = keys.subList(from, Math.min(keys.size(), from + policy.maxBatch));
+      try {
+        executor.execute(() -> fetch(batch));
+      } catch (RejectedExecutionException exception) {
+        fail(batch, exception);
+      }
+    }
+  }
+
+  /**
+   * Fetch a batch, caching and completing each of its keys.
+   */
+  private void fetch(List<Key> batch) {
+    final Map<Key, Value> values;
+    try {
+      requests.increment();
+      values = fetcher.fetch(batch);
+    } catch (Exception exception) {
+      fail(batch, exception);
+      return;
+    }
+
+    final long now = System.nanoTime();
+    final long ttl = policy.ttl.toNanos();
+    for (Key key : batch) {
+      final Value value = values == null ? null : values.get(key);
+      final Entry<Value> entry = new Entry<>(
+        CompletableFuture.completedFuture(Optional.ofNullable(value)),
+        now + ttl,
+        now + ttl - policy.refreshAhead.toNanos()
+      );
+      cache.put(key, entry);
+
+      final CompletableFuture<Optional<Value>> future = inFlight.remove(key);
+      if (future != null)
+        future.complete(entry.result.join());
+    }
+
+    if (cache.size() > policy.capacity)
+      evict();
+  }
+
+  /**
+   * Fail each key of a batch, allowing cached results to be refreshed again.
+   */
+  private void fail(List<Key> batch, Exception cause) {
+    for (Key key : batch) {
+      final Entry<Value> entry = cache.get(key);
+      if (entry != null)
+        entry.refreshing.set(false);
+
+      final CompletableFuture<Optional<Value>> future = inFlight.remove(key);
+      if (future != null)
+        future.completeExceptionally(cause);
+    }
+  }
+
+  /**
+   * Drop expired results, followed by arbitrary ones until the cache fits its capacity again.
+   */
+  private void evict() {
+    sweep();
+    final Iterator<Key> iterator = cache.keySet().iterator();
+    while (cache.size() > policy.capacity && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * This functional interface represents a single method to fetch a batch of keys.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  @FunctionalInterface
+  public interface Fetcher<Key, Value> {
+    /**
+     * Fetch a batch of keys.
+     *
+     * @param keys {@link List} the keys to fetch (never more than the maximum batch size).
+     * @return {@link Map} the value of each key found - keys left out are cached as absent.
+     * @throws Exception if said batch could not be fetched.
+     */
+    Map<Key, Value> fetch(List<Key> keys) throws Exception;
+  }
+
+  /**
+   * This record represents how keys are batched and cached.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Policy(int maxBatch, Duration window, Duration ttl, Duration refreshAhead, int capacity) {
+    /**
+     * Primary constructor.
+     *
+     * @param maxBatch {@link Integer} the maximum amount of keys per batch.
+     * @param window {@link Duration} how long keys are gathered before being fetched.
+     * @param ttl {@link Duration} how long results are cached.
+     * @param refreshAhead {@link Duration} how long before expiring a requested result is fetched again.
+     * @param capacity {@link Integer} the maximum amount of cached results.
+     */
+    public Policy {
+      if (window == null || ttl == null || refreshAhead == null)
+        throw new NullPointerException("window, ttl and refreshAhead must not be null");
+      if (maxBatch <= 0 || capacity <= 0)
+        throw new IllegalArgumentException("maxBatch and capacity must be positive");
+      if (window.isNegative() || ttl.isNegative() || ttl.isZero() || refreshAhead.isNegative() || refreshAhead.compareTo(ttl) > 0)
+        throw new IllegalArgumentException("ttl must be positive and refreshAhead must not exceed it");
+    }
+  }
+
+  /**
+   * This record represents a cached result.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Entry<Value>(CompletableFuture<Optional<Value>> result, long expiresAt, long refreshAt, AtomicBoolean refreshing) {
+    /**
+     * Primary constructor.
+     */
+    private Entry(CompletableFuture<Optional<Value>> result, long expiresAt, long refreshAt) {
+      this(result, expiresAt, refreshAt, new AtomicBoolean());
+    }
+  }
+}
\ No newline at end of file
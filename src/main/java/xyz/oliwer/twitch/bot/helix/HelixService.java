@@ -0,0 +1,245 @@
+package xyz.oliwer.twitch.bot.helix;
+
+import com.github.twitch4j.helix.TwitchHelix;
+import com.github.twitch4j.helix.domain.Follow;
+import com.github.twitch4j.helix.domain.Stream;
+import com.github.twitch4j.helix.domain.User;
+import xyz.oliwer.twitch.bot.metrics.MetricRegistry;
+import xyz.oliwer.twitch.bot.util.DaemonThreadFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class represents the shared access of commands to Helix - coalescing the lookups of all commands
+ * into batched requests and caching their results.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Users (by id or login) and streams are fetched up to {@link HelixService#MAX_BATCH} at a time.</li>
+ *   <li>Follows cannot be batched by Helix, they are only shared and cached.</li>
+ *   <li>All lookups return without blocking, completing once fetched (or right away when cached).</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class HelixService implements AutoCloseable {
+  /**
+   * {@link Integer} this constant represents the maximum amount of ids Helix accepts per request.
+   */
+  public static final int MAX_BATCH = 100;
+
+  /**
+   * {@link Duration} this constant represents the default window lookups are gathered within.
+   */
+  public static final Duration DEFAULT_WINDOW = Duration.ofMillis(25);
+
+  /**
+   * {@link Integer} this constant represents the maximum amount of cached results per kind of lookup.
+   */
+  private static final int CAPACITY = 50_000;
+
+  /**
+   * {@link Integer} this constant represents the amount of threads requests are sent on.
+   */
+  private static final int FETCHERS = 4;
+
+  /**
+   * {@link TwitchHelix} this property represents the client requests are sent through.
+   */
+  private final TwitchHelix helix;
+
+  /**
+   * {@link String} this property represents the token requests are authorized with.
+   */
+  private final String token;
+
+  /**
+   * {@link ScheduledExecutorService} the scheduler of windows closing and cache sweeps.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * {@link ExecutorService} the executor requests are sent on.
+   */
+  private final ExecutorService fetchers;
+
+  /**
+   * {@link Coalescer} the lookup of users by id.
+   */
+  private final Coalescer<String, User> users;
+
+  /**
+   * {@link Coalescer} the lookup of users by login.
+   */
+  private final Coalescer<String, User> logins;
+
+  /**
+   * {@link Coalescer} the lookup of live streams by user id.
+   */
+  private final Coalescer<String, Stream> streams;
+
+  /**
+   * {@link Coalescer} the lookup of follows.
+   */
+  private final Coalescer<FollowKey, Follow> follows;
+
+  /**
+   * Primary constructor.
+   *
+   * @param helix {@link TwitchHelix} the client requests are sent through.
+   * @param token {@link String} the token requests are authorized with.
+   * @param window {@link Duration} the window lookups are gathered within.
+   * @param registry {@link MetricRegistry} the registry to expose lookups, hits and requests through (null for none).
+   */
+  public HelixService(TwitchHelix helix, String token, Duration window, MetricRegistry registry) {
+    if (helix == null || token == null || window == null)
+      throw new NullPointerException("helix, token and window must not be null");
+
+    this.helix = helix;
+    this.token = token;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("helix-batcher"));
+    this.fetchers = Executors.newFixedThreadPool(FETCHERS, new DaemonThreadFactory("helix-fetcher"));
+
+    this.users = coalescer(this::fetchUsers, MAX_BATCH, window, Duration.ofMinutes(10), Duration.ofMinutes(1));
+    this.logins = coalescer(this::fetchLogins, MAX_BATCH, window, Duration.ofMinutes(10), Duration.ofMinutes(1));
+    this.streams = coalescer(this::fetchStreams, MAX_BATCH, window, Duration.ofSeconds(60), Duration.ofSeconds(15));
+    this.follows = coalescer(this::fetchFollow, 1, window, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+    final long sweep = Duration.ofMinutes(1).toMillis();
+    scheduler.scheduleWithFixedDelay(() -> {
+      users.sweep();
+      logins.sweep();
+      streams.sweep();
+      follows.sweep();
+    }, sweep, sweep, TimeUnit.MILLISECONDS);
+
+    if (registry != null) {
+      expose(registry, "users", users);
+      expose(registry, "logins", logins);
+      expose(registry, "streams", streams);
+      expose(registry, "follows", follows);
+    }
+  }
+
+  /**
+   * Look up a user by id.
+   *
+   * @param id {@link String} the id of the user.
+   * @return {@link CompletableFuture} completed with said user (empty if there is none).
+   */
+  public CompletableFuture<Optional<User>> user(String id) {
+    return users.get(id);
+  }
+
+  /**
+   * Look up a user by login.
+   *
+   * @param login {@link String} the login of the user (case insensitive).
+   * @return {@link CompletableFuture} completed with said user (empty if there is none).
+   */
+  public CompletableFuture<Optional<User>> userByLogin(String login) {
+    if (login == null)
+      throw new NullPointerException("login must not be null");
+    return logins.get(login.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Look up the live stream of a user.
+   *
+   * @param userId {@link String} the id of the user.
+   * @return {@link CompletableFuture} completed with said stream (empty if offline).
+   */
+  public CompletableFuture<Optional<Stream>> stream(String userId) {
+    return streams.get(userId);
+  }
+
+  /**
+   * Look up whether a user follows another.
+   *
+   * @param fromId {@link String} the id of the following user.
+   * @param toId {@link String} the id of the followed user (i.e the broadcaster).
+   * @return {@link CompletableFuture} completed with said follow (empty if not following).
+   */
+  public CompletableFuture<Optional<Follow>> follow(String fromId, String toId) {
+    if (fromId == null || toId == null)
+      throw new NullPointerException("fromId and toId must not be null");
+    return follows.get(new FollowKey(fromId, toId));
+  }
+
+  /**
+   * Stop sending requests - lookups still gathered are left incomplete.
+   *
+   * @see AutoCloseable#close()
+   */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    fetchers.shutdownNow();
+  }
+
+  /**
+   * Fetch users by id.
+   */
+  private Map<String, User> fetchUsers(List<String> ids) {
+    final Map<String, User> found = new HashMap<>();
+    for (User user : helix.getUsers(token, ids, null).execute().getUsers())
+      found.put(user.getId(), user);
+    return found;
+  }
+
+  /**
+   * Fetch users by login.
+   */
+  private Map<String, User> fetchLogins(List<String> logins) {
+    final Map<String, User> found = new HashMap<>();
+    for (User user : helix.getUsers(token, null, logins).execute().getUsers())
+      found.put(user.getLogin().toLowerCase(Locale.ROOT), user);
+    return found;
+  }
+
+  /**
+   * Fetch live streams by user id.
+   */
+  private Map<String, Stream> fetchStreams(List<String> userIds) {
+    final Map<String, Stream> found = new HashMap<>();
+    for (Stream stream : helix.getStreams(token, null, null, userIds.size(), null, null, userIds, null).execute().getStreams())
+      found.put(stream.getUserId(), stream);
+    return found;
+  }
+
+  /**
+   * Fetch a single follow (batches of follows always hold a single key).
+   */
+  private Map<FollowKey, Follow> fetchFollow(List<FollowKey> keys) {
+    final FollowKey key = keys.get(0);
+    final List<Follow> found = helix.getFollowers(token, key.fromId, key.toId, null, 1).execute().getFollows();
+    return found.isEmpty() ? Map.of() : Map.of(key, found.get(0));
+  }
+
+  /**
+   * Create a coalescing lookup on the executors of this service.
+   */
+  private <Key, Value> Coalescer<Key, Value> coalescer(Coalescer.Fetcher<Key, Value> fetcher, int maxBatch,
+                                                       Duration window, Duration ttl, Duration refreshAhead) {
+    return new Coalescer<>(fetcher, new Coalescer.Policy(maxBatch, window, ttl, refreshAhead, CAPACITY), scheduler, fetchers);
+  }
+
+  /**
+   * Expose the counts of a lookup.
+   */
+  private static void expose(MetricRegistry registry, String kind, Coalescer<?, ?> coalescer) {
+    registry.monotonic("bot_helix_" + kind + "_lookups_total", "Helix " + kind + " looked up.", coalescer::lookups);
+    registry.monotonic("bot_helix_" + kind + "_hits_total", "Helix " + kind + " served from the cache.", coalescer::hits);
+    registry.monotonic("bot_helix_" + kind + "_requests_total", "Helix requests sent for " + kind + ".", coalescer::requests);
+    registry.gauge("bot_helix_" + kind + "_cached", "Helix " + kind + " currently cached.", coalescer::size);
+  }
+
+  /**
+   * This record represents the key of a follow lookup.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record FollowKey(String fromId, String toId) {}
+}
\ No newline at end of file
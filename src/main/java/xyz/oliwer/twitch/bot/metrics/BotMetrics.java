@@ -0,0 +1,50 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+/**
+ * This record represents the standard instruments of a bot client.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public record BotMetrics(
+  MetricRegistry registry,
+  Family<Counter> messages,
+  Family<Histogram> handling,
+  Family<Counter> subscriberErrors,
+  Family<Gauge> pipelineLag,
+  Family<Gauge> pipelineOccupancy,
+  Family<Counter> pipelineDropped,
+  Family<Counter> pipelineSampled,
+  Histogram lookup,
+  Family<Histogram> performing,
+  Family<Counter> denials,
+  Family<Counter> responseHits,
+  Family<Counter> responseMisses,
+  Family<Counter> floodSuppressed,
+  Family<Counter> forwarded
+) {
+  /**
+   * Register the standard instruments in a registry.
+   *
+   * @param registry {@link MetricRegistry} the registry to register in.
+   * @return {@link BotMetrics}
+   */
+  public static BotMetrics of(MetricRegistry registry) {
+    return new BotMetrics(
+      registry,
+      registry.counters("bot_chat_messages_total", "Chat messages received.", "channel"),
+      registry.histograms("bot_event_handling_seconds", "Time spent by subscribers handling an event.", "subscriber"),
+      registry.counters("bot_subscriber_errors_total", "Failures thrown by subscribers while handling an event.", "subscriber"),
+      registry.gauges("bot_pipeline_lag", "Events published to the event ring not yet handled by a subscriber.", "subscriber"),
+      registry.gauges("bot_pipeline_occupancy", "Share of the event ring a subscriber has not handled yet.", "subscriber"),
+      registry.counters("bot_pipeline_dropped_total", "Events overwritten in the event ring before a subscriber handled them.", "subscriber"),
+      registry.counters("bot_pipeline_sampled_total", "Events a sampling subscriber skipped while behind.", "subscriber"),
+      registry.histogram("bot_command_lookup_seconds", "Time spent resolving a command by alias."),
+      registry.histograms("bot_command_perform_seconds", "Time spent performing a command.", "alias"),
+      registry.counters("bot_command_denials_total", "Commands denied by a requirement.", "alias"),
+      registry.counters("bot_command_response_hits_total", "Command responses served from the response cache.", "alias"),
+      registry.counters("bot_command_response_misses_total", "Command responses computed for the response cache.", "alias"),
+      registry.counters("bot_command_flood_suppressed_total", "Command copies dropped or coalesced during a flood.", "alias"),
+      registry.counters("bot_forward_total", "Messages forwarded to the outbound queue.", "type")
+    );
+  }
+}
\ No newline at end of file
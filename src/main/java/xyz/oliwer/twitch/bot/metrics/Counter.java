@@ -0,0 +1,42 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a monotonic counter, striped across threads so that incrementing never contends.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Counter {
+  /**
+   * {@link LongAdder} this property represents the current count.
+   */
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * Increment this counter by one.
+   */
+  public void increment() {
+    count.increment();
+  }
+
+  /**
+   * Increment this counter.
+   *
+   * @param amount {@link Long} the amount to add (must not be negative).
+   */
+  public void add(long amount) {
+    if (amount < 0)
+      throw new IllegalArgumentException("amount must not be negative");
+    count.add(amount);
+  }
+
+  /**
+   * Get the current count.
+   *
+   * @return {@link Long}
+   */
+  public long get() {
+    return count.sum();
+  }
+}
\ No newline at end of file
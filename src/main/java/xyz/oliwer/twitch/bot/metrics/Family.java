@@ -0,0 +1,75 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a family of metrics sharing a name, told apart by the value of a single label.
+ *
+ * @param <Metric> type of metric within this family.
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Family<Metric> {
+  /**
+   * {@link String} this property represents the name of the label (null if unlabelled).
+   */
+  private final String label;
+
+  /**
+   * {@link Supplier} this property represents the factory of new metrics.
+   */
+  private final Supplier<Metric> factory;
+
+  /**
+   * {@link Map} this property represents the metric of each label value.
+   */
+  private final Map<String, Metric> children = new ConcurrentHashMap<>();
+
+  /**
+   * Primary constructor.
+   */
+  Family(String label, Supplier<Metric> factory) {
+    this.label = label;
+    this.factory = factory;
+  }
+
+  /**
+   * Get (or create) the metric of a label value.
+   *
+   * @param value {@link String} the value of the label (null is treated as an empty value).
+   * @return {@link Metric}
+   */
+  public Metric labels(String value) {
+    final String key = value == null ? "" : value;
+    final Metric metric = children.get(key);
+    return metric != null ? metric : children.computeIfAbsent(key, ignored -> factory.get());
+  }
+
+  /**
+   * Remove the metric of a label value (i.e once what it measured is gone).
+   *
+   * @param value {@link String} the value of the label (null is treated as an empty value).
+   */
+  public void remove(String value) {
+    children.remove(value == null ? "" : value);
+  }
+
+  /**
+   * Get the name of the label of this family.
+   *
+   * @return {@link String} (null if unlabelled).
+   */
+  public String label() {
+    return this.label;
+  }
+
+  /**
+   * Get the metric of each label value.
+   *
+   * @return {@link Map} live view.
+   */
+  Map<String, Metric> children() {
+    return children;
+  }
+}
\ No newline at end of file
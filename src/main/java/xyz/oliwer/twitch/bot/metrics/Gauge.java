@@ -0,0 +1,35 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * This class represents a gauge of a labelled family, reading its value from a supplier whenever exposed.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Gauge {
+  /**
+   * {@link DoubleSupplier} this property represents the supplier of the current value.
+   */
+  private volatile DoubleSupplier value = () -> 0;
+
+  /**
+   * Set where the current value is read from.
+   *
+   * @param value {@link DoubleSupplier} supplier of the current value.
+   */
+  public void observe(DoubleSupplier value) {
+    if (value == null)
+      throw new NullPointerException("value must not be null");
+    this.value = value;
+  }
+
+  /**
+   * Get the current value.
+   *
+   * @return {@link Double}
+   */
+  public double get() {
+    return value.getAsDouble();
+  }
+}
\ No newline at end of file
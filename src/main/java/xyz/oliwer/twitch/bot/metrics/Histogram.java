@@ -0,0 +1,153 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a histogram of non-negative values (i.e nanoseconds), kept in log-linear buckets.
+ * <br/>
+ *
+ * Note: Like an HDR histogram, every power of two is split into {@link Histogram#SUB_BUCKETS} linear buckets,
+ * bounding the relative error of any reported value to ~3% across the whole range of a long.
+ * Recording is lock-free (a single atomic increment) and never allocates.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Histogram {
+  /**
+   * {@link Integer} this constant represents the bits of linear precision within a power of two.
+   */
+  private static final int SUB_BITS = 5;
+
+  /**
+   * {@link Integer} this constant represents the amount of linear buckets within a power of two.
+   */
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  /**
+   * {@link Integer} this constant represents the total amount of buckets.
+   */
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  /**
+   * {@link AtomicLongArray} this property represents the count of each bucket.
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * {@link LongAdder} this property represents the sum of all recorded values.
+   */
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * {@link AtomicLong} this property represents the highest recorded value.
+   */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a value.
+   *
+   * @param value {@link Long} the value to record (negative values are recorded as zero).
+   */
+  public void record(long value) {
+    final long recorded = Math.max(0, value);
+    counts.incrementAndGet(bucket(recorded));
+    sum.add(recorded);
+
+    long current;
+    while (recorded > (current = max.get()) && !max.compareAndSet(current, recorded));
+  }
+
+  /**
+   * Record the nanoseconds elapsed since a point in time.
+   *
+   * @param start {@link Long} the point in time (nanoTime).
+   */
+  public void recordSince(long start) {
+    record(System.nanoTime() - start);
+  }
+
+  /**
+   * Take a snapshot of this histogram.
+   *
+   * Note: Buckets are read one by one while recording may continue, hence a snapshot is only approximately consistent.
+   *
+   * @return {@link Snapshot}
+   */
+  public Snapshot snapshot() {
+    final long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int index = 0; index < BUCKETS; index++)
+      count += copy[index] = counts.get(index);
+    return new Snapshot(copy, count, sum.sum(), max.get());
+  }
+
+  /**
+   * Get the bucket of a value.
+   */
+  private static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * Get the lowest value of a bucket.
+   */
+  private static long lowest(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final int shift = bucket / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+  }
+
+  /**
+   * Get the width of a bucket.
+   */
+  private static long width(int bucket) {
+    return bucket < 2 * SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+  }
+
+  /**
+   * This record represents a point in time snapshot of a histogram.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Snapshot(long[] counts, long count, long sum, long max) {
+    /**
+     * Get the value at a quantile.
+     *
+     * @param quantile {@link Double} the quantile (0 to 1).
+     * @return {@link Long} the (midpoint of the bucket of said) value, or zero if nothing was recorded.
+     */
+    public long quantile(double quantile) {
+      if (count == 0) {
+        return 0;
+      }
+
+      final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int index = 0; index < counts.length; index++) {
+        seen += counts[index];
+        if (seen >= rank)
+          return Math.min(max, lowest(index) + width(index) / 2);
+      }
+      return max;
+    }
+
+    /**
+     * Get the mean of all recorded values.
+     *
+     * @return {@link Double}
+     */
+    public double mean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * This class represents the exposure of a {@link MetricRegistry} through JMX.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class JmxExporter implements MetricsMXBean, AutoCloseable {
+  /**
+   * {@link MetricRegistry} this property represents the exposed registry.
+   */
+  private final MetricRegistry registry;
+
+  /**
+   * {@link ObjectName} this property represents the name this exporter is registered under.
+   */
+  private final ObjectName name;
+
+  /**
+   * Primary constructor - registering with the platform MBean server.
+   *
+   * @param registry {@link MetricRegistry} the registry to expose.
+   * @param name {@link String} the object name to register under (i.e "xyz.oliwer.twitch.bot:type=Metrics").
+   */
+  public JmxExporter(MetricRegistry registry, String name) {
+    if (registry == null || name == null)
+      throw new NullPointerException("registry and name must not be null");
+
+    this.registry = registry;
+    try {
+      this.name = new ObjectName(name);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+    } catch (JMException exception) {
+      throw new IllegalStateException("Failed to register metrics under " + name, exception);
+    }
+  }
+
+  /**
+   * @see MetricsMXBean#getSamples()
+   */
+  @Override
+  public Map<String, Double> getSamples() {
+    return registry.samples();
+  }
+
+  /**
+   * @see MetricsMXBean#getScrape()
+   */
+  @Override
+  public String getScrape() {
+    return registry.scrape();
+  }
+
+  /**
+   * Unregister this exporter.
+   */
+  @Override
+  public void close() {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(name))
+        server.unregisterMBean(name);
+    } catch (JMException ignored) {}
+  }
+}
\ No newline at end of file
@@ -0,0 +1,288 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a registry of named metrics, exposed in the Prometheus text format.
+ * <br/>
+ *
+ * Note: Histograms are assumed to record nanoseconds and are exposed as summaries in seconds.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class MetricRegistry {
+  /**
+   * {@link Double} array of the quantiles exposed for each histogram.
+   */
+  private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+  /**
+   * {@link Double} this constant represents the amount of nanoseconds per second.
+   */
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * {@link Map} this property represents all registered metrics, by name.
+   */
+  private final Map<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+  /**
+   * Get (or register) an unlabelled counter.
+   *
+   * @param name {@link String} name of the counter.
+   * @param help {@link String} description of the counter.
+   * @return {@link Counter}
+   */
+  public Counter counter(String name, String help) {
+    return counters(name, help, null).labels(null);
+  }
+
+  /**
+   * Get (or register) a family of counters.
+   *
+   * @param name {@link String} name of the family.
+   * @param help {@link String} description of the family.
+   * @param label {@link String} name of the label (null if unlabelled).
+   * @return {@link Family}
+   */
+  public Family<Counter> counters(String name, String help, String label) {
+    return family(name, help, Type.COUNTER, label, Counter::new);
+  }
+
+  /**
+   * Get (or register) an unlabelled histogram.
+   *
+   * @param name {@link String} name of the histogram.
+   * @param help {@link String} description of the histogram.
+   * @return {@link Histogram}
+   */
+  public Histogram histogram(String name, String help) {
+    return histograms(name, help, null).labels(null);
+  }
+
+  /**
+   * Get (or register) a family of histograms.
+   *
+   * @param name {@link String} name of the family.
+   * @param help {@link String} description of the family.
+   * @param label {@link String} name of the label (null if unlabelled).
+   * @return {@link Family}
+   */
+  public Family<Histogram> histograms(String name, String help, String label) {
+    return family(name, help, Type.HISTOGRAM, label, Histogram::new);
+  }
+
+  /**
+   * Register a gauge, read whenever the registry is exposed.
+   *
+   * @param name {@link String} name of the gauge.
+   * @param help {@link String} description of the gauge.
+   * @param value {@link DoubleSupplier} supplier of the current value.
+   */
+  public void gauge(String name, String help, DoubleSupplier value) {
+    observe(name, help, Type.GAUGE, value);
+  }
+
+  /**
+   * Get (or register) a family of gauges.
+   *
+   * @param name {@link String} name of the family.
+   * @param help {@link String} description of the family.
+   * @param label {@link String} name of the label.
+   * @return {@link Family}
+   */
+  public Family<Gauge> gauges(String name, String help, String label) {
+    return family(name, help, Type.GAUGE, label, Gauge::new);
+  }
+
+  /**
+   * Register a counter kept elsewhere, read whenever the registry is exposed.
+   *
+   * @param name {@link String} name of the counter.
+   * @param help {@link String} description of the counter.
+   * @param value {@link DoubleSupplier} supplier of the current (monotonic) value.
+   */
+  public void monotonic(String name, String help, DoubleSupplier value) {
+    observe(name, help, Type.COUNTER, value);
+  }
+
+  /**
+   * Expose all metrics in the Prometheus text format (version 0.0.4).
+   *
+   * @return {@link String}
+   */
+  public String scrape() {
+    final StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, Entry> named : entries.entrySet()) {
+      final String name = named.getKey();
+      final Entry entry = named.getValue();
+      builder.append("# HELP ").append(name).append(' ').append(escape(entry.help, false)).append('\n');
+      builder.append("# TYPE ").append(name).append(' ').append(entry.type.exposed).append('\n');
+
+      if (entry.observed != null) {
+        sample(builder, name, null, null, null, entry.observed.getAsDouble());
+        continue;
+      }
+
+      for (Map.Entry<String, ?> child : entry.family.children().entrySet()) {
+        final String label = entry.family.label();
+        final String value = child.getKey();
+        if (child.getValue() instanceof Counter counter) {
+          sample(builder, name, label, value, null, counter.get());
+          continue;
+        }
+        if (child.getValue() instanceof Gauge gauge) {
+          sample(builder, name, label, value, null, gauge.get());
+          continue;
+        }
+
+        final Histogram.Snapshot snapshot = ((Histogram) child.getValue()).snapshot();
+        for (double quantile : QUANTILES)
+          sample(builder, name, label, value, String.valueOf(quantile), snapshot.quantile(quantile) / NANOS_PER_SECOND);
+        sample(builder, name + "_sum", label, value, null, snapshot.sum() / NANOS_PER_SECOND);
+        sample(builder, name + "_count", label, value, null, snapshot.count());
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Get a flat view of all current values (histograms are reduced to their count, quantiles and max in seconds).
+   *
+   * @return {@link Map} the value of each sample, by name.
+   */
+  public Map<String, Double> samples() {
+    final Map<String, Double> samples = new LinkedHashMap<>();
+    for (Map.Entry<String, Entry> named : entries.entrySet()) {
+      final String name = named.getKey();
+      final Entry entry = named.getValue();
+      if (entry.observed != null) {
+        samples.put(name, entry.observed.getAsDouble());
+        continue;
+      }
+
+      for (Map.Entry<String, ?> child : entry.family.children().entrySet()) {
+        final String key = entry.family.label() == null
+          ? name
+          : name + "{" + entry.family.label() + "=\"" + child.getKey() + "\"}";
+        if (child.getValue() instanceof Counter counter) {
+          samples.put(key, (double) counter.get());
+          continue;
+        }
+        if (child.getValue() instanceof Gauge gauge) {
+          samples.put(key, gauge.get());
+          continue;
+        }
+
+        final Histogram.Snapshot snapshot = ((Histogram) child.getValue()).snapshot();
+        samples.put(key + ".count", (double) snapshot.count());
+        for (double quantile : QUANTILES)
+          samples.put(key + ".p" + BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString(), snapshot.quantile(quantile) / NANOS_PER_SECOND);
+        samples.put(key + ".max", snapshot.max() / NANOS_PER_SECOND);
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Get (or register) a family.
+   */
+  @SuppressWarnings("unchecked")
+  private <Metric> Family<Metric> family(String name, String help, Type type, String label, Supplier<Metric> factory) {
+    final Entry entry = entries.computeIfAbsent(validate(name, help), key -> new Entry(type, help, new Family<>(label, factory), null));
+    if (entry.type != type || entry.family == null || !Objects.equals(entry.family.label(), label))
+      throw new IllegalArgumentException("metric " + name + " is already registered differently");
+    return (Family<Metric>) entry.family;
+  }
+
+  /**
+   * Register an observed value.
+   */
+  private void observe(String name, String help, Type type, DoubleSupplier value) {
+    if (value == null)
+      throw new NullPointerException("value must not be null");
+    if (entries.putIfAbsent(validate(name, help), new Entry(type, help, null, value)) != null)
+      throw new IllegalArgumentException("metric " + name + " is already registered");
+  }
+
+  /**
+   * Validate the name & help of a metric.
+   */
+  private static String validate(String name, String help) {
+    if (name == null || help == null)
+      throw new NullPointerException("name and help must not be null");
+    if (!name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*"))
+      throw new IllegalArgumentException("invalid metric name: " + name);
+    return name;
+  }
+
+  /**
+   * Append a single sample.
+   */
+  private static void sample(StringBuilder builder, String name, String label, String value, String quantile, double sample) {
+    builder.append(name);
+    if (label != null || quantile != null) {
+      builder.append('{');
+      if (label != null)
+        builder.append(label).append("=\"").append(escape(value, true)).append('"');
+      if (quantile != null)
+        builder.append(label != null ? "," : "").append("quantile=\"").append(quantile).append('"');
+      builder.append('}');
+    }
+    builder.append(' ').append(sample).append('\n');
+  }
+
+  /**
+   * Escape a label value (or help text, where quotes are kept as is).
+   */
+  private static String escape(String text, boolean quotes) {
+    final StringBuilder builder = new StringBuilder(text.length());
+    for (int index = 0; index < text.length(); index++) {
+      final char character = text.charAt(index);
+      switch (character) {
+        case '\\' -> builder.append("\\\\");
+        case '\n' -> builder.append("\\n");
+        case '"'  -> builder.append(quotes ? "\\\"" : "\"");
+        default   -> builder.append(character);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * This enumeration represents the types of metrics.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private enum Type {
+    COUNTER("counter"),
+    HISTOGRAM("summary"),
+    GAUGE("gauge");
+
+    /**
+     * {@link String} the type as exposed to Prometheus.
+     */
+    private final String exposed;
+
+    /**
+     * Primary constructor.
+     */
+    Type(String exposed) {
+      this.exposed = exposed;
+    }
+  }
+
+  /**
+   * This record represents a registered metric - either a family or an observed value.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Entry(Type type, String help, Family<?> family, DoubleSupplier observed) {}
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import java.util.Map;
+
+/**
+ * This interface represents the management view of a {@link MetricRegistry}.
+ *
+ * @see JmxExporter
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public interface MetricsMXBean {
+  /**
+   * Get a flat view of all current values.
+   *
+   * @see MetricRegistry#samples()
+   * @return {@link Map}
+   */
+  Map<String, Double> getSamples();
+
+  /**
+   * Get all metrics in the Prometheus text format.
+   *
+   * @see MetricRegistry#scrape()
+   * @return {@link String}
+   */
+  String getScrape();
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package xyz.oliwer.twitch.bot.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class represents a small local HTTP endpoint exposing a {@link MetricRegistry} to Prometheus (at /metrics).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class PrometheusEndpoint implements AutoCloseable {
+  /**
+   * {@link String} this constant represents the content type of the text format.
+   */
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  /**
+   * {@link HttpServer} this property represents the underlying server.
+   */
+  private final HttpServer server;
+
+  /**
+   * {@link ExecutorService} this property represents the thread serving requests.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Primary constructor - starting the endpoint on the loopback address.
+   *
+   * @param registry {@link MetricRegistry} the registry to expose.
+   * @param port {@link Integer} the port to listen on (0 for any free port).
+   */
+  public PrometheusEndpoint(MetricRegistry registry, int port) {
+    if (registry == null)
+      throw new NullPointerException("registry must not be null");
+
+    try {
+      this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to bind metrics endpoint to port " + port, exception);
+    }
+
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "metrics-endpoint");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server.createContext("/metrics", exchange -> serve(exchange, registry));
+    this.server.setExecutor(executor);
+    this.server.start();
+  }
+
+  /**
+   * Get the port this endpoint listens on.
+   *
+   * @return {@link Integer}
+   */
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stop this endpoint.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Serve a single request.
+   */
+  private static void serve(HttpExchange exchange, MetricRegistry registry) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+
+      final byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -4,18 +4,37 @@ import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
 import com.github.philippheuer.events4j.api.domain.IDisposable;
 import com.github.philippheuer.events4j.api.domain.IEventSubscription;
 import com.github.philippheuer.events4j.core.EventManager;
+import com.github.philippheuer.events4j.simple.SimpleEventHandler;
 import com.github.twitch4j.TwitchClient;
 import com.github.twitch4j.TwitchClientBuilder;
+import com.github.twitch4j.chat.TwitchChat;
+import com.github.twitch4j.chat.TwitchChatBuilder;
 import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.helix.TwitchHelix;
+import com.github.twitch4j.helix.TwitchHelixBuilder;
+import io.github.bucket4j.Bandwidth;
+import xyz.oliwer.twitch.bot.command.ResponseCache;
+import xyz.oliwer.twitch.bot.helix.HelixService;
+import xyz.oliwer.twitch.bot.metrics.*;
 import xyz.oliwer.twitch.bot.util.ChatMessage;
 import xyz.oliwer.twitch.bot.util.Connector;
 import xyz.oliwer.twitch.bot.util.Forwarder;
+import xyz.oliwer.twitch.bot.util.Lazy;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This class represents the client for our bot.
@@ -23,14 +42,115 @@ import java.util.function.Function;
  * @author Oliwer - https://www.github.com/ImOliwer
  */
 public final class BotClient implements Connector<String>, Forwarder<String, ChatMessage> {
-  /** {@link TwitchClient} the main client for this application. **/
-  private final TwitchClient twitch;
+  /**
+   * {@link Integer} this constant represents the default maximum amount of queued outbound messages.
+   */
+  private static final int DEFAULT_OUTBOUND_CAPACITY = 1024;
+
+  /**
+   * {@link Integer} this constant represents the default maximum amount of channels per chat connection.
+   */
+  private static final int DEFAULT_SHARD_CAPACITY = 100;
+
+  /**
+   * {@link Integer} this constant represents the default amount of joins allowed per window (10 seconds).
+   */
+  private static final int DEFAULT_JOIN_RATE = 20;
+
+  /**
+   * {@link AtomicInteger} this constant represents the amount of clients created (telling their JMX names apart).
+   */
+  private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+  /**
+   * {@link AtomicInteger} this property represents the amount of subscribers added to the event ring
+   * (telling the series of subscribers of the same class apart).
+   */
+  private final AtomicInteger ringSubscriptions = new AtomicInteger();
+
+  /** {@link TwitchClient} the main client for this application (PubSub & Kraken), created upon first use in fast start. **/
+  private final Lazy<TwitchClient> twitch;
+
+  /**
+   * {@link OutboundScheduler} the scheduler of all outbound messages.
+   */
+  private final OutboundScheduler outbound;
+
+  /**
+   * {@link ChatPool} the pool of chat connections all channels are spread across.
+   */
+  private final ChatPool chat;
+
+  /**
+   * {@link HelixService} the shared (batched and cached) access of commands to Helix, created upon first use in fast start.
+   */
+  private final Lazy<HelixService> helix;
+
+  /**
+   * {@link Supplier} the factory of new chat connections.
+   */
+  private final Supplier<TwitchChat> chats;
+
+  /**
+   * {@link ResponseCache} the cache of responses shared by all commands opting into it.
+   */
+  private final ResponseCache responses;
 
   /**
    * {@link Map} a map holding all subscribers.
    */
   private final Map<EventSubscriber, Set<IEventSubscription>> subscribers = new ConcurrentHashMap<>();
 
+  /**
+   * {@link Map} the consumer of the event ring of each subscriber.
+   */
+  private final Map<EventSubscriber, EventRing.Group> groups = new ConcurrentHashMap<>();
+
+  /**
+   * {@link EventRing} the ring chat messages are handed to subscribers through (null if disabled).
+   */
+  private final EventRing ring;
+
+  /**
+   * {@link BotMetrics} the instruments of this client.
+   */
+  private final BotMetrics metrics = BotMetrics.of(new MetricRegistry());
+
+  /**
+   * {@link IngestEventManager} the event manager all events are published to.
+   */
+  private final IngestEventManager events = new IngestEventManager(metrics);
+
+  /**
+   * {@link Set} the subscribers handling every chat message (rather than commands only).
+   */
+  private final Set<EventSubscriber> fullIngest = ConcurrentHashMap.newKeySet();
+
+  /**
+   * {@link Boolean} whether messages which cannot be commands may be dropped before being parsed.
+   */
+  private final boolean filterIngest;
+
+  /**
+   * {@link JmxExporter} the exposure of said instruments through JMX.
+   */
+  private final JmxExporter jmx;
+
+  /**
+   * {@link PrometheusEndpoint} the exposure of said instruments through HTTP (null if disabled).
+   */
+  private final PrometheusEndpoint endpoint;
+
+  /**
+   * {@link List} the listeners of channels being joined and left.
+   */
+  private final List<ChannelListener> channelListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * {@link ErrorSink} the sink receiving all failures thrown by subscriber handlers and asynchronously performed commands.
+   */
+  private volatile ErrorSink errorSink = ErrorSink.SYSTEM_LOGGER;
+
   /**
    * Primary constructor.
    *
@@ -48,16 +168,123 @@ public final class BotClient implements Connector<String>, Forwarder<String, Cha
       throw new NullPointerException("Property 'Client-Id' and/or 'Chat-Bot-Access-Token' are missing");
     }
 
-    this.twitch = TwitchClientBuilder
+    // a known bot name spares the chat connection from validating the token against Twitch
+    final String chatBotName = properties.getProperty("Chat-Bot-Name");
+    // a fast start only creates the twitch4j modules once something first uses them
+    final boolean fastStart = "fast".equalsIgnoreCase(properties.getProperty("Startup-Mode"));
+    // unless full ingest is requested, non command messages are dropped while no subscriber needs them
+    this.filterIngest = !"full".equalsIgnoreCase(properties.getProperty("Chat-Ingest"));
+    this.events.autoDiscovery();
+    this.events.setDefaultEventHandler(SimpleEventHandler.class);
+    updateIngest();
+
+    final OAuth2Credential chatAccount = chatBotName == null
+      ? new OAuth2Credential("twitch", chatAccessToken)
+      : new OAuth2Credential("twitch", chatAccessToken, null, null, chatBotName, null, null);
+    this.twitch = new Lazy<>(() -> TwitchClientBuilder
       .builder()
       .withTimeout(15)
       .withClientId(clientId)
-      .withEnableChat(true)
-      .withChatAccount(new OAuth2Credential("twitch", chatAccessToken))
+      .withEventManager(events)
+      .withEnableChat(false)
+      .withChatAccount(chatAccount)
       .withEnablePubSub(true)
       .withEnableHelix(true)
       .withEnableKraken(true)
-      .build();
+      .build());
+    if (!fastStart)
+      twitch.get();
+
+    // with the event ring enabled, each subscriber handles chat messages on its own thread instead of the connection's
+    final String ringCapacity = properties.getProperty("Event-Ring-Capacity");
+    this.ring = ringCapacity == null ? null : new EventRing(Integer.parseInt(ringCapacity));
+    if (ring != null)
+      events.onEvent(ChannelMessageEvent.class, ring::publish);
+
+    // send limits are enforced by the outbound scheduler, chat connections never throttle below them
+    final String regularLimit = properties.getProperty("Outbound-Regular-Limit");
+    final String moderatorLimit = properties.getProperty("Outbound-Moderator-Limit");
+    final OutboundScheduler.Limits defaults = OutboundScheduler.Limits.DEFAULT;
+    final OutboundScheduler.Limits limits = new OutboundScheduler.Limits(
+      regularLimit == null ? defaults.regular() : Integer.parseInt(regularLimit),
+      moderatorLimit == null ? defaults.moderator() : Integer.parseInt(moderatorLimit),
+      defaults.window(),
+      defaults.channelInterval(),
+      defaults.whispersPerSecond(),
+      defaults.whispersPerMinute()
+    );
+
+    // chat connections are owned by the pool, publishing to the same event manager
+    final String serverUrl = properties.getProperty("Chat-Server-Url");
+    final String shardCapacity = properties.getProperty("Chat-Shard-Capacity");
+    final int joinRate = Integer.parseInt(properties.getProperty("Chat-Join-Rate", String.valueOf(DEFAULT_JOIN_RATE)));
+    this.chats = () -> {
+      final TwitchChatBuilder builder = TwitchChatBuilder
+        .builder()
+        .withChatAccount(chatAccount)
+        .withEventManager(events)
+        .withChatRateLimit(Bandwidth.simple(Math.max(limits.regular(), limits.moderator()), limits.window()))
+        .withJoinRateLimit(Bandwidth.simple(joinRate, Duration.ofMillis(10_000)));
+      return (serverUrl == null ? builder : builder.withBaseUrl(serverUrl)).build();
+    };
+    this.chat = new ChatPool(
+      chats,
+      shardCapacity == null ? DEFAULT_SHARD_CAPACITY : Integer.parseInt(shardCapacity),
+      joinRate,
+      10_000
+    );
+
+    final String responseCapacity = properties.getProperty("Response-Cache-Capacity");
+    this.responses = new ResponseCache(responseCapacity == null ? ResponseCache.DEFAULT_CAPACITY : Integer.parseInt(responseCapacity));
+
+    final String outboundCapacity = properties.getProperty("Outbound-Queue-Capacity");
+    this.outbound = new OutboundScheduler(
+      limits,
+      outboundCapacity == null ? DEFAULT_OUTBOUND_CAPACITY : Integer.parseInt(outboundCapacity),
+      this::send
+    );
+
+    // instruments
+    final MetricRegistry registry = metrics.registry();
+    registry.gauge("bot_outbound_queue_depth", "Messages waiting in the outbound queue.", () -> outbound.metrics().queueDepth());
+    registry.monotonic("bot_outbound_sent_total", "Messages sent through chat.", () -> outbound.metrics().sent());
+    registry.monotonic("bot_outbound_rejected_total", "Messages rejected by a full outbound queue.", () -> outbound.metrics().rejected());
+    registry.gauge("bot_outbound_wait_seconds_max", "Longest time a message waited in the outbound queue.", () -> outbound.metrics().maxWaitNanos() / 1e9);
+    registry.gauge("bot_chat_pending_joins", "Channels waiting to be joined.", chat::pendingJoins);
+    registry.gauge("bot_chat_shards_disconnected", "Chat connections down and reconnecting.", chat::disconnectedShards);
+    events.setPool(chat);
+
+    // every outage is recorded once all of its channels are joined again
+    final Histogram outageDuration = registry.histogram("bot_chat_outage_seconds", "Time from a chat connection dropping until all of its channels were joined again.");
+    final Counter outageLost = registry.counter("bot_chat_outage_lost_messages_total", "Chat messages estimated to be lost during outages.");
+    chat.onOutage(outage -> {
+      outageDuration.record(outage.duration().toNanos());
+      outageLost.add(outage.lostMessages());
+    });
+
+    // helix lookups of all commands are coalesced into batched requests, optionally against a stand-in
+    final String helixUrl = properties.getProperty("Helix-Base-Url");
+    final String helixWindow = properties.getProperty("Helix-Batch-Window");
+    this.helix = new Lazy<>(() -> {
+      // a fast start builds Helix on its own, rather than alongside PubSub & Kraken
+      final TwitchHelix helixClient = helixUrl == null && !fastStart
+        ? twitch.get().getHelix()
+        : helixUrl == null
+          ? TwitchHelixBuilder.builder().withClientId(clientId).build()
+          : TwitchHelixBuilder.builder().withClientId(clientId).withBaseUrl(helixUrl).build();
+      return new HelixService(
+        helixClient,
+        chatAccessToken.startsWith("oauth:") ? chatAccessToken.substring(6) : chatAccessToken,
+        helixWindow == null ? HelixService.DEFAULT_WINDOW : Duration.ofMillis(Long.parseLong(helixWindow)),
+        registry
+      );
+    });
+    if (!fastStart)
+      helix.get();
+
+    final String metricsPort = properties.getProperty("Metrics-Port");
+    this.jmx = new JmxExporter(registry, "xyz.oliwer.twitch.bot:type=Metrics,client=" + INSTANCES.incrementAndGet());
+    this.endpoint = metricsPort == null ? null : new PrometheusEndpoint(registry, Integer.parseInt(metricsPort));
   }
 
   /**
@@ -71,7 +298,6 @@ public final class BotClient implements Connector<String>, Forwarder<String, Cha
       return false;
     }
 
-    final EventManager eventManager = twitch.getEventManager();
     final Set<IEventSubscription> subscriptions = new HashSet<>();
     final Method[] methods = provider.getClass().getMethods();
 
@@ -79,24 +305,59 @@ public final class BotClient implements Connector<String>, Forwarder<String, Cha
       return false;
     }
 
+    final String name = provider.getClass().getSimpleName();
+    final List<Consumer<Object>> singles = new ArrayList<>();
+    final List<Consumer<Object>> batches = new ArrayList<>();
     for (final Method method : methods) {
       final Class<?>[] parameters = method.getParameterTypes();
-      if ((method.getModifiers() & Modifier.PUBLIC) == 0 || parameters.length != 1)
+      final int modifiers = method.getModifiers();
+      if ((modifiers & Modifier.PUBLIC) == 0 || (modifiers & Modifier.STATIC) != 0 || parameters.length != 1)
         continue;
 
-      final Class<?> eventType = parameters[0];
-      if (eventType == ChannelMessageEvent.class) {
-        subscriptions.add(
-          eventManager.onEvent(eventType, it -> {
-            try {
-              method.invoke(provider, it);
-            } catch (Exception ignored) {}
-          })
-        );
+      if (parameters[0] == ChannelMessageEvent.class) {
+        singles.add(EventHandlers.compile(provider, method));
+      } else if (parameters[0] == List.class && isEventList(method.getGenericParameterTypes()[0])) {
+        batches.add(EventHandlers.compile(provider, method));
       }
     }
 
+    if (singles.isEmpty() && batches.isEmpty()) {
+      subscribers.put(provider, subscriptions);
+      return true;
+    }
+
+    final Histogram handling = metrics.handling().labels(name);
+    final Counter errors = metrics.subscriberErrors().labels(name);
+    if (ring == null) {
+      for (final Consumer<Object> handler : singles) {
+        subscriptions.add(events.onEvent(ChannelMessageEvent.class, it -> handle(provider, handler, it, handling, errors)));
+      }
+      for (final Consumer<Object> handler : batches) {
+        subscriptions.add(events.onEvent(ChannelMessageEvent.class, it -> handle(provider, handler, List.of(it), handling, errors)));
+      }
+    } else {
+      final String id = name + '-' + ringSubscriptions.incrementAndGet();
+      final EventRing.Group group = ring.add(id, provider.overflow(), batch -> {
+        for (final Consumer<Object> handler : batches)
+          handle(provider, handler, batch, handling, errors);
+        for (final Consumer<Object> handler : singles) {
+          for (final Object event : batch)
+            handle(provider, handler, event, handling, errors);
+        }
+      }, exception -> {
+        errors.increment();
+        errorSink.report(provider, "a batch of events", exception);
+      }, metrics.pipelineDropped().labels(id), metrics.pipelineSampled().labels(id));
+      groups.put(provider, group);
+      metrics.pipelineLag().labels(id).observe(() -> group.lag(ring));
+      metrics.pipelineOccupancy().labels(id).observe(() -> (double) group.lag(ring) / ring.capacity());
+    }
+
     subscribers.put(provider, subscriptions);
+    if (!provider.commandsOnly()) {
+      fullIngest.add(provider);
+      updateIngest();
+    }
     return true;
   }
 
@@ -109,42 +370,170 @@ public final class BotClient implements Connector<String>, Forwarder<String, Cha
   public <Subscriber extends EventSubscriber> boolean unsubscribe(Subscriber provider) {
     return with(subscribers.remove(provider), subscriptions -> {
       final boolean wasRemoved = subscriptions != null;
-      if (wasRemoved)
+      if (wasRemoved) {
         subscriptions.forEach(IDisposable::dispose);
+        provider.onUnsubscribe();
+      }
+      final EventRing.Group group = groups.remove(provider);
+      if (group != null) {
+        ring.remove(group);
+        metrics.pipelineLag().remove(group.name());
+        metrics.pipelineOccupancy().remove(group.name());
+        metrics.pipelineDropped().remove(group.name());
+        metrics.pipelineSampled().remove(group.name());
+      }
+      if (fullIngest.remove(provider))
+        updateIngest();
       return wasRemoved;
     });
   }
 
   /**
+   * Hand an event (or a batch of events) to a handler of a subscriber, reporting any failure to the error sink.
+   */
+  private void handle(EventSubscriber provider, Consumer<Object> handler, Object event, Histogram handling, Counter errors) {
+    final long start = System.nanoTime();
+    try {
+      handler.accept(event);
+    } catch (Exception exception) {
+      errors.increment();
+      errorSink.report(provider, event, exception);
+    } finally {
+      handling.recordSince(start);
+    }
+  }
+
+  /**
+   * Check whether a parameter type is a {@link List} of {@link ChannelMessageEvent}s.
+   */
+  private static boolean isEventList(Type type) {
+    return type instanceof ParameterizedType parameterized
+      && parameterized.getActualTypeArguments()[0] == ChannelMessageEvent.class;
+  }
+
+  /**
+   * Set the sink receiving all failures thrown by subscriber handlers and asynchronously performed commands.
+   *
+   * @param sink {@link ErrorSink} the sink to use.
+   */
+  public void setErrorSink(ErrorSink sink) {
+    if (sink == null)
+      throw new NullPointerException("Error sink must not be null");
+    this.errorSink = sink;
+  }
+
+  /**
+   * Queue a message to be sent as soon as the send limits allow it.
+   * An optional {@link OutboundScheduler.Priority} may be passed after the message.
+   *
    * @see Forwarder#forward(Object, Object, Object...)
+   * @return {@link Boolean} whether the message was accepted by the outbound queue.
    */
   @Override
   public boolean forward(String receiver, ChatMessage data, Object... extra) {
-    return with(twitch.getChat(), chat -> {
-      if (receiver == null || data == null || extra.length == 0) {
-        return false;
-      }
+    if (receiver == null || data == null || extra.length == 0) {
+      return false;
+    }
 
-      final String message = extra[0].toString();
-      switch (data) {
-        case REGULAR -> {
-          return chat.sendMessage(receiver, message);
-        }
-        case ACTION  -> {
-          return chat.sendActionMessage(receiver, message);
-        }
-        case WHISPER -> chat.sendPrivateMessage(receiver, message);
-      }
-      return true;
-    });
+    final OutboundScheduler.Priority priority = extra.length > 1 && extra[1] instanceof OutboundScheduler.Priority
+      ? (OutboundScheduler.Priority) extra[1]
+      : OutboundScheduler.Priority.NORMAL;
+    metrics.forwarded().labels(data.name()).increment();
+    return !send(receiver, data, extra[0].toString(), priority).isCompletedExceptionally();
+  }
+
+  /**
+   * Queue a message to be sent as soon as the send limits allow it.
+   *
+   * @param receiver {@link String} the channel (or user for whispers) to send to.
+   * @param type {@link ChatMessage} type of message.
+   * @param message {@link String} the message to send.
+   * @param priority {@link OutboundScheduler.Priority} priority of the message.
+   * @return {@link CompletableFuture} completed once the message is actually sent
+   *         (exceptionally if the outbound queue is full).
+   */
+  public CompletableFuture<Boolean> send(String receiver, ChatMessage type, String message, OutboundScheduler.Priority priority) {
+    return outbound.submit(receiver, type, message, priority);
+  }
+
+  /**
+   * Set whether the bot is a moderator in a channel, raising its send limits there.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param moderator {@link Boolean} whether the bot is a moderator.
+   */
+  public void setModerator(String channel, boolean moderator) {
+    outbound.setModerator(channel, moderator);
+  }
+
+  /**
+   * Get a snapshot of the outbound queue metrics.
+   *
+   * @return {@link OutboundScheduler.Metrics}
+   */
+  public OutboundScheduler.Metrics outboundMetrics() {
+    return outbound.metrics();
+  }
+
+  /**
+   * Get the instruments of this client.
+   *
+   * @return {@link BotMetrics}
+   */
+  public BotMetrics metrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Get the cache of responses shared by all commands opting into it.
+   *
+   * @return {@link ResponseCache}
+   */
+  public ResponseCache responseCache() {
+    return this.responses;
+  }
+
+  /**
+   * Get the sink receiving all failures thrown by subscriber handlers and asynchronously performed commands.
+   *
+   * @return {@link ErrorSink}
+   */
+  public ErrorSink errorSink() {
+    return this.errorSink;
+  }
+
+  /**
+   * Get the shared access of commands to Helix (created upon first use in fast start).
+   *
+   * @return {@link HelixService}
+   */
+  public HelixService helix() {
+    return helix.get();
+  }
+
+  /**
+   * Get the main client for this application, i.e for PubSub (created upon first use in fast start).
+   *
+   * @return {@link TwitchClient}
+   */
+  public TwitchClient twitch() {
+    return twitch.get();
   }
 
   /**
+   * Queue a channel to be joined - joins are sent in batches limited by the join rate.
+   *
    * @see Connector#connect(Object)
    */
   @Override
   public boolean connect(String channel) {
-    return handleConnection(true, channel);
+    if (!chat.join(channel)) {
+      return false;
+    }
+
+    for (ChannelListener listener : channelListeners)
+      listener.onJoin(channel);
+    return true;
   }
 
   /**
@@ -152,24 +541,152 @@ public final class BotClient implements Connector<String>, Forwarder<String, Cha
    */
   @Override
   public boolean disconnect(String channel) {
-    return handleConnection(false, channel);
+    if (!chat.leave(channel)) {
+      return false;
+    }
+
+    // each channel ever joined would otherwise keep its series exposed for as long as the client runs
+    metrics.messages().remove(channel);
+    for (ChannelListener listener : channelListeners)
+      listener.onLeave(channel);
+    return true;
+  }
+
+  /**
+   * Get all channels this client is meant to be in - whether joined, queued or being rejoined after an outage.
+   *
+   * @return {@link Set<String>} copy of said channels.
+   */
+  public Set<String> desiredChannels() {
+    return chat.desired();
   }
 
   /**
-   * Handle the connection.
+   * Get the most recent outages of chat connections, oldest first.
    *
-   * @param isConnect {@link Boolean} whether this operation is a "connect" (if not it's "disconnect").
-   * @param channel {@link String} the channel to connect to / disconnect from.
-   * @return {@link Boolean} state of operation - successful or not.
+   * @return {@link List} the finished outages.
    */
-  private boolean handleConnection(boolean isConnect, String channel) {
-    return with(twitch.getChat(), chat -> {
-      final boolean shouldContinue = channel != null && isConnect != chat.isChannelJoined(channel);
-      if (shouldContinue) {
-        if (isConnect) chat.joinChannel(channel);
-        else chat.leaveChannel(channel);
+  public List<ChatPool.Outage> chatOutages() {
+    return chat.outages();
+  }
+
+  /**
+   * Add a listener of channels being joined and left.
+   *
+   * @param listener {@link ChannelListener} the listener to add.
+   */
+  public void addChannelListener(ChannelListener listener) {
+    if (listener == null)
+      throw new NullPointerException("Channel listener must not be null");
+    channelListeners.add(listener);
+  }
+
+  /**
+   * Remove a listener of channels being joined and left.
+   *
+   * @param listener {@link ChannelListener} the listener to remove.
+   * @return {@link Boolean} whether said listener was added.
+   */
+  public boolean removeChannelListener(ChannelListener listener) {
+    return channelListeners.remove(listener);
+  }
+
+  /**
+   * Get a report of how joined channels are placed across chat connections.
+   *
+   * @return {@link List} the status of each connection.
+   */
+  public List<ChatPool.ShardStatus> chatPlacement() {
+    return chat.placement();
+  }
+
+  /**
+   * Create every module a fast start only creates upon first use, then hand a chat message through the whole pipeline
+   * as if a chat connection received it - which is how a training run of the shared class archive loads their classes
+   * without joining any channel.
+   *
+   * Note: A chat connection is built (registering the parsing of raw lines) and closed right after, so the chat server
+   * should be unreachable while training.
+   *
+   * @param channelId {@link String} identifier of the channel said message is received in.
+   * @param channel {@link String} name of said channel.
+   * @param message {@link String} the message.
+   */
+  public void train(String channelId, String channel, String message) {
+    if (channelId == null || channel == null || message == null)
+      throw new NullPointerException("channelId, channel and message must not be null");
+
+    twitch.get();
+    helix.get();
+    final TwitchChat connection = chats.get();
+    try {
+      events.publish(new IRCMessageEvent(
+        "@badge-info=;badges=;color=;display-name=" + channel + ";emotes=;flags=;id=00000000-0000-0000-0000-000000000000" +
+          ";mod=0;room-id=" + channelId + ";subscriber=0;tmi-sent-ts=0;turbo=0;user-id=" + channelId + ";user-type=" +
+          " :" + channel + "!" + channel + "@" + channel + ".tmi.twitch.tv PRIVMSG #" + channel + " :" + message,
+        Map.of(channelId, channel),
+        Map.of(channel, channelId),
+        Set.of()
+      ));
+    } finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * Shut down this client - closing all chat connections, the event ring, the outbound queue, Helix lookups
+   * and the exposure of its metrics.
+   */
+  public void shutdown() {
+    for (EventSubscriber provider : List.copyOf(subscribers.keySet()))
+      unsubscribe(provider);
+    outbound.shutdown();
+    chat.close();
+    if (ring != null)
+      ring.close();
+    helix.ifCreated(HelixService::close);
+    jmx.close();
+    if (endpoint != null)
+      endpoint.close();
+  }
+
+  /**
+   * Drop messages which cannot be commands for as long as no subscriber handles every message.
+   */
+  private synchronized void updateIngest() {
+    events.setCommandsOnly(filterIngest && fullIngest.isEmpty());
+  }
+
+  /**
+   * Get the event manager all chat connections publish to.
+   *
+   * @return {@link EventManager}
+   */
+  EventManager eventManager() {
+    return events;
+  }
+
+  /**
+   * Actually send a message through chat.
+   *
+   * @see OutboundScheduler.Sender#send(String, ChatMessage, String)
+   */
+  private boolean send(String receiver, ChatMessage type, String message) {
+    return with(chat.chatOf(type == ChatMessage.WHISPER ? null : receiver), chat -> {
+      if (chat == null) {
+        return false;
+      }
+
+      switch (type) {
+        case REGULAR -> {
+          return chat.sendMessage(receiver, message);
+        }
+        case ACTION  -> {
+          return chat.sendActionMessage(receiver, message);
+        }
+        case WHISPER -> chat.sendPrivateMessage(receiver, message);
       }
-      return shouldContinue;
+      return true;
     });
   }
 
@@ -179,4 +696,50 @@ public final class BotClient implements Connector<String>, Forwarder<String, Cha
   private static <Type, Return> Return with(Type instance, Function<Type, Return> application) {
     return application.apply(instance);
   }
+
+  /**
+   * This interface represents a listener of channels being joined and left (through {@link BotClient#connect}
+   * and {@link BotClient#disconnect}), invoked on the calling thread.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public interface ChannelListener {
+    /**
+     * Invoked once a channel is queued to be joined.
+     *
+     * @param channel {@link String} name of the channel.
+     */
+    void onJoin(String channel);
+
+    /**
+     * Invoked once a channel is left.
+     *
+     * @param channel {@link String} name of the channel.
+     */
+    void onLeave(String channel);
+  }
+
+  /**
+   * This functional interface represents a single method
+   * to report a failure thrown by a component (i.e a subscriber or command) while handling something.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  @FunctionalInterface
+  public interface ErrorSink {
+    /**
+     * {@link ErrorSink} this constant represents the default sink, logging failures through the logger of their source.
+     */
+    ErrorSink SYSTEM_LOGGER = (source, context, cause) -> System.getLogger(source.getClass().getName())
+      .log(System.Logger.Level.WARNING, "Failed to handle " + context, cause);
+
+    /**
+     * Report a failure.
+     *
+     * @param source {@link Object} the component which failed (i.e the subscriber whose handler failed).
+     * @param context {@link Object} what was being handled (i.e an event, or the channel of a command).
+     * @param cause {@link Throwable} the failure thrown.
+     */
+    void report(Object source, Object context, Throwable cause);
+  }
 }
\ No newline at end of file
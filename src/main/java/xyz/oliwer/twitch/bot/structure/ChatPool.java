@@ -0,0 +1,799 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import com.github.twitch4j.chat.TwitchChat;
+import com.github.twitch4j.chat.enums.TMIConnectionState;
+import xyz.oliwer.twitch.bot.util.TokenBucket;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a pool of chat connections (shards) the joined channels are spread across.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Channels are placed on the connected shard with the fewest channels, opening a new shard once all are full.</li>
+ *   <li>New shards are opened in the background and only take channels once connected, so a slow handshake holds up nothing else.</li>
+ *   <li>Joins are queued and sent in batches limited by the join rate of Twitch.</li>
+ *   <li>A shard which drops is replaced by a new connection, one attempt at a time - the next attempt is only
+ *       scheduled once the previous one failed (or timed out), with jittered exponential backoff.</li>
+ *   <li>Channels of a dropped shard are rejoined at the front of the queue once it is back (or moved onto
+ *       the remaining shards if it stays down), rather than one by one by the dropped connection itself.</li>
+ *   <li>Every outage is reported once all of its channels are joined again, alongside an estimate of the messages lost.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class ChatPool {
+  /**
+   * {@link Long} this constant represents the interval (in milliseconds) queued joins are sent at.
+   */
+  private static final long JOIN_INTERVAL = 100;
+
+  /**
+   * {@link Long} this constant represents how long (in milliseconds) a new connection may take to connect.
+   */
+  private static final long CONNECT_TIMEOUT = 10_000;
+
+  /**
+   * {@link Long} this constant represents the interval (in milliseconds) a connecting connection is polled at.
+   */
+  private static final long CONNECT_POLL = 25;
+
+  /**
+   * {@link Long} this constant represents the interval (in milliseconds) connections are watched at.
+   */
+  private static final long WATCH_INTERVAL = 250;
+
+  /**
+   * {@link Long} this constant represents the delay (in milliseconds) of the first reconnect, doubled per attempt.
+   */
+  private static final long RECONNECT_BASE = 250;
+
+  /**
+   * {@link Long} this constant represents the longest delay (in milliseconds) between reconnects.
+   */
+  private static final long RECONNECT_CAP = 30_000;
+
+  /**
+   * {@link Long} this constant represents how long (in nanoseconds) a shard may stay down until its channels are moved.
+   */
+  private static final long DRAIN_AFTER = TimeUnit.SECONDS.toNanos(10);
+
+  /**
+   * {@link Double} this constant represents the weight of each sample of the message rate of a shard.
+   */
+  private static final double RATE_SMOOTHING = 0.05;
+
+  /**
+   * {@link Integer} this constant represents the amount of finished outages remembered.
+   */
+  private static final int RECENT_OUTAGES = 64;
+
+  /**
+   * {@link System.Logger} this constant represents the logger of connections (and tasks) failing.
+   */
+  private static final System.Logger LOGGER = System.getLogger(ChatPool.class.getName());
+
+  /**
+   * {@link Supplier} this property represents the factory of new chat connections.
+   */
+  private final Supplier<TwitchChat> factory;
+
+  /**
+   * {@link Integer} this property represents the maximum amount of channels per shard.
+   */
+  private final int shardCapacity;
+
+  /**
+   * {@link TokenBucket} the bucket limiting joins (guarded by this pool).
+   */
+  private final TokenBucket joinBucket;
+
+  /**
+   * {@link List} this property represents all shards, in order of creation.
+   */
+  private final List<Shard> shards = new CopyOnWriteArrayList<>();
+
+  /**
+   * {@link Map} this property represents which shard each joined channel is placed on.
+   */
+  private final Map<String, Shard> placements = new ConcurrentHashMap<>();
+
+  /**
+   * {@link Set} this property represents all channels the pool is meant to be in.
+   */
+  private final Set<String> desired = ConcurrentHashMap.newKeySet();
+
+  /**
+   * {@link Deque} this property represents channels waiting to be joined (guarded by this pool).
+   */
+  private final Deque<String> pendingJoins = new ArrayDeque<>();
+
+  /**
+   * {@link List} this property represents the outages of which channels are not all joined again (guarded by this pool).
+   */
+  private final List<Recovery> recoveries = new ArrayList<>();
+
+  /**
+   * {@link Deque} this property represents the most recent finished outages (guarded by this pool).
+   */
+  private final Deque<Outage> outages = new ArrayDeque<>();
+
+  /**
+   * {@link List} this property represents the listeners of finished outages.
+   */
+  private final List<Consumer<Outage>> outageListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * {@link Boolean} this property represents whether a shard is being opened on the connector, published once connected (guarded by this pool).
+   */
+  private boolean opening;
+
+  /**
+   * {@link Integer} this property represents the amount of failed attempts to open a shard in a row (guarded by this pool).
+   */
+  private int openAttempts;
+
+  /**
+   * {@link Long} this property represents when (in nanoseconds) opening a shard may be attempted again (guarded by this pool).
+   */
+  private long openRetryAt;
+
+  /**
+   * {@link ScheduledExecutorService} the scheduler of joins and the watch of connections.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * {@link ExecutorService} the executor connections are (re)opened and closed on, as either may block.
+   */
+  private final ExecutorService connector;
+
+  /**
+   * Primary constructor.
+   *
+   * @param factory {@link Supplier} the factory of new chat connections.
+   * @param shardCapacity {@link Integer} the maximum amount of channels per shard.
+   * @param joinsPerWindow {@link Integer} the amount of joins allowed per window.
+   * @param joinWindowMillis {@link Long} the length of said window in milliseconds.
+   */
+  public ChatPool(Supplier<TwitchChat> factory, int shardCapacity, int joinsPerWindow, long joinWindowMillis) {
+    if (factory == null)
+      throw new NullPointerException("factory must not be null");
+    if (shardCapacity <= 0 || joinsPerWindow <= 0 || joinWindowMillis <= 0)
+      throw new IllegalArgumentException("shardCapacity, joinsPerWindow and joinWindowMillis must be positive");
+
+    this.factory = factory;
+    this.shardCapacity = shardCapacity;
+    this.joinBucket = TokenBucket.perWindow(joinsPerWindow, TimeUnit.MILLISECONDS.toNanos(joinWindowMillis), System.nanoTime());
+
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "chat-pool");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.connector = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "chat-pool-connect");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleWithFixedDelay(guarded(this::drainJoins), JOIN_INTERVAL, JOIN_INTERVAL, TimeUnit.MILLISECONDS);
+    this.scheduler.scheduleWithFixedDelay(guarded(this::watch), WATCH_INTERVAL, WATCH_INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queue a channel to be joined.
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean} whether the channel was not already desired.
+   */
+  public boolean join(String channel) {
+    if (channel == null || !desired.add(channel)) {
+      return false;
+    }
+
+    synchronized (this) {
+      pendingJoins.addLast(channel);
+    }
+    return true;
+  }
+
+  /**
+   * Leave a channel (or drop it from the join queue).
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean} whether the channel was desired.
+   */
+  public boolean leave(String channel) {
+    if (channel == null || !desired.remove(channel)) {
+      return false;
+    }
+
+    synchronized (this) {
+      pendingJoins.remove(channel);
+      final Shard shard = placements.remove(channel);
+      if (shard != null)
+        shard.leave(channel);
+    }
+    return true;
+  }
+
+  /**
+   * Get whether a channel has been joined (rather than only queued).
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean}
+   */
+  public boolean isJoined(String channel) {
+    return channel != null && placements.containsKey(channel);
+  }
+
+  /**
+   * Get whether a channel is desired (joined or queued to be).
+   *
+   * @param channel {@link String} name of the channel.
+   * @return {@link Boolean}
+   */
+  public boolean isDesired(String channel) {
+    return channel != null && desired.contains(channel);
+  }
+
+  /**
+   * Get the chat connection to send through for passed channel.
+   *
+   * @param channel {@link String} name of the channel (null for any connection).
+   * @return {@link TwitchChat} the connection of the shard said channel is placed on, or any (preferably connected) connection
+   *         - null while none is open yet (one is then being opened).
+   */
+  public TwitchChat chatOf(String channel) {
+    final Shard shard = channel == null ? null : placements.get(channel);
+    if (shard != null) {
+      return shard.chat;
+    }
+
+    for (Shard candidate : shards) {
+      if (candidate.isConnected())
+        return candidate.chat;
+    }
+
+    synchronized (this) {
+      if (!shards.isEmpty()) {
+        return shards.get(0).chat;
+      }
+      open(System.nanoTime());
+      return null;
+    }
+  }
+
+  /**
+   * Get a report of how channels are placed across shards.
+   *
+   * @return {@link List} the status of each shard.
+   */
+  public synchronized List<ShardStatus> placement() {
+    final List<ShardStatus> statuses = new ArrayList<>(shards.size());
+    for (Shard shard : shards)
+      statuses.add(new ShardStatus(shard.index, shard.isConnected(), shard.channels.size()));
+    return statuses;
+  }
+
+  /**
+   * Get the amount of channels waiting to be joined.
+   *
+   * @return {@link Integer}
+   */
+  public synchronized int pendingJoins() {
+    return pendingJoins.size();
+  }
+
+  /**
+   * Get all channels the pool is meant to be in, whether joined or not.
+   *
+   * @return {@link Set<String>} copy of said channels.
+   */
+  public Set<String> desired() {
+    return new HashSet<>(desired);
+  }
+
+  /**
+   * Get the amount of shards currently down and reconnecting.
+   *
+   * @return {@link Integer}
+   */
+  public synchronized int disconnectedShards() {
+    int disconnected = 0;
+    for (Shard shard : shards) {
+      if (shard.downSince != 0)
+        disconnected++;
+    }
+    return disconnected;
+  }
+
+  /**
+   * Get the most recent finished outages, oldest first.
+   *
+   * @return {@link List<Outage>} copy of said outages.
+   */
+  public synchronized List<Outage> outages() {
+    return new ArrayList<>(outages);
+  }
+
+  /**
+   * Add a listener of finished outages.
+   *
+   * Note: Listeners are invoked on the thread of this pool whilst holding it, and must therefore not block.
+   *
+   * @param listener {@link Consumer<Outage>} the listener to add.
+   */
+  public void onOutage(Consumer<Outage> listener) {
+    if (listener == null)
+      throw new NullPointerException("Outage listener must not be null");
+    outageListeners.add(listener);
+  }
+
+  /**
+   * Count a message received in a channel towards the message rate of its shard.
+   *
+   * @param channel {@link String} name of the channel.
+   */
+  void received(String channel) {
+    final Shard shard = channel == null ? null : placements.get(channel);
+    if (shard != null)
+      shard.received.increment();
+  }
+
+  /**
+   * Stop the pool, closing all connections.
+   */
+  public synchronized void close() {
+    scheduler.shutdownNow();
+    connector.shutdownNow();
+    // a shard being opened is closed by the connector itself, as it is no longer published once interrupted
+    for (Shard shard : shards)
+      shard.chat.close();
+    shards.clear();
+    placements.clear();
+  }
+
+  /**
+   * Send as many queued joins as the join limit allows.
+   */
+  private synchronized void drainJoins() {
+    final long now = System.nanoTime();
+    while (!pendingJoins.isEmpty() && joinBucket.nanosUntilAvailable(now) == 0) {
+      final String channel = pendingJoins.pollFirst();
+      if (!desired.contains(channel) || placements.containsKey(channel))
+        continue;
+
+      final Shard shard = pick();
+      if (shard == null) {
+        // every shard is full (or none is open) - wait for a new one rather than blocking on its handshake here
+        pendingJoins.addFirst(channel);
+        open(now);
+        return;
+      }
+
+      joinBucket.tryAcquire(now);
+      shard.join(channel);
+      placements.put(channel, shard);
+    }
+  }
+
+  /**
+   * Watch all connections - noticing shards which dropped, reconnecting them with backoff,
+   * requeueing their channels once they are back and finishing outages once all channels are rejoined.
+   */
+  private synchronized void watch() {
+    final long now = System.nanoTime();
+    boolean anyConnected = false;
+    for (Shard shard : shards) {
+      if (shard.isConnected()) {
+        anyConnected = true;
+        if (shard.downSince != 0) {
+          // back up - the fresh connection holds no channels yet, so all of them are rejoined through the queue
+          shard.downSince = 0;
+          shard.attempts = 0;
+          shard.sampledAt = 0;
+          requeue(shard);
+        }
+        shard.up = true;
+        shard.sample(now);
+      } else if (shard.downSince == 0 && shard.up) {
+        drop(shard, now);
+      }
+    }
+
+    for (Shard shard : shards) {
+      if (shard.downSince == 0)
+        continue;
+
+      // channels are not left waiting on a shard which stays down while others are up
+      if (anyConnected && !shard.stranded.isEmpty() && now - shard.downSince >= DRAIN_AFTER)
+        requeue(shard);
+      if (!shard.reconnecting && now - shard.retryAt >= 0)
+        reconnect(shard);
+    }
+
+    for (Iterator<Recovery> iterator = recoveries.iterator(); iterator.hasNext(); ) {
+      final Recovery recovery = iterator.next();
+      if (!recovery.isRecovered())
+        continue;
+
+      iterator.remove();
+      final Outage outage = recovery.finish(now);
+      if (outages.size() == RECENT_OUTAGES)
+        outages.pollFirst();
+      outages.addLast(outage);
+      for (Consumer<Outage> listener : outageListeners) {
+        try {
+          listener.accept(outage);
+        } catch (Exception exception) {
+          LOGGER.log(System.Logger.Level.WARNING, "Outage listener failed", exception);
+        }
+      }
+    }
+  }
+
+  /**
+   * Take the channels off a shard which dropped and close its connection, so it does not rejoin them by itself.
+   */
+  private void drop(Shard shard, long now) {
+    shard.downSince = now;
+    shard.retryAt = now + backoff(0);
+    shard.stranded.addAll(shard.channels);
+    for (String channel : shard.channels)
+      placements.remove(channel, shard);
+    shard.channels.clear();
+    recoveries.add(new Recovery(shard.index, now, new HashSet<>(shard.stranded), shard.rate));
+
+    final TwitchChat dead = shard.chat;
+    connector.execute(dead::close);
+  }
+
+  /**
+   * Connect a new connection for a shard which is down on the connector, replacing the dead one once connected
+   * (or backing off further once said attempt failed or timed out).
+   */
+  private void reconnect(Shard shard) {
+    shard.reconnecting = true;
+    connector.execute(() -> {
+      TwitchChat fresh = null;
+      boolean connected = false;
+      try {
+        fresh = factory.get();
+        connected = connect(fresh);
+      } catch (RuntimeException exception) {
+        LOGGER.log(System.Logger.Level.WARNING, "Failed to create a chat connection", exception);
+      }
+
+      synchronized (this) {
+        shard.reconnecting = false;
+        if (connected && !scheduler.isShutdown()) {
+          // noticed as back up by the next watch, which rejoins its channels
+          shard.chat = fresh;
+          return;
+        }
+        shard.retryAt = System.nanoTime() + backoff(++shard.attempts);
+      }
+      if (fresh != null)
+        fresh.close();
+    });
+  }
+
+  /**
+   * Move the channels waiting on a shard to the front of the join queue, keeping their order.
+   */
+  private void requeue(Shard shard) {
+    for (int index = shard.stranded.size() - 1; index >= 0; index--)
+      pendingJoins.addFirst(shard.stranded.get(index));
+    shard.stranded.clear();
+  }
+
+  /**
+   * Get the delay (in nanoseconds) until the next reconnect - jittered between half and all of the exponential delay,
+   * so shards which dropped together spread out without any of them retrying right away.
+   */
+  private static long backoff(int attempt) {
+    final long ceiling = Math.min(RECONNECT_CAP, RECONNECT_BASE << Math.min(attempt, 16));
+    final long floor = ceiling / 2;
+    return TimeUnit.MILLISECONDS.toNanos(floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1));
+  }
+
+  /**
+   * Pick the healthy shard with the fewest channels and room left.
+   *
+   * @return {@link Shard} null if there is none.
+   */
+  private Shard pick() {
+    Shard best = null;
+    for (Shard shard : shards) {
+      if (shard.downSince != 0 || shard.channels.size() >= shardCapacity)
+        continue;
+      if (best == null || shard.channels.size() < best.channels.size())
+        best = shard;
+    }
+    return best;
+  }
+
+  /**
+   * Start opening a new shard on the connector, publishing it once connected (one at a time, backing off on failure).
+   * <br/>
+   *
+   * Note: The connection is created on the connector as well, as creating it may already connect (and so block).
+   */
+  private void open(long now) {
+    if (opening || (openAttempts > 0 && now - openRetryAt < 0)) {
+      return;
+    }
+
+    opening = true;
+    connector.execute(() -> {
+      TwitchChat chat = null;
+      boolean connected = false;
+      try {
+        chat = factory.get();
+        connected = connect(chat);
+      } catch (RuntimeException exception) {
+        LOGGER.log(System.Logger.Level.WARNING, "Failed to create a chat connection", exception);
+      }
+
+      synchronized (this) {
+        opening = false;
+        if (connected && !scheduler.isShutdown()) {
+          openAttempts = 0;
+          final Shard shard = new Shard(shards.size(), chat);
+          shard.up = true;
+          shards.add(shard);
+          return;
+        }
+        openRetryAt = System.nanoTime() + backoff(++openAttempts);
+      }
+      if (chat != null)
+        chat.close();
+    });
+  }
+
+  /**
+   * Connect a chat, waiting until it is connected or the connect timeout passed (blocking, hence on the connector only).
+   *
+   * @return {@link Boolean} whether said chat connected in time.
+   */
+  private static boolean connect(TwitchChat chat) {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT);
+    try {
+      chat.connect();
+      while (chat.getConnectionState() != TMIConnectionState.CONNECTED) {
+        if (System.nanoTime() - deadline >= 0) {
+          return false;
+        }
+        Thread.sleep(CONNECT_POLL);
+      }
+      return true;
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (RuntimeException exception) {
+      LOGGER.log(System.Logger.Level.WARNING, "Failed to connect a chat connection", exception);
+      return false;
+    }
+  }
+
+  /**
+   * Guard a periodic task, as a single failure would otherwise cancel all of its future runs.
+   */
+  private static Runnable guarded(Runnable task) {
+    return () -> {
+      try {
+        task.run();
+      } catch (Exception exception) {
+        LOGGER.log(System.Logger.Level.ERROR, "Chat pool task failed", exception);
+      }
+    };
+  }
+
+  /**
+   * This record represents the status of a single shard.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record ShardStatus(int index, boolean connected, int channels) {}
+
+  /**
+   * This record represents a finished outage of a single shard.
+   *
+   * @param shard {@link Integer} the index of the shard which dropped.
+   * @param startedAt {@link Instant} when the drop was noticed.
+   * @param duration {@link Duration} the time from said drop until all of its channels were joined again.
+   * @param channels {@link Integer} the amount of channels placed on said shard when it dropped.
+   * @param lostMessages {@link Long} the messages estimated to be lost, from the message rate of said shard before it dropped.
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Outage(int shard, Instant startedAt, Duration duration, int channels, long lostMessages) {}
+
+  /**
+   * This class represents an outage whose channels are being joined again.
+   *
+   * Note: All mutable state is guarded by the owning pool.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private final class Recovery {
+    /**
+     * {@link Integer} the index of the shard which dropped.
+     */
+    private final int shard;
+
+    /**
+     * {@link Long} when (in nanoseconds) the drop was noticed.
+     */
+    private final long startedAt;
+
+    /**
+     * {@link Instant} when the drop was noticed.
+     */
+    private final Instant startedInstant = Instant.now();
+
+    /**
+     * {@link Set} the channels placed on said shard when it dropped.
+     */
+    private final Set<String> channels;
+
+    /**
+     * {@link Double} the messages per second of said shard before it dropped.
+     */
+    private final double rate;
+
+    /**
+     * Primary constructor.
+     */
+    private Recovery(int shard, long startedAt, Set<String> channels, double rate) {
+      this.shard = shard;
+      this.startedAt = startedAt;
+      this.channels = channels;
+      this.rate = rate;
+    }
+
+    /**
+     * Get whether every channel still desired has been joined again.
+     */
+    private boolean isRecovered() {
+      for (String channel : channels) {
+        if (desired.contains(channel) && !placements.containsKey(channel))
+          return false;
+      }
+      return true;
+    }
+
+    /**
+     * Finish this recovery.
+     */
+    private Outage finish(long now) {
+      final long nanos = now - startedAt;
+      return new Outage(shard, startedInstant, Duration.ofNanos(nanos), channels.size(), Math.round(rate * nanos / 1e9));
+    }
+  }
+
+  /**
+   * This class represents a single chat connection and the channels placed on it.
+   *
+   * Note: All mutable state is guarded by the owning pool.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Shard {
+    /**
+     * {@link Integer} the index of this shard.
+     */
+    private final int index;
+
+    /**
+     * {@link TwitchChat} the connection of this shard (replaced whenever it reconnects).
+     */
+    private volatile TwitchChat chat;
+
+    /**
+     * {@link Set} the channels placed on this shard.
+     */
+    private final Set<String> channels = new HashSet<>();
+
+    /**
+     * {@link List} the channels taken off this shard when it dropped, waiting for it to be back.
+     */
+    private final List<String> stranded = new ArrayList<>();
+
+    /**
+     * {@link LongAdder} the amount of messages received through this shard.
+     */
+    private final LongAdder received = new LongAdder();
+
+    /**
+     * {@link Boolean} whether this shard has been connected at least once.
+     */
+    private boolean up;
+
+    /**
+     * {@link Long} when (in nanoseconds) this shard was noticed to be down (0 while up).
+     */
+    private long downSince;
+
+    /**
+     * {@link Long} when (in nanoseconds) this shard is reconnected next.
+     */
+    private long retryAt;
+
+    /**
+     * {@link Integer} the amount of reconnects attempted during the current outage.
+     */
+    private int attempts;
+
+    /**
+     * {@link Boolean} whether a reconnect is being attempted (on the connector).
+     */
+    private boolean reconnecting;
+
+    /**
+     * {@link Long} when (in nanoseconds) the message rate was last sampled (0 if not yet).
+     */
+    private long sampledAt;
+
+    /**
+     * {@link Long} the amount of messages received when the message rate was last sampled.
+     */
+    private long sampledReceived;
+
+    /**
+     * {@link Double} the smoothed messages per second received through this shard.
+     */
+    private double rate;
+
+    /**
+     * Primary constructor.
+     */
+    private Shard(int index, TwitchChat chat) {
+      this.index = index;
+      this.chat = chat;
+    }
+
+    /**
+     * Get whether the connection of this shard is up.
+     */
+    private boolean isConnected() {
+      return chat.getConnectionState() == TMIConnectionState.CONNECTED;
+    }
+
+    /**
+     * Sample the message rate of this shard.
+     */
+    private void sample(long now) {
+      final long received = this.received.sum();
+      if (sampledAt != 0 && now > sampledAt) {
+        final double instant = (received - sampledReceived) * 1e9 / (now - sampledAt);
+        rate = rate == 0 ? instant : rate + RATE_SMOOTHING * (instant - rate);
+      }
+      sampledAt = now;
+      sampledReceived = received;
+    }
+
+    /**
+     * Join a channel through this shard.
+     */
+    private void join(String channel) {
+      channels.add(channel);
+      chat.joinChannel(channel);
+    }
+
+    /**
+     * Leave a channel through this shard.
+     */
+    private void leave(String channel) {
+      channels.remove(channel);
+      chat.leaveChannel(channel);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * This class represents the compiler turning subscriber methods into direct event handlers.
+ *
+ * Note: Compilation happens once per subscription, the handlers produced are plain
+ * {@link Consumer} implementations which the JIT can inline like any other call site.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class EventHandlers {
+  /**
+   * {@link MethodType} this constant represents the erased signature of {@link Consumer#accept(Object)}.
+   */
+  private static final MethodType ACCEPT = MethodType.methodType(void.class, Object.class);
+
+  /**
+   * Private constructor - utility class.
+   */
+  private EventHandlers() {}
+
+  /**
+   * Compile a single-parameter method of passed target into a direct handler.
+   * A generated {@link Consumer} is preferred, falling back to a bound {@link MethodHandle}
+   * whenever the method is not accessible for code generation (i.e a non-public class of another package).
+   *
+   * @param target {@link Object} the instance to invoke said method on.
+   * @param method {@link Method} the method to compile.
+   * @return {@link Consumer} the compiled handler.
+   * @throws IllegalStateException if said method could not be compiled either way.
+   */
+  static Consumer<Object> compile(Object target, Method method) {
+    try {
+      return generate(target, method);
+    } catch (IllegalAccessException exception) {
+      return bind(target, method);
+    } catch (RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException("unable to compile handler " + method, throwable);
+    }
+  }
+
+  /**
+   * Generate a {@link Consumer} class calling passed method directly.
+   *
+   * @see EventHandlers#compile(Object, Method)
+   */
+  @SuppressWarnings("unchecked")
+  static Consumer<Object> generate(Object target, Method method) throws Throwable {
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    final MethodHandle implementation = lookup.unreflect(method);
+    final Class<?> targetType = method.getDeclaringClass();
+
+    final CallSite site = LambdaMetafactory.metafactory(
+      lookup,
+      "accept",
+      MethodType.methodType(Consumer.class, targetType),
+      ACCEPT,
+      implementation,
+      MethodType.methodType(void.class, method.getParameterTypes()[0])
+    );
+    return (Consumer<Object>) site.getTarget().invoke(target);
+  }
+
+  /**
+   * Bind passed method to its target as a {@link MethodHandle}.
+   *
+   * @see EventHandlers#compile(Object, Method)
+   */
+  static Consumer<Object> bind(Object target, Method method) {
+    final MethodHandle handle;
+    try {
+      method.setAccessible(true);
+      handle = MethodHandles
+        .lookup()
+        .unreflect(method)
+        .bindTo(target)
+        .asType(ACCEPT);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      throw new IllegalStateException("unable to compile handler " + method, exception);
+    }
+
+    return event -> {
+      try {
+        handle.invokeExact(event);
+      } catch (RuntimeException | Error exception) {
+        throw exception;
+      } catch (Throwable throwable) {
+        throw new IllegalStateException(throwable);
+      }
+    };
+  }
+}
\ No newline at end of file
@@ -0,0 +1,391 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import xyz.oliwer.twitch.bot.metrics.Counter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a preallocated ring of events between the event manager and subscribers, in the style of
+ * the LMAX Disruptor - publishers claim sequences, and each subscriber consumes the ring on its own thread.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Any amount of threads may publish, claiming a sequence each by compare-and-set.</li>
+ *   <li>Each subscriber is a consumer group with its own sequence, handling every event published since it joined
+ *       in batches of everything available (up to {@link EventRing#MAX_BATCH}).</li>
+ *   <li>Publishing only waits for consumers of {@link EventSubscriber.Overflow#BLOCK}, all other consumers
+ *       may be lapped, noticing so by the sequence published in each slot.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class EventRing {
+  /**
+   * {@link Integer} this constant represents the maximum amount of events handed to a consumer at once.
+   */
+  static final int MAX_BATCH = 256;
+
+  /**
+   * {@link Integer} this constant represents the share of events handled by a sampling consumer under pressure (1 in N).
+   */
+  static final int SAMPLE_RATE = 4;
+
+  /**
+   * {@link Long} this constant represents the longest a consumer sleeps before checking the ring again.
+   */
+  private static final long MAX_SLEEP = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * {@link Integer} this constant represents the amount of checks a consumer spins for before sleeping.
+   */
+  private static final int SPINS = 128;
+
+  /**
+   * {@link Integer} this property represents the amount of slots.
+   */
+  private final int capacity;
+
+  /**
+   * {@link Integer} this property represents the mask turning a sequence into its slot.
+   */
+  private final int mask;
+
+  /**
+   * {@link AtomicReferenceArray} this property represents the events of each slot.
+   */
+  private final AtomicReferenceArray<Object> slots;
+
+  /**
+   * {@link AtomicLongArray} this property represents the sequence published in each slot (-sequence - 1 while being written).
+   */
+  private final AtomicLongArray published;
+
+  /**
+   * {@link AtomicLong} this property represents the latest claimed sequence.
+   */
+  private final AtomicLong cursor = new AtomicLong(-1);
+
+  /**
+   * {@link List} this property represents all consumers.
+   */
+  private final List<Group> groups = new CopyOnWriteArrayList<>();
+
+  /**
+   * {@link Long} the latest known minimum sequence of all blocking consumers (a cache, racy by design).
+   */
+  private volatile long gatingCache = -1;
+
+  /**
+   * Primary constructor.
+   *
+   * @param capacity {@link Integer} the amount of slots (rounded up to a power of two).
+   */
+  EventRing(int capacity) {
+    if (capacity <= 1)
+      throw new IllegalArgumentException("capacity must be larger than one");
+
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = this.capacity - 1;
+    this.slots = new AtomicReferenceArray<>(this.capacity);
+    this.published = new AtomicLongArray(this.capacity);
+    for (int index = 0; index < this.capacity; index++)
+      published.set(index, -1);
+  }
+
+  /**
+   * Publish an event to all consumers, waiting for room if a blocking consumer is a full ring behind.
+   *
+   * @param event {@link Object} the event to publish.
+   */
+  void publish(Object event) {
+    long next;
+    while (true) {
+      final long current = cursor.get();
+      next = current + 1;
+      final long wrap = next - capacity;
+      if (wrap > gatingCache) {
+        final long gating = gating(current);
+        if (wrap > gating) {
+          LockSupport.parkNanos(1_000);
+          continue;
+        }
+        gatingCache = gating;
+      }
+
+      if (cursor.compareAndSet(current, next))
+        break;
+    }
+
+    final int index = (int) next & mask;
+    // mark the slot as being written, so a lapped consumer never mistakes the new event for the old one
+    published.set(index, -next - 1);
+    slots.set(index, event);
+    published.set(index, next);
+
+    for (Group group : groups) {
+      if (group.sleeping)
+        LockSupport.unpark(group.thread);
+    }
+  }
+
+  /**
+   * Add a consumer, handling every event published from now on.
+   *
+   * @param name {@link String} name of the consumer (used for its thread).
+   * @param overflow {@link EventSubscriber.Overflow} how said consumer keeps up once behind.
+   * @param handler {@link Consumer} the handler of batches (a batch is only valid for the duration of the call).
+   * @param failures {@link Consumer} the consumer of failures thrown by said handler.
+   * @param dropped {@link Counter} the counter of events overwritten before being handled.
+   * @param sampled {@link Counter} the counter of events sampled out.
+   * @return {@link Group} the consumer.
+   */
+  Group add(String name, EventSubscriber.Overflow overflow, Consumer<List<Object>> handler, Consumer<Exception> failures,
+            Counter dropped, Counter sampled) {
+    final Group group = new Group(name, overflow, handler, failures, dropped, sampled);
+    synchronized (this) {
+      group.sequence.set(cursor.get());
+      groups.add(group);
+    }
+
+    group.thread = new Thread(() -> group.run(this), "event-ring-" + name);
+    group.thread.setDaemon(true);
+    group.thread.start();
+    return group;
+  }
+
+  /**
+   * Remove a consumer, stopping its thread once its current batch is handled.
+   *
+   * @param group {@link Group} the consumer to remove.
+   */
+  void remove(Group group) {
+    if (group == null || !groups.remove(group)) {
+      return;
+    }
+
+    group.running = false;
+    LockSupport.unpark(group.thread);
+    gatingCache = -1;
+  }
+
+  /**
+   * Remove all consumers.
+   */
+  void close() {
+    for (Group group : groups)
+      remove(group);
+  }
+
+  /**
+   * Get the amount of slots.
+   *
+   * @return {@link Integer}
+   */
+  int capacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Get the latest claimed sequence.
+   *
+   * @return {@link Long}
+   */
+  long cursor() {
+    return cursor.get();
+  }
+
+  /**
+   * Get the minimum sequence of all blocking consumers.
+   */
+  private long gating(long fallback) {
+    long minimum = fallback;
+    for (Group group : groups) {
+      if (group.overflow == EventSubscriber.Overflow.BLOCK)
+        minimum = Math.min(minimum, group.sequence.get());
+    }
+    return minimum;
+  }
+
+  /**
+   * This class represents a single consumer of the ring.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  static final class Group {
+    /**
+     * {@link EventSubscriber.Overflow} how this consumer keeps up once behind.
+     */
+    private final EventSubscriber.Overflow overflow;
+
+    /**
+     * {@link String} the name of this consumer.
+     */
+    private final String name;
+
+    /**
+     * {@link Consumer} the handler of batches.
+     */
+    private final Consumer<List<Object>> handler;
+
+    /**
+     * {@link Consumer} the consumer of failures thrown by said handler.
+     */
+    private final Consumer<Exception> failures;
+
+    /**
+     * {@link Counter} the counter of events overwritten before being handled.
+     */
+    private final Counter dropped;
+
+    /**
+     * {@link Counter} the counter of events sampled out.
+     */
+    private final Counter sampled;
+
+    /**
+     * {@link AtomicLong} the latest sequence handled.
+     */
+    private final AtomicLong sequence = new AtomicLong(-1);
+
+    /**
+     * {@link List} the reused batch.
+     */
+    private final List<Object> batch = new ArrayList<>(MAX_BATCH);
+
+    /**
+     * {@link Thread} the thread of this consumer.
+     */
+    private volatile Thread thread;
+
+    /**
+     * {@link Boolean} whether this consumer is parked waiting for events.
+     */
+    private volatile boolean sleeping;
+
+    /**
+     * {@link Boolean} whether this consumer is still part of the ring.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Primary constructor.
+     */
+    private Group(String name, EventSubscriber.Overflow overflow, Consumer<List<Object>> handler, Consumer<Exception> failures,
+                  Counter dropped, Counter sampled) {
+      this.name = name;
+      this.overflow = overflow;
+      this.handler = handler;
+      this.failures = failures;
+      this.dropped = dropped;
+      this.sampled = sampled;
+    }
+
+    /**
+     * Get the name of this consumer.
+     *
+     * @return {@link String}
+     */
+    String name() {
+      return this.name;
+    }
+
+    /**
+     * Get the amount of events published which this consumer has not handled yet.
+     *
+     * @param ring {@link EventRing} the ring of this consumer.
+     * @return {@link Long}
+     */
+    long lag(EventRing ring) {
+      return Math.max(0, ring.cursor() - sequence.get());
+    }
+
+    /**
+     * Consume the ring until removed.
+     */
+    private void run(EventRing ring) {
+      int idle = 0;
+      while (running) {
+        final long next = sequence.get() + 1;
+        final int count = collect(ring, next);
+        if (count < 0) {
+          continue;
+        }
+
+        if (count == 0) {
+          // spin briefly, then sleep until a publisher wakes this consumer
+          if (++idle < SPINS) {
+            Thread.onSpinWait();
+            continue;
+          }
+          sleeping = true;
+          if (ring.published.get((int) next & ring.mask) != next)
+            LockSupport.parkNanos(MAX_SLEEP);
+          sleeping = false;
+          continue;
+        }
+
+        idle = 0;
+        try {
+          if (!batch.isEmpty())
+            handler.accept(batch);
+        } catch (Exception exception) {
+          failures.accept(exception);
+        } finally {
+          batch.clear();
+          sequence.set(next + count - 1);
+        }
+      }
+    }
+
+    /**
+     * Collect the events available from a sequence into the batch.
+     *
+     * @return {@link Integer} the amount of sequences collected (-1 if lapped, having skipped ahead instead).
+     */
+    private int collect(EventRing ring, long next) {
+      final boolean sampling = overflow == EventSubscriber.Overflow.SAMPLE && ring.cursor() - next > ring.capacity / 2;
+      int count = 0;
+      while (count < MAX_BATCH) {
+        final long sequence = next + count;
+        final int index = (int) sequence & ring.mask;
+        final long found = ring.published.get(index);
+        if (found == sequence) {
+          final Object event = ring.slots.get(index);
+          if (ring.published.get(index) != sequence)
+            return count > 0 ? count : skip(ring, sequence);
+
+          if (!sampling || sequence % SAMPLE_RATE == 0)
+            batch.add(event);
+          else
+            sampled.increment();
+          count++;
+          continue;
+        }
+
+        // overwritten (or being overwritten) by a later sequence - lapped
+        if (found > sequence || found < -sequence - 1)
+          return count > 0 ? count : skip(ring, sequence);
+        break;
+      }
+      return count;
+    }
+
+    /**
+     * Skip ahead to the oldest sequence still held by the ring.
+     */
+    private int skip(EventRing ring, long lapped) {
+      final long oldest = Math.max(lapped + 1, ring.cursor() - ring.capacity + 1);
+      dropped.add(oldest - lapped);
+      sequence.set(oldest - 1);
+      return -1;
+    }
+  }
+}
\ No newline at end of file
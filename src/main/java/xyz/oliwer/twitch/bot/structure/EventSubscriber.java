@@ -2,7 +2,56 @@ package xyz.oliwer.twitch.bot.structure;
 
 /**
  * This interface represents an event subscriber.
+ * <br/>
+ *
+ * Handlers are the public methods taking a single event - or a {@link java.util.List} of events to receive them in batches
+ * (a batch is only valid for the duration of the call, and holds a single event unless the event ring is enabled).
  *
  * @author Oliwer - https://www.github.com/ImOliwer
  */
-public interface EventSubscriber {}
\ No newline at end of file
+public interface EventSubscriber {
+  /**
+   * Whether this subscriber only handles chat messages which may be commands (starting with the command prefix).
+   *
+   * Note: As long as every subscribed message handler only handles commands, all other messages are dropped
+   * from the raw line, before they are parsed into events.
+   *
+   * @return {@link Boolean} false by default (receiving every message).
+   */
+  default boolean commandsOnly() {
+    return false;
+  }
+
+  /**
+   * How this subscriber keeps up once it falls a full ring behind (only used while the event ring is enabled).
+   *
+   * @return {@link Overflow} {@link Overflow#BLOCK} by default.
+   */
+  default Overflow overflow() {
+    return Overflow.BLOCK;
+  }
+
+  /**
+   * Invoked once this subscriber is unsubscribed (or the client it was subscribed to is shut down),
+   * releasing whatever it holds.
+   */
+  default void onUnsubscribe() {}
+
+  /**
+   * This enumeration represents how a subscriber keeps up with the event ring once it falls behind.
+   * <br/>
+   *
+   * <ul>
+   *   <li>BLOCK       = Publishing waits for this subscriber (backpressure onto the chat connection)</li>
+   *   <li>DROP_OLDEST = Events this subscriber was lapped on are skipped</li>
+   *   <li>SAMPLE      = Only a share of events is handled while more than half a ring behind, skipping when lapped</li>
+   * </ul>
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  enum Overflow {
+    BLOCK,
+    DROP_OLDEST,
+    SAMPLE
+  }
+}
\ No newline at end of file
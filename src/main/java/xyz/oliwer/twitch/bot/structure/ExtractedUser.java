@@ -4,8 +4,8 @@ import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
 import com.github.twitch4j.common.enums.CommandPermission;
 import com.github.twitch4j.common.events.domain.EventUser;
 
+import java.util.Collection;
 import java.util.EnumSet;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -25,14 +25,27 @@ public final class ExtractedUser implements Snowflake<String> {
   private final String name;
 
   /**
-   * {@link Set<CommandPermission>} set of permissions.
+   * {@link CommandPermission} array of all permissions, indexed by ordinal.
    */
-  private final Set<CommandPermission> permissions;
+  private static final CommandPermission[] PERMISSIONS = CommandPermission.values();
+
+  /**
+   * {@link Long} bitmask of permissions (one bit per {@link CommandPermission#ordinal()}).
+   */
+  private final long permissions;
 
   /**
    * Primary constructor.
    */
   public ExtractedUser(String id, String name, Set<CommandPermission> permissions) {
+    this(id, name, mask(permissions));
+  }
+
+  /**
+   * @param permissions {@link Long} bitmask of permissions.
+   * @see ExtractedUser#ExtractedUser(String, String, Set)
+   */
+  public ExtractedUser(String id, String name, long permissions) {
     // enforce non-nullable values
     if (id == null || name == null)
       throw new NullPointerException("id and name must not be null");
@@ -40,7 +53,7 @@ public final class ExtractedUser implements Snowflake<String> {
     // initialize our values
     this.id = id;
     this.name = name;
-    this.permissions = EnumSet.copyOf(permissions == null ? new HashSet<>() : permissions);
+    this.permissions = permissions;
   }
 
   /**
@@ -59,6 +72,42 @@ public final class ExtractedUser implements Snowflake<String> {
     this(event.getUser(), event.getPermissions());
   }
 
+  /**
+   * Get the user of a message event, reusing the cached instance of said user
+   * as long as its name and permissions are unchanged.
+   *
+   * @param event {@link ChannelMessageEvent} message event to fetch user and permission from.
+   * @return {@link ExtractedUser}
+   */
+  public static ExtractedUser of(ChannelMessageEvent event) {
+    return UserCache.SHARED.get(event.getUser(), event.getPermissions());
+  }
+
+  /**
+   * Get the bit of a permission.
+   *
+   * @param permission {@link CommandPermission} the permission.
+   * @return {@link Long}
+   */
+  public static long bit(CommandPermission permission) {
+    return 1L << permission.ordinal();
+  }
+
+  /**
+   * Get the bitmask of a collection of permissions.
+   *
+   * @param permissions {@link Collection<CommandPermission>} the permissions (null is treated as none).
+   * @return {@link Long}
+   */
+  public static long mask(Collection<CommandPermission> permissions) {
+    long mask = 0;
+    if (permissions != null) {
+      for (CommandPermission permission : permissions)
+        mask |= bit(permission);
+    }
+    return mask;
+  }
+
   /**
    * Get whether this user can access a permission.
    *
@@ -66,7 +115,17 @@ public final class ExtractedUser implements Snowflake<String> {
    * @return {@link Boolean}
    */
   public boolean canAccess(CommandPermission permission) {
-    return this.permissions.contains(permission);
+    return (this.permissions & bit(permission)) != 0;
+  }
+
+  /**
+   * Get whether this user can access all permissions of a bitmask.
+   *
+   * @param mask {@link Long} bitmask of the permissions to check.
+   * @return {@link Boolean}
+   */
+  public boolean canAccessAll(long mask) {
+    return (this.permissions & mask) == mask;
   }
 
   /**
@@ -75,7 +134,19 @@ public final class ExtractedUser implements Snowflake<String> {
    * @return {@link Set<CommandPermission>}
    */
   public Set<CommandPermission> permissions() {
-    return new HashSet<>(this.permissions);
+    final Set<CommandPermission> permissions = EnumSet.noneOf(CommandPermission.class);
+    for (long remaining = this.permissions; remaining != 0; remaining &= remaining - 1)
+      permissions.add(PERMISSIONS[Long.numberOfTrailingZeros(remaining)]);
+    return permissions;
+  }
+
+  /**
+   * Get the bitmask of all permissions that this user have.
+   *
+   * @return {@link Long}
+   */
+  public long mask() {
+    return this.permissions;
   }
 
   /**
@@ -0,0 +1,137 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import com.github.philippheuer.events4j.core.EventManager;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import xyz.oliwer.twitch.bot.metrics.BotMetrics;
+import xyz.oliwer.twitch.bot.metrics.Counter;
+
+import static xyz.oliwer.twitch.bot.command.Command.PREFIX;
+
+/**
+ * This class represents the event manager of a bot client, able to drop chat messages which cannot be commands
+ * before they are turned into a {@link com.github.twitch4j.chat.events.channel.ChannelMessageEvent}.
+ * <br/>
+ *
+ * Note: Only the raw line is inspected - a message is kept if it starts with {@link xyz.oliwer.twitch.bot.command.Command#PREFIX}
+ * (immediately followed by an alias), or if it carries bits or a channel point reward (which other events are built from).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class IngestEventManager extends EventManager {
+  /**
+   * {@link BotMetrics} this property represents the instruments messages are counted in.
+   */
+  private final BotMetrics metrics;
+
+  /**
+   * {@link Counter} this property represents the amount of messages dropped.
+   */
+  private final Counter skipped;
+
+  /**
+   * {@link Boolean} this property represents whether messages which cannot be commands are dropped.
+   */
+  private volatile boolean commandsOnly;
+
+  /**
+   * {@link ChatPool} this property represents the pool messages are counted towards the shards of (null until set).
+   */
+  private volatile ChatPool pool;
+
+  /**
+   * Primary constructor.
+   *
+   * @param metrics {@link BotMetrics} the instruments to count messages in.
+   */
+  IngestEventManager(BotMetrics metrics) {
+    this.metrics = metrics;
+    this.skipped = metrics.registry().counter(
+      "bot_chat_messages_skipped_total",
+      "Chat messages dropped before being parsed, as they cannot be commands."
+    );
+  }
+
+  /**
+   * @see EventManager#publish(Object)
+   */
+  @Override
+  public void publish(Object event) {
+    if (event instanceof IRCMessageEvent message && "PRIVMSG".equals(message.getCommandType())) {
+      final String channel = message.getChannelName().orElse(null);
+      metrics.messages().labels(channel).increment();
+      final ChatPool pool = this.pool;
+      if (pool != null)
+        pool.received(channel);
+      if (commandsOnly && !isCandidate(message.getRawMessage())) {
+        skipped.increment();
+        return;
+      }
+    }
+    super.publish(event);
+  }
+
+  /**
+   * Set whether messages which cannot be commands are dropped.
+   *
+   * @param commandsOnly {@link Boolean}
+   */
+  void setCommandsOnly(boolean commandsOnly) {
+    this.commandsOnly = commandsOnly;
+  }
+
+  /**
+   * Set the pool messages are counted towards the shards of, estimating what an outage of a shard loses.
+   *
+   * @param pool {@link ChatPool}
+   */
+  void setPool(ChatPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Get whether a raw PRIVMSG line has to be parsed - being a command candidate or carrying other events.
+   *
+   * @param raw {@link String} the raw line ("@tags :prefix PRIVMSG #channel :message").
+   * @return {@link Boolean}
+   */
+  static boolean isCandidate(String raw) {
+    if (raw == null) {
+      return true;
+    }
+
+    int position = 0;
+    if (raw.startsWith("@")) {
+      final int end = raw.indexOf(' ');
+      if (end < 0 || hasTag(raw, end, "bits=") || hasTag(raw, end, "custom-reward-id="))
+        return true;
+      position = end + 1;
+    }
+
+    // skip the source, command & channel, landing on the trailing message (anything unexpected is left to twitch4j)
+    if (position >= raw.length()) {
+      return true;
+    }
+    final int source = raw.charAt(position) == ':' ? raw.indexOf(' ', position) : position;
+    final int message = source < 0 ? -1 : raw.indexOf(" :", source);
+    if (message < 0) {
+      return true;
+    }
+
+    final int start = message + 2;
+    return raw.length() - start >= 2 && raw.charAt(start) == PREFIX && raw.charAt(start + 1) != ' ';
+  }
+
+  /**
+   * Get whether the tags section of a raw line (ending at passed index) holds a tag.
+   */
+  private static boolean hasTag(String raw, int end, String tag) {
+    int index = raw.indexOf(tag, 1);
+    while (index >= 0 && index < end) {
+      final char before = raw.charAt(index - 1);
+      if (before == '@' || before == ';')
+        return true;
+      index = raw.indexOf(tag, index + 1);
+    }
+    return false;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,674 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import xyz.oliwer.twitch.bot.util.ChatMessage;
+import xyz.oliwer.twitch.bot.util.TokenBucket;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class represents the scheduler of all outbound chat messages,
+ * keeping the bot within the send limits of Twitch.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Channel messages are limited globally (regular & moderator limits) and per channel (regular only).</li>
+ *   <li>Whispers are limited separately, per second and per minute.</li>
+ *   <li>Messages are sent by priority, then in order of submission - among those whose buckets have tokens.</li>
+ *   <li>Each channel has a lane of its own, kept aside until its bucket refills, so a drained channel never holds up a ready one.</li>
+ *   <li>Submissions are rejected once the queue is full.</li>
+ * </ul>
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class OutboundScheduler {
+  /**
+   * {@link Limits} this property represents the limits this scheduler abides by.
+   */
+  private final Limits limits;
+
+  /**
+   * {@link Integer} this property represents the maximum amount of queued messages.
+   */
+  private final int capacity;
+
+  /**
+   * {@link Sender} this property represents the function which actually sends a message.
+   */
+  private final Sender sender;
+
+  /**
+   * {@link ReentrantLock} the lock guarding the queue and all buckets.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * {@link Condition} signalled whenever a message is queued.
+   */
+  private final Condition queued = lock.newCondition();
+
+  /**
+   * {@link Map} this property represents the lane (and bucket) of each channel.
+   */
+  private final Map<String, Lane> lanes = new HashMap<>();
+
+  /**
+   * {@link Lane} this property represents the lane of all whispers (sharing the same buckets).
+   */
+  private final Lane whispers = new Lane(null, null);
+
+  /**
+   * {@link PriorityQueue} this property represents the lanes of regular channels whose bucket has a token, by their head.
+   */
+  private final PriorityQueue<Ready> regularReady = new PriorityQueue<>();
+
+  /**
+   * {@link PriorityQueue} this property represents the lanes of moderated channels with pending messages, by their head.
+   */
+  private final PriorityQueue<Ready> moderatedReady = new PriorityQueue<>();
+
+  /**
+   * {@link PriorityQueue} this property represents the lanes of regular channels waiting for their bucket to refill, by when it does.
+   */
+  private final PriorityQueue<Waiting> waiting = new PriorityQueue<>();
+
+  /**
+   * {@link Set} this property represents all channels where the bot is a moderator (guarded by the lock).
+   */
+  private final Set<String> moderated = new HashSet<>();
+
+  /**
+   * {@link TokenBucket} the global bucket for messages sent in channels where the bot is a regular user.
+   */
+  private final TokenBucket regularBucket;
+
+  /**
+   * {@link TokenBucket} the global bucket for all channel messages.
+   */
+  private final TokenBucket moderatorBucket;
+
+  /**
+   * {@link TokenBucket} the bucket for whispers per second.
+   */
+  private final TokenBucket whisperSecondBucket;
+
+  /**
+   * {@link TokenBucket} the bucket for whispers per minute.
+   */
+  private final TokenBucket whisperMinuteBucket;
+
+  /**
+   * {@link Thread} the thread dispatching messages.
+   */
+  private final Thread dispatcher;
+
+  /**
+   * {@link Long} this property represents the sequence used to keep submission order.
+   */
+  private long sequence;
+
+  /**
+   * {@link Integer} this property represents the amount of queued messages.
+   */
+  private int size;
+
+  /**
+   * {@link Boolean} whether this scheduler is running.
+   */
+  private volatile boolean running = true;
+
+  /**
+   * {@link LongAdder} the amount of messages sent.
+   */
+  private final LongAdder sent = new LongAdder();
+
+  /**
+   * {@link LongAdder} the amount of messages rejected on submission.
+   */
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * {@link LongAdder} the total nanoseconds messages have waited in queue.
+   */
+  private final LongAdder totalWait = new LongAdder();
+
+  /**
+   * {@link AtomicLong} the longest nanoseconds a message has waited in queue.
+   */
+  private final AtomicLong maxWait = new AtomicLong();
+
+  /**
+   * Primary constructor.
+   *
+   * @param limits {@link Limits} the limits to abide by.
+   * @param capacity {@link Integer} the maximum amount of queued messages.
+   * @param sender {@link Sender} the function which actually sends a message.
+   */
+  public OutboundScheduler(Limits limits, int capacity, Sender sender) {
+    if (limits == null || sender == null)
+      throw new NullPointerException("limits and sender must not be null");
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be positive");
+
+    this.limits = limits;
+    this.capacity = capacity;
+    this.sender = sender;
+
+    final long now = System.nanoTime();
+    final long window = limits.window().toNanos();
+    this.regularBucket = TokenBucket.perWindow(limits.regular(), window, now);
+    this.moderatorBucket = TokenBucket.perWindow(limits.moderator(), window, now);
+    this.whisperSecondBucket = TokenBucket.perWindow(limits.whispersPerSecond(), TimeUnit.SECONDS.toNanos(1), now);
+    this.whisperMinuteBucket = TokenBucket.perWindow(limits.whispersPerMinute(), TimeUnit.MINUTES.toNanos(1), now);
+
+    this.dispatcher = new Thread(this::dispatch, "outbound-scheduler");
+    this.dispatcher.setDaemon(true);
+    this.dispatcher.start();
+  }
+
+  /**
+   * Submit a message to be sent.
+   *
+   * @param receiver {@link String} the channel (or user for whispers) to send to.
+   * @param type {@link ChatMessage} type of message.
+   * @param message {@link String} the message to send.
+   * @param priority {@link Priority} priority of the message.
+   * @return {@link CompletableFuture} completed with the result of sending once actually sent,
+   *         or completed exceptionally with {@link RejectedExecutionException} if the queue is full.
+   */
+  public CompletableFuture<Boolean> submit(String receiver, ChatMessage type, String message, Priority priority) {
+    if (receiver == null || type == null || message == null || priority == null)
+      throw new NullPointerException("receiver, type, message and priority must not be null");
+
+    final CompletableFuture<Boolean> future = new CompletableFuture<>();
+    lock.lock();
+    try {
+      if (!running || size >= capacity) {
+        rejected.increment();
+        future.completeExceptionally(new RejectedExecutionException("outbound queue is full"));
+        return future;
+      }
+
+      final long now = System.nanoTime();
+      final Pending pending = new Pending(receiver, type, message, priority, sequence++, now, future);
+      final Lane lane = type == ChatMessage.WHISPER ? whispers : lane(receiver, now);
+      final Pending head = lane.pending.peek();
+      lane.pending.add(pending);
+      size++;
+
+      if (lane.state == Lane.IDLE)
+        schedule(lane, now);
+      else if (lane.state == Lane.READY && lane != whispers && pending.compareTo(head) < 0)
+        ready(lane);
+      queued.signal();
+    } finally {
+      lock.unlock();
+    }
+    return future;
+  }
+
+  /**
+   * Set whether the bot is a moderator in a channel (raising its limits there).
+   *
+   * @param channel {@link String} name of the channel.
+   * @param moderator {@link Boolean} whether the bot is a moderator.
+   */
+  public void setModerator(String channel, boolean moderator) {
+    lock.lock();
+    try {
+      if (!(moderator ? moderated.add(channel) : moderated.remove(channel))) {
+        return;
+      }
+
+      final Lane lane = lanes.get(channel);
+      if (lane != null && lane.state != Lane.IDLE) {
+        schedule(lane, System.nanoTime());
+        queued.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get a snapshot of the metrics of this scheduler.
+   *
+   * @return {@link Metrics}
+   */
+  public Metrics metrics() {
+    final int depth;
+    lock.lock();
+    try {
+      depth = size;
+    } finally {
+      lock.unlock();
+    }
+
+    final long count = sent.sum();
+    return new Metrics(
+      depth,
+      count,
+      rejected.sum(),
+      count == 0 ? 0 : totalWait.sum() / count,
+      maxWait.get()
+    );
+  }
+
+  /**
+   * Stop dispatching, failing all messages left in queue.
+   */
+  public void shutdown() {
+    lock.lock();
+    try {
+      running = false;
+      final RejectedExecutionException exception = new RejectedExecutionException("outbound scheduler was shut down");
+      for (Lane lane : lanes.values())
+        lane.drain(exception);
+      whispers.drain(exception);
+      regularReady.clear();
+      moderatedReady.clear();
+      waiting.clear();
+      size = 0;
+      queued.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * The loop of the dispatching thread.
+   */
+  private void dispatch() {
+    while (running) {
+      final Pending pending;
+      try {
+        pending = next();
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      if (pending == null) {
+        continue;
+      }
+
+      final long waited = System.nanoTime() - pending.queuedAt();
+      totalWait.add(waited);
+      maxWait.accumulateAndGet(waited, Math::max);
+
+      try {
+        final boolean result = sender.send(pending.receiver(), pending.type(), pending.message());
+        sent.increment();
+        pending.future().complete(result);
+      } catch (Exception exception) {
+        pending.future().completeExceptionally(exception);
+      }
+    }
+  }
+
+  /**
+   * Wait for the next message allowed to be sent, taking its tokens.
+   *
+   * @return {@link Pending} the message to send (null if woken up without one).
+   */
+  private Pending next() throws InterruptedException {
+    lock.lock();
+    try {
+      while (running && size == 0)
+        queued.await();
+      if (!running) {
+        return null;
+      }
+
+      final long now = System.nanoTime();
+      promote(now);
+
+      // the head of each kind of lane is only a candidate while the global buckets of its kind have a token
+      final long channelDelay = moderatorBucket.nanosUntilAvailable(now);
+      final long regularDelay = Math.max(channelDelay, regularBucket.nanosUntilAvailable(now));
+      final long whisperDelay = Math.max(
+        whisperSecondBucket.nanosUntilAvailable(now),
+        whisperMinuteBucket.nanosUntilAvailable(now)
+      );
+
+      Lane best = null;
+      long wait = Long.MAX_VALUE;
+      if (!whispers.pending.isEmpty()) {
+        if (whisperDelay == 0) best = whispers;
+        else wait = whisperDelay;
+      }
+
+      final Lane moderatedLane = peek(moderatedReady, true);
+      if (moderatedLane != null) {
+        if (channelDelay == 0) best = better(best, moderatedLane);
+        else wait = Math.min(wait, channelDelay);
+      }
+
+      final Lane regularLane = peek(regularReady, false);
+      if (regularLane != null) {
+        if (regularDelay == 0) best = better(best, regularLane);
+        else wait = Math.min(wait, regularDelay);
+      }
+
+      if (best == null) {
+        final Waiting refill = peekWaiting();
+        if (refill != null)
+          wait = Math.min(wait, refill.readyAt() - now);
+        queued.awaitNanos(Math.max(1, wait));
+        return null;
+      }
+
+      final Pending ready = best.pending.poll();
+      size--;
+      acquire(best, now);
+      schedule(best, now);
+      evictIdle(now);
+      return ready;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Move the lanes whose bucket refilled by now onto their ready queue.
+   */
+  private void promote(long now) {
+    for (Waiting refill = peekWaiting(); refill != null && refill.readyAt() <= now; refill = peekWaiting()) {
+      waiting.poll();
+      schedule(refill.lane(), now);
+    }
+  }
+
+  /**
+   * Get the first lane waiting for its bucket to refill, discarding stale entries.
+   */
+  private Waiting peekWaiting() {
+    Waiting refill;
+    while ((refill = waiting.peek()) != null
+      && (refill.lane().state != Lane.WAITING || refill.lane().readyAt != refill.readyAt()))
+      waiting.poll();
+    return refill;
+  }
+
+  /**
+   * Get the ready lane with the first head, discarding stale entries.
+   */
+  private static Lane peek(PriorityQueue<Ready> queue, boolean moderated) {
+    Ready ready;
+    while ((ready = queue.peek()) != null) {
+      final Lane lane = ready.lane();
+      if (lane.state == Lane.READY && lane.moderated == moderated && lane.pending.peek() == ready.head()) {
+        return lane;
+      }
+      queue.poll();
+    }
+    return null;
+  }
+
+  /**
+   * Get whichever lane has the first head.
+   */
+  private static Lane better(Lane best, Lane candidate) {
+    return best == null || candidate.pending.peek().compareTo(best.pending.peek()) < 0 ? candidate : best;
+  }
+
+  /**
+   * Place a lane according to its pending messages and bucket - idle, ready or waiting for a token.
+   */
+  private void schedule(Lane lane, long now) {
+    if (lane.pending.isEmpty()) {
+      lane.state = Lane.IDLE;
+      return;
+    }
+    if (lane == whispers) {
+      lane.state = Lane.READY;
+      return;
+    }
+
+    lane.moderated = moderated.contains(lane.receiver);
+    final long delay = lane.moderated ? 0 : lane.bucket.nanosUntilAvailable(now);
+    if (delay == 0) {
+      ready(lane);
+      return;
+    }
+
+    lane.state = Lane.WAITING;
+    lane.readyAt = now + delay;
+    waiting.add(new Waiting(lane, lane.readyAt));
+  }
+
+  /**
+   * Queue a lane as ready by its current head (replacing any earlier entry, left stale).
+   */
+  private void ready(Lane lane) {
+    lane.state = Lane.READY;
+    (lane.moderated ? moderatedReady : regularReady).add(new Ready(lane, lane.pending.peek()));
+  }
+
+  /**
+   * Take the tokens needed to send the head of a lane.
+   */
+  private void acquire(Lane lane, long now) {
+    if (lane == whispers) {
+      whisperSecondBucket.tryAcquire(now);
+      whisperMinuteBucket.tryAcquire(now);
+      return;
+    }
+
+    moderatorBucket.tryAcquire(now);
+    if (!lane.moderated) {
+      regularBucket.tryAcquire(now);
+      lane.bucket.tryAcquire(now);
+    }
+  }
+
+  /**
+   * Get (or create) the lane of a channel.
+   */
+  private Lane lane(String channel, long now) {
+    return lanes.computeIfAbsent(
+      channel,
+      key -> new Lane(key, new TokenBucket(1, limits.channelInterval().toNanos(), now))
+    );
+  }
+
+  /**
+   * Discard the lanes of channels which have been idle long enough for their bucket to be full again.
+   */
+  private void evictIdle(long now) {
+    if (lanes.size() <= capacity) {
+      return;
+    }
+    lanes.values().removeIf(lane -> lane.state == Lane.IDLE && lane.bucket.isFull(now));
+  }
+
+  /**
+   * This enumeration represents the priorities of outbound messages.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public enum Priority {
+    HIGH,
+    NORMAL,
+    LOW
+  }
+
+  /**
+   * This record represents the send limits of Twitch.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Limits(
+    int regular,
+    int moderator,
+    Duration window,
+    Duration channelInterval,
+    int whispersPerSecond,
+    int whispersPerMinute
+  ) {
+    /**
+     * {@link Limits} this constant represents the limits of a regular (non verified) bot account.
+     * <br/>
+     *
+     * <ul>
+     *   <li>20 messages per 30 seconds (100 in channels where the bot is a moderator).</li>
+     *   <li>1 message per second per channel where the bot is not a moderator.</li>
+     *   <li>3 whispers per second & 100 whispers per minute.</li>
+     * </ul>
+     */
+    public static final Limits DEFAULT = new Limits(20, 100, Duration.ofSeconds(30), Duration.ofSeconds(1), 3, 100);
+  }
+
+  /**
+   * This record represents a snapshot of the scheduler metrics.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Metrics(
+    int queueDepth,
+    long sent,
+    long rejected,
+    long averageWaitNanos,
+    long maxWaitNanos
+  ) {}
+
+  /**
+   * This functional interface represents a single method
+   * used to actually send a message.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  @FunctionalInterface
+  public interface Sender {
+    /**
+     * Send a message.
+     *
+     * @param receiver {@link String} the channel (or user for whispers) to send to.
+     * @param type {@link ChatMessage} type of message.
+     * @param message {@link String} the message to send.
+     * @return {@link Boolean} whether sending was successful.
+     */
+    boolean send(String receiver, ChatMessage type, String message);
+  }
+
+  /**
+   * This record represents a message waiting to be sent.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Pending(
+    String receiver,
+    ChatMessage type,
+    String message,
+    Priority priority,
+    long sequence,
+    long queuedAt,
+    CompletableFuture<Boolean> future
+  ) implements Comparable<Pending> {
+    /**
+     * @see Comparable#compareTo(Object)
+     */
+    @Override
+    public int compareTo(Pending other) {
+      final int byPriority = priority.compareTo(other.priority);
+      return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  /**
+   * This class represents the lane of a single channel (or all whispers) - its pending messages and bucket.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Lane {
+    /**
+     * {@link Integer} the states of a lane: without pending messages, queued as ready, or waiting for its bucket.
+     */
+    static final int IDLE = 0, READY = 1, WAITING = 2;
+
+    /**
+     * {@link String} this property represents the channel of this lane (null for whispers).
+     */
+    final String receiver;
+
+    /**
+     * {@link TokenBucket} this property represents the bucket of said channel (null for whispers).
+     */
+    final TokenBucket bucket;
+
+    /**
+     * {@link PriorityQueue} this property represents the pending messages of this lane.
+     */
+    final PriorityQueue<Pending> pending = new PriorityQueue<>();
+
+    /**
+     * {@link Integer} this property represents the state of this lane.
+     */
+    int state = IDLE;
+
+    /**
+     * {@link Boolean} whether the bot was a moderator in said channel as this lane was last scheduled.
+     */
+    boolean moderated;
+
+    /**
+     * {@link Long} this property represents when the bucket of this lane refills (while waiting).
+     */
+    long readyAt;
+
+    /**
+     * Primary constructor.
+     */
+    Lane(String receiver, TokenBucket bucket) {
+      this.receiver = receiver;
+      this.bucket = bucket;
+    }
+
+    /**
+     * Fail and discard all pending messages of this lane.
+     */
+    void drain(RejectedExecutionException exception) {
+      for (Pending message : pending)
+        message.future().completeExceptionally(exception);
+      pending.clear();
+      state = IDLE;
+    }
+  }
+
+  /**
+   * This record represents a lane queued as ready by its head at the time (stale once the head changed).
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Ready(Lane lane, Pending head) implements Comparable<Ready> {
+    /**
+     * @see Comparable#compareTo(Object)
+     */
+    @Override
+    public int compareTo(Ready other) {
+      return head.compareTo(other.head);
+    }
+  }
+
+  /**
+   * This record represents a lane waiting for its bucket to refill (stale once the lane was scheduled again).
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private record Waiting(Lane lane, long readyAt) implements Comparable<Waiting> {
+    /**
+     * @see Comparable#compareTo(Object)
+     */
+    @Override
+    public int compareTo(Waiting other) {
+      return Long.compare(readyAt, other.readyAt);
+    }
+  }
+}
\ No newline at end of file
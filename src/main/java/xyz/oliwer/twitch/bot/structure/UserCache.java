@@ -0,0 +1,69 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import com.github.twitch4j.common.enums.CommandPermission;
+import com.github.twitch4j.common.events.domain.EventUser;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class represents a bounded cache of extracted users, mapped by their identifier.
+ *
+ * Note: The cache is direct mapped - each user has exactly one slot, and a user claiming an occupied slot
+ * simply replaces its previous occupant. An entry is only rebuilt when the name or permissions of its user change.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class UserCache {
+  /**
+   * {@link UserCache} this constant represents the cache shared by {@link ExtractedUser#of}.
+   */
+  public static final UserCache SHARED = new UserCache(1 << 13);
+
+  /**
+   * {@link AtomicReferenceArray} this property represents the slots of this cache.
+   */
+  private final AtomicReferenceArray<ExtractedUser> slots;
+
+  /**
+   * Primary constructor.
+   *
+   * @param capacity {@link Integer} the amount of slots (rounded up to a power of two).
+   */
+  public UserCache(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be positive");
+    this.slots = new AtomicReferenceArray<>(capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+  }
+
+  /**
+   * Get the extracted user of passed user and permissions, reusing the cached instance whenever it is up to date.
+   *
+   * @param user {@link EventUser} the user to extract.
+   * @param permissions {@link Set<CommandPermission>} the current permissions of said user.
+   * @return {@link ExtractedUser}
+   */
+  public ExtractedUser get(EventUser user, Set<CommandPermission> permissions) {
+    final String id = user.getId();
+    final String name = user.getName();
+    final long mask = ExtractedUser.mask(permissions);
+    final int slot = spread(id.hashCode()) & (slots.length() - 1);
+
+    final ExtractedUser cached = slots.get(slot);
+    if (cached != null && cached.mask() == mask && cached.id().equals(id) && cached.getName().equals(name)) {
+      return cached;
+    }
+
+    final ExtractedUser extracted = new ExtractedUser(id, name, mask);
+    slots.set(slot, extracted);
+    return extracted;
+  }
+
+  /**
+   * Spread the bits of a hash so that similar identifiers end up in different slots.
+   */
+  private static int spread(int hash) {
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package xyz.oliwer.twitch.bot.subscribers;
+
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import org.jetbrains.annotations.NotNull;
+import xyz.oliwer.twitch.bot.chatlog.ChatLog;
+import xyz.oliwer.twitch.bot.structure.EventSubscriber;
+
+/**
+ * This record represents the chat log event subscriber, appending every message to a {@link ChatLog}.
+ *
+ * Note: Messages are only queued on the dispatching thread - a full queue drops them rather than stalling ingestion.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public record ChatLogSubscriber(ChatLog log) implements EventSubscriber {
+  /**
+   * Primary constructor.
+   */
+  public ChatLogSubscriber(@NotNull ChatLog log) {
+    if (log == null)
+      throw new NullPointerException("log must not be null");
+    this.log = log;
+  }
+
+  /**
+   * Handle the regular incoming messages in channels.
+   *
+   * @param event {@link ChannelMessageEvent}
+   */
+  public void onMessage(ChannelMessageEvent event) {
+    final String message = event.getMessage();
+    if (message == null) {
+      return;
+    }
+
+    log.append(
+      event.getChannel().getName(),
+      System.currentTimeMillis(),
+      event.getUser().getId(),
+      event.getUser().getName(),
+      message
+    );
+  }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package xyz.oliwer.twitch.bot.subscribers;
 
 import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
 import org.jetbrains.annotations.NotNull;
+import xyz.oliwer.twitch.bot.command.Arguments;
 import xyz.oliwer.twitch.bot.command.CommandController;
 import xyz.oliwer.twitch.bot.structure.BotClient;
 import xyz.oliwer.twitch.bot.structure.EventSubscriber;
@@ -16,16 +17,48 @@ import static xyz.oliwer.twitch.bot.command.Command.PREFIX;
  */
 public record CommandSubscriber(
   CommandController controller,
-  BotClient client
+  BotClient client,
+  FloodFilter flood
 ) implements EventSubscriber {
+  /**
+   * {@link ThreadLocal<Arguments>} this constant represents the reusable tokenizer of each dispatching thread.
+   */
+  private static final ThreadLocal<Arguments> TOKENIZER = ThreadLocal.withInitial(Arguments::new);
+
   /**
    * Primary constructor.
    */
-  public CommandSubscriber(@NotNull CommandController controller, @NotNull BotClient client) {
-    if (controller == null || client == null)
-      throw new NullPointerException("controller and client must not be null");
+  public CommandSubscriber(@NotNull CommandController controller, @NotNull BotClient client, @NotNull FloodFilter flood) {
+    if (controller == null || client == null || flood == null)
+      throw new NullPointerException("controller, client and flood must not be null");
     this.controller = controller;
     this.client = client;
+    this.flood = flood;
+  }
+
+  /**
+   * Create a subscriber with a flood filter of the default threshold & window.
+   */
+  public CommandSubscriber(@NotNull CommandController controller, @NotNull BotClient client) {
+    this(controller, client, new FloodFilter(controller, client));
+  }
+
+  /**
+   * @see EventSubscriber#commandsOnly()
+   */
+  @Override
+  public boolean commandsOnly() {
+    return true;
+  }
+
+  /**
+   * Close the flood filter of this subscriber.
+   *
+   * @see EventSubscriber#onUnsubscribe()
+   */
+  @Override
+  public void onUnsubscribe() {
+    flood.close();
   }
 
   /**
@@ -34,23 +67,27 @@ public record CommandSubscriber(
    * @param event {@link ChannelMessageEvent}
    */
   public void onMessage(ChannelMessageEvent event) {
-    // enforce prefix
+    // enforce prefix (immediately followed by the alias)
     final String message = event.getMessage();
-    if (message.charAt(0) != PREFIX) {
+    if (message == null || message.length() < 2 || message.charAt(0) != PREFIX || message.charAt(1) == ' ') {
+      return;
+    }
+
+    // hold back copies of a flooding command before any work is spent on them
+    final String channel = event.getChannel().getName();
+    if (!flood.admit(channel, message)) {
       return;
     }
 
-    // extract necessities
-    final String[] arguments = message.split(" ");
-    final String command = arguments[0].substring(1);
+    // tokenize alias & arguments in place
+    final Arguments arguments = TOKENIZER.get().tokenize(message, 1);
 
     // attempt to perform command by alias
     controller.tryPerform(
       null,
-      event.getChannel().getName(),
-      command,
+      channel,
       arguments,
-      new ExtractedUser(event),
+      ExtractedUser.of(event),
       this.client
     );
   }
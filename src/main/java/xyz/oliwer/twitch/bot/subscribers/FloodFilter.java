@@ -0,0 +1,386 @@
+package xyz.oliwer.twitch.bot.subscribers;
+
+import xyz.oliwer.twitch.bot.command.Command;
+import xyz.oliwer.twitch.bot.command.CommandController;
+import xyz.oliwer.twitch.bot.structure.BotClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * This class represents the flood filter in front of command dispatch - spotting the same command message
+ * repeated within a short window and handling the copies beyond a threshold by the {@link Command.FloodPolicy}
+ * of said command, before they are tokenized.
+ * <br/>
+ *
+ * <ul>
+ *   <li>Each channel counts messages in a rotating pair of count-min sketches (of saturating byte counters),
+ *       so its memory stays fixed no matter how many users or distinct messages show up.</li>
+ *   <li>Only messages counted beyond the threshold resolve their command to learn its policy.</li>
+ *   <li>Coalesced copies are held in a fixed table per channel and reported once per window,
+ *       where the command itself is performed (so a slow report never holds up rotating the windows).</li>
+ * </ul>
+ *
+ * Note: Sketches may overestimate, meaning a rare message sharing counters with a flood can be held back too.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class FloodFilter implements AutoCloseable {
+  /**
+   * {@link Integer} this constant represents the default amount of copies let through per window.
+   */
+  public static final int DEFAULT_THRESHOLD = 3;
+
+  /**
+   * {@link Duration} this constant represents the default window copies are counted within.
+   */
+  public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(10);
+
+  /**
+   * {@link Integer} this constant represents the default amount of counters per row of a sketch.
+   */
+  public static final int DEFAULT_WIDTH = 1024;
+
+  /**
+   * {@link Integer} this constant represents the amount of rows of a sketch.
+   */
+  private static final int DEPTH = 4;
+
+  /**
+   * {@link Integer} this constant represents the amount of floods coalesced per channel and window.
+   */
+  private static final int COALESCE_SLOTS = 16;
+
+  /**
+   * {@link Byte} this constant represents the value counters saturate at.
+   */
+  private static final byte SATURATED = Byte.MAX_VALUE;
+
+  /**
+   * {@link ScheduledExecutorService} this constant represents the scheduler rotating the windows of all filters.
+   */
+  private static final ScheduledExecutorService ROTATOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "flood-filter");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * {@link CommandController} this property represents the controller commands are resolved through.
+   */
+  private final CommandController controller;
+
+  /**
+   * {@link BotClient} this property represents the client coalesced commands are reported to.
+   */
+  private final BotClient client;
+
+  /**
+   * {@link Integer} this property represents the amount of copies let through per window.
+   */
+  private final int threshold;
+
+  /**
+   * {@link Integer} this property represents the amount of counters per row of a sketch (a power of two).
+   */
+  private final int width;
+
+  /**
+   * {@link Map} this property represents the window of each channel with recent messages.
+   */
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  /**
+   * {@link ScheduledFuture} the periodic rotation of said windows.
+   */
+  private final ScheduledFuture<?> rotation;
+
+  /**
+   * Create a filter with the default threshold, window & width.
+   *
+   * @see FloodFilter#FloodFilter(CommandController, BotClient, int, Duration, int)
+   */
+  public FloodFilter(CommandController controller, BotClient client) {
+    this(controller, client, DEFAULT_THRESHOLD, DEFAULT_WINDOW, DEFAULT_WIDTH);
+  }
+
+  /**
+   * Primary constructor.
+   *
+   * @param controller {@link CommandController} the controller commands are resolved through.
+   * @param client {@link BotClient} the client coalesced commands are reported to.
+   * @param threshold {@link Integer} the amount of copies let through per window.
+   * @param window {@link Duration} the window copies are counted within.
+   * @param width {@link Integer} the amount of counters per row of a sketch (rounded up to a power of two).
+   */
+  public FloodFilter(CommandController controller, BotClient client, int threshold, Duration window, int width) {
+    if (controller == null || client == null || window == null)
+      throw new NullPointerException("controller, client and window must not be null");
+    if (threshold <= 0 || threshold >= SATURATED || width <= 0)
+      throw new IllegalArgumentException("threshold must be between 1 and " + (SATURATED - 1) + " and width positive");
+    if (window.toMillis() < 2)
+      throw new IllegalArgumentException("window must be at least 2 milliseconds");
+
+    this.controller = controller;
+    this.client = client;
+    this.threshold = threshold;
+    this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+
+    // the sketches span the window as two halves, rotating every half
+    final long half = window.toMillis() / 2;
+    this.rotation = ROTATOR.scheduleAtFixedRate(this::rotate, half, half, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Count a command message, deciding whether it is dispatched.
+   *
+   * @param channel {@link String} name of the channel.
+   * @param message {@link String} the message (starting with the prefix, immediately followed by the alias).
+   * @return {@link Boolean} whether said message is to be dispatched.
+   */
+  public boolean admit(String channel, String message) {
+    final long hash = hash(message);
+    final Window window = windows.computeIfAbsent(channel == null ? "" : channel, key -> new Window(width));
+    if (window.increment(hash) <= threshold) {
+      return true;
+    }
+
+    // flooding - only now resolve the command to learn how to handle it
+    int end = 1;
+    while (end < message.length() && message.charAt(end) != ' ')
+      end++;
+    final Command command = controller.resolve(channel, message, 1, end);
+    if (command == null) {
+      return true;
+    }
+
+    final Command.FloodPolicy policy = command.floodPolicy();
+    if (policy == Command.FloodPolicy.NONE) {
+      return true;
+    }
+
+    client.metrics().floodSuppressed().labels(command.getAliases()[0]).increment();
+    if (policy == Command.FloodPolicy.COALESCE)
+      window.coalesce(hash, command, message);
+    return false;
+  }
+
+  /**
+   * Stop rotating windows - coalesced copies not yet reported are discarded.
+   *
+   * @see AutoCloseable#close()
+   */
+  @Override
+  public void close() {
+    rotation.cancel(false);
+    windows.clear();
+  }
+
+  /**
+   * Rotate the windows of all channels, reporting coalesced copies and dropping idle windows.
+   */
+  private void rotate() {
+    final Iterator<Map.Entry<String, Window>> iterator = windows.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, Window> entry = iterator.next();
+      final Window window = entry.getValue();
+      try {
+        if (window.rotate()) {
+          iterator.remove();
+          continue;
+        }
+        window.report(controller, client, entry.getKey());
+      } catch (Exception exception) {
+        client.errorSink().report(this, entry.getKey(), exception);
+      }
+    }
+  }
+
+  /**
+   * Hash a message - ignoring case, repeated spaces and the invisible suffix chat clients append
+   * to bypass the duplicate message check of Twitch (64-bit FNV-1a, followed by a final mix).
+   */
+  static long hash(String message) {
+    long hash = 0xcbf29ce484222325L;
+    boolean space = false;
+    for (int index = 0; index < message.length(); ) {
+      final int codePoint = message.codePointAt(index);
+      index += Character.charCount(codePoint);
+      if (codePoint == ' ' || codePoint == 0xE0000 || codePoint == 0x034F || Character.getType(codePoint) == Character.FORMAT) {
+        space = true;
+        continue;
+      }
+
+      if (space) {
+        hash ^= ' ';
+        hash *= 0x100000001b3L;
+        space = false;
+      }
+      hash ^= Character.toLowerCase(codePoint);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    return hash ^ hash >>> 33;
+  }
+
+  /**
+   * This class represents the window of a single channel.
+   *
+   * Note: All state is guarded by the window itself.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  private static final class Window {
+    /**
+     * {@link Integer} the amount of counters per row.
+     */
+    private final int width;
+
+    /**
+     * {@link Long} array of the hashes of coalesced floods (0 if the slot is free).
+     */
+    private final long[] coalescedHashes = new long[COALESCE_SLOTS];
+
+    /**
+     * {@link Command} array of the commands of coalesced floods.
+     */
+    private final Command[] coalescedCommands = new Command[COALESCE_SLOTS];
+
+    /**
+     * {@link String} array of the first message of coalesced floods.
+     */
+    private final String[] coalescedMessages = new String[COALESCE_SLOTS];
+
+    /**
+     * {@link Integer} array of the amount of copies of coalesced floods.
+     */
+    private final int[] coalescedCounts = new int[COALESCE_SLOTS];
+
+    /**
+     * {@link Byte} array of the counters of the current half.
+     */
+    private byte[] current;
+
+    /**
+     * {@link Byte} array of the counters of the previous half.
+     */
+    private byte[] previous;
+
+    /**
+     * {@link Boolean} whether anything was counted in the current half.
+     */
+    private boolean touched;
+
+    /**
+     * {@link Boolean} whether anything was counted in the previous half.
+     */
+    private boolean touchedBefore;
+
+    /**
+     * Primary constructor.
+     */
+    private Window(int width) {
+      this.width = width;
+      this.current = new byte[DEPTH * width];
+      this.previous = new byte[DEPTH * width];
+    }
+
+    /**
+     * Count a hash (conservatively, only raising the lowest counters).
+     *
+     * @return {@link Integer} the estimated amount of copies within the window, this one included.
+     */
+    private synchronized int increment(long hash) {
+      touched = true;
+      final int low = (int) hash, high = (int) (hash >>> 32);
+      int minimum = SATURATED;
+      for (int row = 0; row < DEPTH; row++)
+        minimum = Math.min(minimum, current[slot(row, low, high)]);
+
+      int estimate = Integer.MAX_VALUE;
+      for (int row = 0; row < DEPTH; row++) {
+        final int slot = slot(row, low, high);
+        if (current[slot] == minimum && minimum < SATURATED)
+          current[slot]++;
+        estimate = Math.min(estimate, current[slot] + previous[slot]);
+      }
+      return estimate;
+    }
+
+    /**
+     * Hold back a copy of a flood.
+     */
+    private synchronized void coalesce(long hash, Command command, String message) {
+      int free = -1;
+      for (int slot = 0; slot < COALESCE_SLOTS; slot++) {
+        if (coalescedHashes[slot] == hash && coalescedCommands[slot] == command) {
+          coalescedCounts[slot]++;
+          return;
+        }
+        if (free < 0 && coalescedCommands[slot] == null)
+          free = slot;
+      }
+
+      // once the table is full, further floods are only dropped
+      if (free >= 0) {
+        coalescedHashes[free] = hash;
+        coalescedCommands[free] = command;
+        coalescedMessages[free] = message;
+        coalescedCounts[free] = 1;
+      }
+    }
+
+    /**
+     * Start the next half, forgetting the previous one.
+     *
+     * @return {@link Boolean} whether this window was idle for both halves (and may be dropped).
+     */
+    private synchronized boolean rotate() {
+      final boolean idle = !touched && !touchedBefore;
+      final byte[] cleared = previous;
+      Arrays.fill(cleared, (byte) 0);
+      previous = current;
+      current = cleared;
+      touchedBefore = touched;
+      touched = false;
+      return idle;
+    }
+
+    /**
+     * Report all coalesced floods where their commands are performed, emptying the table.
+     */
+    private void report(CommandController controller, BotClient client, String channel) {
+      final Command[] commands;
+      final String[] messages;
+      final int[] counts;
+      synchronized (this) {
+        commands = coalescedCommands.clone();
+        messages = coalescedMessages.clone();
+        counts = coalescedCounts.clone();
+        Arrays.fill(coalescedHashes, 0);
+        Arrays.fill(coalescedCommands, null);
+        Arrays.fill(coalescedMessages, null);
+        Arrays.fill(coalescedCounts, 0);
+      }
+
+      for (int slot = 0; slot < COALESCE_SLOTS; slot++) {
+        final Command command = commands[slot];
+        final String message = messages[slot];
+        final int count = counts[slot];
+        if (command != null)
+          controller.execute(channel, command, () -> command.onCoalesced(client, channel, message, count), client);
+      }
+    }
+
+    /**
+     * Get the slot of a hash in a row (double hashing).
+     */
+    private int slot(int row, int low, int high) {
+      return row * width + ((low + row * high) & (width - 1));
+    }
+  }
+}
\ No newline at end of file
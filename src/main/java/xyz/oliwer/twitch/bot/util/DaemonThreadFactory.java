@@ -0,0 +1,42 @@
+package xyz.oliwer.twitch.bot.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents a thread factory of daemon threads, numbered in order of creation (i.e {@code command-worker-1}).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+  /**
+   * {@link String} this property represents the name of created threads, before their number.
+   */
+  private final String name;
+
+  /**
+   * {@link AtomicInteger} this property represents the amount of threads created.
+   */
+  private final AtomicInteger counter = new AtomicInteger();
+
+  /**
+   * Primary constructor.
+   *
+   * @param name {@link String} the name of created threads, before their number.
+   */
+  public DaemonThreadFactory(String name) {
+    if (name == null)
+      throw new NullPointerException("name must not be null");
+    this.name = name;
+  }
+
+  /**
+   * @see ThreadFactory#newThread(Runnable)
+   */
+  @Override
+  public Thread newThread(Runnable runnable) {
+    final Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+}
\ No newline at end of file
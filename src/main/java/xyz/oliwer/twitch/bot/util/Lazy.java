@@ -0,0 +1,76 @@
+package xyz.oliwer.twitch.bot.util;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a value created upon first use (at most once, even when first used concurrently).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class Lazy<Value> implements Supplier<Value> {
+  /**
+   * {@link Supplier} this property represents the creation of the value (dropped once created).
+   */
+  private Supplier<Value> factory;
+
+  /**
+   * {@link Value} this property represents the value (null until created).
+   */
+  private volatile Value value;
+
+  /**
+   * Primary constructor.
+   *
+   * @param factory {@link Supplier} the creation of the value (must not produce null).
+   */
+  public Lazy(Supplier<Value> factory) {
+    if (factory == null)
+      throw new NullPointerException("factory must not be null");
+    this.factory = factory;
+  }
+
+  /**
+   * Get the value, creating it if this is its first use.
+   *
+   * @see Supplier#get()
+   */
+  @Override
+  public Value get() {
+    final Value current = value;
+    if (current != null) {
+      return current;
+    }
+
+    synchronized (this) {
+      if (value == null) {
+        final Value created = factory.get();
+        if (created == null)
+          throw new NullPointerException("factory produced null");
+        value = created;
+        factory = null;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Get whether the value has been created.
+   *
+   * @return {@link Boolean}
+   */
+  public boolean isCreated() {
+    return value != null;
+  }
+
+  /**
+   * Pass the value to an action, only if it has been created.
+   *
+   * @param action {@link Consumer} the action.
+   */
+  public void ifCreated(Consumer<Value> action) {
+    final Value current = value;
+    if (current != null)
+      action.accept(current);
+  }
+}
\ No newline at end of file
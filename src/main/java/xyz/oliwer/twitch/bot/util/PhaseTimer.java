@@ -0,0 +1,125 @@
+package xyz.oliwer.twitch.bot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This class represents the timing of named phases (i.e of starting up), logging each phase as it completes
+ * (through the platform logger, at the info level).
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class PhaseTimer {
+  /**
+   * {@link System.Logger} this constant represents the logger completed phases are logged to.
+   */
+  private static final System.Logger LOGGER = System.getLogger(PhaseTimer.class.getName());
+
+  /**
+   * {@link String} this property represents the name of what is being timed (prefixing every log line).
+   */
+  private final String name;
+
+  /**
+   * {@link Long} this property represents the point in time (nanoTime) timing started at.
+   */
+  private final long startedAt = System.nanoTime();
+
+  /**
+   * {@link List} this property represents all completed phases (guarded by itself).
+   */
+  private final List<Phase> phases = new ArrayList<>();
+
+  /**
+   * Primary constructor.
+   *
+   * @param name {@link String} name of what is being timed.
+   */
+  public PhaseTimer(String name) {
+    if (name == null)
+      throw new NullPointerException("name must not be null");
+    this.name = name;
+  }
+
+  /**
+   * Time a phase on the calling thread.
+   *
+   * @param phase {@link String} name of the phase.
+   * @param action {@link Supplier} the phase.
+   * @return {@link Result} the result of said phase.
+   */
+  public <Result> Result time(String phase, Supplier<Result> action) {
+    final long start = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      record(phase, start);
+    }
+  }
+
+  /**
+   * Time a phase on the calling thread.
+   *
+   * @param phase {@link String} name of the phase.
+   * @param action {@link Runnable} the phase.
+   */
+  public void time(String phase, Runnable action) {
+    time(phase, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Time a phase running on an executor, alongside other phases.
+   *
+   * @param phase {@link String} name of the phase.
+   * @param action {@link Runnable} the phase.
+   * @param executor {@link Executor} the executor to run said phase on.
+   * @return {@link CompletableFuture} completed once said phase is.
+   */
+  public CompletableFuture<Void> async(String phase, Runnable action, Executor executor) {
+    return CompletableFuture.runAsync(() -> time(phase, action), executor);
+  }
+
+  /**
+   * Log the total time elapsed since timing started.
+   *
+   * @return {@link List} all phases completed so far, in order of completion.
+   */
+  public List<Phase> finish() {
+    final long elapsed = System.nanoTime() - startedAt;
+    LOGGER.log(System.Logger.Level.INFO, () -> String.format("[%s] done in %d ms", name, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    synchronized (phases) {
+      return List.copyOf(phases);
+    }
+  }
+
+  /**
+   * Record and log a completed phase.
+   */
+  private void record(String phase, long start) {
+    final long end = System.nanoTime();
+    final Phase completed = new Phase(phase, start - startedAt, end - start);
+    synchronized (phases) {
+      phases.add(completed);
+    }
+    final String thread = Thread.currentThread().getName();
+    LOGGER.log(System.Logger.Level.INFO, () -> String.format(
+      "[%s] %s took %d ms (at +%d ms, %s)",
+      name, phase, TimeUnit.NANOSECONDS.toMillis(completed.nanos()),
+      TimeUnit.NANOSECONDS.toMillis(completed.offsetNanos()), thread
+    ));
+  }
+
+  /**
+   * This record represents a completed phase.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public record Phase(String name, long offsetNanos, long nanos) {}
+}
\ No newline at end of file
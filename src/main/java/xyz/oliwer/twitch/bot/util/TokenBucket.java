@@ -0,0 +1,125 @@
+package xyz.oliwer.twitch.bot.util;
+
+/**
+ * This class represents a token bucket - a rate limiter which allows bursts up to its capacity
+ * and refills one token at a fixed interval.
+ *
+ * Note: This class is NOT thread safe, callers are expected to guard it themselves.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+public final class TokenBucket {
+  /**
+   * {@link Long} this property represents the maximum amount of tokens held.
+   */
+  private final long capacity;
+
+  /**
+   * {@link Long} this property represents the nanoseconds it takes to refill a single token.
+   */
+  private final long refillNanos;
+
+  /**
+   * {@link Long} this property represents the amount of tokens currently held.
+   */
+  private long tokens;
+
+  /**
+   * {@link Long} this property represents the last point in time (nanoTime) tokens were refilled.
+   */
+  private long refilledAt;
+
+  /**
+   * Primary constructor.
+   *
+   * @param capacity {@link Long} the maximum amount of tokens held (starts full).
+   * @param refillNanos {@link Long} the nanoseconds it takes to refill a single token.
+   * @param now {@link Long} the current point in time (nanoTime).
+   */
+  public TokenBucket(long capacity, long refillNanos, long now) {
+    if (capacity <= 0 || refillNanos <= 0)
+      throw new IllegalArgumentException("capacity and refillNanos must be positive");
+
+    this.capacity = capacity;
+    this.refillNanos = refillNanos;
+    this.tokens = capacity;
+    this.refilledAt = now;
+  }
+
+  /**
+   * Create a bucket allowing at most {@code limit} acquisitions within any window of passed length.
+   * Half of the limit is available as a burst and the other half is refilled over the window.
+   *
+   * @param limit {@link Integer} the amount of acquisitions allowed per window.
+   * @param windowNanos {@link Long} the length of said window in nanoseconds.
+   * @param now {@link Long} the current point in time (nanoTime).
+   * @return {@link TokenBucket}
+   */
+  public static TokenBucket perWindow(int limit, long windowNanos, long now) {
+    final long burst = Math.max(1, limit / 2);
+    final long refilled = Math.max(1, limit - burst);
+    return new TokenBucket(burst, windowNanos / refilled, now);
+  }
+
+  /**
+   * Attempt to take a token.
+   *
+   * @param now {@link Long} the current point in time (nanoTime).
+   * @return {@link Boolean} whether a token was taken.
+   */
+  public boolean tryAcquire(long now) {
+    refill(now);
+    if (tokens == 0) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  /**
+   * Get the nanoseconds until a token is available.
+   *
+   * @param now {@link Long} the current point in time (nanoTime).
+   * @return {@link Long} zero if a token is available right away.
+   */
+  public long nanosUntilAvailable(long now) {
+    refill(now);
+    return tokens > 0 ? 0 : refillNanos - (now - refilledAt);
+  }
+
+  /**
+   * Get whether this bucket is full - meaning it has been idle long enough to be discarded.
+   *
+   * @param now {@link Long} the current point in time (nanoTime).
+   * @return {@link Boolean}
+   */
+  public boolean isFull(long now) {
+    refill(now);
+    return tokens == capacity;
+  }
+
+  /**
+   * Refill all tokens earned since the last refill.
+   */
+  private void refill(long now) {
+    if (tokens == capacity) {
+      // a full bucket earns nothing, so the time it spent full must not count towards the next token either
+      refilledAt = now;
+      return;
+    }
+
+    final long elapsed = now - refilledAt;
+    if (elapsed < refillNanos) {
+      return;
+    }
+
+    final long earned = elapsed / refillNanos;
+    if (tokens + earned >= capacity) {
+      tokens = capacity;
+      refilledAt = now;
+    } else {
+      tokens += earned;
+      refilledAt += earned * refillNanos;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package xyz.oliwer.twitch.bot.chatlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class represents the tests of {@link ChatLog}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class ChatLogTest {
+  /**
+   * {@link Long} this constant represents the timestamp of the first message of each test.
+   */
+  private static final long BASE = 1_700_000_000_000L;
+
+  @Test
+  void readsBackWhatWasAppended(@TempDir Path directory) {
+    try (ChatLog log = new ChatLog(directory)) {
+      append(log, "channel", 100);
+      log.flush();
+
+      final List<ChatLog.Entry> entries = log.read("Channel", 0, Long.MAX_VALUE);
+      assertEquals(100, entries.size());
+      for (int index = 0; index < 100; index++)
+        assertEquals(entry(index), entries.get(index));
+
+      assertEquals(entries.subList(10, 20), log.read("channel", BASE + 10, BASE + 20));
+      assertTrue(log.read("channel", BASE + 20, BASE + 10).isEmpty());
+    }
+  }
+
+  @Test
+  void closedSegmentsAreSealedAndStayReadable(@TempDir Path directory) throws IOException {
+    try (ChatLog log = new ChatLog(directory, 4096, Duration.ofHours(1), 1 << 16)) {
+      append(log, "channel", 2000);
+    }
+
+    // close waits for sealing, so every closed segment is compressed by now
+    assertTrue(files(directory.resolve("channel"), ".dat") > 0, "no segment was sealed");
+
+    try (ChatLog log = new ChatLog(directory, 4096, Duration.ofHours(1), 1 << 16)) {
+      final List<ChatLog.Entry> entries = log.read("channel", 0, Long.MAX_VALUE);
+      assertEquals(2000, entries.size());
+      for (int index = 0; index < 2000; index++)
+        assertEquals(entry(index), entries.get(index));
+      assertEquals(List.of(entry(1234)), log.read("channel", BASE + 1234, BASE + 1235));
+    }
+  }
+
+  @Test
+  void journalRecoversWritesLostFromASegment(@TempDir Path directory, @TempDir Path crashed) throws IOException {
+    try (ChatLog log = new ChatLog(directory)) {
+      append(log, "alpha", 500);
+      append(log, "beta", 500);
+      log.flush();
+
+      // a copy taken while open stands in for a crash, with the latest writes of a segment never reaching the disk
+      copy(directory, crashed);
+    }
+    try (FileChannel segment = FileChannel.open(crashed.resolve("alpha").resolve("segment-00000001.log"), StandardOpenOption.WRITE)) {
+      segment.truncate(100);
+    }
+
+    try (ChatLog log = new ChatLog(crashed)) {
+      assertEquals(500, log.read("alpha", 0, Long.MAX_VALUE).size());
+      assertEquals(500, log.read("beta", 0, Long.MAX_VALUE).size());
+    }
+  }
+
+  @Test
+  void tornTailIsCutOffUponOpening(@TempDir Path directory) throws IOException {
+    try (ChatLog log = new ChatLog(directory)) {
+      append(log, "channel", 10);
+    }
+    try (FileChannel segment = FileChannel.open(directory.resolve("channel").resolve("segment-00000001.log"), StandardOpenOption.APPEND)) {
+      segment.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 42, 1, 2, 3 }));
+    }
+
+    try (ChatLog log = new ChatLog(directory)) {
+      assertEquals(10, log.read("channel", 0, Long.MAX_VALUE).size());
+      log.append("channel", BASE + 10, "10", "user10", "message 10");
+      log.flush();
+      assertEquals(11, log.read("channel", 0, Long.MAX_VALUE).size());
+    }
+  }
+
+  @Test
+  void readingAnUnknownChannelCreatesNothing(@TempDir Path directory) {
+    try (ChatLog log = new ChatLog(directory)) {
+      assertTrue(log.read("unknown", 0, Long.MAX_VALUE).isEmpty());
+      assertFalse(Files.exists(directory.resolve("unknown")));
+    }
+  }
+
+  @Test
+  void rejectsInvalidChannels(@TempDir Path directory) {
+    try (ChatLog log = new ChatLog(directory)) {
+      assertThrows(IllegalArgumentException.class, () -> log.append("../escape", BASE, "1", "user", "message"));
+      assertTrue(log.read("../escape", 0, Long.MAX_VALUE).isEmpty());
+    }
+  }
+
+  /**
+   * Append messages to a channel, one millisecond apart.
+   */
+  private static void append(ChatLog log, String channel, int count) {
+    for (int index = 0; index < count; index++) {
+      final ChatLog.Entry entry = entry(index);
+      assertTrue(log.append(channel, entry.timestamp(), entry.userId(), entry.userName(), entry.message()));
+    }
+  }
+
+  /**
+   * Get the entry appended at an index.
+   */
+  private static ChatLog.Entry entry(int index) {
+    return new ChatLog.Entry(BASE + index, String.valueOf(index), "user" + index, "message " + index);
+  }
+
+  /**
+   * Count the files of a directory by extension.
+   */
+  private static long files(Path directory, String extension) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(extension)).count();
+    }
+  }
+
+  /**
+   * Copy a directory (and all it holds).
+   */
+  private static void copy(Path source, Path target) throws IOException {
+    try (Stream<Path> files = Files.walk(source)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        final Path copied = target.resolve(source.relativize(file).toString());
+        if (Files.isDirectory(file))
+          Files.createDirectories(copied);
+        else
+          Files.copy(file, copied);
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package xyz.oliwer.twitch.bot.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class represents the tests of {@link HashRing}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class HashRingTest {
+  /**
+   * {@link Integer} this constant represents the amount of channels placed per test.
+   */
+  private static final int CHANNELS = 10_000;
+
+  @Test
+  void emptyRingOwnsNothing() {
+    assertNull(HashRing.EMPTY.owner("channel"));
+    assertNull(HashRing.of(List.of()).owner("channel"));
+    assertTrue(HashRing.EMPTY.nodes().isEmpty());
+  }
+
+  @Test
+  void ownershipIgnoresOrderOfNodes() {
+    final HashRing ring = HashRing.of(List.of("node1", "node2", "node3"));
+    final HashRing reordered = HashRing.of(List.of("node3", "node1", "node2"));
+    for (int index = 0; index < CHANNELS; index++) {
+      final String channel = "channel" + index;
+      assertEquals(ring.owner(channel), reordered.owner(channel), channel);
+    }
+  }
+
+  @Test
+  void everyNodeOwnsAFairShare() {
+    final List<String> nodes = List.of("node1", "node2", "node3", "node4");
+    final Map<String, Integer> shares = owners(HashRing.of(nodes)).values().stream()
+      .collect(HashMap::new, (map, node) -> map.merge(node, 1, Integer::sum), Map::putAll);
+
+    assertEquals(new HashSet<>(nodes), shares.keySet());
+    for (Map.Entry<String, Integer> share : shares.entrySet()) {
+      final double fraction = share.getValue() / (double) CHANNELS;
+      assertTrue(fraction > 0.15 && fraction < 0.35, share.getKey() + " owns " + fraction + " of all channels");
+    }
+  }
+
+  @Test
+  void addingANodeOnlyMovesChannelsOntoIt() {
+    final Map<String, String> before = owners(HashRing.of(List.of("node1", "node2", "node3")));
+    final Map<String, String> after = owners(HashRing.of(List.of("node1", "node2", "node3", "node4")));
+
+    int moved = 0;
+    for (Map.Entry<String, String> owner : after.entrySet()) {
+      if (owner.getValue().equals(before.get(owner.getKey())))
+        continue;
+      assertEquals("node4", owner.getValue(), owner.getKey() + " moved between existing nodes");
+      moved++;
+    }
+    assertTrue(moved > 0 && moved < CHANNELS / 2, moved + " channels moved");
+  }
+
+  @Test
+  void removingANodeOnlyMovesItsChannels() {
+    final Map<String, String> before = owners(HashRing.of(List.of("node1", "node2", "node3")));
+    final Map<String, String> after = owners(HashRing.of(List.of("node1", "node3")));
+
+    for (Map.Entry<String, String> owner : before.entrySet()) {
+      if (!owner.getValue().equals("node2"))
+        assertEquals(owner.getValue(), after.get(owner.getKey()), owner.getKey() + " moved off a remaining node");
+      else
+        assertNotEquals("node2", after.get(owner.getKey()));
+    }
+  }
+
+  /**
+   * Get the owner of each channel placed on a ring.
+   */
+  private static Map<String, String> owners(HashRing ring) {
+    final Map<String, String> owners = new HashMap<>(CHANNELS * 2);
+    for (int index = 0; index < CHANNELS; index++) {
+      final String channel = "channel" + index;
+      owners.put(channel, ring.owner(channel));
+    }
+    return owners;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package xyz.oliwer.twitch.bot.command;
+
+import org.junit.jupiter.api.Test;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class represents the tests of {@link Cooldown}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class CooldownTest {
+  @Test
+  void userCooldownIsKeptPerUser() {
+    final Cooldown cooldown = Cooldown.perUser(Duration.ofMinutes(1));
+    final ExtractedUser first = user("1"), second = user("2");
+
+    assertTrue(cooldown.attempt(first, "channel"));
+    assertFalse(cooldown.attempt(first, "other"));
+    assertTrue(cooldown.attempt(second, "channel"));
+
+    final Duration retryAfter = cooldown.retryAfter(first, "channel");
+    assertTrue(retryAfter.compareTo(Duration.ZERO) > 0 && retryAfter.compareTo(Duration.ofMinutes(1)) <= 0, retryAfter.toString());
+    assertEquals(Duration.ZERO, cooldown.retryAfter(user("3"), "channel"));
+  }
+
+  @Test
+  void channelCooldownIsKeptPerChannel() {
+    final Cooldown cooldown = Cooldown.perChannel(Duration.ofMinutes(1));
+
+    assertTrue(cooldown.attempt(user("1"), "first"));
+    assertFalse(cooldown.attempt(user("2"), "first"));
+    assertTrue(cooldown.attempt(user("1"), "second"));
+  }
+
+  @Test
+  void globalCooldownIsShared() {
+    final Cooldown cooldown = Cooldown.global(Duration.ofMinutes(1));
+
+    assertTrue(cooldown.attempt(user("1"), "first"));
+    assertFalse(cooldown.attempt(user("2"), "second"));
+  }
+
+  @Test
+  void rateLimitAllowsItsUsesPerWindow() {
+    final Cooldown cooldown = Cooldown.rateLimit(Cooldown.Scope.USER, 3, Duration.ofMinutes(1));
+    final ExtractedUser user = user("1");
+
+    for (int use = 0; use < 3; use++)
+      assertTrue(cooldown.attempt(user, "channel"), "use " + use);
+    assertFalse(cooldown.attempt(user, "channel"));
+  }
+
+  @Test
+  void windowExpires() throws InterruptedException {
+    final Cooldown cooldown = Cooldown.perUser(Duration.ofMillis(50));
+    final ExtractedUser user = user("1");
+
+    assertTrue(cooldown.attempt(user, "channel"));
+    assertFalse(cooldown.attempt(user, "channel"));
+    Thread.sleep(100);
+    assertEquals(Duration.ZERO, cooldown.retryAfter(user, "channel"));
+    assertTrue(cooldown.attempt(user, "channel"));
+  }
+
+  @Test
+  void fullTableNeverEvictsALiveWindow() {
+    // far more users than slots - those finding no free slot are kept in the overflow instead
+    final Cooldown cooldown = new Cooldown(Cooldown.Scope.USER, Duration.ofMinutes(1), 1, 4);
+    for (int index = 0; index < 1000; index++)
+      assertTrue(cooldown.attempt(user(String.valueOf(index)), "channel"), "first use of " + index);
+    for (int index = 0; index < 1000; index++) {
+      assertFalse(cooldown.attempt(user(String.valueOf(index)), "channel"), "second use of " + index);
+      assertTrue(cooldown.retryAfter(user(String.valueOf(index)), "channel").compareTo(Duration.ZERO) > 0, "retry of " + index);
+    }
+  }
+
+  @Test
+  void rejectsInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new Cooldown(Cooldown.Scope.USER, Duration.ZERO, 1, 4));
+    assertThrows(IllegalArgumentException.class, () -> new Cooldown(Cooldown.Scope.USER, Duration.ofSeconds(1), Cooldown.MAX_USES + 1, 4));
+    assertThrows(NullPointerException.class, () -> new Cooldown(null, Duration.ofSeconds(1), 1, 4));
+  }
+
+  /**
+   * Create a user without permissions.
+   */
+  private static ExtractedUser user(String id) {
+    return new ExtractedUser(id, "user" + id, 0L);
+  }
+}
\ No newline at end of file
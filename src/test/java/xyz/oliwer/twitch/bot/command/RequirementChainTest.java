@@ -0,0 +1,63 @@
+package xyz.oliwer.twitch.bot.command;
+
+import com.github.twitch4j.common.enums.CommandPermission;
+import org.junit.jupiter.api.Test;
+import xyz.oliwer.twitch.bot.structure.ExtractedUser;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.oliwer.twitch.bot.command.Command.Requirement;
+
+/**
+ * This class represents the tests of {@link RequirementChain}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class RequirementChainTest {
+  /**
+   * {@link ExtractedUser} this constant represents the user attempting each chain.
+   */
+  private static final ExtractedUser USER = new ExtractedUser("1", "user1", 0L);
+
+  @Test
+  void emptyChainPasses() {
+    assertNull(RequirementChain.of(List.of()).attempt(USER, "channel"));
+  }
+
+  @Test
+  void deniedCommandDoesNotUseUpACooldown() {
+    final Cooldown cooldown = Cooldown.perUser(Duration.ofMinutes(1));
+    final Requirement denying = user -> false;
+    // registered before the denying requirement, yet only applied once every other requirement passed
+    final RequirementChain chain = RequirementChain.of(List.of(cooldown, denying));
+
+    assertSame(denying, chain.attempt(USER, "channel"));
+    assertSame(denying, chain.attempt(USER, "channel"));
+    assertTrue(cooldown.isAvailable(USER, "channel"));
+  }
+
+  @Test
+  void cooldownDeniedByAnotherIsNotUsedUp() {
+    final Cooldown first = Cooldown.perUser(Duration.ofMinutes(1)), second = Cooldown.perChannel(Duration.ofMinutes(1));
+    assertTrue(second.attempt(USER, "channel"));
+
+    final RequirementChain chain = RequirementChain.of(List.of(first, second));
+    assertSame(second, chain.attempt(USER, "channel"));
+    assertTrue(first.isAvailable(USER, "channel"));
+
+    assertNull(chain.attempt(USER, "other"));
+    assertSame(first, chain.attempt(USER, "another"));
+  }
+
+  @Test
+  void permissionsAreTestedFirst() {
+    final Cooldown cooldown = Cooldown.perUser(Duration.ofMinutes(1));
+    final Requirement permission = Requirement.permission(CommandPermission.BROADCASTER);
+    final RequirementChain chain = RequirementChain.of(List.of(cooldown, permission));
+
+    assertSame(permission, chain.attempt(USER, "channel"));
+    assertTrue(cooldown.isAvailable(USER, "channel"));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class represents the tests of {@link EventHandlers}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class EventHandlersTest {
+  @Test
+  void generatesHandlerOfPublicSubscriber() throws Throwable {
+    final PublicSubscriber subscriber = new PublicSubscriber();
+    final Consumer<Object> handler = EventHandlers.generate(subscriber, PublicSubscriber.class.getMethod("onEvent", String.class));
+
+    handler.accept("first");
+    handler.accept("second");
+    assertEquals(List.of("first", "second"), subscriber.received);
+  }
+
+  @Test
+  void generatesHandlerOfPackagePrivateSubscriber() throws Throwable {
+    final PackageSubscriber subscriber = new PackageSubscriber();
+    final Consumer<Object> handler = EventHandlers.generate(subscriber, PackageSubscriber.class.getDeclaredMethod("onEvent", String.class));
+
+    handler.accept("event");
+    assertEquals(List.of("event"), subscriber.received);
+  }
+
+  @Test
+  void compileFallsBackToBindingInaccessibleMethods() throws NoSuchMethodException {
+    final PrivateSubscriber subscriber = new PrivateSubscriber();
+    final Method method = PrivateSubscriber.class.getDeclaredMethod("onEvent", String.class);
+    assertThrows(IllegalAccessException.class, () -> EventHandlers.generate(subscriber, method));
+
+    EventHandlers.compile(subscriber, method).accept("event");
+    assertEquals(List.of("event"), subscriber.received);
+  }
+
+  @Test
+  void handlerRejectsEventsOfAnotherType() throws Throwable {
+    final Consumer<Object> handler = EventHandlers.generate(new PublicSubscriber(), PublicSubscriber.class.getMethod("onEvent", String.class));
+    assertThrows(ClassCastException.class, () -> handler.accept(1));
+  }
+
+  /**
+   * This class represents a public subscriber.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  public static final class PublicSubscriber {
+    /**
+     * {@link List} this property represents the events received.
+     */
+    private final List<String> received = new ArrayList<>();
+
+    public void onEvent(String event) {
+      received.add(event);
+    }
+  }
+
+  /**
+   * This class represents a package-private subscriber.
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  static final class PackageSubscriber {
+    /**
+     * {@link List} this property represents the events received.
+     */
+    private final List<String> received = new ArrayList<>();
+
+    void onEvent(String event) {
+      received.add(event);
+    }
+  }
+
+  /**
+   * This class represents a subscriber whose handler is private (so only accessible by binding).
+   *
+   * @author Oliwer - https://www.github.com/ImOliwer
+   */
+  static final class PrivateSubscriber {
+    /**
+     * {@link List} this property represents the events received.
+     */
+    private final List<String> received = new ArrayList<>();
+
+    private void onEvent(String event) {
+      received.add(event);
+    }
+  }
+}
\ No newline at end of file
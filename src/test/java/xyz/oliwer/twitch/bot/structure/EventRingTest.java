@@ -0,0 +1,187 @@
+package xyz.oliwer.twitch.bot.structure;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import xyz.oliwer.twitch.bot.metrics.Counter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class represents the tests of {@link EventRing}.
+ *
+ * @author Oliwer - https://www.github.com/ImOliwer
+ */
+final class EventRingTest {
+  /**
+   * {@link EventRing} this property represents the ring under test.
+   */
+  private final EventRing ring = new EventRing(8);
+
+  /**
+   * {@link List} this property represents the failures no test expected.
+   */
+  private final List<Exception> unexpected = new ArrayList<>();
+
+  @AfterEach
+  void close() {
+    ring.close();
+    synchronized (unexpected) {
+      assertTrue(unexpected.isEmpty(), "unexpected failures: " + unexpected);
+    }
+  }
+
+  @Test
+  void capacityIsRoundedUpToAPowerOfTwo() {
+    assertEquals(8, ring.capacity());
+    assertEquals(16, new EventRing(9).capacity());
+    assertThrows(IllegalArgumentException.class, () -> new EventRing(1));
+  }
+
+  @Test
+  void blockingConsumerHandlesEveryEventInOrder() throws InterruptedException {
+    final List<Object> handled = new ArrayList<>();
+    final Counter dropped = new Counter(), sampled = new Counter();
+    ring.add("block", EventSubscriber.Overflow.BLOCK, batch -> {
+      synchronized (handled) {
+        handled.addAll(batch);
+      }
+      sleep(1);
+    }, this::unexpected, dropped, sampled);
+
+    for (int event = 0; event < 1000; event++)
+      ring.publish(event);
+    await(() -> size(handled) == 1000);
+
+    for (int event = 0; event < 1000; event++)
+      assertEquals(event, handled.get(event));
+    assertEquals(0, dropped.get());
+    assertEquals(0, sampled.get());
+  }
+
+  @Test
+  void lappedConsumerSkipsAheadCountingDrops() throws InterruptedException {
+    final List<Object> handled = new ArrayList<>();
+    final Counter dropped = new Counter(), sampled = new Counter();
+    final CountDownLatch release = new CountDownLatch(1);
+    final EventRing.Group group = ring.add("drop", EventSubscriber.Overflow.DROP_OLDEST, batch -> {
+      synchronized (handled) {
+        handled.addAll(batch);
+      }
+      await(release);
+    }, this::unexpected, dropped, sampled);
+
+    // never waits, even though the consumer is stuck on its first batch
+    for (int event = 0; event < 100; event++)
+      ring.publish(event);
+    release.countDown();
+    await(() -> group.lag(ring) == 0);
+
+    assertTrue(dropped.get() > 0);
+    assertEquals(100, size(handled) + dropped.get(), "every event is either handled or dropped");
+    for (int index = 1; index < handled.size(); index++)
+      assertTrue((int) handled.get(index) > (int) handled.get(index - 1), "handled out of order: " + handled);
+    assertEquals(99, handled.get(handled.size() - 1));
+  }
+
+  @Test
+  void failingBatchIsReportedAndConsumptionGoesOn() throws InterruptedException {
+    final List<Exception> failures = new ArrayList<>();
+    final List<Object> handled = new ArrayList<>();
+    ring.add("fail", EventSubscriber.Overflow.BLOCK, batch -> {
+      synchronized (handled) {
+        handled.addAll(batch);
+      }
+      if (batch.contains(0))
+        throw new IllegalStateException("first batch");
+    }, exception -> {
+      synchronized (failures) {
+        failures.add(exception);
+      }
+    }, new Counter(), new Counter());
+
+    ring.publish(0);
+    await(() -> size(failures) == 1);
+    ring.publish(1);
+    await(() -> size(handled) == 2);
+
+    assertTrue(failures.get(0) instanceof IllegalStateException);
+  }
+
+  @Test
+  void removedConsumerStopsHandling() throws InterruptedException {
+    final List<Object> handled = new ArrayList<>();
+    final EventRing.Group group = ring.add("removed", EventSubscriber.Overflow.BLOCK, batch -> {
+      synchronized (handled) {
+        handled.addAll(batch);
+      }
+    }, this::unexpected, new Counter(), new Counter());
+
+    ring.publish(0);
+    await(() -> size(handled) == 1);
+    ring.remove(group);
+
+    // a removed blocking consumer no longer holds up publishing either
+    for (int event = 1; event <= ring.capacity() * 2; event++)
+      ring.publish(event);
+    sleep(50);
+    assertEquals(1, size(handled));
+  }
+
+  /**
+   * Wait until a condition holds, failing after a few seconds.
+   */
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline)
+        fail("condition not met in time");
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Wait for a latch within a handler.
+   */
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Sleep within a handler.
+   */
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Get the size of a list shared with a consumer.
+   */
+  private static int size(List<?> list) {
+    synchronized (list) {
+      return list.size();
+    }
+  }
+
+  /**
+   * Record a failure no test expected.
+   */
+  private void unexpected(Exception exception) {
+    synchronized (unexpected) {
+      unexpected.add(exception);
+    }
+  }
+}
\ No newline at end of file